@@ -17,12 +17,20 @@
  */
 package jgnash.bayes;
 
-import java.util.*;
-import java.util.Map.Entry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Naive Bayes BayesClassifier.
  * Modeled after classifier presented in "Programming Collective Intelligence" by Toby Segaran
+ * <p>
+ * Features and classes are interned to integer ids and counts are kept in primitive arrays.  An item is
+ * tokenized once and all classes are scored in a single pass.  Scores are summed in log space to prevent
+ * underflow with long items.
  *
  * @author Craig Cavanaugh
  */
@@ -36,143 +44,281 @@ public class BayesClassifier<E> {
     private final static double ASSUMED_PROBABILITY = 0.5;
     private final static double THRESHOLD = 1.0;
     private final static double WEIGHT = 1.0;
-    private final static String WHITE_SPACE_REGEX = "[,\\s]+";
-    // private final static String NUMBERS_REGEX = "(?>-?\\d+(?:[\\./]\\d+)?)";
+    private final static double LOG_THRESHOLD = Math.log(THRESHOLD);
+    private final static double LOG_ASSUMED_PROBABILITY = Math.log(ASSUMED_PROBABILITY);
 
-    private final Map<String, Map<E, Integer>> featureCounter = new HashMap<>();
-    private final Map<E, Integer> classCounter = new HashMap<>();
+    private final static int INITIAL_CAPACITY = 16;
+
+    /**
+     * Maps a feature to its id
+     */
+    private final Map<String, Integer> featureIds = new HashMap<>();
+
+    /**
+     * Per feature class occurrence counts, indexed by feature id
+     */
+    private final List<FeatureCounts> featureCounts = new ArrayList<>();
+
+    /**
+     * Total occurrence count of each feature across all classes, indexed by feature id
+     */
+    private int[] featureTotals = new int[INITIAL_CAPACITY];
+
+    /**
+     * Maps a class to its id
+     */
+    private final Map<E, Integer> classIds = new HashMap<>();
+
+    /**
+     * Classes indexed by class id
+     */
+    private final List<E> classes = new ArrayList<>();
+
+    /**
+     * Number of times each class has been trained, indexed by class id
+     */
+    private int[] classCounts = new int[INITIAL_CAPACITY];
+
+    /**
+     * Number of classes with a non zero count
+     */
+    private int activeClasses;
 
     public BayesClassifier(final E defaultClass) {
         this.defaultClass = defaultClass;
     }
 
-    private void incrementFeature(final String feature, final E classification) {
-        Map<E, Integer> featureMap = featureCounter.get(feature);
+    /**
+     * Splits an item into features using commas and whitespace as separators.  Empty features are discarded.
+     *
+     * @param item item to split
+     * @return list of lower case features
+     */
+    private static List<String> tokenize(final String item) {
+        final String lower = item.toLowerCase(Locale.getDefault());
+        final List<String> features = new ArrayList<>();
+
+        int start = -1;
+
+        for (int i = 0; i < lower.length(); i++) {
+            if (isSeparator(lower.charAt(i))) {
+                if (start >= 0) {
+                    features.add(lower.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
 
-        if (featureMap == null) {
-            featureMap = new HashMap<>();
-            featureMap.put(classification, 1);
-            featureCounter.put(feature, featureMap);
-            return;
+        if (start >= 0) {
+            features.add(lower.substring(start));
         }
 
-        Integer count = featureMap.get(classification);
-        count = (count == null) ? 1 : count + 1;
-        featureMap.put(classification, count);
+        return features;
     }
 
     /**
-     * Support method to increment a classification
-     *
-     * @param classification classification to increment
+     * Matches the {@code [,\s]} regular expression character class
      */
-    private void incrementClass(final E classification) {
-        Integer count = classCounter.get(classification);
-        count = (count == null) ? 1 : count + 1;
-        classCounter.put(classification, count);
+    private static boolean isSeparator(final char c) {
+        return c == ',' || c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
-    private int getClassCount(final E classification) {
-        Integer count = classCounter.get(classification);
+    private int internFeature(final String feature) {
+        Integer id = featureIds.get(feature);
+
+        if (id == null) {
+            id = featureCounts.size();
+            featureIds.put(feature, id);
+            featureCounts.add(new FeatureCounts());
+
+            if (id == featureTotals.length) {
+                featureTotals = Arrays.copyOf(featureTotals, id * 2);
+            }
+        }
 
-        return (count != null) ? count : 0;
+        return id;
     }
 
-    /**
-     * Gets the number of times the feature as occurred in the classification
-     *
-     * @param feature        feature to count
-     * @param classification class
-     * @return occurrence count
-     */
-    private int getFeatureCount(final String feature, final E classification) {
-        Map<E, Integer> featureMap = featureCounter.get(feature);
+    private int internClass(final E classification) {
+        Integer id = classIds.get(classification);
 
-        if (featureMap == null) {
-            return 0;
+        if (id == null) {
+            id = classes.size();
+            classIds.put(classification, id);
+            classes.add(classification);
+
+            if (id == classCounts.length) {
+                classCounts = Arrays.copyOf(classCounts, id * 2);
+            }
         }
-        Integer count = featureMap.get(classification);
 
-        return (count != null) ? count : 0;
+        return id;
     }
 
-    private int getFeatureCount(final String feature) {
-        Map<E, Integer> featureMap = featureCounter.get(feature);
-        int count = 0;
+    private void train(final List<String> features, final E classification, final int delta) {
+        final Integer classId = delta > 0 ? Integer.valueOf(internClass(classification)) : classIds.get(classification);
 
-        if (featureMap == null) {
-            return count;
-        }               
-        
-        for (Entry<E, Integer> entry : featureMap.entrySet()) {
-            count += entry.getValue();
-        }                    
+        if (classId == null || classCounts[classId] + delta < 0) {
+            return; // never trained, nothing to remove
+        }
 
-        return count;
+        for (final String feature : features) {
+            final Integer featureId = delta > 0 ? Integer.valueOf(internFeature(feature)) : featureIds.get(feature);
+
+            if (featureId != null && featureCounts.get(featureId).add(classId, delta)) {
+                featureTotals[featureId] += delta;
+            }
+        }
+
+        if (classCounts[classId] == 0) {
+            activeClasses++;
+        }
+
+        classCounts[classId] += delta;
+
+        if (classCounts[classId] == 0) {
+            activeClasses--;
+        }
     }
 
-    private double getFeatureProbability(final String feature, final E classification) {
-        int count = getClassCount(classification);
-        return (count == 0) ? 0.0 : (double) getFeatureCount(feature, classification) / count;
+    public void train(final String item, final E classification) {
+        train(tokenize(item), classification, 1);
     }
 
-    private double getWeightedProbability(final String feature, final E classification) {
-        double probability = getFeatureProbability(feature, classification);
-        int totals = getFeatureCount(feature);
-        return (WEIGHT * ASSUMED_PROBABILITY + totals * probability) / (WEIGHT + totals);
+    /**
+     * Reverses a prior call to {@link #train(String, Object)} with the same arguments.  Allows the classifier
+     * to be maintained incrementally as the training data changes.
+     *
+     * @param item           item that was previously trained
+     * @param classification classification the item was trained with
+     */
+    public void untrain(final String item, final E classification) {
+        train(tokenize(item), classification, -1);
     }
 
-    private double getClassProbability(final String item, final E classification) {
-        double probability = 1;
+    /**
+     * Computes the log probability of every class for the supplied features in one pass.
+     *
+     * @param features features of the item to classify
+     * @return log probabilities indexed by class id, classes without training are {@code NEGATIVE_INFINITY}
+     */
+    private double[] getClassLogProbabilities(final List<String> features) {
+        final int classCount = classes.size();
+        final double[] scores = new double[classCount];
 
-        for (String feature : item.split(WHITE_SPACE_REGEX)) {
-            probability *= getWeightedProbability(feature, classification);
+        for (int c = 0; c < classCount; c++) {
+            scores[c] = classCounts[c] == 0 ? Double.NEGATIVE_INFINITY
+                    : Math.log((double) classCounts[c] / activeClasses);
         }
 
-        return (double) classCounter.get(classification) / classCounter.size() * probability;
-    }
+        for (final String feature : features) {
+            final Integer featureId = featureIds.get(feature);
+            final int totals = featureId != null ? featureTotals[featureId] : 0;
 
-    private void train(final Collection<String> features, final E classification) {
-        for (String feature : features) {
-            incrementFeature(feature, classification);
+            if (totals == 0) {  // unknown feature, weighted probability is the assumed probability for all classes
+                for (int c = 0; c < classCount; c++) {
+                    scores[c] += LOG_ASSUMED_PROBABILITY;
+                }
+                continue;
+            }
+
+            // classes that have not seen the feature share the same weighted probability
+            final double base = Math.log(WEIGHT * ASSUMED_PROBABILITY / (WEIGHT + totals));
+
+            for (int c = 0; c < classCount; c++) {
+                scores[c] += base;
+            }
+
+            final FeatureCounts counts = featureCounts.get(featureId);
+
+            for (int i = 0; i < counts.size; i++) {
+                final int c = counts.classIds[i];
+
+                if (classCounts[c] > 0) {
+                    final double probability = (double) counts.counts[i] / classCounts[c];
+                    final double weighted = (WEIGHT * ASSUMED_PROBABILITY + totals * probability) / (WEIGHT + totals);
+
+                    scores[c] += Math.log(weighted) - base;
+                }
+            }
         }
-        incrementClass(classification);
-    }
 
-    public void train(final String item, final E classification) {
-        train(Arrays.asList(item.toLowerCase(Locale.getDefault()).split(WHITE_SPACE_REGEX)), classification);               
+        return scores;
     }
 
     public E classify(final String item) {
-        E bestClass = defaultClass;
-        double classProb;
-        double bestProbability;
-        double max = 0;
+        final double[] scores = getClassLogProbabilities(tokenize(item));
 
-        Map<E, Double> probabilities = new HashMap<>();
+        int best = -1;
+        double max = Double.NEGATIVE_INFINITY;
 
         // find the category with the highest probability
-        for (E classification : classCounter.keySet()) {
-            classProb = getClassProbability(item.toLowerCase(Locale.getDefault()), classification);
-            probabilities.put(classification, classProb);
-            if (classProb > max) {
-                max = classProb;
-                bestClass = classification;
+        for (int c = 0; c < scores.length; c++) {
+            if (scores[c] > max) {
+                max = scores[c];
+                best = c;
             }
         }
-                       
+
+        if (best < 0) {
+            return defaultClass;
+        }
+
         // make sure the probability exceeds
-        for (Entry<E, Double> entry : probabilities.entrySet()) {
-            if (!entry.getKey().equals(bestClass)) {
-                classProb = entry.getValue();
-                bestProbability = probabilities.get(bestClass);
-                
-                if (classProb * THRESHOLD >= bestProbability) {
-                    return defaultClass;
+        for (int c = 0; c < scores.length; c++) {
+            if (c != best && scores[c] + LOG_THRESHOLD >= max) {
+                return defaultClass;
+            }
+        }
+
+        return classes.get(best);
+    }
+
+    /**
+     * Sparse class occurrence counts for a single feature
+     */
+    private static final class FeatureCounts {
+
+        private int[] classIds = new int[2];
+
+        private int[] counts = new int[2];
+
+        private int size;
+
+        /**
+         * Adjusts the count of a class
+         *
+         * @param classId class id
+         * @param delta   change in count
+         * @return {@code true} if the count was changed
+         */
+        boolean add(final int classId, final int delta) {
+            for (int i = 0; i < size; i++) {
+                if (classIds[i] == classId) {
+                    if (counts[i] + delta < 0) {
+                        return false;
+                    }
+                    counts[i] += delta;
+                    return true;
                 }
             }
-        }       
 
-        return bestClass;
+            if (delta < 0) {
+                return false;
+            }
+
+            if (size == classIds.length) {
+                classIds = Arrays.copyOf(classIds, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+
+            classIds[size] = classId;
+            counts[size] = delta;
+            size++;
+
+            return true;
+        }
     }
-}
\ No newline at end of file
+}
@@ -35,4 +35,39 @@ public class BayesClassifierTest {
         assertEquals("Grocery", classifier.classify("Fish and chips"));
         assertEquals("default",  classifier.classify("flowers and shrubs"));
     }
+
+    @Test
+    public void testUntrain() {
+        BayesClassifier<String> classifier = new BayesClassifier<>("default");
+
+        classifier.train("Gasoline oil washer fluid brakes lights transmission auto", "Auto");
+        classifier.train("groceries bacon fish burger milk chips", "Grocery");
+        classifier.train("movie video DVD music theater", "Entertainment");
+        classifier.train("fish tank aquarium filter", "Pets");
+
+        assertEquals("default", classifier.classify("Fish and chips and tank"));
+
+        classifier.untrain("fish tank aquarium filter", "Pets");
+
+        assertEquals("Grocery", classifier.classify("Fish and chips and tank"));
+        assertEquals("Auto", classifier.classify("Oil and washer fluid"));
+    }
+
+    @Test
+    public void testLongItem() {
+        BayesClassifier<String> classifier = new BayesClassifier<>("default");
+
+        classifier.train("Gasoline oil washer fluid brakes lights transmission auto", "Auto");
+        classifier.train("groceries bacon fish burger milk chips", "Grocery");
+
+        final StringBuilder builder = new StringBuilder();
+
+        // long enough to underflow a product of probabilities
+        for (int i = 0; i < 2000; i++) {
+            builder.append("unknown, ");
+        }
+        builder.append("oil");
+
+        assertEquals("Auto", classifier.classify(builder.toString()));
+    }
 }
@@ -17,20 +17,51 @@
  */
 package jgnash.convert.imports;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jgnash.bayes.BayesClassifier;
 import jgnash.engine.Account;
 import jgnash.engine.Transaction;
+import jgnash.engine.message.Message;
+import jgnash.engine.message.MessageBus;
+import jgnash.engine.message.MessageChannel;
+import jgnash.engine.message.MessageListener;
+import jgnash.engine.message.MessageProperty;
 
 /**
- * Bayes classifier import utility methods
+ * Suggests the destination account of imported transactions with a Bayes classifier trained on the payees and
+ * memos of a base account's existing transactions.
+ * <p>
+ * Classifiers are cached per base account until the file is closed or an account is removed, and transaction
+ * events update them incrementally, so only the first import against an account reads the account's history.
+ * A classifier is trained without holding any lock that transaction events need; events that arrive meanwhile are
+ * queued and applied once training completes.  Each classifier remembers the transactions it has learned so an
+ * event already covered by the history is never applied twice.
  *
  * @author Craig Cavanaugh
  */
 public class BayesImportClassifier {
 
+    private static final Map<Account, AccountClassifier> classifierCache = new ConcurrentHashMap<>();
+
+    private static final ClassifierListener listener;
+
+    static {
+        /*
+         * Need to clear any references to Accounts to prevent memory leaks when
+         * files are loaded and unloaded.
+         */
+        listener = new ClassifierListener();
+
+        MessageBus.getInstance().registerListener(listener, MessageChannel.ACCOUNT, MessageChannel.SYSTEM,
+                MessageChannel.TRANSACTION);
+    }
+
     /**
      * Utility class, private constructor
      */
@@ -38,42 +69,205 @@ public class BayesImportClassifier {
     }
 
     public static void classifyTransactions(final List<? extends ImportTransaction> list, final Account baseAccount) {
-        final BayesClassifier<Account> classifier = generateClassifier(baseAccount);
+        final AccountClassifier accountClassifier = getClassifier(baseAccount);
 
-        for (final ImportTransaction transaction : list) {
-            final StringBuilder builder = new StringBuilder();
+        synchronized (accountClassifier) {
+            for (final ImportTransaction transaction : list) {
+                final StringBuilder builder = new StringBuilder();
 
-            if (transaction.payee != null) {
-                builder.append(transaction.payee).append(" ");
-            }
+                if (transaction.payee != null) {
+                    builder.append(transaction.payee).append(" ");
+                }
 
-            if (transaction.memo != null) {
-                builder.append(transaction.memo);
-            }
+                if (transaction.memo != null) {
+                    builder.append(transaction.memo);
+                }
 
-            transaction.account = classifier.classify(builder.toString());
+                transaction.account = accountClassifier.classifier.classify(builder.toString());
+            }
         }
     }
 
-    private static BayesClassifier<Account> generateClassifier(final Account baseAccount) {
-        BayesClassifier<Account> classifier = new BayesClassifier<>(baseAccount);
+    /**
+     * Returns the cached classifier for an account, training it first if needed
+     *
+     * @param baseAccount account the classifier is for
+     * @return trained classifier
+     */
+    static AccountClassifier getClassifier(final Account baseAccount) {
+        final AccountClassifier accountClassifier = classifierCache.computeIfAbsent(baseAccount, AccountClassifier::new);
+
+        accountClassifier.train();
 
-        for (final Transaction t : baseAccount.getSortedTransactionList()) {
-            final Set<Account> accountSet = t.getAccounts();
+        return accountClassifier;
+    }
+
+    /**
+     * Trains or untrains a classifier with a single transaction
+     *
+     * @param classifier  classifier to update
+     * @param t           transaction
+     * @param baseAccount account the classifier is for
+     * @param train       {@code true} to train, {@code false} to reverse prior training
+     */
+    private static void train(final BayesClassifier<Account> classifier, final Transaction t,
+                              final Account baseAccount, final boolean train) {
+        final Set<Account> accountSet = new HashSet<>(t.getAccounts());
 
-            accountSet.remove(baseAccount);
+        accountSet.remove(baseAccount);
 
-            for (final Account account : accountSet) {
-                if (!t.getPayee().isEmpty()) {
+        for (final Account account : accountSet) {
+            if (!t.getPayee().isEmpty()) {
+                if (train) {
                     classifier.train(t.getPayee(), account);
+                } else {
+                    classifier.untrain(t.getPayee(), account);
                 }
+            }
 
-                if (!t.getMemo().isEmpty()) {
+            if (!t.getMemo().isEmpty()) {
+                if (train) {
                     classifier.train(t.getMemo(), account);
+                } else {
+                    classifier.untrain(t.getMemo(), account);
                 }
             }
         }
+    }
+
+    /**
+     * Updates the classifier of the account an event was posted for.  The engine posts an event for each account of
+     * the transaction.
+     *
+     * @param account     account the event was posted for
+     * @param transaction transaction that was added or removed
+     * @param train       {@code true} if the transaction was added
+     */
+    static void processTransactionEvent(final Account account, final Transaction transaction, final boolean train) {
+        final AccountClassifier accountClassifier = classifierCache.get(account);
+
+        if (accountClassifier != null) {
+            accountClassifier.update(transaction, train);
+        }
+    }
+
+    /**
+     * Classifier for a base account and the transactions it has learned
+     */
+    static final class AccountClassifier {
+
+        private final Account baseAccount;
+
+        /**
+         * Held while the account history is read so the account is trained once
+         */
+        private final Object trainingLock = new Object();
+
+        /**
+         * Trained classifier, {@code null} until the account history has been read
+         */
+        private BayesClassifier<Account> classifier;
+
+        /**
+         * Transactions the classifier has learned
+         */
+        private Set<Transaction> trained;
+
+        /**
+         * Transaction events received while the account history is being read, {@code null} when not training
+         */
+        private List<PendingEvent> pendingEvents;
 
-        return classifier;
+        private AccountClassifier(final Account baseAccount) {
+            this.baseAccount = baseAccount;
+        }
+
+        synchronized BayesClassifier<Account> getClassifier() {
+            return classifier;
+        }
+
+        synchronized boolean isTrained(final Transaction transaction) {
+            return trained != null && trained.contains(transaction);
+        }
+
+        private void train() {
+            synchronized (trainingLock) {
+                synchronized (this) {
+                    if (classifier != null) {
+                        return;
+                    }
+
+                    pendingEvents = new ArrayList<>();
+                }
+
+                final BayesClassifier<Account> newClassifier = new BayesClassifier<>(baseAccount);
+                final Set<Transaction> newTrained = new HashSet<>();
+
+                for (final Transaction t : baseAccount.getSortedTransactionList()) {
+                    if (newTrained.add(t)) {
+                        BayesImportClassifier.train(newClassifier, t, baseAccount, true);
+                    }
+                }
+
+                synchronized (this) {
+                    for (final PendingEvent event : pendingEvents) {
+                        apply(newClassifier, newTrained, event.transaction, event.train);
+                    }
+
+                    pendingEvents = null;
+                    trained = newTrained;
+                    classifier = newClassifier;
+                }
+            }
+        }
+
+        private synchronized void update(final Transaction transaction, final boolean train) {
+            if (classifier != null) {
+                apply(classifier, trained, transaction, train);
+            } else if (pendingEvents != null) {
+                pendingEvents.add(new PendingEvent(transaction, train));
+            }
+        }
+
+        private void apply(final BayesClassifier<Account> bayesClassifier, final Set<Transaction> trainedSet,
+                           final Transaction transaction, final boolean train) {
+            if (train ? trainedSet.add(transaction) : trainedSet.remove(transaction)) {
+                BayesImportClassifier.train(bayesClassifier, transaction, baseAccount, train);
+            }
+        }
+    }
+
+    private static class PendingEvent {
+        final Transaction transaction;
+
+        final boolean train;
+
+        PendingEvent(final Transaction transaction, final boolean train) {
+            this.transaction = transaction;
+            this.train = train;
+        }
+    }
+
+    private static class ClassifierListener implements MessageListener {
+
+        @Override
+        public void messagePosted(final Message event) {
+            switch (event.getEvent()) {
+                case TRANSACTION_ADD:
+                    processTransactionEvent(event.getObject(MessageProperty.ACCOUNT),
+                            event.getObject(MessageProperty.TRANSACTION), true);
+                    break;
+                case TRANSACTION_REMOVE:
+                    processTransactionEvent(event.getObject(MessageProperty.ACCOUNT),
+                            event.getObject(MessageProperty.TRANSACTION), false);
+                    break;
+                case ACCOUNT_REMOVE:    // a removed account may still be a classification, start over
+                case FILE_CLOSING:
+                    classifierCache.clear();
+                    break;
+                default:
+                    break;
+            }
+        }
     }
 }
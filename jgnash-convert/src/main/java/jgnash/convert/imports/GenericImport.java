@@ -84,56 +84,47 @@ public class GenericImport {
      *            account to perform match against
      */
     public static void matchTransactions(final List<? extends ImportTransaction> list, final Account baseAccount) {
-        for (ImportTransaction oTran : list) {
+        final TransactionMatchIndex index = new TransactionMatchIndex(baseAccount);
 
-            // amount must always match
-            for (final Transaction tran : baseAccount.getSortedTransactionList()) {
+        for (final ImportTransaction oTran : list) {
 
-                if (tran.getAmount(baseAccount).equals(oTran.amount)) { // amounts must always match
+            { // check for date match, amount must always match
+                Date startDate;
+                Date endDate;
 
-                    { // check for date match
-                        Date startDate;
-                        Date endDate;
-
-                        // we have a user initiated date, use a smaller window
-                        if ((oTran.dateUser != null)) {
-                            startDate = DateUtils.addDays(oTran.dateUser, -1);
-                            endDate = DateUtils.addDays(oTran.dateUser, 1);
-                        } else { // use the posted date with a larger window
-                            startDate = DateUtils.addDays(oTran.datePosted, -3);
-                            endDate = DateUtils.addDays(oTran.datePosted, 3);
-                        }
-
-                        if (DateUtils.after(tran.getDate(), startDate) && DateUtils.before(tran.getDate(), endDate)) {
-                            oTran.setState(OfxTransaction.ImportState.EQUAL);
-                            break;
-                        }
-                    }
+                // we have a user initiated date, use a smaller window
+                if ((oTran.dateUser != null)) {
+                    startDate = DateUtils.addDays(oTran.dateUser, -1);
+                    endDate = DateUtils.addDays(oTran.dateUser, 1);
+                } else { // use the posted date with a larger window
+                    startDate = DateUtils.addDays(oTran.datePosted, -3);
+                    endDate = DateUtils.addDays(oTran.datePosted, 3);
+                }
 
-                    { // check for matching check number
-                        String checkNumber = oTran.checkNumber;
-                        if (checkNumber != null && !checkNumber.isEmpty()) {
-                            if (tran.getNumber().equals(checkNumber)) {
-                                oTran.setState(OfxTransaction.ImportState.EQUAL);
-                                break;
-                            }
-                        }
+                if (index.containsDate(oTran.amount, startDate, endDate)) {
+                    oTran.setState(OfxTransaction.ImportState.EQUAL);
+                    continue;
+                }
+            }
 
+            { // check for matching check number
+                String checkNumber = oTran.checkNumber;
+                if (checkNumber != null && !checkNumber.isEmpty()) {
+                    if (index.containsNumber(oTran.amount, checkNumber)) {
+                        oTran.setState(OfxTransaction.ImportState.EQUAL);
+                        continue;
                     }
+                }
+            }
 
-                    { // check for matching fitid number
-                        if (oTran instanceof OfxTransaction) {
-                            String id = ((OfxTransaction) oTran).transactionID;
-                            if (id != null && !id.isEmpty()) {
-                                if (tran.getFitid() != null && tran.getFitid().equals(id)) {
-                                    oTran.setState(OfxTransaction.ImportState.EQUAL);
-                                    break;
-                                }
-                            }
+            { // check for matching fitid number
+                if (oTran instanceof OfxTransaction) {
+                    String id = ((OfxTransaction) oTran).transactionID;
+                    if (id != null && !id.isEmpty()) {
+                        if (index.containsFitid(oTran.amount, id)) {
+                            oTran.setState(OfxTransaction.ImportState.EQUAL);
                         }
                     }
-
-                    //oTran.setState(OfxTransaction.ImportState.NEW);
                 }
             }
         }
@@ -0,0 +1,130 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.convert.imports;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jgnash.engine.Account;
+import jgnash.engine.Transaction;
+
+/**
+ * Lookup index of the existing transactions of an account used to detect duplicate imported transactions.
+ * <p>
+ * Transactions are bucketed by amount relative to the base account.  Each bucket holds the transaction dates
+ * in ascending order so a date window can be tested with a binary search.  Check numbers and FITIDs are
+ * indexed to the set of amounts they were recorded with because an amount match is always required.
+ *
+ * @author Craig Cavanaugh
+ */
+class TransactionMatchIndex {
+
+    private final Map<BigDecimal, long[]> dateIndex = new HashMap<>();
+
+    private final Map<String, Set<BigDecimal>> numberIndex = new HashMap<>();
+
+    private final Map<String, Set<BigDecimal>> fitidIndex = new HashMap<>();
+
+    TransactionMatchIndex(final Account baseAccount) {
+        final Map<BigDecimal, List<Date>> dates = new HashMap<>();
+
+        // the sorted transaction list is in date order so each bucket is built already sorted
+        for (final Transaction transaction : baseAccount.getSortedTransactionList()) {
+            final BigDecimal amount = transaction.getAmount(baseAccount);
+
+            dates.computeIfAbsent(amount, k -> new ArrayList<>()).add(transaction.getDate());
+
+            if (!transaction.getNumber().isEmpty()) {
+                numberIndex.computeIfAbsent(transaction.getNumber(), k -> new HashSet<>()).add(amount);
+            }
+
+            if (transaction.getFitid() != null && !transaction.getFitid().isEmpty()) {
+                fitidIndex.computeIfAbsent(transaction.getFitid(), k -> new HashSet<>()).add(amount);
+            }
+        }
+
+        for (final Map.Entry<BigDecimal, List<Date>> entry : dates.entrySet()) {
+            final List<Date> list = entry.getValue();
+            final long[] times = new long[list.size()];
+
+            for (int i = 0; i < times.length; i++) {
+                times[i] = list.get(i).getTime();
+            }
+
+            Arrays.sort(times);     // protect against any ordering surprises, cheap for sorted input
+            dateIndex.put(entry.getKey(), times);
+        }
+    }
+
+    /**
+     * Determines if a transaction with the given amount exists within an inclusive date range
+     *
+     * @param amount    amount to match
+     * @param startDate start of the date range
+     * @param endDate   end of the date range
+     * @return {@code true} if a match was found
+     */
+    boolean containsDate(final BigDecimal amount, final Date startDate, final Date endDate) {
+        final long[] times = dateIndex.get(amount);
+
+        if (times == null) {
+            return false;
+        }
+
+        int index = Arrays.binarySearch(times, startDate.getTime());
+
+        if (index < 0) {
+            index = -index - 1;    // insertion point, first date after the start date
+        }
+
+        return index < times.length && times[index] <= endDate.getTime();
+    }
+
+    /**
+     * Determines if a transaction with the given amount and number exists
+     *
+     * @param amount amount to match
+     * @param number transaction number to match
+     * @return {@code true} if a match was found
+     */
+    boolean containsNumber(final BigDecimal amount, final String number) {
+        final Set<BigDecimal> amounts = numberIndex.get(number);
+
+        return amounts != null && amounts.contains(amount);
+    }
+
+    /**
+     * Determines if a transaction with the given amount and FITID exists
+     *
+     * @param amount amount to match
+     * @param fitid  financial institution transaction id to match
+     * @return {@code true} if a match was found
+     */
+    boolean containsFitid(final BigDecimal amount, final String fitid) {
+        final Set<BigDecimal> amounts = fitidIndex.get(fitid);
+
+        return amounts != null && amounts.contains(amount);
+    }
+}
@@ -32,6 +32,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -71,14 +72,16 @@ import jgnash.engine.TransactionEntryRemoveX;
 import jgnash.engine.TransactionEntrySplitX;
 import jgnash.engine.TransactionFactory;
 import jgnash.engine.TransactionTag;
+import jgnash.util.DefaultDaemonThreadFactory;
 import jgnash.util.Resource;
 
 /**
  * Import jGnash 1.11.x files. Older versions are not supported
  * <p/>
- * Pass 1: Read commodity data and exchange rates and transaction number items
- * Pass 2: Read account data and Pass 3: Read transaction data Pass 4: Read
- * reminders
+ * The file is read in a single pass.  Commodities, accounts and transactions are imported as they are
+ * encountered.  Objects that reference an account or currency that has not been read yet are buffered by ID
+ * and imported when the referenced object appears.  Cleanup work such as amortization objects and
+ * reported currencies runs in parallel with the parse once its references are resolved.
  * <p/>
  * Accounts will be kept in a lookup table during the parsing operation
  *
@@ -93,14 +96,14 @@ public class Import {
     private static final Pattern CURRENCY_DELIMITER_PATTERN = Pattern.compile("\\x2E");
 
     /**
-     * Id map for accounts
+     * Transaction elements that reference accounts
      */
-    private final Map<String, Account> accountMap = new HashMap<>();
+    private static final String[] ACCOUNT_REFERENCES = {"account", "creditAccount", "debitAccount", "investmentAccount"};
 
     /**
-     * Parent map for accounts
+     * Id map for accounts, read by the cleanup threads
      */
-    private final Map<Account, String> parentMap = new HashMap<>();
+    private final Map<String, Account> accountMap = new ConcurrentHashMap<>();
 
     /**
      * Lock status of the accounts
@@ -113,16 +116,30 @@ public class Import {
     private final List<Map<String, String>> splitList = new ArrayList<>();
 
     /**
-     * List of split entries
+     * Split entries mapped by the id of their parent split
      */
-    private final List<Map<String, String>> splitEntryList = new ArrayList<>();
+    private final Map<String, List<Map<String, String>>> splitEntryMap = new HashMap<>();
 
     /**
      * Id map for commodities
      */
     private final Map<String, Commodity> commodityMap = new HashMap<>();
 
-    private static final List<Runnable> workQueue = new ArrayList<>();
+    /**
+     * Runs cleanup work in parallel with the parse
+     */
+    private final ExecutorService cleanupService =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new DefaultDaemonThreadFactory());
+
+    /**
+     * Work waiting for accounts that have not been read yet
+     */
+    private final ReferenceResolver accountReferences = new ReferenceResolver();
+
+    /**
+     * Work waiting for currencies that have not been read yet
+     */
+    private final ReferenceResolver currencyReferences = new ReferenceResolver();
 
     /**
      * Cache of currency nodes, so that database doesn't need to be queried for
@@ -158,86 +175,37 @@ public class Import {
                 engine.setDefaultCurrency(defaultCurrency);
             }
 
-            /* read commodity data first */
-            try (InputStream input = new BufferedInputStream(new FileInputStream(new File(filename)))) {
-                XMLStreamReader reader = inputFactory.createXMLStreamReader(input, StandardCharsets.UTF_8.name());
-                imp.importCommodities(reader);
-                reader.close();
-            }
-
-            /* Run commodity generation cleanup threads */
-            ExecutorService es = Executors.newSingleThreadExecutor();
-
-            for (Iterator<Runnable> i = workQueue.iterator(); i.hasNext(); ) {
-                es.execute(i.next());
-                i.remove();
-            }
-
-            es.shutdown(); // shutdown after threads are complete
-
-            while (!es.isTerminated()) {
-                imp.getLogger().info("Waiting for commodity cleanup threads to complete");
-                try {
-                    es.awaitTermination(2, TimeUnit.SECONDS);
-                } catch (InterruptedException e) {
-                    imp.getLogger().log(Level.SEVERE, e.toString(), e);
-                }
-            }
-
-            imp.getLogger().info("Commodity cleanup threads complete");
-
-            /* read account data first */
+            /* read all objects in a single pass */
             try (InputStream input = new BufferedInputStream(new FileInputStream(new File(filename)))) {
                 XMLStreamReader reader = inputFactory.createXMLStreamReader(input, StandardCharsets.UTF_8.name());
-                imp.importAccounts(reader);
+                imp.importObjects(reader);
                 reader.close();
             }
 
-            imp.getLogger().info("Running account cleanup threads");
-
-            /* Run account generation cleanup threads */
-            es = Executors.newSingleThreadExecutor();
-
-            for (Iterator<Runnable> i = workQueue.iterator(); i.hasNext(); ) {
-                es.execute(i.next());
-                i.remove();
-            }
-
-            es.shutdown(); // shutdown after threads are complete
-
-            while (!es.isTerminated()) {
-                imp.getLogger().info("Waiting for account cleanup threads to complete");
-                try {
-                    es.awaitTermination(2, TimeUnit.SECONDS);
-                } catch (InterruptedException e) {
-                    imp.getLogger().log(Level.SEVERE, e.toString(), e);
-                }
-            }
-
-            imp.getLogger().info("Account cleanup threads complete");
-
-            /* import transactions */
-            try (InputStream input = new BufferedInputStream(new FileInputStream(new File(filename)))) {
-                XMLStreamReader reader = inputFactory.createXMLStreamReader(input, StandardCharsets.UTF_8.name());
-                imp.importTransactions(reader);
-                reader.close();
-            }
-
-            /* Lock accounts after transactions have been added */
-            imp.lockAccounts();
+            imp.generateSplitTransactions();
 
         } catch (XMLStreamException | IOException e) {
             imp.getLogger().log(Level.SEVERE, e.toString(), e);
+        } finally {
+            imp.awaitCleanup();
         }
+
+        /* Lock accounts after transactions have been added */
+        imp.lockAccounts();
     }
 
     Logger getLogger() {
         return logger;
     }
 
-    void importTransactions(final XMLStreamReader reader) {
+    /**
+     * Imports all objects from the file in a single pass
+     *
+     * @param reader XMLStreamReader
+     */
+    private void importObjects(final XMLStreamReader reader) {
 
-        logger.info("Begin transaction import");
+        logger.info("Begin import");
 
         try {
             parse:
@@ -246,14 +214,41 @@ public class Import {
 
                 switch (event) {
                     case XMLStreamConstants.START_ELEMENT:
-                        if (reader.getAttributeCount() > 0 && reader.getAttributeValue(0).contains("Transaction")) {
-                            logger.finest("Found the start of a Transaction");
-                            parseTransaction(reader);
+                        if (reader.getAttributeCount() > 0) {
+                            final String objectClass = reader.getAttributeValue(0);
+
+                            switch (objectClass) {
+                                case "SecurityNode":
+                                    logger.finest("Found the start of a SecurityNode");
+                                    parseSecurityNode(reader);
+                                    break;
+                                case "CurrencyNode":
+                                    logger.finest("Found the start of a CurrencyNode");
+                                    currencyReferences.resolve(parseCurrencyNode(reader));
+                                    break;
+                                case "CommodityNode":
+                                    logger.finest("Found the start of a CommodityNode");
+                                    parseCommodityNode(reader);
+                                    break;
+                                case "ExchangeRate":
+                                    logger.finest("Parse exchange rate");
+                                    parseExchangeRate(reader);
+                                    break;
+                                default:
+                                    if (objectClass.contains("Account")) {
+                                        logger.finest("Found the start of an Account");
+                                        parseAccount(reader);
+                                    } else if (objectClass.contains("Transaction")) {
+                                        logger.finest("Found the start of a Transaction");
+                                        parseTransaction(reader);
+                                    }
+                                    break;
+                            }
                         }
                         break;
                     case XMLStreamConstants.END_ELEMENT:
                         if (reader.getLocalName().equals("objects")) {
-                            logger.fine("Found the end of the object list and transactions");
+                            logger.fine("Found the end of the object list");
                             break parse;
                         }
                         break;
@@ -265,9 +260,27 @@ public class Import {
             logger.log(Level.SEVERE, e.toString(), e);
         }
 
+        if (accountReferences.getPendingCount() > 0) {
+            logger.log(Level.SEVERE, "{0} objects reference missing accounts: {1}",
+                    new Object[]{accountReferences.getPendingCount(), accountReferences.getUnresolved()});
+        }
+
+        if (currencyReferences.getPendingCount() > 0) {
+            logger.log(Level.SEVERE, "{0} objects reference missing currencies: {1}",
+                    new Object[]{currencyReferences.getPendingCount(), currencyReferences.getUnresolved()});
+        }
+
+        logger.info("Object import complete");
+    }
+
+    /**
+     * Split transactions are generated after the entire file has been read because the entries of a split
+     * are not guaranteed to be grouped with the split
+     */
+    private void generateSplitTransactions() {
         logger.log(Level.INFO, "Generating {0} Split Transactions", splitList.size());
 
-        /* loop through the lists and add split transactions */
+        /* loop through the list and add split transactions */
         for (Iterator<Map<String, String>> i = splitList.iterator(); i.hasNext(); ) {
 
             Map<String, String> map = i.next();
@@ -282,11 +295,10 @@ public class Import {
             transaction.setPayee(map.get("payee"));
             transaction.setMemo(map.get("memo"));
 
-            for (Iterator<Map<String, String>> j = this.splitEntryList.iterator(); j.hasNext(); ) {
-                Map<String, String> entryMap = j.next();
-
-                if (entryMap.get("parent").equals(id)) {
+            final List<Map<String, String>> entries = splitEntryMap.remove(id);
 
+            if (entries != null) {
+                for (final Map<String, String> entryMap : entries) {
                     TransactionEntry entry = new TransactionEntry();
 
                     entry.setMemo(entryMap.get("memo"));
@@ -324,8 +336,6 @@ public class Import {
 
                     transaction.setReconciled(debitAccount, debitReconciled ? ReconciledState.RECONCILED
                             : ReconciledState.NOT_RECONCILED);
-
-                    j.remove();
                 }
             }
 
@@ -344,57 +354,43 @@ public class Import {
         logger.info("Transaction import complete");
     }
 
-    void importAccounts(final XMLStreamReader reader) {
-
-        logger.info("Begin Account import");
-
-        try {
-            parse:
-            while (reader.hasNext()) {
-                int event = reader.next();
+    /**
+     * Waits for the cleanup work to complete
+     */
+    private void awaitCleanup() {
+        cleanupService.shutdown(); // shutdown after threads are complete
 
-                switch (event) {
-                    case XMLStreamConstants.START_ELEMENT:
-                        if (reader.getAttributeCount() > 0) {
-                            if (reader.getAttributeValue(0).contains("Account")) {
-                                logger.finest("Found the start of an Account");
-                                parseAccount(reader);
-                            }
-                        }
-                        break;
-                    case XMLStreamConstants.END_ELEMENT:
-                        if (reader.getLocalName().equals("objects")) {
-                            logger.finest("Found the end of the object list and accounts");
-                            break parse;
-                        }
-                        break;
-                    default:
-                        break;
-                }
+        while (!cleanupService.isTerminated()) {
+            logger.info("Waiting for cleanup threads to complete");
+            try {
+                cleanupService.awaitTermination(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                logger.log(Level.SEVERE, e.toString(), e);
             }
-        } catch (XMLStreamException e) {
-            logger.log(Level.SEVERE, e.toString(), e);
         }
 
-        logger.info("Linking accounts");
+        logger.info("Cleanup threads complete");
+    }
 
+    /**
+     * Moves an account to its parent once the parent has been read
+     *
+     * @param account  account to move
+     * @param parentId id of the parent account
+     */
+    private void linkAccount(final Account account, final String parentId) {
         final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
         Objects.requireNonNull(engine);
 
-        for (final Map.Entry<Account, String> entry : parentMap.entrySet()) {
-            final Account account = entry.getKey();
+        accountReferences.whenResolved(() -> {
+            final Account parent = accountMap.get(parentId);
 
-            if (account.getAccountType() != AccountType.ROOT) {
-                Account parent = accountMap.get(entry.getValue());
-                if (!account.getParent().equals(parent)) {
-                    if (engine.moveAccount(account, parent)) {
-                        logger.log(Level.FINEST, "Moving {0} to {1}", new Object[]{account.getName(), parent.getName()});
-                    }
+            if (!account.getParent().equals(parent)) {
+                if (engine.moveAccount(account, parent)) {
+                    logger.log(Level.FINEST, "Moving {0} to {1}", new Object[]{account.getName(), parent.getName()});
                 }
             }
-        }
-
-        logger.info("Account import complete");
+        }, parentId);
     }
 
     private void lockAccounts() {
@@ -406,56 +402,6 @@ public class Import {
         logger.info("Account lock complete");
     }
 
-    /**
-     * Import Commodities.
-     * <p/>
-     * Commodities are ordered first in the file. Exchange rates are last.
-     *
-     * @param reader XMLStreamReader
-     */
-    private void importCommodities(final XMLStreamReader reader) {
-
-        logger.info("Begin Commodity import");
-        try {
-            while (reader.hasNext()) {
-
-                int event = reader.next();
-
-                switch (event) {
-                    case XMLStreamConstants.START_ELEMENT:
-                        if (reader.getAttributeCount() > 0) {
-                            switch (reader.getAttributeValue(0)) {
-                                case "SecurityNode":
-                                    logger.finest("Found the start of a SecurityNode");
-                                    parseSecurityNode(reader);
-                                    break;
-                                case "CurrencyNode":
-                                    logger.finest("Found the start of a CurrencyNode");
-                                    parseCurrencyNode(reader);
-                                    break;
-                                case "CommodityNode":
-                                    logger.finest("Found the start of a CommodityNode");
-                                    parseCommodityNode(reader);
-                                    break;
-                                case "ExchangeRate":
-                                    logger.finest("Parse exchange rate");
-                                    parseExchangeRate(reader);
-                                    break;
-                                default:
-                                    break;
-                            }
-                        }
-                        break;
-                    default:
-                }
-            }
-        } catch (XMLStreamException e) {
-            logger.log(Level.SEVERE, e.toString(), e);
-        }
-
-        logger.info("Commodity import complete");
-    }
-
     private static void parseExchangeRate(final XMLStreamReader reader) {
         Map<String, String> elementMap = new HashMap<>();
 
@@ -543,21 +489,15 @@ public class Import {
                         if (reader.getName().equals(parsingElement)) {
                             logger.log(Level.FINEST, "Found the end of a Transaction: {0}", transactionId);
 
-                            try {
-                                Transaction transaction = generateTransaction(transactionClass, elementMap);
-
-                                if (transaction != null) {
-                                    final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
-                                    Objects.requireNonNull(engine);
+                            final String[] references = new String[ACCOUNT_REFERENCES.length];
 
-                                    engine.addTransaction(transaction);
-                                    logger.finest("Transaction add complete");
-                                }
-                            } catch (Exception e) {
-                                logger.log(Level.SEVERE, "Error importing transaction id: {0}", transactionId);
-                                logger.log(Level.SEVERE, e.toString(), e);
-                                throw new RuntimeException(e);
+                            for (int i = 0; i < references.length; i++) {
+                                references[i] = elementMap.get(ACCOUNT_REFERENCES[i]);
                             }
+
+                            // defer the transaction until all of its accounts have been read
+                            accountReferences.whenResolved(() -> importTransaction(transactionClass, transactionId,
+                                    elementMap), references);
                             return;
                         }
                         break;
@@ -571,6 +511,25 @@ public class Import {
         }
     }
 
+    private void importTransaction(final String transactionClass, final String transactionId,
+                                   final Map<String, String> elementMap) {
+        try {
+            Transaction transaction = generateTransaction(transactionClass, elementMap);
+
+            if (transaction != null) {
+                final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
+                Objects.requireNonNull(engine);
+
+                engine.addTransaction(transaction);
+                logger.finest("Transaction add complete");
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error importing transaction id: {0}", transactionId);
+            logger.log(Level.SEVERE, e.toString(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
     private Transaction generateTransaction(final String transactionClass, final Map<String, String> elementMap) {
         final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
         Objects.requireNonNull(engine);
@@ -583,7 +542,7 @@ public class Import {
                 return null;
             case "SplitEntryTransaction":
                 logger.finest("Found SplitEntryTransaction");
-                splitEntryList.add(elementMap);
+                splitEntryMap.computeIfAbsent(elementMap.get("parent"), k -> new ArrayList<>()).add(elementMap);
                 return null;
         }
 
@@ -839,27 +798,32 @@ public class Import {
                             if (account != null) {
                                 accountMap.put(accountId, account);
 
-                                // do not put the root account into the parent map
-                                if (account.getAccountType() != AccountType.ROOT) {
-                                    parentMap.put(account, (String) elementMap.get("parentAccount"));
-                                }
-
+                                // do not link the root account
                                 if (account.getAccountType() != AccountType.ROOT) {
                                     final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
                                     Objects.requireNonNull(engine);
 
                                     engine.addAccount(engine.getRootAccount(), account);
 
+                                    linkAccount(account, (String) elementMap.get("parentAccount"));
+
                                     if (account.getAccountType() == AccountType.LIABILITY) {
                                         Map<String, String> amortizeObject = (Map<String, String>) elementMap
                                                 .get("amortize");
 
                                         if (amortizeObject != null) {
-                                            AOThread t = new AOThread(account, amortizeObject);
-                                            workQueue.add(t);
+                                            final AOThread t = new AOThread(account, amortizeObject);
+
+                                            accountReferences.whenResolved(() -> cleanupService.execute(t),
+                                                    amortizeObject.get("bankAccount"),
+                                                    amortizeObject.get("feesAccount"),
+                                                    amortizeObject.get("interestAccount"));
                                         }
                                     }
                                 }
+
+                                // release any work waiting for this account
+                                accountReferences.resolve(accountId);
                             }
                             return;
                         }
@@ -914,9 +878,15 @@ public class Import {
 
         final Account liabilityAccount;
 
+        /**
+         * Decoded by the parsing thread, the shared calendar is not thread safe
+         */
+        final Date date;
+
         public AOThread(final Account liabilityAccount, final Map<String, String> elementMap) {
             this.liabilityAccount = liabilityAccount;
             this.elementMap = elementMap;
+            this.date = decodeDate(elementMap.get("date"));
         }
 
         @Override
@@ -930,7 +900,7 @@ public class Import {
             AmortizeObject ao = new AmortizeObject();
 
             ao.setBankAccount(accountMap.get(elementMap.get("bankAccount")));
-            ao.setDate(decodeDate(elementMap.get("date")));
+            ao.setDate(date);
 
             if (elementMap.get("daysPerYear") != null) {
                 ao.setDaysPerYear(new BigDecimal(elementMap.get("daysPerYear")));
@@ -1103,7 +1073,13 @@ public class Import {
         return account;
     }
 
-    private static void parseCurrencyNode(final XMLStreamReader reader) {
+    /**
+     * Parses a currency node
+     *
+     * @param reader XMLStreamReader
+     * @return symbol of the parsed currency, {@code null} if parsing failed
+     */
+    private static String parseCurrencyNode(final XMLStreamReader reader) {
         Map<String, String> elementMap = new HashMap<>();
 
         /* still at start of the element.  Need to know when end is reached */
@@ -1137,7 +1113,7 @@ public class Import {
 
                                 engine.addCurrency(node);
                             }
-                            return;
+                            return elementMap.get("symbol");
                         }
                         break;
 
@@ -1150,6 +1126,7 @@ public class Import {
             logger.log(Level.SEVERE, e.toString(), e);
         }
 
+        return null;
     }
 
     private void parseCommodityNode(final XMLStreamReader reader) {
@@ -1225,6 +1202,8 @@ public class Import {
                             final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
                             Objects.requireNonNull(engine);
 
+                            SecurityThread securityThread = null;
+
                             if (engine.getSecurity(elementMap.get("symbol")) == null) {
 
                                 SecurityNode node = new SecurityNode(engine.getDefaultCurrency());
@@ -1236,19 +1215,33 @@ public class Import {
                                 node.setScale(Byte.parseByte(elementMap.get("scale")));
                                 node.setQuoteSource(QuoteSource.YAHOO);
 
-                                if (elementMap.get("reportedCurrency") != null) {
-                                    SecurityThread thread = new SecurityThread(node, elementMap.get("reportedCurrency"));
-                                    workQueue.add(thread);
-                                }
-
                                 engine.addSecurity(node);
+
+                                final String reportedCurrency = elementMap.get("reportedCurrency");
+
+                                if (reportedCurrency != null) {
+                                    securityThread = new SecurityThread(node, reportedCurrency);
+                                }
                             }
 
                             if (history != null) {
                                 SecurityNode node = engine.getSecurity(elementMap.get("symbol"));
                                 if (node != null) {
-                                    history.stream().filter(hNode -> !engine.addSecurityHistory(node, hNode))
-                                            .forEach(hNode -> logger.warning("Failed to add security history"));
+                                    if (!engine.addSecurityHistory(node, history)) {
+                                        logger.warning("Failed to add security history");
+                                    }
+                                }
+                            }
+
+                            // the node is cloned by the update, so it may only start once the history has been added
+                            if (securityThread != null) {
+                                final SecurityThread thread = securityThread;
+
+                                if (engine.getCurrency(thread.cNode) != null) {
+                                    cleanupService.execute(thread);
+                                } else {
+                                    currencyReferences.whenResolved(() -> cleanupService.execute(thread),
+                                            thread.cNode);
                                 }
                             }
                             return;
@@ -0,0 +1,103 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.convert.imports.jgnash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Buffers work that depends on objects identified by ID until those objects have been read.  Allows a
+ * file to be imported in a single pass when objects may reference other objects that appear later in the file.
+ * <p>
+ * This class is not thread safe and is intended to be used by the parsing thread only.
+ *
+ * @author Craig Cavanaugh
+ */
+final class ReferenceResolver {
+
+    private final Set<String> resolved = new HashSet<>();
+
+    private final Map<String, List<Runnable>> pending = new HashMap<>();
+
+    private int pendingCount;
+
+    /**
+     * Marks an ID as resolved and runs any work that was waiting only for it
+     *
+     * @param id resolved ID
+     */
+    void resolve(final String id) {
+        if (id != null && resolved.add(id)) {
+            final List<Runnable> tasks = pending.remove(id);
+
+            if (tasks != null) {
+                pendingCount -= tasks.size();
+                tasks.forEach(Runnable::run);
+            }
+        }
+    }
+
+    /**
+     * Runs the task immediately if all referenced IDs are resolved, otherwise buffers it until they are.
+     * {@code null} IDs are ignored.
+     *
+     * @param task work to run
+     * @param ids  referenced IDs
+     */
+    void whenResolved(final Runnable task, final String... ids) {
+        whenResolved(task, Arrays.asList(ids));
+    }
+
+    private void whenResolved(final Runnable task, final List<String> ids) {
+        Objects.requireNonNull(task);
+
+        for (final String id : ids) {
+            if (id != null && !resolved.contains(id)) {
+                pending.computeIfAbsent(id, k -> new ArrayList<>()).add(() -> whenResolved(task, ids));
+                pendingCount++;
+                return;
+            }
+        }
+
+        task.run();
+    }
+
+    /**
+     * Returns the number of tasks still waiting on unresolved IDs
+     *
+     * @return number of waiting tasks
+     */
+    int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Returns the IDs that are still referenced but have not been resolved
+     *
+     * @return unresolved IDs
+     */
+    Set<String> getUnresolved() {
+        return new HashSet<>(pending.keySet());
+    }
+}
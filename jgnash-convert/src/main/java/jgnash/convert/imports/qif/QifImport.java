@@ -18,12 +18,30 @@
 package jgnash.convert.imports.qif;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -39,6 +57,7 @@ import jgnash.engine.ReconciledState;
 import jgnash.engine.Transaction;
 import jgnash.engine.TransactionEntry;
 import jgnash.engine.TransactionFactory;
+import jgnash.util.DefaultDaemonThreadFactory;
 
 /**
  * QifImport takes a couple of simple steps to prevent importing a duplicate account. Other than that, duplicate
@@ -73,6 +92,36 @@ public class QifImport {
 
     private static final Logger logger = Logger.getLogger("qifimport");
 
+    /**
+     * Capacity of the queues between the streaming import stages
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * Maximum number of transactions committed per batch when streaming
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Marks the end of a streaming import queue
+     */
+    private static final Object END_OF_STREAM = new Object();
+
+    /**
+     * True if records are streamed from the parser instead of held in memory
+     */
+    private boolean streaming = false;
+
+    /**
+     * Mirror transfers waiting to be skipped when streaming, keyed by account name, date and amount
+     */
+    private final Map<String, List<String>> pendingMirrors = new HashMap<>();
+
+    /**
+     * Mirror split transfers waiting to be skipped when streaming, keyed by account name and amount
+     */
+    private final Map<String, List<String>> pendingSplitMirrors = new HashMap<>();
+
     public QifImport() {
         engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
     }
@@ -99,6 +148,310 @@ public class QifImport {
         }
     }
 
+    /**
+     * Imports a full QIF file using a streaming pipeline.  Records flow from the parser through a mapping stage
+     * that creates accounts and transactions to a commit stage that adds the transactions in batches.  The stages
+     * are connected with bounded queues so memory use does not grow with the size of the file.
+     * <p>
+     * A full QIF export normally lists every account before any transactions.  If a transfer is read before the
+     * account it refers to, the transfer is held back and imported once the whole file has been read.
+     *
+     * @param file       QIF file to import
+     * @param dateFormat date format of the file
+     * @param progress   receives the fraction of the file that has been committed, may be null
+     * @throws NoAccountException if the file is a partial QIF file
+     */
+    public void doStreamingImport(final File file, final String dateFormat, final DoubleConsumer progress)
+            throws NoAccountException {
+        Objects.requireNonNull(file);
+
+        streaming = true;
+
+        loadCategoryMap(engine.getExpenseAccountList(), expenseMap);
+        loadCategoryMap(engine.getIncomeAccountList(), incomeMap);
+        loadAccountMap();
+
+        final BlockingQueue<Object> parsedQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final BlockingQueue<Object> mappedQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        final AtomicLong bytesRead = new AtomicLong();
+        final double length = Math.max(file.length(), 1);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(2, new DefaultDaemonThreadFactory());
+
+        final Future<Void> parseFuture = executorService.submit(() -> {
+            try (QifReader in = new QifReader(new InputStreamReader(new CountingInputStream(
+                    new FileInputStream(file), bytesRead), StandardCharsets.UTF_8))) {
+
+                parser = new QifParser(dateFormat, new QueueRecordHandler(parsedQueue));
+                parser.parseFullFile(in);
+            } finally {
+                put(parsedQueue, END_OF_STREAM);
+            }
+            return null;
+        });
+
+        final Future<Void> mapFuture = executorService.submit(() -> {
+            try {
+                mapRecords(parsedQueue, mappedQueue);
+            } finally {
+                put(mappedQueue, END_OF_STREAM);
+            }
+            return null;
+        });
+
+        try {
+            commitTransactions(mappedQueue, () -> {
+                if (progress != null) {
+                    progress.accept(Math.min(bytesRead.get() / length, 1.0));
+                }
+            });
+
+            // the mapping stage only completes normally once the parser has finished
+            mapFuture.get();
+            parseFuture.get();
+
+            logger.info("*** Importing Complete ***");
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof NoAccountException) {
+                throw (NoAccountException) e.getCause();
+            }
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        } finally {
+            // a failed stage must not leave the others blocked on a full queue
+            parseFuture.cancel(true);
+            mapFuture.cancel(true);
+            parsedQueue.clear();
+            mappedQueue.clear();
+            executorService.shutdownNow();
+
+            pendingMirrors.clear();
+            pendingSplitMirrors.clear();
+            streaming = false;
+        }
+    }
+
+    /**
+     * Mapping stage of the streaming import
+     */
+    private void mapRecords(final BlockingQueue<Object> parsedQueue, final BlockingQueue<Object> mappedQueue)
+            throws InterruptedException {
+
+        // transfers read before the account they refer to
+        final List<ParsedTransaction> deferred = new ArrayList<>();
+
+        Object record = parsedQueue.take();
+
+        while (record != END_OF_STREAM) {
+            if (record instanceof QifCategory) {
+                addCategory((QifCategory) record);
+            } else if (record instanceof QifAccount) {
+                addAccount((QifAccount) record);
+            } else if (isUnresolvedTransfer(((ParsedTransaction) record).transaction)) {
+                deferred.add((ParsedTransaction) record);
+            } else {
+                mapTransaction((ParsedTransaction) record, mappedQueue);
+            }
+
+            record = parsedQueue.take();
+        }
+
+        if (!deferred.isEmpty()) {
+            logger.log(Level.INFO, "Importing {0} transfers listed before their account", deferred.size());
+
+            for (final ParsedTransaction parsed : deferred) {
+                mapTransaction(parsed, mappedQueue);
+            }
+        }
+    }
+
+    private void mapTransaction(final ParsedTransaction parsed, final BlockingQueue<Object> mappedQueue)
+            throws InterruptedException {
+        final Account acc = getAccount(parsed.account);
+
+        if (acc != null && acc.getAccountType() != AccountType.INVEST) {
+            if (isPendingMirror(parsed.account.name, parsed.transaction)) {
+                logger.finest("Skipped mirror transaction");
+            } else {
+                final Transaction tran = generateTransaction(parsed.transaction, acc);
+
+                if (tran != null) {
+                    mappedQueue.put(new MappedTransaction(tran, acc));
+                } else {
+                    logger.warning("Null Transaction!");
+                }
+            }
+        } else if (acc == null) {
+            logger.log(Level.SEVERE, "Lost the account: {0}", parsed.account.name);
+        }
+    }
+
+    /**
+     * Determines if a streamed transaction transfers to an account that has not been read yet
+     */
+    private boolean isUnresolvedTransfer(final QifTransaction tran) {
+        if (isUnknownAccount(tran.category)) {
+            return true;
+        }
+
+        for (final QifSplitTransaction split : tran.splits) {
+            if (isUnknownAccount(split.category)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isUnknownAccount(final String category) {
+        return category != null && isAccount(category)
+                && !accountMap.containsKey(category.substring(1, category.length() - 1));
+    }
+
+    /**
+     * Commit stage of the streaming import
+     */
+    private void commitTransactions(final BlockingQueue<Object> mappedQueue, final Runnable progress)
+            throws InterruptedException {
+
+        final List<Object> batch = new ArrayList<>(BATCH_SIZE);
+        final List<Transaction> transactions = new ArrayList<>(BATCH_SIZE);
+
+        boolean endOfStream = false;
+
+        while (!endOfStream) {
+            batch.add(mappedQueue.take());
+            mappedQueue.drainTo(batch, BATCH_SIZE - 1);
+
+            for (final Object record : batch) {
+                if (record == END_OF_STREAM) {
+                    endOfStream = true;
+                    break;
+                }
+
+                final MappedTransaction mapped = (MappedTransaction) record;
+
+                if (isDuplicate(mapped.transaction, mapped.account)
+                        || isDuplicate(mapped.transaction, mapped.account, transactions)) {
+                    logger.fine("duplicate found");
+                    duplicates.add(mapped.transaction);
+                } else {
+                    transactions.add(mapped.transaction);
+                }
+            }
+
+            if (!transactions.isEmpty() && !engine.addTransactions(transactions)) {
+                logger.severe("Failed to commit a batch of transactions");
+            }
+
+            batch.clear();
+            transactions.clear();
+            progress.run();
+        }
+    }
+
+    /**
+     * Determines if a transaction duplicates one for the same account in a batch waiting to be committed
+     */
+    private static boolean isDuplicate(final Transaction t, final Account a, final List<Transaction> batch) {
+        for (final Transaction tran : batch) {
+            if (tran.getAccounts().contains(a) && tran.equalsIgnoreDate(t)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void put(final BlockingQueue<Object> queue, final Object record) {
+        try {
+            queue.put(record);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Import was interrupted");
+        }
+    }
+
+    /**
+     * Adds a streamed category.  Categories are reduced one at a time as they arrive because the parser does not
+     * retain them.
+     */
+    private void addCategory(final QifCategory cat) {
+        if (!isExistingCategory(cat)) {
+            final Map<String, Account> map = cat.type.equals("E") ? expenseMap : incomeMap;
+            final Account acc = generateAccount(cat);
+
+            engine.addAccount(findBestParent(cat, map), acc);
+            loadCategoryMap(acc, map);
+        }
+    }
+
+    private void addAccount(final QifAccount qAcc) {
+        if (!accountMap.containsKey(qAcc.name)) { // add the account if it does not exist
+            final Account acc = generateAccount(qAcc);
+
+            if (acc != null) {
+                engine.addAccount(engine.getRootAccount(), acc);
+                loadAccountMap(acc);
+            }
+        }
+    }
+
+    private Account getAccount(final QifAccount qAcc) {
+        Account acc = accountMap.get(qAcc.name);
+
+        // try and match the closest
+        if (acc == null) {
+            acc = engine.getAccountByName(qAcc.name);
+        }
+
+        return acc;
+    }
+
+    private static String getMirrorKey(final String accountName, final BigDecimal amount) {
+        return accountName + '|' + amount.stripTrailingZeros().toPlainString();
+    }
+
+    private static String getMirrorKey(final String accountName, final Date date, final BigDecimal amount) {
+        return getMirrorKey(accountName, amount) + '|' + date.getTime();
+    }
+
+    /**
+     * Determines if a streamed transaction is the mirror of a transfer that has already been imported.  A matching
+     * mirror is consumed.
+     */
+    private boolean isPendingMirror(final String accountName, final QifTransaction tran) {
+        final List<String> names = pendingMirrors.get(getMirrorKey(accountName, tran.date, tran.amount));
+
+        if (names != null && tran.category != null) {
+            for (final Iterator<String> i = names.iterator(); i.hasNext(); ) {
+                if (tran.category.contains(i.next())) {
+                    i.remove();
+                    return true;
+                }
+            }
+        }
+
+        final List<String> memos = pendingSplitMirrors.get(getMirrorKey(accountName, tran.amount));
+
+        if (memos != null && !memos.isEmpty()) {
+            if (memos.remove(tran.memo)) {
+                return true;
+            }
+
+            // could be a split into a bank account
+            if (tran.category != null && isAccount(tran.category) && !tran.hasSplits()) {
+                memos.remove(0);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public void doPartialParse(final File file) {
         if (file != null) {
             parser = new QifParser(QifUtils.US_FORMAT);
@@ -190,6 +543,8 @@ public class QifImport {
         int index = pathName.indexOf(':');
         if (index != -1) {
             accountMap.put(pathName.substring(index + 1), acc);
+        } else if (streaming) { // streamed accounts are added at the root level and must resolve as transfers
+            accountMap.put(pathName, acc);
         }
     }
 
@@ -394,19 +749,15 @@ public class QifImport {
      * Removes duplicate categories from a supplied list
      */
     private void reduceCategories() {
-        QifCategory cat;
-        String path;
-        List<QifCategory> list = parser.categories;
-        Iterator<QifCategory> i = list.iterator();
-        while (i.hasNext()) {
-            cat = i.next();
-            path = cat.name;
-            if (cat.type.equals("E") && expenseMap.containsKey(path)) {
-                i.remove();
-            } else if (cat.type.equals("I") && incomeMap.containsKey(path)) {
-                i.remove();
-            }
-        }
+        parser.categories.removeIf(this::isExistingCategory);
+    }
+
+    /*
+     * Determines if a category has already been imported
+     */
+    private boolean isExistingCategory(final QifCategory cat) {
+        return cat.type.equals("E") && expenseMap.containsKey(cat.name)
+                || cat.type.equals("I") && incomeMap.containsKey(cat.name);
     }
 
     /*
@@ -518,7 +869,13 @@ public class QifImport {
             ReconcileManager.reconcileTransaction(acc, tran, reconciled ? ReconciledState.RECONCILED : ReconciledState.NOT_RECONCILED);
 
             if (isAccount(qTran.category)) {
-                removeMirrorTransaction(qTran, acc); // remove the mirror transaction
+                if (streaming) {    // the mirror has not been read yet, remember it so it can be skipped
+                    pendingMirrors.computeIfAbsent(getMirrorKey(qTran.category.substring(1,
+                            qTran.category.length() - 1), qTran.date, qTran.amount.negate()),
+                            k -> new LinkedList<>()).add(acc.getName());
+                } else {
+                    removeMirrorTransaction(qTran, acc); // remove the mirror transaction
+                }
             }
         } else {
             // could not find the account this transaction belongs to
@@ -559,7 +916,13 @@ public class QifImport {
          * entry in another account that needs to be removed
          */
         if (account != null && isAccount(qTran.category)) {
-            removeMirrorSplitTransaction(qTran);
+            if (streaming) {    // the mirror has not been read yet, remember it so it can be skipped
+                pendingSplitMirrors.computeIfAbsent(getMirrorKey(qTran.category.substring(1,
+                        qTran.category.length() - 1), qTran.amount.negate()),
+                        k -> new LinkedList<>()).add(qTran.memo);
+            } else {
+                removeMirrorSplitTransaction(qTran);
+            }
         }
 
         if (account == null) { // unassigned split transaction.... fix it with a default
@@ -673,4 +1036,102 @@ public class QifImport {
 
         logger.log(Level.WARNING, "Did not find matching mirror:" + "\n{0}", qTran.toString());
     }
+
+    /**
+     * A parsed transaction and the account it was read from
+     */
+    private static class ParsedTransaction {
+
+        final QifAccount account;
+
+        final QifTransaction transaction;
+
+        ParsedTransaction(final QifAccount account, final QifTransaction transaction) {
+            this.account = account;
+            this.transaction = transaction;
+        }
+    }
+
+    /**
+     * A generated transaction and the account it is imported into
+     */
+    private static class MappedTransaction {
+
+        final Transaction transaction;
+
+        final Account account;
+
+        MappedTransaction(final Transaction transaction, final Account account) {
+            this.transaction = transaction;
+            this.account = account;
+        }
+    }
+
+    /**
+     * Hands parsed records to the mapping stage
+     */
+    private static class QueueRecordHandler implements QifRecordHandler {
+
+        private final BlockingQueue<Object> queue;
+
+        QueueRecordHandler(final BlockingQueue<Object> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void categoryParsed(final QifCategory category) {
+            put(queue, category);
+        }
+
+        @Override
+        public void accountParsed(final QifAccount account) {
+            put(queue, account);
+        }
+
+        @Override
+        public void transactionParsed(final QifAccount account, final QifTransaction transaction) {
+            put(queue, new ParsedTransaction(account, transaction));
+        }
+    }
+
+    /**
+     * Counts the bytes read for progress reporting
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final AtomicLong count;
+
+        CountingInputStream(final InputStream in, final AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+
+            count.addAndGet(skipped);
+            return skipped;
+        }
+    }
 }
@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -65,10 +67,36 @@ public final class QifParser {
 
     private static final Logger logger = Logger.getLogger(QifParser.class.getName());
 
+    /**
+     * Receives parsed records when streaming.  Parsed categories and transactions are not retained if set.
+     */
+    private QifRecordHandler handler;
+
+    /**
+     * Number of categories handed to the handler, counted for {@link #dumpStats()}
+     */
+    private int streamedCategoryCount;
+
+    /**
+     * Number of transactions handed to the handler for each account, counted for {@link #dumpStats()}
+     */
+    private final Map<QifAccount, Integer> streamedTransactionCounts = new IdentityHashMap<>();
+
     public QifParser(String dateFormat) {
         setDateFormat(dateFormat);
     }
 
+    /**
+     * Creates a parser that streams parsed records to a handler instead of retaining them
+     *
+     * @param dateFormat date format of the QIF file
+     * @param handler    handler to receive the parsed records
+     */
+    QifParser(final String dateFormat, final QifRecordHandler handler) {
+        this(dateFormat);
+        this.handler = Objects.requireNonNull(handler);
+    }
+
     /**
      * Tests if the source string starts with the prefix string. Case is
      * ignored.
@@ -100,53 +128,62 @@ public final class QifParser {
     }
 
     private void parseFullFile(final String fileName) throws NoAccountException {
-        
-        boolean accountFound = true;
-
         try (QifReader in = new QifReader(new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8))) {
-
-            String line = in.readLine();
-            
-            while (line != null) {                                                                               
-                if (startsWith(line, "!Type:Class")) {
-                    parseClassList(in);
-                } else if (startsWith(line, "!Type:Cat")) {
-                    parseCategoryList(in);
-                } else if (startsWith(line, "!Account")) {
-                    parseAccount(in);
-                } else if (startsWith(line, "!Type:Memorized")) {
-                    parseMemorizedTransactions(in);
-                } else if (startsWith(line, "!Type:Security")) {
-                    parseSecurity(in);
-                } else if (startsWith(line, "!Type:Prices")) {
-                    parsePrice(in);
-                } else if (startsWith(line, "!Type:Bank")) { // QIF from an online bank statement... assumes the account is known                  
-                    accountFound = false;
-                    break;                  
-                } else if (startsWith(line, "!Type:CCard")) { // QIF from an online credit card statement
-                    accountFound = false;
-                    break;                    
-                } else if (startsWith(line, "!Type:Oth")) { // QIF from an online credit card statement
-                    accountFound = false;
-                    break;                  
-                } else if (startsWith(line, "!Type:Cash")) { // Partial QIF export
-                    accountFound = false;
-                    break;                    
-                } else if (startsWith(line, "!Option:AutoSwitch")) {
-                    logger.info("Consuming !Option:AutoSwitch");
-                } else if (startsWith(line, "!Clear:AutoSwitch")) {
-                    logger.info("Consuming !Clear:AutoSwitch");
-                } else {
-                    System.out.println("Error: " + line);
-                }
-                line = in.readLine();
-            }          
+            parseFullFile(in);
         } catch (final FileNotFoundException e) {
             logger.log(Level.WARNING, "Could not find file: {0}", fileName);
         } catch (final IOException e) {
             logger.log(Level.SEVERE, null, e);
         }
+    }
+
+    /**
+     * Parses a full QIF file from an open reader
+     *
+     * @param in reader to parse
+     * @throws NoAccountException if the file is a partial QIF file
+     * @throws IOException if an IO error occurs
+     */
+    void parseFullFile(final QifReader in) throws NoAccountException, IOException {
+        boolean accountFound = true;
+
+        String line = in.readLine();
         
+        while (line != null) {                                                                               
+            if (startsWith(line, "!Type:Class")) {
+                parseClassList(in);
+            } else if (startsWith(line, "!Type:Cat")) {
+                parseCategoryList(in);
+            } else if (startsWith(line, "!Account")) {
+                parseAccount(in);
+            } else if (startsWith(line, "!Type:Memorized")) {
+                parseMemorizedTransactions(in);
+            } else if (startsWith(line, "!Type:Security")) {
+                parseSecurity(in);
+            } else if (startsWith(line, "!Type:Prices")) {
+                parsePrice(in);
+            } else if (startsWith(line, "!Type:Bank")) { // QIF from an online bank statement... assumes the account is known                  
+                accountFound = false;
+                break;                  
+            } else if (startsWith(line, "!Type:CCard")) { // QIF from an online credit card statement
+                accountFound = false;
+                break;                    
+            } else if (startsWith(line, "!Type:Oth")) { // QIF from an online credit card statement
+                accountFound = false;
+                break;                  
+            } else if (startsWith(line, "!Type:Cash")) { // Partial QIF export
+                accountFound = false;
+                break;                    
+            } else if (startsWith(line, "!Option:AutoSwitch")) {
+                logger.info("Consuming !Option:AutoSwitch");
+            } else if (startsWith(line, "!Clear:AutoSwitch")) {
+                logger.info("Consuming !Clear:AutoSwitch");
+            } else {
+                System.out.println("Error: " + line);
+            }
+            line = in.readLine();
+        }
+
         if (!accountFound) {
             throw new NoAccountException("The account was not found");
         }
@@ -206,17 +243,17 @@ public final class QifParser {
                 } else if (line.startsWith("^")) {
                     String peek = in.peekLine();
                     if (peek == null) { // end of the file in empty account list
-                        accountList.add(acc);
+                        addAccount(acc);
                         result = true;
                         break;
                     }
                     if (startsWith(peek, "!Account")) {
                         // must be in an account list, no transaction data here
-                        accountList.add(acc);
+                        addAccount(acc);
                         acc = new QifAccount();
                         in.readLine(); // eat the line since we only peeked at it
                     } else if (startsWith(peek, "!Type:Memor")) {
-                        accountList.add(acc);
+                        addAccount(acc);
                         result = true;
                         break;
                     } else if (startsWith(peek, "!Type:Invst")) { // investment transactions follow
@@ -228,6 +265,8 @@ public final class QifParser {
                         QifAccount dup = searchForDuplicate(acc);
                         if (dup != null) {
                             acc = dup; // trade for the duplicate already existing in the list
+                        } else if (handler != null) {
+                            handler.accountParsed(acc); // must be known before the transactions are streamed
                         }
 
                         if (parseInvestmentAccountTransactions(in, acc)) {
@@ -254,6 +293,8 @@ public final class QifParser {
                         QifAccount dup = searchForDuplicate(acc);
                         if (dup != null) {
                             acc = dup; // trade for the duplicate already existing in the list
+                        } else if (handler != null) {
+                            handler.accountParsed(acc); // must be known before the transactions are streamed
                         }
 
                         if (parseAccountTransactions(in, acc)) {
@@ -267,17 +308,17 @@ public final class QifParser {
                         acc = new QifAccount();
                     } else if (startsWith(peek, "!Clear:Auto")) {
                         in.readLine(); // the broken AutoSwitch.... eat the line
-                        accountList.add(acc);
+                        addAccount(acc);
                         result = true;
                         break;
                     } else if (startsWith(peek, "!")) {
                         // something weird, assume in empty account list
-                        accountList.add(acc);
+                        addAccount(acc);
                         result = true;
                         break;
                     } else {
                         // must be in an account list using AutoSwitch
-                        accountList.add(acc);
+                        addAccount(acc);
                         acc = new QifAccount();
                     }
                 } else {
@@ -295,6 +336,32 @@ public final class QifParser {
         return result;
     }
 
+    private void addAccount(final QifAccount acc) {
+        accountList.add(acc);
+
+        if (handler != null) {
+            handler.accountParsed(acc);
+        }
+    }
+
+    private void addTransaction(final QifAccount acc, final QifTransaction tran) {
+        if (handler != null) {
+            handler.transactionParsed(acc, tran);
+            streamedTransactionCounts.merge(acc, 1, Integer::sum);
+        } else {
+            acc.addTransaction(tran);
+        }
+    }
+
+    private void addCategory(final QifCategory cat) {
+        if (handler != null) {
+            handler.categoryParsed(cat);
+            streamedCategoryCount++;
+        } else {
+            categories.add(cat);
+        }
+    }
+
     QifAccount searchForDuplicate(final QifAccount acc) {
         String name = acc.name;
         String type = acc.type;
@@ -373,7 +440,7 @@ public final class QifParser {
                 } else if (line.startsWith("I")) {
                     tran.price = line.substring(1);
                 } else if (line.startsWith("^")) {
-                    acc.addTransaction(tran);
+                    addTransaction(acc, tran);
                     logger.finest("*** Added a Transaction ***");
                     tran = new QifTransaction();
                 } else if (startsWith(line, "!Account")) {
@@ -457,7 +524,7 @@ public final class QifParser {
                 } else if (line.charAt(0) == '$') { // must check before split trans checks... Does Quicken allow for split investment transactions?
                     tran.amountTrans = line.substring(1);
                 } else if (line.startsWith("^")) {
-                    acc.addTransaction(tran);
+                    addTransaction(acc, tran);
                     logger.finest("*** Added an investment transaction ***");
                     tran = new QifTransaction();
                 } else if (startsWith(line, "!Account")) {
@@ -599,7 +666,7 @@ public final class QifParser {
                 } else if (line.startsWith("R")) {
                     logger.finest("Ignoring tax schedule");
                 } else if (line.startsWith("^")) { // a complete category item
-                    categories.add(cat); // add it to the list
+                    addCategory(cat); // add it to the list
                     cat = new QifCategory(); // start a new one
                     in.mark(); // next line might be end of list
                 } else if (line.startsWith("!")) { // done with category list
@@ -720,7 +787,7 @@ public final class QifParser {
 
     public void dumpStats() {
         System.out.println("Num Classes :" + classes.size());
-        System.out.println("Num Categories :" + categories.size());
+        System.out.println("Num Categories :" + (categories.size() + streamedCategoryCount));
         System.out.println("Num Securities :" + securities.size());
         System.out.println("Num Accounts :" + accountList.size());
 
@@ -729,7 +796,7 @@ public final class QifParser {
             QifAccount acc = accountList.get(i);
             System.out.println("Account " + (i + 1) + " " + acc.name);
             int size = acc.items.size();
-            System.out.println("    Num Transactions :" + size);
+            System.out.println("    Num Transactions :" + (size + streamedTransactionCounts.getOrDefault(acc, 0)));
             for (int j = 0; j < size; j++) {
                 QifTransaction tran = acc.items.get(j);
                 System.out.println("        Transaction " + (j + 1) + " " + tran.payee);
@@ -0,0 +1,237 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.convert.imports;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import jgnash.engine.Account;
+import jgnash.engine.AccountType;
+import jgnash.engine.CurrencyNode;
+import jgnash.engine.DataStoreType;
+import jgnash.engine.DefaultCurrencies;
+import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
+import jgnash.engine.Transaction;
+import jgnash.engine.TransactionFactory;
+import jgnash.engine.message.ChannelEvent;
+import jgnash.engine.message.Message;
+import jgnash.engine.message.MessageBus;
+import jgnash.engine.message.MessageChannel;
+import jgnash.engine.message.MessageListener;
+import jgnash.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests caching and incrementally updating the import classifiers
+ *
+ * @author Craig Cavanaugh
+ */
+public class BayesImportClassifierTest {
+
+    private static final char[] PASSWORD = new char[]{};
+
+    private static final String PAYEE = "acme";
+
+    private String database;
+
+    private Engine engine;
+
+    private Account bankAccount;
+
+    private Account foodAccount;
+
+    private Account gasAccount;
+
+    @Before
+    public void setUp() throws IOException {
+        final File file = Files.createTempFile("jgnash-bayes-", ".xml").toFile();
+        database = file.getAbsolutePath();
+        assertTrue(file.delete());
+
+        engine = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+        assertNotNull(engine);
+
+        final CurrencyNode node = DefaultCurrencies.buildCustomNode("USD");
+        engine.addCurrency(node);
+        engine.setDefaultCurrency(node);
+
+        bankAccount = addAccount(AccountType.BANK, "Bank", node);
+        foodAccount = addAccount(AccountType.EXPENSE, "Food", node);
+        gasAccount = addAccount(AccountType.EXPENSE, "Gas", node);
+
+        // history the classifier is trained from
+        addTransaction(foodAccount);
+        addTransaction(foodAccount);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+        Files.deleteIfExists(Paths.get(database));
+    }
+
+    private Account addAccount(final AccountType type, final String name, final CurrencyNode node) {
+        final Account account = new Account(type, node);
+        account.setName(name);
+        assertTrue(engine.addAccount(engine.getRootAccount(), account));
+
+        return account;
+    }
+
+    private Transaction addTransaction(final Account account) {
+        final Transaction transaction = TransactionFactory.generateDoubleEntryTransaction(account, bankAccount,
+                BigDecimal.TEN, DateUtils.today(), "", PAYEE, "");
+
+        assertTrue(engine.addTransaction(transaction));
+
+        return transaction;
+    }
+
+    private Account classify() {
+        final ImportTransaction transaction = new ImportTransaction();
+        transaction.payee = PAYEE;
+
+        BayesImportClassifier.classifyTransactions(Collections.singletonList(transaction), bankAccount);
+
+        return transaction.account;
+    }
+
+    /**
+     * Waits for the events already posted to be delivered.  The message bus delivers events in order on one thread.
+     */
+    private void flushEvents() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final MessageListener listener = event -> {
+            if (event.getEvent() == ChannelEvent.BACKGROUND_PROCESS_STOPPED) {
+                latch.countDown();
+            }
+        };
+
+        final MessageBus messageBus = MessageBus.getInstance(EngineFactory.DEFAULT);
+
+        messageBus.registerListener(listener, MessageChannel.SYSTEM);
+
+        try {
+            messageBus.fireEvent(new Message(MessageChannel.SYSTEM, ChannelEvent.BACKGROUND_PROCESS_STOPPED, engine));
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } finally {
+            messageBus.unregisterListener(listener, MessageChannel.SYSTEM);
+        }
+    }
+
+    @Test
+    public void testCacheHit() throws Exception {
+        flushEvents();
+
+        final BayesImportClassifier.AccountClassifier classifier = BayesImportClassifier.getClassifier(bankAccount);
+
+        assertSame(classifier, BayesImportClassifier.getClassifier(bankAccount));
+        assertSame(classifier.getClassifier(), BayesImportClassifier.getClassifier(bankAccount).getClassifier());
+
+        assertEquals(foodAccount, classify());
+    }
+
+    @Test
+    public void testIncrementalAddAndRemove() throws Exception {
+        flushEvents();
+
+        final BayesImportClassifier.AccountClassifier classifier = BayesImportClassifier.getClassifier(bankAccount);
+
+        // a repeated add event must not train the transaction again
+        final Transaction first = addTransaction(gasAccount);
+        flushEvents();
+
+        assertTrue(classifier.isTrained(first));
+
+        BayesImportClassifier.processTransactionEvent(bankAccount, first, true);
+        BayesImportClassifier.processTransactionEvent(bankAccount, first, true);
+
+        assertEquals(foodAccount, classify());
+
+        final Transaction second = addTransaction(gasAccount);
+        final Transaction third = addTransaction(gasAccount);
+        flushEvents();
+
+        assertEquals(gasAccount, classify());
+
+        // a repeated remove event must not untrain the transaction again
+        assertTrue(engine.removeTransaction(second));
+        assertTrue(engine.removeTransaction(third));
+        flushEvents();
+
+        assertFalse(classifier.isTrained(second));
+        assertFalse(classifier.isTrained(third));
+
+        BayesImportClassifier.processTransactionEvent(bankAccount, second, false);
+        BayesImportClassifier.processTransactionEvent(bankAccount, third, false);
+
+        assertEquals(foodAccount, classify());
+
+        // the classifier was updated in place
+        assertSame(classifier, BayesImportClassifier.getClassifier(bankAccount));
+    }
+
+    @Test
+    public void testEventsBeforeTrainingAreIgnored() throws Exception {
+        final Transaction transaction = addTransaction(gasAccount);
+        flushEvents();
+
+        // the history read when the classifier is trained already contains the transaction
+        final BayesImportClassifier.AccountClassifier classifier = BayesImportClassifier.getClassifier(bankAccount);
+
+        assertTrue(classifier.isTrained(transaction));
+
+        BayesImportClassifier.processTransactionEvent(bankAccount, transaction, true);
+
+        assertEquals(foodAccount, classify());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        flushEvents();
+
+        final BayesImportClassifier.AccountClassifier classifier = BayesImportClassifier.getClassifier(bankAccount);
+
+        final Account removed = addAccount(AccountType.EXPENSE, "Removed", engine.getDefaultCurrency());
+        assertTrue(engine.removeAccount(removed));
+        flushEvents();
+
+        final BayesImportClassifier.AccountClassifier rebuilt = BayesImportClassifier.getClassifier(bankAccount);
+
+        assertNotSame(classifier, rebuilt);
+        assertEquals(foodAccount, classify());
+    }
+}
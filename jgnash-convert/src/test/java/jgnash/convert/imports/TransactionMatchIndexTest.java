@@ -0,0 +1,235 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.convert.imports;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Date;
+
+import jgnash.convert.imports.ofx.OfxTransaction;
+import jgnash.engine.Account;
+import jgnash.engine.AccountType;
+import jgnash.engine.CurrencyNode;
+import jgnash.engine.DataStoreType;
+import jgnash.engine.DefaultCurrencies;
+import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
+import jgnash.engine.Transaction;
+import jgnash.engine.TransactionFactory;
+import jgnash.util.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the indexed duplicate lookup with a linear match against every existing transaction
+ *
+ * @author Craig Cavanaugh
+ */
+public class TransactionMatchIndexTest {
+
+    private static final char[] PASSWORD = new char[]{};
+
+    private static final BigDecimal[] AMOUNTS = {new BigDecimal("10.00"), new BigDecimal("10.0"), BigDecimal.TEN,
+            new BigDecimal("-25.50"), new BigDecimal("-25.5"), new BigDecimal("42.00"), new BigDecimal("7.5"),
+            new BigDecimal("7.50"), new BigDecimal("99.00")};
+
+    private String database;
+
+    private Engine engine;
+
+    private Account bankAccount;
+
+    private Date baseDate;
+
+    @Before
+    public void setUp() throws IOException {
+        final File file = Files.createTempFile("jgnash-match-", ".xml").toFile();
+        database = file.getAbsolutePath();
+        assertTrue(file.delete());
+
+        engine = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+        assertNotNull(engine);
+
+        final CurrencyNode node = DefaultCurrencies.buildCustomNode("USD");
+        engine.addCurrency(node);
+        engine.setDefaultCurrency(node);
+
+        bankAccount = new Account(AccountType.BANK, node);
+        bankAccount.setName("Bank");
+        engine.addAccount(engine.getRootAccount(), bankAccount);
+
+        final Account expenseAccount = new Account(AccountType.EXPENSE, node);
+        expenseAccount.setName("Expense");
+        engine.addAccount(engine.getRootAccount(), expenseAccount);
+
+        baseDate = DateUtils.today();
+
+        addTransaction(new BigDecimal("10.00"), baseDate, "", null);
+        addTransaction(new BigDecimal("-25.50"), DateUtils.addDays(baseDate, 5), "1001", null);
+        addTransaction(new BigDecimal("42.00"), DateUtils.addDays(baseDate, 10), "", "F1");
+        addTransaction(new BigDecimal("7.5"), DateUtils.addDays(baseDate, 20), "", null);
+
+        // a second transaction with the same amount to exercise a bucket with several dates
+        addTransaction(new BigDecimal("10.00"), DateUtils.addDays(baseDate, 15), "", null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+        Files.deleteIfExists(Paths.get(database));
+    }
+
+    private void addTransaction(final BigDecimal amount, final Date date, final String number, final String fitid) {
+        final Transaction transaction = TransactionFactory.generateSingleEntryTransaction(bankAccount, amount, date,
+                "memo", "payee", number);
+        transaction.setFitid(fitid);
+
+        assertTrue(engine.addTransaction(transaction));
+    }
+
+    /**
+     * Linear match used before the index was introduced
+     */
+    private static boolean linearMatch(final ImportTransaction oTran, final Account baseAccount) {
+        for (final Transaction tran : baseAccount.getSortedTransactionList()) {
+
+            if (tran.getAmount(baseAccount).equals(oTran.amount)) { // amounts must always match
+                Date startDate;
+                Date endDate;
+
+                if ((oTran.dateUser != null)) {
+                    startDate = DateUtils.addDays(oTran.dateUser, -1);
+                    endDate = DateUtils.addDays(oTran.dateUser, 1);
+                } else {
+                    startDate = DateUtils.addDays(oTran.datePosted, -3);
+                    endDate = DateUtils.addDays(oTran.datePosted, 3);
+                }
+
+                if (DateUtils.after(tran.getDate(), startDate) && DateUtils.before(tran.getDate(), endDate)) {
+                    return true;
+                }
+
+                String checkNumber = oTran.checkNumber;
+                if (checkNumber != null && !checkNumber.isEmpty() && tran.getNumber().equals(checkNumber)) {
+                    return true;
+                }
+
+                if (oTran instanceof OfxTransaction) {
+                    String id = ((OfxTransaction) oTran).transactionID;
+                    if (id != null && !id.isEmpty() && tran.getFitid() != null && tran.getFitid().equals(id)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean indexedMatch(final ImportTransaction oTran) {
+        oTran.setState(ImportTransaction.ImportState.NEW);
+        GenericImport.matchTransactions(Collections.singletonList(oTran), bankAccount);
+
+        return oTran.getState() == ImportTransaction.ImportState.EQUAL;
+    }
+
+    private static OfxTransaction createImportTransaction(final BigDecimal amount, final Date datePosted,
+                                                          final Date dateUser) {
+        final OfxTransaction oTran = new OfxTransaction();
+        oTran.amount = amount;
+        oTran.datePosted = datePosted;
+        oTran.dateUser = dateUser;
+
+        return oTran;
+    }
+
+    @Test
+    public void testInclusiveDateBounds() {
+
+        // posted dates use a window of three days
+        assertTrue(indexedMatch(createImportTransaction(new BigDecimal("10.00"), DateUtils.addDays(baseDate, 3),
+                null)));
+        assertTrue(indexedMatch(createImportTransaction(new BigDecimal("10.00"), DateUtils.addDays(baseDate, -3),
+                null)));
+        assertFalse(indexedMatch(createImportTransaction(new BigDecimal("10.00"), DateUtils.addDays(baseDate, 4),
+                null)));
+
+        // user dates use a window of one day
+        assertTrue(indexedMatch(createImportTransaction(new BigDecimal("10.00"), baseDate,
+                DateUtils.addDays(baseDate, 1))));
+        assertTrue(indexedMatch(createImportTransaction(new BigDecimal("10.00"), baseDate,
+                DateUtils.addDays(baseDate, -1))));
+        assertFalse(indexedMatch(createImportTransaction(new BigDecimal("10.00"), baseDate,
+                DateUtils.addDays(baseDate, 2))));
+    }
+
+    @Test
+    public void testScaleOnlyDifferences() {
+        final Date posted = baseDate;
+
+        for (final BigDecimal amount : AMOUNTS) {
+            final ImportTransaction oTran = createImportTransaction(amount, posted, null);
+
+            assertEquals(amount.toPlainString(), linearMatch(oTran, bankAccount), indexedMatch(oTran));
+        }
+
+        // the existing amount and scale must both match
+        assertTrue(indexedMatch(createImportTransaction(new BigDecimal("10.00"), posted, null)));
+        assertFalse(indexedMatch(createImportTransaction(new BigDecimal("10.0"), posted, null)));
+    }
+
+    @Test
+    public void testParityWithLinearMatch() {
+        final long noon = 12L * 60 * 60 * 1000;
+
+        for (int day = -6; day <= 26; day++) {
+            final Date date = DateUtils.addDays(baseDate, day);
+            final Date[] postedDates = {date, new Date(date.getTime() + noon), new Date(date.getTime() - 1)};
+
+            for (final Date posted : postedDates) {
+                for (final BigDecimal amount : AMOUNTS) {
+                    for (int variant = 0; variant < 4; variant++) {
+                        final OfxTransaction oTran = createImportTransaction(amount, posted,
+                                variant == 1 ? posted : null);
+
+                        if (variant == 2) {
+                            oTran.checkNumber = "1001";
+                        } else if (variant == 3) {
+                            oTran.transactionID = "F1";
+                        }
+
+                        final String message = amount.toPlainString() + " " + posted + " " + variant;
+
+                        assertEquals(message, linearMatch(oTran, bankAccount), indexedMatch(oTran));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.convert.imports.jgnash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import jgnash.engine.Account;
+import jgnash.engine.CurrencyNode;
+import jgnash.engine.DataStoreType;
+import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
+import jgnash.engine.SecurityNode;
+import jgnash.engine.Transaction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Imports a jGnash 1.x file whose objects reference accounts and currencies before they are declared
+ *
+ * @author Craig Cavanaugh
+ */
+public class ImportTest {
+
+    private static final char[] PASSWORD = new char[]{};
+
+    private String database;
+
+    private Engine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        final File file = Files.createTempFile("jgnash-import-", ".xml").toFile();
+        database = file.getAbsolutePath();
+        assertTrue(file.delete());
+
+        engine = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+        assertNotNull(engine);
+
+        if (engine.getCurrency("USD") == null) {
+            final CurrencyNode usdNode = new CurrencyNode();
+            usdNode.setSymbol("USD");
+            usdNode.setPrefix("$");
+            usdNode.setDescription("US Dollar");
+            engine.addCurrency(usdNode);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+        Files.deleteIfExists(Paths.get(database));
+    }
+
+    @Test
+    public void testForwardReferences() throws URISyntaxException {
+        final Path path = Paths.get(Object.class.getResource("/forward-references.jgnash.xml").toURI());
+
+        Import.doImport(path.toString());
+
+        assertEquals("USD", engine.getDefaultCurrency().getSymbol());
+
+        // accounts read before their parents are moved once the parent is read
+        final Account bankAccounts = engine.getAccountByName("Bank Accounts");
+        final Account checking = engine.getAccountByName("Checking");
+        final Account incomeAccounts = engine.getAccountByName("Income Accounts");
+        final Account salary = engine.getAccountByName("Salary");
+
+        assertNotNull(bankAccounts);
+        assertNotNull(checking);
+        assertNotNull(incomeAccounts);
+        assertNotNull(salary);
+
+        assertEquals(engine.getRootAccount(), bankAccounts.getParent());
+        assertEquals(engine.getRootAccount(), incomeAccounts.getParent());
+        assertEquals(bankAccounts, checking.getParent());
+        assertEquals(incomeAccounts, salary.getParent());
+
+        // the transaction was read before both of its accounts
+        assertEquals(1, checking.getTransactionCount());
+        assertEquals(1, salary.getTransactionCount());
+
+        final Transaction transaction = checking.getSortedTransactionList().get(0);
+
+        assertEquals("Employer", transaction.getPayee());
+        assertEquals(0, new BigDecimal("100.00").compareTo(checking.getBalance()));
+        assertEquals(0, new BigDecimal("-100.00").compareTo(salary.getBalance()));
+
+        // the reported currency is declared after the security, the history must survive the update
+        final SecurityNode securityNode = engine.getSecurity("ACME");
+
+        assertNotNull(securityNode);
+        assertEquals(engine.getCurrency("CAD"), securityNode.getReportedCurrencyNode());
+        assertEquals(2, engine.getSecurityHistory(securityNode).size());
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.convert.imports.qif;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import jgnash.engine.Account;
+import jgnash.engine.AccountType;
+import jgnash.engine.CurrencyNode;
+import jgnash.engine.DataStoreType;
+import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Imports full QIF files through the streaming pipeline
+ *
+ * @author Craig Cavanaugh
+ */
+public class QifImportTest {
+
+    private static final char[] PASSWORD = new char[]{};
+
+    private String database;
+
+    private Engine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        final File file = Files.createTempFile("jgnash-qif-", ".xml").toFile();
+        database = file.getAbsolutePath();
+        assertTrue(file.delete());
+
+        engine = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+        assertNotNull(engine);
+
+        if (engine.getDefaultCurrency() == null) {
+            final CurrencyNode usdNode = new CurrencyNode();
+            usdNode.setSymbol("USD");
+            usdNode.setPrefix("$");
+            usdNode.setDescription("US Dollar");
+            engine.addCurrency(usdNode);
+            engine.setDefaultCurrency(usdNode);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+        Files.deleteIfExists(Paths.get(database));
+    }
+
+    private static File getFile(final String name) throws URISyntaxException {
+        return new File(Object.class.getResource(name).toURI());
+    }
+
+    @Test
+    public void testStreamingImport() throws Exception {
+
+        final Account expenses = new Account(AccountType.EXPENSE, engine.getDefaultCurrency());
+        expenses.setName("Expenses");
+        engine.addAccount(engine.getRootAccount(), expenses);
+
+        final Account income = new Account(AccountType.INCOME, engine.getDefaultCurrency());
+        income.setName("Income");
+        engine.addAccount(engine.getRootAccount(), income);
+
+        // an existing category must not be duplicated
+        final Account food = new Account(AccountType.EXPENSE, engine.getDefaultCurrency());
+        food.setName("Food");
+        engine.addAccount(expenses, food);
+
+        final List<Double> progress = new ArrayList<>();
+
+        final QifImport qifImport = new QifImport();
+        qifImport.doStreamingImport(getFile("/full-import.qif"), QifUtils.US_FORMAT, progress::add);
+
+        assertEquals(0, qifImport.getDuplicateCount());
+
+        assertEquals(1, engine.getAccountList().stream().filter(account -> account.getName().equals("Food")).count());
+
+        final Account groceries = engine.getAccountByName("Groceries");
+        assertNotNull(groceries);
+        assertEquals(food, groceries.getParent());
+
+        final Account salary = engine.getAccountByName("Salary");
+        final Account checking = engine.getAccountByName("Checking");
+        final Account savings = engine.getAccountByName("Savings");
+
+        assertNotNull(salary);
+        assertEquals(income, salary.getParent());
+        assertNotNull(checking);
+        assertNotNull(savings);
+
+        assertEquals(3, checking.getTransactionCount());
+        assertEquals(0, new BigDecimal("750.00").compareTo(checking.getBalance()));
+
+        // the mirror of the transfer is skipped
+        assertEquals(1, savings.getTransactionCount());
+        assertEquals(0, new BigDecimal("200.00").compareTo(savings.getBalance()));
+
+        assertEquals(1, groceries.getTransactionCount());
+        assertEquals(1, salary.getTransactionCount());
+        assertEquals(3, engine.getTransactions().size());
+
+        assertTrue(!progress.isEmpty());
+        assertEquals(1.0, progress.get(progress.size() - 1), 0);
+
+        // a second import of the same file only finds duplicates
+        final QifImport secondImport = new QifImport();
+        secondImport.doStreamingImport(getFile("/full-import.qif"), QifUtils.US_FORMAT, null);
+
+        assertEquals(3, secondImport.getDuplicateCount());
+        assertEquals(3, engine.getTransactions().size());
+    }
+
+    @Test
+    public void testStreamingImportOutOfOrder() throws Exception {
+        final Account income = new Account(AccountType.INCOME, engine.getDefaultCurrency());
+        income.setName("Income");
+        engine.addAccount(engine.getRootAccount(), income);
+
+        final QifImport qifImport = new QifImport();
+
+        // the transfer into savings is read before savings is listed
+        qifImport.doStreamingImport(getFile("/out-of-order-import.qif"), QifUtils.US_FORMAT, null);
+
+        final Account checking = engine.getAccountByName("Checking");
+        final Account savings = engine.getAccountByName("Savings");
+
+        assertNotNull(checking);
+        assertNotNull(savings);
+
+        assertEquals(2, checking.getTransactionCount());
+        assertEquals(0, new BigDecimal("800.00").compareTo(checking.getBalance()));
+
+        assertEquals(2, savings.getTransactionCount());
+        assertEquals(0, new BigDecimal("225.00").compareTo(savings.getBalance()));
+
+        // a single transfer, the mirror is skipped
+        assertEquals(3, engine.getTransactions().size());
+        assertEquals(1, engine.getTransactions().stream()
+                .filter(t -> t.getAccounts().contains(checking) && t.getAccounts().contains(savings)).count());
+    }
+
+    @Test(timeout = 30000)
+    public void testStreamingImportFailure() throws Exception {
+        final Path path = Files.createTempFile("jgnash-qif-", ".qif");
+
+        try {
+            try (final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                // a category without a name fails in the mapping stage
+                writer.write("!Type:Cat\nE\n^\n");
+
+                writer.write("!Account\nNChecking\nTBank\n^\n!Type:Bank\n");
+
+                // enough records to fill the queue behind the failure
+                for (int i = 0; i < 5000; i++) {
+                    writer.write("D01/02/2015\nT" + i + ".00\nPPayee " + i + "\n^\n");
+                }
+            }
+
+            new QifImport().doStreamingImport(path.toFile(), QifUtils.US_FORMAT, null);
+
+            assertTrue(engine.getTransactions().isEmpty());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testStreamingImportOfPartialFile() throws Exception {
+        final QifImport qifImport = new QifImport();
+
+        try {
+            qifImport.doStreamingImport(getFile("/partial-import.qif"), QifUtils.US_FORMAT, null);
+            fail("A partial file must be rejected");
+        } catch (final NoAccountException e) {
+            assertEquals(0, engine.getTransactions().size());
+        }
+    }
+}
@@ -20,6 +20,7 @@ package jgnash.engine;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -34,6 +35,7 @@ import java.util.TreeSet;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -224,6 +226,11 @@ public class Account extends StoredObject implements Comparable<Account> {
 
     private transient AccountProxy proxy;
 
+    /**
+     * Answers balance queries while loading of transactions is pending
+     */
+    private transient volatile TransactionSummary transactionSummary;
+
     /**
      * No argument public constructor for reflection purposes.
      * <p/>
@@ -261,6 +268,75 @@ public class Account extends StoredObject implements Comparable<Account> {
         return transactionLock;
     }
 
+    /**
+     * Defers loading of this account's transactions until they are first accessed.  Intended for use by data stores
+     * that read transactions on demand and must be called before the account is used.
+     *
+     * @param loader supplies the transactions for this account
+     */
+    public void setTransactionLoader(@NotNull final Supplier<Collection<Transaction>> loader) {
+        transactionLock = new LazyLoadingReadWriteLock(new ReentrantReadWriteLock(true), () -> {
+            transactions.addAll(loader.get());
+            cachedSortedTransactionList = null;
+        });
+    }
+
+    /**
+     * Assigns the transactions of an account read without them.  Intended for use by data stores that read accounts
+     * and transactions separately and link them once both are read; must be called before the account is used.
+     *
+     * @param loadedTransactions transactions for this account
+     */
+    public void setLoadedTransactions(@NotNull final Collection<Transaction> loadedTransactions) {
+        transactionLock.writeLock().lock();
+
+        try {
+            transactions = new HashSet<>(loadedTransactions);
+            cachedSortedTransactionList = null;
+        } finally {
+            transactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Determines if this account's transactions have yet to be loaded
+     *
+     * @return {@code true} if loading of transactions has been deferred and they have not been accessed
+     */
+    boolean isTransactionLoadPending() {
+        return transactionLock instanceof LazyLoadingReadWriteLock
+                && ((LazyLoadingReadWriteLock) transactionLock).isLoadPending();
+    }
+
+    /**
+     * Sets a summary of the transactions that will be used to answer balance queries until the transactions are
+     * loaded.  Has no effect unless a transaction loader has been set.
+     *
+     * @param summary summary of the transactions the loader will supply
+     * @see #setTransactionLoader(Supplier)
+     */
+    public void setTransactionSummary(@NotNull final TransactionSummary summary) {
+        transactionSummary = summary;
+    }
+
+    /**
+     * Returns the transaction summary if the transactions have not been loaded yet.  Checking before the
+     * transaction lock is taken prevents the load from being triggered.
+     *
+     * @return the summary or {@code null} if the transactions must be used
+     */
+    @Nullable
+    private TransactionSummary getPendingSummary() {
+        final TransactionSummary summary = transactionSummary;
+
+        if (summary != null && !isTransactionLoadPending()) {
+            transactionSummary = null;
+            return null;
+        }
+
+        return summary;
+    }
+
     AccountProxy getProxy() {
         if (proxy == null) {
             proxy = getAccountType().getProxy(this);
@@ -327,6 +403,21 @@ public class Account extends StoredObject implements Comparable<Account> {
         reconciledBalance = null;
     }
 
+    /**
+     * Determines if the account balance is cached
+     *
+     * @return {@code true} if the balance will not be recalculated when next queried
+     */
+    boolean isBalanceCached() {
+        transactionLock.readLock().lock();
+
+        try {
+            return accountBalance != null;
+        } finally {
+            transactionLock.readLock().unlock();
+        }
+    }
+
     /**
      * Adds account transaction in chronological order
      *
@@ -350,9 +441,11 @@ public class Account extends StoredObject implements Comparable<Account> {
                 transactions.add(tran);
 
                 /* The cached list may already contain the transaction if it has not been initialized yet */
-                if (!getCachedSortedTransactionList().contains(tran)) {
-                    getCachedSortedTransactionList().add(tran);
-                    Collections.sort(getCachedSortedTransactionList());
+                final List<Transaction> sortedList = getCachedSortedTransactionList();
+                final int index = Collections.binarySearch(sortedList, tran);
+
+                if (index < 0) {
+                    sortedList.add(-index - 1, tran);
                 }
 
                 clearCachedBalances();
@@ -384,7 +477,7 @@ public class Account extends StoredObject implements Comparable<Account> {
 
             if (contains(tran)) {
                 transactions.remove(tran);
-                getCachedSortedTransactionList().remove(tran);
+                removeSorted(getCachedSortedTransactionList(), tran);
                 clearCachedBalances();
 
                 result = true;
@@ -398,6 +491,23 @@ public class Account extends StoredObject implements Comparable<Account> {
         }
     }
 
+    /**
+     * Removes a transaction from a sorted list using a binary search.  Falls back to a linear search if the
+     * transaction's sort order changed while it was in the list.
+     *
+     * @param sortedList sorted list of transactions
+     * @param tran       the {@code Transaction} to remove
+     */
+    private static void removeSorted(final List<Transaction> sortedList, final Transaction tran) {
+        final int index = Collections.binarySearch(sortedList, tran);
+
+        if (index >= 0 && sortedList.get(index) == tran) {
+            sortedList.remove(index);
+        } else {
+            sortedList.remove(tran);
+        }
+    }
+
     /**
      * Determines if the specified transaction is attach to this account
      *
@@ -471,6 +581,12 @@ public class Account extends StoredObject implements Comparable<Account> {
      * @return the number of transactions attached to this account.
      */
     public int getTransactionCount() {
+        final TransactionSummary summary = getPendingSummary();
+
+        if (summary != null) {
+            return summary.getTransactionCount();
+        }
+
         transactionLock.readLock().lock();
 
         try {
@@ -685,6 +801,12 @@ public class Account extends StoredObject implements Comparable<Account> {
      * @return the balance of this account
      */
     public BigDecimal getBalance() {
+        final TransactionSummary summary = getPendingSummary();
+
+        if (summary != null) {
+            return summary.getBalance();
+        }
+
         transactionLock.readLock().lock();
 
         try {
@@ -706,6 +828,12 @@ public class Account extends StoredObject implements Comparable<Account> {
      * @return the balance of this account
      */
     private BigDecimal getBalance(final CurrencyNode node) {
+        final TransactionSummary summary = getPendingSummary();
+
+        if (summary != null) {
+            return adjustForExchangeRate(summary.getBalance(), node);
+        }
+
         transactionLock.readLock().lock();
 
         try {
@@ -765,6 +893,12 @@ public class Account extends StoredObject implements Comparable<Account> {
      * @return the reconciled balance of this account
      */
     public BigDecimal getReconciledBalance() {
+        final TransactionSummary summary = getPendingSummary();
+
+        if (summary != null) {
+            return summary.getReconciledBalance();
+        }
+
         transactionLock.readLock().lock();
 
         try {
@@ -836,7 +970,12 @@ public class Account extends StoredObject implements Comparable<Account> {
      * accounts.
      */
     public BigDecimal getTreeBalance() {
-        transactionLock.readLock().lock();
+        // the summary answers for unloaded transactions; taking the lock would force the load
+        final boolean lockTransactions = getPendingSummary() == null;
+
+        if (lockTransactions) {
+            transactionLock.readLock().lock();
+        }
         childLock.readLock().lock();
 
         try {
@@ -848,7 +987,9 @@ public class Account extends StoredObject implements Comparable<Account> {
 
             return balance;
         } finally {
-            transactionLock.readLock().unlock();
+            if (lockTransactions) {
+                transactionLock.readLock().unlock();
+            }
             childLock.readLock().unlock();
         }
     }
@@ -863,7 +1004,12 @@ public class Account extends StoredObject implements Comparable<Account> {
      * accounts.
      */
     private BigDecimal getTreeBalance(final CurrencyNode node) {
-        transactionLock.readLock().lock();
+        // the summary answers for unloaded transactions; taking the lock would force the load
+        final boolean lockTransactions = getPendingSummary() == null;
+
+        if (lockTransactions) {
+            transactionLock.readLock().lock();
+        }
         childLock.readLock().lock();
 
         try {
@@ -874,7 +1020,9 @@ public class Account extends StoredObject implements Comparable<Account> {
             }
             return balance;
         } finally {
-            transactionLock.readLock().unlock();
+            if (lockTransactions) {
+                transactionLock.readLock().unlock();
+            }
             childLock.readLock().unlock();
         }
     }
@@ -889,7 +1037,6 @@ public class Account extends StoredObject implements Comparable<Account> {
      * accounts.
      */
     private BigDecimal getReconciledTreeBalance(final CurrencyNode node) {
-        transactionLock.readLock().lock();
         childLock.readLock().lock();
 
         try {
@@ -900,7 +1047,6 @@ public class Account extends StoredObject implements Comparable<Account> {
             }
             return balance;
         } finally {
-            transactionLock.readLock().unlock();
             childLock.readLock().unlock();
         }
     }
@@ -912,7 +1058,6 @@ public class Account extends StoredObject implements Comparable<Account> {
      * accounts.
      */
     public BigDecimal getReconciledTreeBalance() {
-        transactionLock.readLock().lock();
         childLock.readLock().lock();
 
         try {
@@ -923,7 +1068,6 @@ public class Account extends StoredObject implements Comparable<Account> {
             }
             return balance;
         } finally {
-            transactionLock.readLock().unlock();
             childLock.readLock().unlock();
         }
     }
@@ -940,6 +1084,12 @@ public class Account extends StoredObject implements Comparable<Account> {
         Objects.requireNonNull(start);
         Objects.requireNonNull(end);
 
+        final TransactionSummary summary = getPendingSummary();
+
+        if (summary != null) {
+            return summary.getBalance(start, end);
+        }
+
         transactionLock.readLock().lock();
 
         try {
@@ -959,13 +1109,7 @@ public class Account extends StoredObject implements Comparable<Account> {
      * @return the account balance
      */
     public BigDecimal getBalance(final Date startDate, final Date endDate, final CurrencyNode node) {
-        transactionLock.readLock().lock();
-
-        try {
-            return adjustForExchangeRate(getBalance(startDate, endDate), node);
-        } finally {
-            transactionLock.readLock().unlock();
-        }
+        return adjustForExchangeRate(getBalance(startDate, endDate), node);
     }
 
     /**
@@ -980,7 +1124,6 @@ public class Account extends StoredObject implements Comparable<Account> {
         Objects.requireNonNull(start);
         Objects.requireNonNull(end);
 
-        transactionLock.readLock().lock();
         childLock.readLock().lock();
 
         try {
@@ -991,7 +1134,6 @@ public class Account extends StoredObject implements Comparable<Account> {
             }
             return balance;
         } finally {
-            transactionLock.readLock().unlock();
             childLock.readLock().unlock();
         }
     }
@@ -1029,7 +1171,6 @@ public class Account extends StoredObject implements Comparable<Account> {
         Objects.requireNonNull(start);
         Objects.requireNonNull(end);
 
-        transactionLock.readLock().lock();
         childLock.readLock().lock();
 
         try {
@@ -1040,7 +1181,6 @@ public class Account extends StoredObject implements Comparable<Account> {
             }
             return returnValue;
         } finally {
-            transactionLock.readLock().unlock();
             childLock.readLock().unlock();
         }
     }
@@ -1052,6 +1192,12 @@ public class Account extends StoredObject implements Comparable<Account> {
      * @return The ending balance
      */
     public BigDecimal getBalance(final Date date) {
+        final TransactionSummary summary = getPendingSummary();
+
+        if (summary != null) {
+            return summary.getBalance(date);
+        }
+
         transactionLock.readLock().lock();
 
         try {
@@ -1070,13 +1216,7 @@ public class Account extends StoredObject implements Comparable<Account> {
      * @return The ending balance
      */
     public BigDecimal getBalance(final Date date, final CurrencyNode node) {
-        transactionLock.readLock().lock();
-
-        try {
-            return adjustForExchangeRate(getBalance(date), node);
-        } finally {
-            transactionLock.readLock().unlock();
-        }
+        return adjustForExchangeRate(getBalance(date), node);
     }
 
     /**
@@ -1238,7 +1378,7 @@ public class Account extends StoredObject implements Comparable<Account> {
         }
 
         // Sort of uuid after everything else fails.
-        return getUuid().compareTo(acc.getUuid());
+        return getObjectId().compareTo(acc.getObjectId());
     }
 
     @Override
@@ -1248,12 +1388,12 @@ public class Account extends StoredObject implements Comparable<Account> {
 
     @Override
     public boolean equals(final Object other) {
-        return this == other || other instanceof Account && getUuid().equals(((Account) other).getUuid());
+        return this == other || other instanceof Account && getObjectId().equals(((Account) other).getObjectId());
     }
 
     @Override
     public int hashCode() {
-        return getUuid().hashCode();
+        return getObjectId().hashCode();
     }
 
     /**
@@ -1532,12 +1672,16 @@ public class Account extends StoredObject implements Comparable<Account> {
      * @return Properly initialized Account
      */
     protected Object readResolve() {
-        postLoad();
+        BootProfile.getInstance().accumulate(BootProfile.POST_LOAD, this::postLoad);
         return this;
     }
 
     @PostLoad
     private void postLoad() {
+        if (transactions == null) {   // not persisted by data stores that load transactions on demand
+            transactions = new HashSet<>();
+        }
+
         transactionLock = new ReentrantReadWriteLock(true);
         childLock = new ReentrantReadWriteLock(true);
         securitiesLock = new ReentrantReadWriteLock(true);
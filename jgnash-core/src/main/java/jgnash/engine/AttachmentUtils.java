@@ -19,11 +19,16 @@ package jgnash.engine;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 /**
  * Support methods for handling attachments
@@ -34,6 +39,17 @@ public class AttachmentUtils {
 
     private static final String ATTACHMENT_BASE = "attachments";
 
+    private static final String CONTENT_DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * A content name is the lower case hex SHA-256 digest of the file with an optional extension
+     */
+    private static final Pattern CONTENT_NAME_PATTERN = Pattern.compile("[0-9a-f]{64}(\\.[0-9a-z]{1,10})?");
+
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("[0-9a-z]{1,10}");
+
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
     /**
      * Utility class
      */
@@ -84,4 +100,85 @@ public class AttachmentUtils {
     public static Path getAttachmentPath() {
         return getAttachmentDirectory(Paths.get(EngineFactory.getActiveDatabase()));
     }
+
+    /**
+     * Generates the content addressed name for a file.  The name is derived from the SHA-256 digest of the file
+     * content so identical files always share the same name.  The original file extension is preserved so the
+     * attachment can still be opened by type.
+     *
+     * @param path file to generate the name for
+     * @return content name
+     * @throws IOException if the file could not be read
+     */
+    public static String getContentName(final Path path) throws IOException {
+        final String fileName = path.getFileName().toString();
+        final int index = fileName.lastIndexOf('.');
+
+        final StringBuilder builder = new StringBuilder(getContentDigest(path));
+
+        if (index > 0) {
+            final String extension = fileName.substring(index + 1).toLowerCase(Locale.ROOT);
+
+            if (EXTENSION_PATTERN.matcher(extension).matches()) {
+                builder.append('.').append(extension);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Determines if an attachment is referenced by content name
+     *
+     * @param attachment attachment name
+     * @return {@code true} if the attachment name is a content name
+     * @see #getContentName(Path)
+     */
+    public static boolean isContentName(final String attachment) {
+        return attachment != null && CONTENT_NAME_PATTERN.matcher(Paths.get(attachment).getFileName().toString()).matches();
+    }
+
+    /**
+     * Verifies a content addressed file exists and its content still matches its name
+     *
+     * @param path content addressed file
+     * @return {@code true} if the file exists and the digest of the content matches the name
+     */
+    public static boolean isContentValid(final Path path) {
+        final String fileName = path.getFileName().toString();
+
+        if (!isContentName(fileName) || !Files.isRegularFile(path)) {
+            return false;
+        }
+
+        try {
+            return fileName.startsWith(getContentDigest(path));
+        } catch (final IOException e) {
+            Logger.getLogger(AttachmentUtils.class.getName()).log(Level.WARNING, e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    private static String getContentDigest(final Path path) throws IOException {
+        try (final InputStream inputStream = Files.newInputStream(path)) {
+            final MessageDigest messageDigest = MessageDigest.getInstance(CONTENT_DIGEST_ALGORITHM);
+            final byte[] bytes = new byte[DIGEST_BUFFER_SIZE];
+
+            int bytesRead;
+
+            while ((bytesRead = inputStream.read(bytes)) != -1) {
+                messageDigest.update(bytes, 0, bytesRead);
+            }
+
+            final StringBuilder builder = new StringBuilder();
+
+            for (final byte b : messageDigest.digest()) {
+                builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+
+            return builder.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
 }
@@ -0,0 +1,283 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Records where time is spent while a file is opened.
+ * <p/>
+ * A boot is started with {@link #begin()} and the phases within it are timed with spans, which may be nested and
+ * may carry a count of the objects they processed.  Work that happens many times, such as the {@code postLoad}
+ * of each object, is summed into a single phase with {@link #accumulate(String, Runnable)}.  The profile of the
+ * last boot is logged when it ends and is available through JMX as {@code jgnash:type=BootProfile}.
+ *
+ * @author Craig Cavanaugh
+ */
+public final class BootProfile implements BootProfileMBean {
+
+    /**
+     * Phase name for the accumulated post load hooks of deserialized objects
+     */
+    public static final String POST_LOAD = "postLoad";
+
+    private static final Logger logger = Logger.getLogger(BootProfile.class.getName());
+
+    private static final BootProfile instance = new BootProfile();
+
+    private static volatile boolean printReport = false;
+
+    private final ThreadLocal<Integer> depth = ThreadLocal.withInitial(() -> 0);
+
+    /**
+     * Completed spans of the current or last boot, guarded by this
+     */
+    private List<Span> spans = new ArrayList<>();
+
+    private final Map<String, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+    private volatile boolean booting = false;
+
+    private long startTime;
+
+    private long bootTime;
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName("jgnash:type=BootProfile"));
+        } catch (final JMException e) {
+            logger.log(Level.WARNING, "Unable to register the boot profile MBean", e);
+        }
+    }
+
+    private BootProfile() {
+    }
+
+    public static BootProfile getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets if the report is printed to standard out when a boot ends
+     *
+     * @param print {@code true} to print the report
+     */
+    public static void setPrintReport(final boolean print) {
+        printReport = print;
+    }
+
+    /**
+     * Starts profiling a boot unless one is already in progress
+     *
+     * @return {@code true} if a new boot was started.  The caller is then responsible for calling {@link #end()}
+     */
+    public synchronized boolean begin() {
+        if (booting) {
+            return false;
+        }
+
+        spans = new ArrayList<>();
+        accumulators.clear();
+        startTime = System.nanoTime();
+        bootTime = 0;
+        booting = true;
+
+        return true;
+    }
+
+    /**
+     * Ends the boot in progress and logs the report
+     */
+    public void end() {
+        final String report;
+
+        synchronized (this) {
+            if (!booting) {
+                return;
+            }
+
+            booting = false;
+            bootTime = System.nanoTime() - startTime;
+            report = getReport();
+        }
+
+        logger.info(report);
+
+        if (printReport) {
+            System.out.println(report);
+        }
+    }
+
+    /**
+     * Starts timing a phase.  The returned span must be closed when the phase is complete, preferably with a
+     * try-with-resources statement.  Spans started while a boot is not in progress are not recorded.
+     *
+     * @param phase name of the phase
+     * @return the span
+     */
+    public Span start(final String phase) {
+        return new Span(phase, booting);
+    }
+
+    /**
+     * Runs a task and adds its time to the total of a phase while a boot is in progress
+     *
+     * @param phase name of the phase
+     * @param task  task to run
+     */
+    public void accumulate(final String phase, final Runnable task) {
+        if (!booting) {
+            task.run();
+            return;
+        }
+
+        final long start = System.nanoTime();
+
+        try {
+            task.run();
+        } finally {
+            accumulators.computeIfAbsent(phase, k -> new Accumulator()).add(System.nanoTime() - start);
+        }
+    }
+
+    private synchronized void add(final Span span) {
+        spans.add(span);
+    }
+
+    @Override
+    public synchronized long getBootTime() {
+        return TimeUnit.NANOSECONDS.toMillis(bootTime);
+    }
+
+    @Override
+    public synchronized String[] getPhases() {
+        final List<String> phases = new ArrayList<>();
+
+        spans.stream().sorted((a, b) -> Long.compare(a.start, b.start)).forEach(span -> phases.add(span.toString()));
+
+        accumulators.forEach((phase, accumulator) -> phases.add(phase + ": "
+                + TimeUnit.NANOSECONDS.toMillis(accumulator.time.get()) + " ms, " + accumulator.count.get() + " calls"));
+
+        return phases.toArray(new String[phases.size()]);
+    }
+
+    @Override
+    public synchronized String getReport() {
+        final StringBuilder builder = new StringBuilder("Boot profile");
+
+        if (bootTime > 0) {
+            builder.append(": ").append(getBootTime()).append(" ms");
+        }
+
+        for (final String phase : getPhases()) {
+            builder.append(System.lineSeparator()).append("  ").append(phase);
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public boolean isBooting() {
+        return booting;
+    }
+
+    /**
+     * Timed phase of a boot
+     */
+    public final class Span implements AutoCloseable {
+
+        private final String phase;
+
+        private final boolean recorded;
+
+        private final int level;
+
+        private final long start;
+
+        private long duration;
+
+        private long count = -1;
+
+        private Span(final String phase, final boolean recorded) {
+            this.phase = phase;
+            this.recorded = recorded;
+            this.start = System.nanoTime();
+
+            level = depth.get();
+            depth.set(level + 1);
+        }
+
+        /**
+         * Sets the number of objects processed by the phase
+         *
+         * @param count object count
+         */
+        public void setCount(final long count) {
+            this.count = count;
+        }
+
+        @Override
+        public void close() {
+            duration = System.nanoTime() - start;
+            depth.set(level);
+
+            if (recorded) {
+                add(this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+
+            for (int i = 0; i < level; i++) {
+                builder.append("  ");
+            }
+
+            builder.append(phase).append(": ").append(TimeUnit.NANOSECONDS.toMillis(duration)).append(" ms");
+
+            if (count >= 0) {
+                builder.append(", ").append(count).append(" objects");
+            }
+
+            return builder.toString();
+        }
+    }
+
+    private static final class Accumulator {
+        final AtomicLong time = new AtomicLong();
+
+        final AtomicLong count = new AtomicLong();
+
+        void add(final long nanos) {
+            time.addAndGet(nanos);
+            count.incrementAndGet();
+        }
+    }
+}
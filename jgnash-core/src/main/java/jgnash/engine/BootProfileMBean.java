@@ -0,0 +1,54 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+/**
+ * JMX management interface for {@link BootProfile}
+ *
+ * @author Craig Cavanaugh
+ */
+public interface BootProfileMBean {
+
+    /**
+     * Returns the duration of the last boot
+     *
+     * @return boot time in milliseconds, 0 if a boot has not completed
+     */
+    long getBootTime();
+
+    /**
+     * Returns the phases of the last boot, one entry per phase
+     *
+     * @return array of phase descriptions
+     */
+    String[] getPhases();
+
+    /**
+     * Returns a formatted report of the last boot
+     *
+     * @return boot profile report
+     */
+    String getReport();
+
+    /**
+     * Determines if a boot is in progress
+     *
+     * @return {@code true} if a boot is being profiled
+     */
+    boolean isBooting();
+}
@@ -95,12 +95,12 @@ public abstract class CommodityNode extends StoredObject implements Comparable<C
 
     @Override
     public boolean equals(final Object other) {
-        return this == other || other instanceof CommodityNode && getUuid().equals(((CommodityNode) other).getUuid());
+        return this == other || other instanceof CommodityNode && getObjectId().equals(((CommodityNode) other).getObjectId());
     }
 
     @Override
     public int hashCode() {
-        return getUuid().hashCode();
+        return getObjectId().hashCode();
     }
 
     /**
@@ -163,7 +163,7 @@ public class Config extends StoredObject {
      * @return Properly initialized Config object
      */
     protected Object readResolve() {
-        postLoad();
+        BootProfile.getInstance().accumulate(BootProfile.POST_LOAD, this::postLoad);
         return this;
     }
 
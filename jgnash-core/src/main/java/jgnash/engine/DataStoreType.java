@@ -25,6 +25,9 @@ import java.util.logging.Logger;
 import jgnash.engine.jpa.JpaH2DataStore;
 import jgnash.engine.jpa.JpaHsqlDataStore;
 import jgnash.engine.xstream.BinaryXStreamDataStore;
+import jgnash.engine.xstream.ColumnarDataStore;
+import jgnash.engine.xstream.PagedBinaryDataStore;
+import jgnash.engine.xstream.ShardedBinaryDataStore;
 import jgnash.engine.xstream.XMLDataStore;
 import jgnash.util.Resource;
 
@@ -50,6 +53,21 @@ public enum DataStoreType {
             true,
             true,
             JpaHsqlDataStore.class),
+    SHARDED_BINARY_XSTREAM(
+            Resource.get().getString("DataStoreType.Sbxds"),
+            true,
+            false,
+            ShardedBinaryDataStore.class),
+    PAGED_BINARY_XSTREAM(
+            Resource.get().getString("DataStoreType.Pbxds"),
+            true,
+            false,
+            PagedBinaryDataStore.class),
+    COLUMNAR_BINARY_XSTREAM(
+            Resource.get().getString("DataStoreType.Cbxds"),
+            true,
+            false,
+            ColumnarDataStore.class),
     XML(
             Resource.get().getString("DataStoreType.XML"),
             true,
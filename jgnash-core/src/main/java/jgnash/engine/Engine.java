@@ -21,12 +21,14 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -34,14 +36,17 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -65,8 +70,8 @@ import jgnash.engine.message.MessageBus;
 import jgnash.engine.message.MessageChannel;
 import jgnash.engine.message.MessageProperty;
 import jgnash.engine.recurring.PendingReminder;
-import jgnash.engine.recurring.RecurringIterator;
 import jgnash.engine.recurring.Reminder;
+import jgnash.net.UpdateScheduler;
 import jgnash.net.currency.CurrencyUpdateFactory;
 import jgnash.net.security.UpdateFactory;
 import jgnash.util.DateUtils;
@@ -107,6 +112,11 @@ public class Engine {
 
     private static final float EPSILON = .001f;
 
+    /**
+     * Config preference set when the engine is shut down and cleared once it has booted
+     */
+    private static final String CLEAN_SHUTDOWN = "cleanShutdown";
+
     private final Resource rb = Resource.get();
 
     private final ReentrantReadWriteLock accountLock;
@@ -174,6 +184,28 @@ public class Engine {
 
     private final ScheduledThreadPoolExecutor backgroundExecutorService;
 
+    /**
+     * Incremented when accounts or their securities change to discard {@link #securityAccountMap}
+     */
+    private final AtomicLong accountStructureVersion = new AtomicLong();
+
+    private volatile SecurityAccountMap securityAccountMap;
+
+    /**
+     * Reminders by the date they are next due, created on demand
+     */
+    private volatile ReminderIndex reminderIndex;
+
+    /**
+     * Number of transactions referring to each content addressed attachment, created on demand
+     */
+    private volatile Map<String, Integer> attachmentReferences;
+
+    /**
+     * Runs the network requests of background updates
+     */
+    private final UpdateScheduler updateScheduler = new UpdateScheduler();
+
     public Engine(final EngineDAO eDAO, final LockManager lockManager, final AttachmentManager attachmentManager, final String name) {
         Objects.requireNonNull(name, "The engine name may not be null");
         Objects.requireNonNull(eDAO, "The engineDAO may not be null");
@@ -191,9 +223,13 @@ public class Engine {
 
         messageBus = MessageBus.getInstance(name);
 
-        initialize();
+        try (BootProfile.Span ignored = BootProfile.getInstance().start("Engine.initialize")) {
+            initialize();
+        }
 
-        checkAndCorrect();
+        try (BootProfile.Span ignored = BootProfile.getInstance().start("Engine.checkAndCorrect")) {
+            checkAndCorrect();
+        }
 
         trashExecutor = new ScheduledThreadPoolExecutor(1, new DefaultDaemonThreadFactory());
 
@@ -204,7 +240,8 @@ public class Engine {
             }
         }, 1, 5, TimeUnit.MINUTES);
 
-        backgroundExecutorService = new ScheduledThreadPoolExecutor(1);
+        // securities and exchange rates may be updated at the same time
+        backgroundExecutorService = new ScheduledThreadPoolExecutor(2);
         backgroundExecutorService.setRemoveOnCancelPolicy(true);
         backgroundExecutorService.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
 
@@ -240,7 +277,7 @@ public class Engine {
      * @return {@code Future} for background task
      */
     public Future<Void> startExchangeRateUpdate(final int delay) {
-        return backgroundExecutorService.schedule(new BackgroundCallable<>(new CurrencyUpdateFactory.UpdateExchangeRatesCallable()), delay,
+        return backgroundExecutorService.schedule(new BackgroundCallable<>(new CurrencyUpdateFactory.UpdateExchangeRatesCallable(updateScheduler)), delay,
                 TimeUnit.SECONDS);
     }
 
@@ -250,18 +287,12 @@ public class Engine {
      * @param delay delay in seconds
      */
     public void startSecuritiesUpdate(final int delay) {
-        final List<ScheduledFuture<Boolean>> futures = new ArrayList<>();
-
-        // Load of the scheduler with the tasks and save the futures
-        // failure will occur if source is not defined
-        getSecurities().stream().filter(securityNode ->
-                securityNode.getQuoteSource() != QuoteSource.NONE).forEach(securityNode -> { // failure will occur if source is not defined
-            futures.add(backgroundExecutorService.schedule(new BackgroundCallable<>(
-                    new UpdateFactory.UpdateSecurityNodeCallable(securityNode)), delay, TimeUnit.SECONDS));
-        });
+        backgroundExecutorService.schedule(new BackgroundCallable<>(() -> {
 
-        // Cleanup thread that monitor for excess network connection failures
-        new SecuritiesUpdateThread(futures).start();
+            // Load the scheduler with the requests and monitor for excess network connection failures
+            awaitSecuritiesUpdate(UpdateFactory.updateSecurities(updateScheduler, getSecurities()));
+            return null;
+        }), delay, TimeUnit.SECONDS);
     }
 
     /**
@@ -431,134 +462,250 @@ public class Engine {
     }
 
     /**
-     * Corrects minor issues with a database that may occur because of prior bugs or file format upgrades
+     * Corrects minor issues with a database that may occur because of prior bugs or file format upgrades.
+     * <p/>
+     * Each check first looks for a problem without modifying anything.  The checks run in parallel without holding
+     * any engine locks; the parallel workers take their own read locks, so holding a fair read lock here could
+     * deadlock them behind a queued writer.  The checks that found a problem are run again once the write locks
+     * are held, so the corrections are applied to current data.  Checks are skipped entirely for a current file that
+     * was closed cleanly.
      */
-    @SuppressWarnings("ConstantConditions")
     private void checkAndCorrect() {
+        final float fileVersion;
+        final boolean cleanShutdown;
+
+        configLock.readLock().lock();
+
+        try {
+            fileVersion = getConfig().getFileVersion();
+            cleanShutdown = Boolean.parseBoolean(getConfig().getPreference(CLEAN_SHUTDOWN));
+        } finally {
+            configLock.readLock().unlock();
+        }
+
+        final List<Supplier<Runnable>> failedChecks;
+
+        if (cleanShutdown && nearlyEquals(fileVersion, CURRENT_VERSION, EPSILON)) {
+            logInfo("File was closed cleanly, skipping integrity checks");
+            failedChecks = Collections.emptyList();
+        } else {
+            failedChecks = getIntegrityChecks(fileVersion).parallelStream().filter(check -> check.get() != null)
+                    .collect(Collectors.toList());
+        }
+
+        if (failedChecks.isEmpty() && !cleanShutdown) {
+            return;
+        }
 
         commodityLock.writeLock().lock();
         accountLock.writeLock().lock();
         configLock.writeLock().lock();
 
         try {
-            /* Check for more than one config object */
-            List<Config> list = eDAO.getStoredObjects(Config.class);
-            if (list.size() > 1) {
-                // Delete all but the first found config object
-                for (int i = 1; i < list.size(); i++) {
-                    moveObjectToTrash(list.get(i));
+            for (final Supplier<Runnable> check : failedChecks) {
+                final Runnable correction = check.get();
+
+                if (correction != null) {
+                    correction.run();
                 }
             }
 
-            /* Check for null account number strings */
-            if (getConfig().getFileVersion() < 2.01f) {
-                logInfo("Checking for null account numbers");
-                getAccountDAO().getAccountList().stream().filter(account -> account.getAccountNumber() == null)
-                        .forEach(account -> {
-                            account.setAccountNumber("");
-                            getAccountDAO().updateAccount(account);
-                            logInfo("Fixed null account number");
-                        });
+            // a crash before the next shutdown must force the checks to run
+            if (cleanShutdown) {
+                getConfig().setPreference(CLEAN_SHUTDOWN, null);
+                getConfigDAO().update(getConfig());
             }
+        } finally {
+            configLock.writeLock().unlock();
+            accountLock.writeLock().unlock();
+            commodityLock.writeLock().unlock();
+        }
+    }
 
-            /* Check for detached accounts */
-            if (getConfig().getFileVersion() < 2.02f) {
-                getAccountDAO().getAccountList().stream()
-                        .filter(account -> account.getParent() == null && !account.instanceOf(AccountType.ROOT))
-                        .forEach(account -> {
-                            account.setParent(getRootAccount());
+    /**
+     * Returns the checks needed for a file version.  Each check returns the correction for the problem it found, or
+     * {@code null} if there is nothing to correct.  Corrections are run in the order of the returned list.
+     *
+     * @param fileVersion version of the file being checked
+     * @return list of checks
+     */
+    @SuppressWarnings("ConstantConditions")
+    private List<Supplier<Runnable>> getIntegrityChecks(final float fileVersion) {
+        final List<Supplier<Runnable>> checks = new ArrayList<>();
+
+        /* Check for more than one config object */
+        checks.add(() -> {
+            final List<Config> list = eDAO.getStoredObjects(Config.class);
 
-                            getAccountDAO().updateAccount(account);
-                            getAccountDAO().updateAccount(getRootAccount());
-                            logInfo("Fixing a detached account: " + account.getName());
-                        });
+            if (list.size() > 1) {
+                return () -> {
+                    // Delete all but the first found config object
+                    for (int i = 1; i < list.size(); i++) {
+                        moveObjectToTrash(list.get(i));
+                    }
+                };
             }
+            return null;
+        });
+
+        /* Check for null account numbers */
+        if (fileVersion < 2.01f) {
+            checks.add(() -> {
+                final List<Account> accounts = getAccountDAO().getAccountList().stream()
+                        .filter(account -> account.getAccountNumber() == null).collect(Collectors.toList());
+
+                return accounts.isEmpty() ? null : () -> accounts.forEach(account -> {
+                    account.setAccountNumber("");
+                    getAccountDAO().updateAccount(account);
+                    logInfo("Fixed null account number");
+                });
+            });
+        }
 
-            if (getConfig().getFileVersion() < 2.02f) {
-                logInfo("Checking for a recursive account structure");
-                getAccountDAO().getAccountList().stream()
-                        .filter(account -> account.equals(account.getParent()))
-                        .forEach(account -> {
-                            logWarning("Correcting recursive account structure:" + account.getName());
-                            account.setParent(getRootAccount());
+        /* Check for detached accounts */
+        if (fileVersion < 2.02f) {
+            checks.add(() -> {
+                final List<Account> accounts = getAccountDAO().getAccountList().stream()
+                        .filter(account -> account.getParent() == null && !account.instanceOf(AccountType.ROOT))
+                        .collect(Collectors.toList());
 
-                            getAccountDAO().updateAccount(account);
-                            getAccountDAO().updateAccount(getRootAccount());
-                        });
-            }
+                return accounts.isEmpty() ? null : () -> accounts.forEach(account -> {
+                    account.setParent(getRootAccount());
 
-            if (getConfig().getFileVersion() < 2.03f) {
-                clearObsoleteExchangeRates();
-            }
+                    getAccountDAO().updateAccount(account);
+                    getAccountDAO().updateAccount(getRootAccount());
+                    logInfo("Fixing a detached account: " + account.getName());
+                });
+            });
+
+            checks.add(() -> {
+                final List<Account> accounts = getAccountDAO().getAccountList().stream()
+                        .filter(account -> account.equals(account.getParent())).collect(Collectors.toList());
+
+                return accounts.isEmpty() ? null : () -> accounts.forEach(account -> {
+                    logWarning("Correcting recursive account structure:" + account.getName());
+                    account.setParent(getRootAccount());
+
+                    getAccountDAO().updateAccount(account);
+                    getAccountDAO().updateAccount(getRootAccount());
+                });
+            });
+        }
 
-            // check for multiple root accounts
-            if (getConfig().getFileVersion() < 2.04f) {
-                List<RootAccount> roots = getStoredObjects().stream()
+        if (fileVersion < 2.03f) {
+            checks.add(() -> {
+                final List<ExchangeRate> rates = getCommodityDAO().getExchangeRates().stream()
+                        .filter(rate -> getBaseCurrencies(rate.getRateId()) == null).collect(Collectors.toList());
+
+                return rates.isEmpty() ? null : () -> rates.forEach(this::removeExchangeRate);
+            });
+        }
+
+        // check for multiple root accounts
+        if (fileVersion < 2.04f) {
+            checks.add(() -> {
+                final List<RootAccount> roots = getStoredObjects().stream()
                         .filter(o -> o instanceof RootAccount).map(o -> (RootAccount) o).collect(Collectors.toList());
 
                 if (roots.size() > 1) {
-                    logger.warning("Removing extra root accounts");
+                    return () -> {
+                        logger.warning("Removing extra root accounts");
 
-                    RootAccount root = roots.get(0);
+                        RootAccount root = roots.get(0);
 
-                    // use the root at 0 as the default
-                    for (int i = 1; i < roots.size(); i++) {
-                        RootAccount extraRoot = roots.get(i);
+                        // use the root at 0 as the default
+                        for (int i = 1; i < roots.size(); i++) {
+                            RootAccount extraRoot = roots.get(i);
 
-                        extraRoot.getChildren().stream().filter(child -> !moveAccount(child, root))
-                                .forEach(child -> logWarning(rb.getString("Message.Error.MoveAccount")));
+                            extraRoot.getChildren().stream().filter(child -> !moveAccount(child, root))
+                                    .forEach(child -> logWarning(rb.getString("Message.Error.MoveAccount")));
 
-                        moveObjectToTrash(extraRoot);
-                    }
+                            moveObjectToTrash(extraRoot);
+                        }
+                    };
                 }
-            }
+                return null;
+            });
+        }
 
-            // cleanup currencies
-            if (getConfig().getFileVersion() < 2.1f) {
-                removeDuplicateCurrencies();
-            }
+        // cleanup currencies
+        if (fileVersion < 2.1f) {
+            checks.add(() -> {
+                final List<CurrencyNode> currencies = getCurrencies();
+                final long symbols = currencies.stream().map(CurrencyNode::getSymbol).distinct().count();
 
-            // force income and expense account to only be display in a budget by default
-            if (getConfig().getFileVersion() < 2.2f) {
-                getAccountList().stream()
+                return symbols < currencies.size() ? this::removeDuplicateCurrencies : null;
+            });
+        }
+
+        // force income and expense account to only be display in a budget by default
+        if (fileVersion < 2.2f) {
+            checks.add(() -> {
+                final List<Account> accounts = getAccountList().stream()
                         .filter(account -> !account.memberOf(AccountGroup.INCOME) && !account.memberOf(AccountGroup.EXPENSE))
-                        .forEach(account -> {
-                            account.setExcludedFromBudget(true);
-                            getAccountDAO().updateAccount(account);
-                        });
-            }
+                        .collect(Collectors.toList());
 
-            // migrate amortization object to new storage format and remove and orphaned transactions from removal and modifications of reminders
-            if (getConfig().getFileVersion() < 2.3f) {
-                migrateAmortizeObjects();
-                removeOrphanedTransactions();
-            }
+                return accounts.isEmpty() ? null : () -> accounts.forEach(account -> {
+                    account.setExcludedFromBudget(true);
+                    getAccountDAO().updateAccount(account);
+                });
+            });
+        }
 
-            // check for improperly set default currency
-            if (getDefaultCurrency() == null) {
-                setDefaultCurrency(getRootAccount().getCurrencyNode());
-                logger.warning("Forcing default currency");
-            }
+        // migrate amortization object to new storage format and remove and orphaned transactions from removal and modifications of reminders
+        if (fileVersion < 2.3f) {
+            checks.add(() -> getAccounts(AccountGroup.LIABILITY).stream()
+                    .anyMatch(account -> account.getProperty(AccountProperty.AMORTIZEOBJECT) != null)
+                    ? this::migrateAmortizeObjects : null);
 
-            // purge stale budget goals for place holder accounts
-            if (getConfig().getFileVersion() < 2.14f) {
-                getAccountList().stream().filter(Account::isPlaceHolder).forEach(this::purgeBudgetGoal);
-            }
+            checks.add(() -> {
+                final List<Transaction> orphans = findOrphanedTransactions();
 
-            // fix transaction incorrectly marked for removal
-            fixMarkedRemovalTransactions();
+                return orphans.isEmpty() ? null : () -> orphans.forEach(transaction -> {
+                    moveObjectToTrash(transaction);
+                    logInfo("Removed an orphan transaction");
+                });
+            });
+        }
 
-            // if the file version is not current, then update it
-            if (!nearlyEquals(getConfig().getFileVersion(), CURRENT_VERSION, EPSILON)) {
+        // check for improperly set default currency
+        checks.add(() -> getDefaultCurrency() != null ? null : () -> {
+            setDefaultCurrency(getRootAccount().getCurrencyNode());
+            logger.warning("Forcing default currency");
+        });
+
+        // purge stale budget goals for place holder accounts
+        if (fileVersion < 2.14f) {
+            checks.add(() -> {
+                final List<Account> accounts = getAccountList().stream().filter(Account::isPlaceHolder)
+                        .collect(Collectors.toList());
+
+                return accounts.isEmpty() || getBudgetList().isEmpty() ? null
+                        : () -> accounts.forEach(this::purgeBudgetGoal);
+            });
+        }
+
+        // fix transaction incorrectly marked for removal
+        checks.add(() -> {
+            final List<Transaction> transactions = findMarkedRemovalTransactions();
+
+            return transactions.isEmpty() ? null : () -> transactions.forEach(transaction -> {
+                transaction.setMarkedForRemoval(false);
+                getTransactionDAO().updateTransaction(transaction);
+                logger.warning("Fixed transaction incorrectly marked for removal");
+            });
+        });
+
+        // if the file version is not current, then update it
+        if (!nearlyEquals(fileVersion, CURRENT_VERSION, EPSILON)) {
+            checks.add(() -> () -> {
                 final Config localConfig = getConfig();
                 localConfig.setFileVersion(CURRENT_VERSION);
                 getConfigDAO().update(localConfig);
-            }
-        } finally {
-            configLock.writeLock().unlock();
-            accountLock.writeLock().unlock();
-            commodityLock.writeLock().unlock();
+            });
         }
+
+        return checks;
     }
 
     /**
@@ -619,33 +766,43 @@ public class Engine {
                 .forEach(this::removeExchangeRate);
     }
 
-    private void fixMarkedRemovalTransactions() {
+    /**
+     * Returns the account and reminder transactions that are incorrectly marked for removal
+     *
+     * @return list of transactions
+     */
+    private List<Transaction> findMarkedRemovalTransactions() {
+        final Set<Transaction> transactions = new LinkedHashSet<>();
+
         for (final Account account : getAccountList()) {
+
+            // transactions loaded on demand are read from stores that do not persist the removal flag
+            if (account.isTransactionLoadPending()) {
+                continue;
+            }
+
             account.getSortedTransactionList().stream()
                     .filter(StoredObject::isMarkedForRemoval)
-                    .forEach(transaction -> {
-                        transaction.setMarkedForRemoval(false);
-                        getTransactionDAO().updateTransaction(transaction);
-                        logger.warning("Fixed transaction incorrectly marked for removal");
-                    });
-
-            getReminders().stream()
-                    .filter(reminder -> reminder.getTransaction() != null) // reminder transaction may be null
-                    .forEach(reminder -> {
-                        final Transaction transaction = reminder.getTransaction();
-                        if (transaction.isMarkedForRemoval()) {
-                            transaction.setMarkedForRemoval(false);
-                            getTransactionDAO().updateTransaction(transaction);
-                            logger.warning("Fixed transaction incorrectly marked for removal");
-                        }
-                    });
+                    .forEach(transactions::add);
         }
+
+        getReminders().stream()
+                .map(Reminder::getTransaction)
+                .filter(transaction -> transaction != null && transaction.isMarkedForRemoval()) // may be null
+                .forEach(transactions::add);
+
+        return new ArrayList<>(transactions);
     }
 
     /**
-     * Search and remove orphaned transactions left behind when reminders were removed
+     * Search for orphaned transactions left behind when reminders were removed
+     *
+     * @return list of orphaned transactions
      */
-    private void removeOrphanedTransactions() {
+    private List<Transaction> findOrphanedTransactions() {
+        final List<Transaction> orphans = new ArrayList<>();
+        final List<Reminder> reminders = getReminders();
+
         for (final Transaction transaction : getTransactions()) {
             boolean orphaned = true;
 
@@ -657,7 +814,7 @@ public class Engine {
             }
 
             if (orphaned) { // still an orphan, check for reminder ownership
-                for (final Reminder reminder : getReminders()) {
+                for (final Reminder reminder : reminders) {
                     if (reminder.contains(transaction)) {    // reminder transaction may be null
                         orphaned = false;
                         break;
@@ -666,10 +823,11 @@ public class Engine {
             }
 
             if (orphaned) {
-                moveObjectToTrash(transaction);
-                logInfo("Removed an orphan transaction");
+                orphans.add(transaction);
             }
         }
+
+        return orphans;
     }
 
     private void removeExchangeRate(final ExchangeRate rate) {
@@ -689,6 +847,7 @@ public class Engine {
     void stopBackgroundServices() {
         logInfo("Controlled engine shutdown initiated");
 
+        updateScheduler.shutdownNow();
         shutDownAndWait(backgroundExecutorService);
         shutDownAndWait(trashExecutor);
     }
@@ -697,6 +856,21 @@ public class Engine {
         eDAO.shutdown();
     }
 
+    /**
+     * Records that the file was closed cleanly so the integrity checks may be skipped when it is next opened.  Only
+     * called for local file stores; a client cannot know if the server or other clients will close cleanly.
+     */
+    void markCleanShutdown() {
+        configLock.writeLock().lock();
+
+        try {
+            getConfig().setPreference(CLEAN_SHUTDOWN, Boolean.TRUE.toString());
+            getConfigDAO().update(getConfig());
+        } finally {
+            configLock.writeLock().unlock();
+        }
+    }
+
     private void shutDownAndWait(final ExecutorService executorService) {
         executorService.shutdown();
 
@@ -820,6 +994,7 @@ public class Engine {
 
         Message message;
         if (result) {
+            getReminderIndex().update(reminder);
             message = new Message(MessageChannel.REMINDER, ChannelEvent.REMINDER_ADD, this);
         } else {
             message = new Message(MessageChannel.REMINDER, ChannelEvent.REMINDER_ADD_FAILED, this);
@@ -835,6 +1010,7 @@ public class Engine {
         boolean result = false;
 
         if (moveObjectToTrash(reminder)) {
+            getReminderIndex().remove(reminder);
 
             if (reminder.getTransaction() != null) {
                 moveObjectToTrash(reminder.getTransaction());
@@ -866,32 +1042,101 @@ public class Engine {
     }
 
     public List<PendingReminder> getPendingReminders() {
+        return getReminderIndex().getPendingReminders(new Date());
+    }
+
+    /**
+     * Commits pending reminder occurrences as a batch.  The transactions of all occurrences are added and the reminders
+     * are advanced under a single account lock and stored with a single commit.  Occurrences of the same reminder must
+     * be supplied in date order.
+     *
+     * @param pendingReminders pending reminder occurrences to commit
+     * @return true if successful
+     */
+    public boolean commitPendingReminders(final Collection<PendingReminder> pendingReminders) {
+        final List<Transaction> transactions = new ArrayList<>();
+        final Set<Reminder> reminders = new LinkedHashSet<>();
+
+        boolean result;
+
+        accountLock.writeLock().lock();
+
+        try {
+            for (final PendingReminder pending : pendingReminders) {
+                final Reminder reminder = pending.getReminder();
+                final Transaction transaction = reminder.getTransaction();
 
-        final ArrayList<PendingReminder> pendingList = new ArrayList<>();
-        final List<Reminder> list = getReminders();
-        final Calendar c = Calendar.getInstance();
-        final Date now = new Date(); // today's date
-
-        for (Reminder r : list) {
-            if (r.isEnabled()) {
-                final RecurringIterator ri = r.getIterator();
-                Date next = ri.next();
-
-                while (next != null) {
-                    c.setTime(next);
-                    c.add(Calendar.DATE, r.getDaysAdvance() * -1); // handle days in advance
-
-                    if (DateUtils.before(c.getTime(), now)) { // need to fire this reminder
-                        pendingList.add(new PendingReminder(r, DateUtils.trimDate(next)));
-                        next = ri.next();
-                    } else {
-                        next = null;
+                if (transaction != null) {
+                    // Update to the commit date (commit date can be modified)
+                    transaction.setDate(pending.getCommitDate());
+
+                    if (isTransactionValid(transaction)) {
+                        transaction.getAccounts().stream()
+                                .filter(account -> !account.addTransaction(transaction))
+                                .forEach(account -> logSevere("Failed to add the Transaction"));
+
+                        transactions.add(transaction);
                     }
                 }
+
+                // update the last fired date... date returned from the iterator
+                reminder.setLastDate();
+                reminders.add(reminder);
+            }
+
+            result = getReminderDAO().addReminderTransactions(transactions, reminders);
+
+            if (result) {
+                transactions.forEach(this::setDefaultExchangeRates);
+            }
+
+            transactions.forEach(transaction -> postTransactionAdd(transaction, result));
+
+            logInfo(rb.getString("Message.TransactionAdd"));
+        } finally {
+            accountLock.writeLock().unlock();
+        }
+
+        reminders.forEach(getReminderIndex()::update);
+
+        return result;
+    }
+
+    /**
+     * Commits all pending occurrences of reminders that create their transactions automatically
+     *
+     * @return the number of occurrences committed
+     */
+    public int commitAutoCreateReminders() {
+        final List<PendingReminder> pendingReminders = getPendingReminders().stream()
+                .filter(pending -> pending.getReminder().isAutoCreate()).collect(Collectors.toList());
+
+        if (!pendingReminders.isEmpty() && !commitPendingReminders(pendingReminders)) {
+            logSevere(rb.getString("Message.Error.ReminderUpdate"));
+        }
+
+        return pendingReminders.size();
+    }
+
+    /**
+     * Returns the index of reminders by the date they are next due, creating it if needed
+     *
+     * @return the reminder index
+     */
+    private ReminderIndex getReminderIndex() {
+        ReminderIndex index = reminderIndex;
+
+        if (index == null) {
+            synchronized (this) {
+                index = reminderIndex;
+
+                if (index == null) {
+                    reminderIndex = index = new ReminderIndex(getReminders());
+                }
             }
         }
 
-        return pendingList;
+        return index;
     }
 
     public <T extends StoredObject> T getStoredObjectByUuid(final Class<T> tClass, final String uuid) {
@@ -1096,7 +1341,53 @@ public class Engine {
             Message message;
 
             if (status) {
-                clearCachedAccountBalance(node);
+                clearCachedAccountBalance(node, hNode.getDate());
+                message = new Message(MessageChannel.COMMODITY, ChannelEvent.SECURITY_HISTORY_ADD, this);
+            } else {
+                message = new Message(MessageChannel.COMMODITY, ChannelEvent.SECURITY_HISTORY_ADD_FAILED, this);
+            }
+
+            message.setObject(MessageProperty.COMMODITY, node);
+            messageBus.fireEvent(message);
+
+            return status;
+        } finally {
+            commodityLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merges a range of SecurityHistoryNodes into a SecurityNode with a single commit.  Existing history
+     * for the same dates is replaced.  If more than one SecurityHistoryNode shares a date, the last one is kept.
+     *
+     * @param node   SecurityNode to add to
+     * @param hNodes SecurityHistoryNodes to add
+     * @return <tt>true</tt> if successful
+     */
+    public boolean addSecurityHistory(@NotNull final SecurityNode node, @NotNull final Collection<SecurityHistoryNode> hNodes) {
+        final Map<Date, SecurityHistoryNode> nodeMap = new LinkedHashMap<>();
+
+        for (final SecurityHistoryNode hNode : hNodes) {
+            nodeMap.put(hNode.getDate(), hNode);
+        }
+
+        if (nodeMap.isEmpty()) {
+            return true;
+        }
+
+        commodityLock.writeLock().lock();
+
+        try {
+            final List<SecurityHistoryNode> replaced = node.addHistoryNodes(nodeMap.values());
+
+            final boolean status = getCommodityDAO().addSecurityHistory(node, nodeMap.values());
+
+            Message message;
+
+            if (status) {
+                replaced.forEach(this::moveObjectToTrash);
+
+                clearCachedAccountBalance(node, Collections.max(nodeMap.keySet()));
                 message = new Message(MessageChannel.COMMODITY, ChannelEvent.SECURITY_HISTORY_ADD, this);
             } else {
                 message = new Message(MessageChannel.COMMODITY, ChannelEvent.SECURITY_HISTORY_ADD_FAILED, this);
@@ -1118,34 +1409,62 @@ public class Engine {
      * @return list of investment accounts
      */
     Set<Account> getInvestmentAccountList(final SecurityNode node) {
-        return getInvestmentAccountList().parallelStream()
-                .filter(account -> account.containsSecurity(node)).collect(Collectors.toSet());
+        SecurityAccountMap map = securityAccountMap;
+
+        final long version = accountStructureVersion.get();
+
+        if (map == null || map.version != version) {
+            map = new SecurityAccountMap(version, getInvestmentAccountList());
+            securityAccountMap = map;
+        }
+
+        return map.accounts.getOrDefault(node, Collections.emptySet());
+    }
+
+    /**
+     * Discards the security to account dependencies.  Must be called after accounts or their securities change.
+     */
+    private void invalidateSecurityAccountMap() {
+        accountStructureVersion.incrementAndGet();
     }
 
     /**
-     * Forces all investment accounts containing the security to clear the cached account balance and reconciled account
-     * balance and recalculate when queried.
+     * Forces the investment accounts containing the security to clear the cached account balance and reconciled
+     * account balance and recalculate when queried.
+     * <p>
+     * Cached balances are valued with the latest known price.  If the security has a price dated after the change and
+     * not later than today, the cached balances cannot be affected and are left alone.
      *
      * @param node SecurityNode that was changed
+     * @param date latest date of the changed price history
      */
-    private void clearCachedAccountBalance(final SecurityNode node) {
+    private void clearCachedAccountBalance(final SecurityNode node, final Date date) {
+        final Optional<SecurityHistoryNode> latest = node.getClosestHistoryNode(new Date());
+
+        if (latest.isPresent() && latest.get().getDate().after(DateUtils.trimDate(date))) {
+            return;
+        }
+
         getInvestmentAccountList(node).forEach(this::clearCachedAccountBalance);
     }
 
     /**
      * Clears an {@code Accounts} cached balance and recursively works up the tree to the root.
+     * <p>
+     * Only the account's own transaction lock is held so readers of other accounts are not blocked.  Cached balances
+     * are not persisted, so the account is not written back to the data store.
      *
      * @param account {@code Account} to clear
      */
     private void clearCachedAccountBalance(final Account account) {
+        final Lock lock = account.getTransactionLock().writeLock();
 
-        accountLock.writeLock().lock();
+        lock.lock();
 
         try {
             account.clearCachedBalances();
-            getAccountDAO().updateAccount(account);
         } finally {
-            accountLock.writeLock().unlock();
+            lock.unlock();
         }
 
         if (account.getParent() != null && account.getParent().getAccountType() != AccountType.ROOT) {
@@ -1431,7 +1750,7 @@ public class Engine {
             Message message;
 
             if (status) {
-                clearCachedAccountBalance(node);
+                clearCachedAccountBalance(node, date);
                 message = new Message(MessageChannel.COMMODITY, ChannelEvent.SECURITY_HISTORY_REMOVE, this);
             } else {
                 message = new Message(MessageChannel.COMMODITY, ChannelEvent.SECURITY_HISTORY_REMOVE_FAILED, this);
@@ -1677,7 +1996,13 @@ public class Engine {
     }
 
     public boolean updateReminder(final Reminder reminder) {
-        return getReminderDAO().updateReminder(reminder);
+        final boolean result = getReminderDAO().updateReminder(reminder);
+
+        if (result) {
+            getReminderIndex().update(reminder);
+        }
+
+        return result;
     }
 
     public String getAccountSeparator() {
@@ -1796,6 +2121,15 @@ public class Engine {
 
     public void refresh(final StoredObject object) {
         eDAO.refresh(object);
+
+        // reminders changed by another client are indexed again when next needed
+        if (object instanceof Reminder) {
+            reminderIndex = null;
+        } else if (object instanceof Transaction) { // attachments of a transaction changed by another client
+            attachmentReferences = null;
+        } else if (object instanceof Account) { // securities of an account changed by another client
+            invalidateSecurityAccountMap();
+        }
     }
 
     /**
@@ -1840,6 +2174,7 @@ public class Engine {
             }
             return result;
         } finally {
+            invalidateSecurityAccountMap();
             accountLock.writeLock().unlock();
         }
     }
@@ -1986,6 +2321,7 @@ public class Engine {
 
             return result;
         } finally {
+            invalidateSecurityAccountMap();
             accountLock.writeLock().unlock();
         }
     }
@@ -2112,6 +2448,7 @@ public class Engine {
 
             return result;
         } finally {
+            invalidateSecurityAccountMap();
             accountLock.writeLock().unlock();
         }
     }
@@ -2120,6 +2457,23 @@ public class Engine {
         return attachmentManager.getAttachment(attachment);
     }
 
+    /**
+     * Prefetches the attachments of transactions in the background so they open without waiting for a transfer.
+     * Intended for the transactions visible in a register.  Has no effect if the attachments are already local.
+     *
+     * @param transactions transactions being displayed, most important first
+     */
+    public void prefetchAttachments(final Collection<Transaction> transactions) {
+        final List<String> attachments = transactions.stream()
+                .map(Transaction::getAttachment)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        if (!attachments.isEmpty()) {
+            attachmentManager.prefetchAttachments(attachments);
+        }
+    }
+
     public boolean addAttachment(final Path path, final boolean copy) {
         boolean result = false;
 
@@ -2132,10 +2486,90 @@ public class Engine {
         return result;
     }
 
+    /**
+     * Stores a file attachment by content.  Identical content attached to several transactions is only stored once.
+     *
+     * @param path Path to the attachment to store
+     * @param copy true if only copying the file
+     * @return the attachment name to assign to the transaction, {@code null} if the attachment could not be stored
+     * @see Transaction#setAttachment(String)
+     */
+    public String storeAttachment(final Path path, final boolean copy) {
+        String result = null;
+
+        try {
+            result = attachmentManager.storeAttachment(path, copy);
+        } catch (final IOException e) {
+            logSevere(e.getLocalizedMessage());
+        }
+
+        return result;
+    }
+
     public boolean removeAttachment(final String attachment) {
+
+        // content addressed attachments may be shared, only remove once no longer referenced
+        if (AttachmentUtils.isContentName(attachment) && getAttachmentReferences().containsKey(attachment)) {
+            return true;
+        }
+
         return attachmentManager.removeAttachment(attachment);
     }
 
+    /**
+     * Returns the number of transactions referring to each content addressed attachment, creating the map if needed
+     *
+     * @return map of attachment to reference count
+     */
+    private Map<String, Integer> getAttachmentReferences() {
+        Map<String, Integer> references = attachmentReferences;
+
+        if (references == null) {
+            // transactions can not be added or removed while counting
+            accountLock.writeLock().lock();
+
+            try {
+                references = attachmentReferences;
+
+                if (references == null) {
+                    references = new ConcurrentHashMap<>();
+
+                    for (final Transaction transaction : getTransactionsWithAttachments()) {
+                        if (AttachmentUtils.isContentName(transaction.getAttachment())) {
+                            references.merge(transaction.getAttachment(), 1, Integer::sum);
+                        }
+                    }
+
+                    attachmentReferences = references;
+                }
+            } finally {
+                accountLock.writeLock().unlock();
+            }
+        }
+
+        return references;
+    }
+
+    /**
+     * Keeps the attachment reference counts current once they have been created.  Must be called while holding the
+     * account write lock.
+     *
+     * @param transaction transaction added or removed
+     * @param added       {@code true} if the transaction was added
+     */
+    private void updateAttachmentReferences(final Transaction transaction, final boolean added) {
+        final Map<String, Integer> references = attachmentReferences;
+        final String attachment = transaction.getAttachment();
+
+        if (references != null && AttachmentUtils.isContentName(attachment)) {
+            if (added) {
+                references.merge(attachment, 1, Integer::sum);
+            } else {
+                references.computeIfPresent(attachment, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
     @SuppressWarnings("deprecation")
     private void migrateAmortizeObjects() {
 
@@ -2248,6 +2682,7 @@ public class Engine {
             return result;
 
         } finally {
+            invalidateSecurityAccountMap();
             commodityLock.writeLock().unlock();
             accountLock.writeLock().unlock();
         }
@@ -2287,6 +2722,7 @@ public class Engine {
             return result;
 
         } finally {
+            invalidateSecurityAccountMap();
             commodityLock.writeLock().unlock();
             accountLock.writeLock().unlock();
         }
@@ -2572,18 +3008,7 @@ public class Engine {
 
                 /* If successful, extract and enter a default exchange rate for the transaction date if a rate has not been set */
                 if (result) {
-                    // no rate for the date has been set
-                    transaction.getTransactionEntries().stream()
-                            .filter(TransactionEntry::isMultiCurrency)
-                            .forEach(entry -> {
-                                final ExchangeRate rate = getExchangeRate(entry.getDebitAccount().getCurrencyNode(), entry.getCreditAccount().getCurrencyNode());
-
-                                if (rate.getRate(transaction.getDate()).equals(BigDecimal.ZERO)) { // no rate for the date has been set
-                                    final BigDecimal exchangeRate = entry.getDebitAmount().abs().divide(entry.getCreditAmount().abs(), MathConstants.mathContext);
-
-                                    setExchangeRate(entry.getCreditAccount().getCurrencyNode(), entry.getDebitAccount().getCurrencyNode(), exchangeRate, transaction.getDate());
-                                }
-                            });
+                    setDefaultExchangeRates(transaction);
                 }
             }
 
@@ -2595,6 +3020,66 @@ public class Engine {
         }
     }
 
+    /**
+     * Adds a batch of transactions under a single account lock and stores them with a single commit.  Invalid
+     * transactions are skipped.
+     *
+     * @param transactions {@code Transaction}s to add
+     * @return true if successful
+     */
+    public boolean addTransactions(final Collection<Transaction> transactions) {
+        final List<Transaction> validTransactions = new ArrayList<>(transactions.size());
+
+        accountLock.writeLock().lock();
+
+        try {
+            for (final Transaction transaction : transactions) {
+                if (isTransactionValid(transaction)) {
+                    transaction.getAccounts().stream()
+                            .filter(account -> !account.addTransaction(transaction))
+                            .forEach(account -> logSevere("Failed to add the Transaction"));
+
+                    validTransactions.add(transaction);
+                } else {
+                    postTransactionAdd(transaction, false);
+                }
+            }
+
+            final boolean result = validTransactions.isEmpty() || getTransactionDAO().addTransactions(validTransactions);
+
+            if (result) {
+                validTransactions.forEach(this::setDefaultExchangeRates);
+            }
+
+            validTransactions.forEach(transaction -> postTransactionAdd(transaction, result));
+
+            logInfo(rb.getString("Message.TransactionAdd"));
+
+            return result;
+        } finally {
+            accountLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Enters a default exchange rate for the transaction date from multi-currency entries if a rate has not been set
+     *
+     * @param transaction {@code Transaction} that was added
+     */
+    private void setDefaultExchangeRates(final Transaction transaction) {
+        transaction.getTransactionEntries().stream()
+                .filter(TransactionEntry::isMultiCurrency)
+                .forEach(entry -> {
+                    final ExchangeRate rate = getExchangeRate(entry.getDebitAccount().getCurrencyNode(), entry.getCreditAccount().getCurrencyNode());
+
+                    if (rate.getRate(transaction.getDate()).equals(BigDecimal.ZERO)) { // no rate for the date has been set
+                        final BigDecimal exchangeRate = entry.getDebitAmount().abs().divide(entry.getCreditAmount().abs(), MathConstants.mathContext);
+
+                        setExchangeRate(entry.getCreditAccount().getCurrencyNode(), entry.getDebitAccount().getCurrencyNode(), exchangeRate, transaction.getDate());
+                    }
+                });
+    }
+
     public boolean removeTransaction(final Transaction transaction) {
 
         accountLock.writeLock().lock();
@@ -2702,6 +3187,10 @@ public class Engine {
 
     private void postTransactionAdd(final Transaction transaction, final boolean result) {
 
+        if (result) {
+            updateAttachmentReferences(transaction, true);
+        }
+
         for (Account a : transaction.getAccounts()) {
             Message message;
 
@@ -2719,6 +3208,10 @@ public class Engine {
 
     private void postTransactionRemove(final Transaction transaction, final boolean result) {
 
+        if (result) {
+            updateAttachmentReferences(transaction, false);
+        }
+
         for (Account a : transaction.getAccounts()) {
             Message message;
 
@@ -2786,42 +3279,58 @@ public class Engine {
     }
 
     /**
-     * Handles background update of securities
+     * Waits for the completion of background security updates
+     *
+     * @param futures {@code Future}s for the update requests
      */
-    private static class SecuritiesUpdateThread extends Thread {
-
-        private final List<ScheduledFuture<Boolean>> futures;
+    private static void awaitSecuritiesUpdate(final List<? extends Future<Boolean>> futures) {
+        short errorCount = 0;
 
-        public SecuritiesUpdateThread(List<ScheduledFuture<Boolean>> futures) {
-            this.futures = futures;
-        }
-
-        @Override
-        public void run() {
-            short errorCount = 0;
-
-            // Wait for completion of each task and if too many errors occur, cancel all of them
-            for (final ScheduledFuture<Boolean> future : futures) {
-                try {
-                    if (!future.get(1, TimeUnit.MINUTES)) {
-                        errorCount++;
-                    }
-                } catch (final InterruptedException | ExecutionException | TimeoutException e) {
-                    logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        // Wait for completion of each task and if too many errors occur, cancel all of them
+        for (final Future<Boolean> future : futures) {
+            try {
+                if (!future.get(1, TimeUnit.MINUTES)) {
                     errorCount++;
-                } catch (final CancellationException e) {
-                    errorCount = Short.MAX_VALUE;   // force a failure
-                    break; // futures are being canceled externally, exit the thread
-                }
-
-                if (errorCount > MAX_ERRORS) {
-                    break;
                 }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                errorCount = Short.MAX_VALUE;   // force a failure
+                break;
+            } catch (final ExecutionException | TimeoutException e) {
+                logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+                errorCount++;
+            } catch (final CancellationException e) {
+                errorCount = Short.MAX_VALUE;   // force a failure
+                break; // futures are being canceled externally
             }
 
             if (errorCount > MAX_ERRORS) {
-                for (final ScheduledFuture<Boolean> future : futures) {
-                    future.cancel(false);
+                break;
+            }
+        }
+
+        if (errorCount > MAX_ERRORS) {
+            for (final Future<Boolean> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Investment accounts by the securities they hold
+     */
+    private static final class SecurityAccountMap {
+
+        final long version;
+
+        final Map<SecurityNode, Set<Account>> accounts = new HashMap<>();
+
+        SecurityAccountMap(final long version, final Collection<Account> investmentAccounts) {
+            this.version = version;
+
+            for (final Account account : investmentAccounts) {
+                for (final SecurityNode node : account.getSecurities()) {
+                    accounts.computeIfAbsent(node, n -> new HashSet<>()).add(account);
                 }
             }
         }
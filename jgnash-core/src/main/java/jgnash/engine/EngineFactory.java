@@ -23,6 +23,10 @@ import jgnash.engine.message.Message;
 import jgnash.engine.message.MessageBus;
 import jgnash.engine.message.MessageChannel;
 import jgnash.engine.xstream.BinaryXStreamDataStore;
+import jgnash.engine.xstream.DeltaArchive;
+import jgnash.engine.xstream.ColumnarDataStore;
+import jgnash.engine.xstream.PagedBinaryDataStore;
+import jgnash.engine.xstream.ShardedBinaryDataStore;
 import jgnash.engine.xstream.XMLDataStore;
 import jgnash.util.FileMagic;
 import jgnash.util.FileMagic.FileType;
@@ -34,6 +38,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
@@ -44,6 +49,8 @@ import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
+import java.util.zip.Deflater;
+import java.util.zip.ZipInputStream;
 
 import javax.swing.filechooser.FileSystemView;
 
@@ -75,6 +82,14 @@ public class EngineFactory {
 
     private static final String OPEN_LAST = "OpenLast";
 
+    private static final String RESTORE_ENGINE = "restore";
+
+    /**
+     * Compression level used for XML backups.  XML compresses well at the default level, which is considerably
+     * faster than {@code Deflater.BEST_COMPRESSION}
+     */
+    private static final int BACKUP_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
     /**
      * Default directory for jGnash data. To be located in the default user
      * directory
@@ -158,25 +173,95 @@ public class EngineFactory {
         exportCompressedXML(oldDataStore.getFileName(), oldEngine.getStoredObjects());
     }
 
-    public static void exportCompressedXML(final String fileName, final Collection<StoredObject> objects) {
+    /**
+     * Exports a compressed XML backup next to the given file.  The backup name is derived from the file name and
+     * the current time.
+     *
+     * @param fileName base file name
+     * @param objects  objects to export
+     * @return the compressed backup file
+     */
+    public static File exportCompressedXML(final String fileName, final Collection<StoredObject> objects) {
         final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd-HHmm");
 
-        DataStore xmlDataStore = new XMLDataStore();
+        final XMLDataStore xmlDataStore = new XMLDataStore();
 
-        File xmlFile = new File(FileUtils.stripFileExtension(fileName) + "-" + dateFormat.format(new Date()) + "." + xmlDataStore.getFileExt());
+        final String baseName = FileUtils.stripFileExtension(fileName) + "-" + dateFormat.format(new Date());
 
-        // push the intermediary file to the temporary directory
-        xmlFile = new File(System.getProperty("java.io.tmpdir"), xmlFile.getName());
+        final File xmlFile = new File(baseName + "." + xmlDataStore.getFileExt());
 
-        File zipFile = new File(FileUtils.stripFileExtension(fileName) + "-" + dateFormat.format(new Date()) + ".zip");
+        final File zipFile = new File(baseName + ".zip");
 
-        xmlDataStore.saveAs(xmlFile, objects);
+        // stream the XML directly into the zip file; the path is stripped when naming the zip entry
+        xmlDataStore.saveAsCompressed(zipFile, xmlFile.getName(), objects, BACKUP_COMPRESSION_LEVEL);
 
-        FileUtils.compressFile(xmlFile, zipFile);
+        return zipFile;
+    }
+
+    /**
+     * Returns the incremental backup file for a position in the chain that follows a compressed XML backup
+     *
+     * @param backupFile compressed XML backup the chain starts with
+     * @param sequence   position in the chain, starting with 1
+     * @return incremental backup file
+     */
+    public static File getIncrementalBackupFile(final File backupFile, final int sequence) {
+        return new File(FileUtils.stripFileExtension(backupFile.getAbsolutePath()) + "."
+                + String.format("%04d", sequence) + "." + DeltaArchive.FILE_EXT);
+    }
 
-        if (!xmlFile.delete()) {
-            logger.log(Level.WARNING, "Was not able to delete the temporary file: {0}", xmlFile.getAbsolutePath());
+    /**
+     * Returns the incremental backup files that follow a compressed XML backup in chain order
+     *
+     * @param backupFile compressed XML backup the chain starts with
+     * @return list of incremental backup files
+     */
+    public static List<File> getIncrementalBackupFiles(final File backupFile) {
+        return FileUtils.getDirectoryListing(backupFile.getAbsoluteFile().getParentFile(),
+                FileUtils.stripFileExtension(backupFile.getName()) + ".????." + DeltaArchive.FILE_EXT);
+    }
+
+    /**
+     * Restores a compressed XML backup and replays the incremental backups chained to it.
+     *
+     * @param backupFile compressed XML backup
+     * @param xmlFile    XML file to restore into, it will be overwritten
+     * @return {@code true} if the complete chain was restored
+     */
+    public static boolean restoreCompressedXML(final File backupFile, final File xmlFile) {
+        try (ZipInputStream zipIn = new ZipInputStream(Files.newInputStream(backupFile.toPath()))) {
+            if (zipIn.getNextEntry() == null) {
+                logger.log(Level.SEVERE, "{0} does not contain a backup", backupFile.getAbsolutePath());
+                return false;
+            }
+
+            Files.copy(zipIn, xmlFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+            return false;
         }
+
+        final Engine engine = bootLocalEngine(xmlFile.getAbsolutePath(), RESTORE_ENGINE, new char[]{},
+                DataStoreType.XML);
+
+        if (engine == null) {
+            return false;
+        }
+
+        boolean result = true;
+
+        try {
+            final List<File> deltaFiles = getIncrementalBackupFiles(backupFile);
+
+            for (int i = 0; i < deltaFiles.size() && result; i++) {
+                logger.log(Level.INFO, "Replaying {0}", deltaFiles.get(i).getName());
+                result = DeltaArchive.replayDelta(deltaFiles.get(i), backupFile.getName(), i + 1, engine);
+            }
+        } finally {
+            closeEngine(RESTORE_ENGINE);
+        }
+
+        return result;
     }
 
     public static void removeOldCompressedXML(final String fileName) {
@@ -194,6 +279,13 @@ public class EngineFactory {
                 if (!fileList.get(i).delete()) {
                     logger.log(Level.WARNING, "Unable to delete the file: {0}", fileList.get(i).getAbsolutePath());
                 }
+
+                // incremental backups are useless without the backup they are chained to
+                for (final File deltaFile : getIncrementalBackupFiles(fileList.get(i))) {
+                    if (!deltaFile.delete()) {
+                        logger.log(Level.WARNING, "Unable to delete the file: {0}", deltaFile.getAbsolutePath());
+                    }
+                }
             }
         }
     }
@@ -221,6 +313,11 @@ public class EngineFactory {
                 removeOldCompressedXML(oldDataStore.getFileName());
             }
 
+            // Allow the integrity checks to be skipped when the file is opened again
+            if (!oldDataStore.isRemote()) {
+                oldEngine.markCleanShutdown();
+            }
+
             // Initiate a complete shutdown
             oldEngine.shutdown();
 
@@ -289,7 +386,17 @@ public class EngineFactory {
             }
         }
 
-        final Engine engine = dataStore.getLocalEngine(fileName, engineName, password);
+        final boolean profiling = BootProfile.getInstance().begin();
+
+        final Engine engine;
+
+        try (BootProfile.Span ignored = BootProfile.getInstance().start("EngineFactory.bootLocalEngine")) {
+            engine = dataStore.getLocalEngine(fileName, engineName, password);
+        } finally {
+            if (profiling) {
+                BootProfile.getInstance().end();
+            }
+        }
 
 
         if (engine != null) {
@@ -299,6 +406,9 @@ public class EngineFactory {
             engineMap.put(engineName, engine);
             dataStoreMap.put(engineName, dataStore);
 
+            // catch up reminders that do not need confirmation for every user interface
+            engine.commitAutoCreateReminders();
+
             Message message = new Message(MessageChannel.SYSTEM, ChannelEvent.FILE_LOAD_SUCCESS, engine);
             MessageBus.getInstance(engineName).fireEvent(message);
 
@@ -345,8 +455,16 @@ public class EngineFactory {
 
             DataStore dataStore = dataStoreType.getDataStore();
 
+            final boolean profiling = BootProfile.getInstance().begin();
+
             // connect to the remote server
-            engine = dataStore.getClientEngine(host, port, password, remoteDataBasePath);
+            try (BootProfile.Span ignored = BootProfile.getInstance().start("EngineFactory.bootClientEngine")) {
+                engine = dataStore.getClientEngine(host, port, password, remoteDataBasePath);
+            } finally {
+                if (profiling) {
+                    BootProfile.getInstance().end();
+                }
+            }
 
             if (engine != null) {
                 logger.info(Resource.get().getString("Message.EngineStart"));
@@ -354,6 +472,9 @@ public class EngineFactory {
                 engineMap.put(engineName, engine);
                 dataStoreMap.put(engineName, dataStore);
 
+                // catch up reminders that do not need confirmation for every user interface
+                engine.commitAutoCreateReminders();
+
                 // remember if the user used a password for the last session
                 pref.putBoolean(USED_PASSWORD, password.length > 0);
 
@@ -372,6 +493,12 @@ public class EngineFactory {
             return DataStoreType.XML;
         } else if (type == FileType.BinaryXStream) {
             return DataStoreType.BINARY_XSTREAM;
+        } else if (type == FileType.ShardedBinaryXStream) {
+            return DataStoreType.SHARDED_BINARY_XSTREAM;
+        } else if (type == FileType.PagedBinaryXStream) {
+            return DataStoreType.PAGED_BINARY_XSTREAM;
+        } else if (type == FileType.ColumnarBinaryXStream) {
+            return DataStoreType.COLUMNAR_BINARY_XSTREAM;
         } else if (type == FileType.h2) {
             return DataStoreType.H2_DATABASE;
         } else if (type == FileType.hsql) {
@@ -394,6 +521,12 @@ public class EngineFactory {
             version = XMLDataStore.getFileVersion(file);
         } else if (type == FileType.BinaryXStream) {
             version = BinaryXStreamDataStore.getFileVersion(file);
+        } else if (type == FileType.ShardedBinaryXStream) {
+            version = ShardedBinaryDataStore.getFileVersion(file);
+        } else if (type == FileType.PagedBinaryXStream) {
+            version = PagedBinaryDataStore.getFileVersion(file);
+        } else if (type == FileType.ColumnarBinaryXStream) {
+            version = ColumnarDataStore.getFileVersion(file);
         } else if (type == FileType.h2 || type == FileType.hsql) {
             try {
                 version = SqlUtils.getFileVersion(file.getAbsolutePath(), password);
@@ -260,7 +260,7 @@ public class ExchangeRate extends StoredObject {
     }
 
     protected Object readResolve() {
-        postLoad();
+        BootProfile.getInstance().accumulate(BootProfile.POST_LOAD, this::postLoad);
         return this;
     }
 
@@ -0,0 +1,124 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * {@code ReadWriteLock} that runs a pending load operation before the first lock is granted.
+ * <p/>
+ * Used by data stores that defer reading part of an object until it is first accessed.  The load runs once while
+ * holding the write lock, so no reader can observe a partially loaded object.
+ *
+ * @author Craig Cavanaugh
+ */
+final class LazyLoadingReadWriteLock implements ReadWriteLock {
+
+    private final ReadWriteLock delegate;
+
+    private final Lock readLock;
+
+    private final Lock writeLock;
+
+    private volatile Runnable loader;
+
+    LazyLoadingReadWriteLock(final ReadWriteLock delegate, final Runnable loader) {
+        this.delegate = delegate;
+        this.loader = loader;
+
+        readLock = new LoadingLock(delegate.readLock());
+        writeLock = new LoadingLock(delegate.writeLock());
+    }
+
+    boolean isLoadPending() {
+        return loader != null;
+    }
+
+    private void load() {
+        if (loader != null) {
+            delegate.writeLock().lock();
+
+            try {
+                final Runnable pending = loader;
+
+                if (pending != null) {
+                    loader = null;  // cleared first so a reentrant lock does not load again
+                    pending.run();
+                }
+            } finally {
+                delegate.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    private class LoadingLock implements Lock {
+
+        private final Lock lock;
+
+        LoadingLock(final Lock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public void lock() {
+            load();
+            lock.lock();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            load();
+            lock.lockInterruptibly();
+        }
+
+        @Override
+        public boolean tryLock() {
+            load();
+            return lock.tryLock();
+        }
+
+        @Override
+        public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
+            load();
+            return lock.tryLock(time, unit);
+        }
+
+        @Override
+        public void unlock() {
+            lock.unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            return lock.newCondition();
+        }
+    }
+}
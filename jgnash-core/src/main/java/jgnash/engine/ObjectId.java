@@ -0,0 +1,167 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.util.Objects;
+
+import jgnash.util.NotNull;
+
+/**
+ * Compact, immutable form of a {@code StoredObject} uuid.  Canonical uuids are held as two longs so comparisons
+ * and hashing do not need to walk the 36 character string.  Identifiers that are not canonical lower case uuids
+ * are kept as text.  The string form is only needed where objects are persisted.
+ *
+ * @author Craig Cavanaugh
+ */
+public final class ObjectId implements Comparable<ObjectId> {
+
+    private static final int UUID_LENGTH = 36;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long mostSigBits;
+
+    private final long leastSigBits;
+
+    /**
+     * Original identifier if it is not a canonical uuid, {@code null} otherwise
+     */
+    private final String text;
+
+    private final int hash;
+
+    private ObjectId(final long mostSigBits, final long leastSigBits, final String text) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
+        this.text = text;
+
+        hash = text != null ? text.hashCode() : Long.hashCode(mostSigBits ^ leastSigBits);
+    }
+
+    /**
+     * Returns the compact form of a uuid
+     *
+     * @param uuid uuid string
+     * @return the identity, {@code toString()} will return the same string
+     */
+    public static ObjectId valueOf(@NotNull final String uuid) {
+        Objects.requireNonNull(uuid);
+
+        if (uuid.length() == UUID_LENGTH) {
+            long mostSigBits = 0;
+            long leastSigBits = 0;
+            int digits = 0;
+
+            for (int i = 0; i < UUID_LENGTH; i++) {
+                final char c = uuid.charAt(i);
+
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') {
+                        return new ObjectId(0, 0, uuid);
+                    }
+                    continue;
+                }
+
+                final int value;
+
+                if (c >= '0' && c <= '9') {
+                    value = c - '0';
+                } else if (c >= 'a' && c <= 'f') {
+                    value = c - 'a' + 10;
+                } else {
+                    return new ObjectId(0, 0, uuid);
+                }
+
+                if (digits++ < 16) {
+                    mostSigBits = mostSigBits << 4 | value;
+                } else {
+                    leastSigBits = leastSigBits << 4 | value;
+                }
+            }
+
+            return new ObjectId(mostSigBits, leastSigBits, null);
+        }
+
+        return new ObjectId(0, 0, uuid);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof ObjectId)) {
+            return false;
+        }
+
+        final ObjectId other = (ObjectId) o;
+
+        return mostSigBits == other.mostSigBits && leastSigBits == other.leastSigBits
+                && Objects.equals(text, other.text);
+    }
+
+    /**
+     * Orders identities the same way their string forms are ordered
+     *
+     * @param other identity to compare against
+     * @return the comparison result
+     */
+    @Override
+    public int compareTo(@NotNull final ObjectId other) {
+        if (text != null || other.text != null) {
+            return toString().compareTo(other.toString());
+        }
+
+        final int result = Long.compareUnsigned(mostSigBits, other.mostSigBits);
+
+        if (result != 0) {
+            return result;
+        }
+
+        return Long.compareUnsigned(leastSigBits, other.leastSigBits);
+    }
+
+    @Override
+    public String toString() {
+        if (text != null) {
+            return text;
+        }
+
+        final char[] chars = new char[UUID_LENGTH];
+
+        int digit = 0;
+
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                chars[i] = '-';
+            } else {
+                final long bits = digit < 16 ? mostSigBits : leastSigBits;
+                chars[i] = HEX_DIGITS[(int) (bits >>> (60 - (digit % 16) * 4)) & 0xf];
+                digit++;
+            }
+        }
+
+        return new String(chars);
+    }
+}
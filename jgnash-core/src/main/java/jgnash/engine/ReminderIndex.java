@@ -0,0 +1,141 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import jgnash.engine.recurring.PendingReminder;
+import jgnash.engine.recurring.RecurringIterator;
+import jgnash.engine.recurring.Reminder;
+import jgnash.util.DateUtils;
+
+/**
+ * Orders enabled reminders by the date they next need attention.  Only reminders that are due have their recurrence
+ * walked when pending reminders are requested.
+ *
+ * @author Craig Cavanaugh
+ */
+final class ReminderIndex {
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    private final Map<Reminder, Entry> entries = new HashMap<>();
+
+    ReminderIndex(final Collection<Reminder> reminders) {
+        reminders.forEach(this::update);
+    }
+
+    /**
+     * Adds a reminder or updates its position after it has been changed
+     *
+     * @param reminder {@code Reminder} to index
+     */
+    synchronized void update(final Reminder reminder) {
+        remove(reminder);
+
+        if (reminder.isEnabled()) {
+            final Date next = reminder.getIterator().next();
+
+            if (next != null) {
+                final Entry entry = new Entry(reminder, getNotifyDate(reminder, next, Calendar.getInstance()));
+
+                entries.put(reminder, entry);
+                queue.add(entry);
+            }
+        }
+    }
+
+    synchronized void remove(final Reminder reminder) {
+        final Entry entry = entries.remove(reminder);
+
+        if (entry != null) {
+            queue.remove(entry);
+        }
+    }
+
+    /**
+     * Returns the pending occurrences of all reminders that are due
+     *
+     * @param now the current date
+     * @return list of pending reminders
+     */
+    synchronized List<PendingReminder> getPendingReminders(final Date now) {
+        final List<Entry> due = new ArrayList<>();
+
+        while (!queue.isEmpty() && DateUtils.before(queue.peek().notifyDate, now)) {
+            due.add(queue.poll());
+        }
+
+        // reminders remain pending until they are updated
+        queue.addAll(due);
+
+        final List<PendingReminder> pendingList = new ArrayList<>();
+        final Calendar c = Calendar.getInstance();
+
+        for (final Entry entry : due) {
+            final RecurringIterator ri = entry.reminder.getIterator();
+            Date next = ri.next();
+
+            while (next != null && DateUtils.before(getNotifyDate(entry.reminder, next, c), now)) {
+                pendingList.add(new PendingReminder(entry.reminder, DateUtils.trimDate(next)));
+                next = ri.next();
+            }
+        }
+
+        return pendingList;
+    }
+
+    /**
+     * Returns the date a reminder occurrence is to be shown
+     *
+     * @param reminder {@code Reminder} to check
+     * @param date     occurrence date
+     * @param c        {@code Calendar} to use
+     * @return the occurrence date less the days in advance
+     */
+    private static Date getNotifyDate(final Reminder reminder, final Date date, final Calendar c) {
+        c.setTime(date);
+        c.add(Calendar.DATE, reminder.getDaysAdvance() * -1); // handle days in advance
+
+        return c.getTime();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        final Reminder reminder;
+
+        final Date notifyDate;
+
+        Entry(final Reminder reminder, final Date notifyDate) {
+            this.reminder = reminder;
+            this.notifyDate = notifyDate;
+        }
+
+        @Override
+        public int compareTo(final Entry entry) {
+            return notifyDate.compareTo(entry.notifyDate);
+        }
+    }
+}
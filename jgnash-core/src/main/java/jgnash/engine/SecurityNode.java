@@ -19,14 +19,18 @@ package jgnash.engine;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
@@ -40,6 +44,7 @@ import javax.persistence.OrderBy;
 import javax.persistence.PostLoad;
 
 import jgnash.util.DateUtils;
+import jgnash.util.NotNull;
 
 /**
  * Security Node
@@ -167,6 +172,45 @@ public class SecurityNode extends CommodityNode {
         }
     }
 
+    /**
+     * Merges a range of history nodes.  Existing history nodes with the same date are replaced.
+     *
+     * @param nodes history nodes to add, one per date
+     * @return the history nodes that were replaced
+     */
+    List<SecurityHistoryNode> addHistoryNodes(final Collection<SecurityHistoryNode> nodes) {
+        final List<SecurityHistoryNode> replaced = new ArrayList<>();
+
+        lock.writeLock().lock();
+
+        try {
+            final Map<Date, SecurityHistoryNode> existing = new HashMap<>();
+
+            for (final SecurityHistoryNode node : historyNodes) {
+                existing.put(node.getDate(), node);
+            }
+
+            for (final SecurityHistoryNode node : nodes) {
+                final SecurityHistoryNode oldNode = existing.get(node.getDate());
+
+                if (oldNode != null && oldNode != node) {
+                    historyNodes.remove(oldNode);
+                    replaced.add(oldNode);
+                }
+
+                historyNodes.add(node);
+            }
+
+            // sort once for the whole range
+            sortedHistoryNodeCache = new ArrayList<>(historyNodes);
+            Collections.sort(sortedHistoryNodeCache);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return replaced;
+    }
+
     boolean removeHistoryNode(final Date date) {
 
         boolean result = false;
@@ -230,7 +274,28 @@ public class SecurityNode extends CommodityNode {
      * @return Returns a shallow copy of the history nodes to protect against modification
      */
     public List<SecurityHistoryNode> getHistoryNodes() {
-        return Collections.unmodifiableList(sortedHistoryNodeCache);
+        lock.readLock().lock();
+
+        try {
+            return Collections.unmodifiableList(sortedHistoryNodeCache);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Defers loading of the history nodes until they are first accessed.  Intended for use by data stores that
+     * read history on demand and must be called before the security is used.
+     *
+     * @param loader supplies the history nodes for this security
+     */
+    public void setHistoryLoader(@NotNull final Supplier<Collection<SecurityHistoryNode>> loader) {
+        lock = new LazyLoadingReadWriteLock(new ReentrantReadWriteLock(true), () -> {
+            historyNodes.addAll(loader.get());
+
+            sortedHistoryNodeCache = new ArrayList<>(historyNodes);
+            Collections.sort(sortedHistoryNodeCache);
+        });
     }
 
     /**
@@ -338,12 +403,16 @@ public class SecurityNode extends CommodityNode {
     }
 
     protected Object readResolve() {
-        postLoad();
+        BootProfile.getInstance().accumulate(BootProfile.POST_LOAD, this::postLoad);
         return this;
     }
 
     @PostLoad
     private void postLoad() {
+        if (historyNodes == null) {   // not persisted by data stores that load history on demand
+            historyNodes = new HashSet<>();
+        }
+
         lock = new ReentrantReadWriteLock(true);
 
         // load the cache list
@@ -52,6 +52,12 @@ public abstract class StoredObject implements Cloneable, Serializable {
     @Column(nullable = false, length = 36)
     private String uuid = UUIDUtil.getUID();
 
+    /**
+     * Compact form of the uuid, derived when first needed
+     */
+    @Transient
+    private transient ObjectId objectId;
+
     /**
      * Getter for the uuid.
      *
@@ -61,6 +67,22 @@ public abstract class StoredObject implements Cloneable, Serializable {
         return uuid;
     }
 
+    /**
+     * Returns the compact form of the uuid for use in comparisons and lookups.
+     *
+     * @return identity of the object
+     */
+    public final ObjectId getObjectId() {
+        ObjectId id = objectId;
+
+        if (id == null) {
+            id = ObjectId.valueOf(uuid);
+            objectId = id;
+        }
+
+        return id;
+    }
+
     /**
      * Setter for the uuid.  Used for reflection purposes only
      *
@@ -68,6 +90,7 @@ public abstract class StoredObject implements Cloneable, Serializable {
      */
     private void setUuid(final String uuid) {
         this.uuid = uuid;
+        objectId = null;
     }
 
     void setMarkedForRemoval(final boolean markedForRemoval) {
@@ -85,7 +108,7 @@ public abstract class StoredObject implements Cloneable, Serializable {
      */
     @Override
     public int hashCode() {
-        return getUuid().hashCode();
+        return getObjectId().hashCode();
     }
 
     /**
@@ -96,7 +119,7 @@ public abstract class StoredObject implements Cloneable, Serializable {
      */
     @Override
     public boolean equals(final Object o) {
-        return this == o || o instanceof StoredObject && getUuid().equals(((StoredObject) o).getUuid());
+        return this == o || o instanceof StoredObject && getObjectId().equals(((StoredObject) o).getObjectId());
 
     }
 
@@ -73,6 +73,6 @@ public class StoredObjectComparator implements Comparator<StoredObject>, Seriali
             return o1.getClass().getName().compareTo(o2.getClass().getName());
         }
 
-        return o1.getUuid().compareTo(o2.getUuid());
+        return o1.getObjectId().compareTo(o2.getObjectId());
     }
 }
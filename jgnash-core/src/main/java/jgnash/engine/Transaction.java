@@ -24,12 +24,11 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import javax.persistence.Basic;
@@ -39,7 +38,6 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.JoinTable;
 import javax.persistence.OneToMany;
-import javax.persistence.PostLoad;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -101,52 +99,59 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
     private String memo;
 
     /**
-     * Transaction entries
+     * Transaction entries.  The set is never changed once assigned; changes replace it with a modified copy so
+     * readers do not need to lock.
      */
     @JoinTable
     @OneToMany(cascade = {CascadeType.ALL}, fetch = FetchType.EAGER)
-    Set<TransactionEntry> transactionEntries = new HashSet<>();
+    volatile Set<TransactionEntry> transactionEntries = new HashSet<>();
 
     /**
-     * ReadWrite lock
+     * Cached date and entry date in milliseconds for ordering, cleared when either date changes
      */
-    private transient ReadWriteLock lock;
+    private transient volatile long[] sortKey;
+
+    /**
+     * Values derived from the transaction entries, replaced when the entries change
+     */
+    private transient volatile EntryCache entryCache;
 
     /**
      * Public constructor
      */
     public Transaction() {
-        lock = new ReentrantReadWriteLock(true);
-    }
-
-    ReadWriteLock getLock() {
-        return lock;
     }
 
     /**
      * Returns a set of accounts this transaction effects.
-     * The returned set may be altered without creating side effects
+     * The returned set is cached and cannot be modified
      *
      * @return set of accounts
      * @see Account
      */
     @NotNull
     public Set<Account> getAccounts() {
-        Set<Account> accounts = new TreeSet<>();
+        return getEntryCache().accounts;
+    }
+
+    /**
+     * Returns the values derived from the transaction entries, creating them if needed.  A cache is only used with
+     * the set of entries it was created from, so a cache created from entries that have since been replaced is
+     * never returned.
+     *
+     * @return the entry cache
+     */
+    private EntryCache getEntryCache() {
+        final Set<TransactionEntry> entries = transactionEntries;
 
-        Lock l = getLock().readLock();
-        l.lock();
+        EntryCache cache = entryCache;
 
-        try {
-            for (TransactionEntry e : transactionEntries) {
-                accounts.add(e.getCreditAccount());
-                accounts.add(e.getDebitAccount());
-            }
-        } finally {
-            l.unlock();
+        if (cache == null || cache.entries != entries) {
+            cache = new EntryCache(entries);
+            entryCache = cache;
         }
 
-        return accounts;
+        return cache;
     }
 
     /**
@@ -192,37 +197,7 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
      * @see Account
      */
     public Account getCommonAccount() {
-        Account account = null;
-
-        Lock l = getLock().readLock();
-        l.lock();
-
-        try {
-
-            if (size() >= 2) {
-                Set<Account> accounts = getAccounts();
-
-                for (Account a : accounts) {
-                    boolean success = true;
-                    for (TransactionEntry e : transactionEntries) {
-                        if (!e.getCreditAccount().equals(a) && !e.getDebitAccount().equals(a)) {
-                            success = false;
-                            break;
-                        }
-                    }
-                    if (success) {
-                        account = a;
-                        break;
-                    }
-                }
-            } else { // double entry transaction, return the credit account by default
-                account = transactionEntries.iterator().next().getCreditAccount();
-            }
-        } finally {
-            l.unlock();
-        }
-
-        return account;
+        return getEntryCache().commonAccount;
     }
 
     /**
@@ -237,45 +212,31 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
 
         assert !transactionEntries.contains(entry);
 
-        Lock l = getLock().writeLock();
-        l.lock();
-
-        try {
-            transactionEntries.add(entry);
-        } finally {
-            l.unlock();
+        synchronized (this) {
+            final Set<TransactionEntry> entries = new HashSet<>(transactionEntries);
+            entries.add(entry);
+            transactionEntries = entries;
         }
     }
 
     public void removeTransactionEntry(@NotNull final TransactionEntry entry) {
         Objects.requireNonNull(entry);
 
-        Lock l = getLock().writeLock();
-        l.lock();
-
-        try {
-            transactionEntries.remove(entry);
-        } finally {
-            l.unlock();
+        synchronized (this) {
+            final Set<TransactionEntry> entries = new HashSet<>(transactionEntries);
+            entries.remove(entry);
+            transactionEntries = entries;
         }
     }
 
     /**
-     * Returns the number of {@code TransactionEntry(s)} this transaction contains. A read lock is obtained before
-     * determining the size.
+     * Returns the number of {@code TransactionEntry(s)} this transaction contains.
      *
      * @return the number of {@code TransactionEntry(s)}
      * @see TransactionEntry
      */
     public int size() {
-        Lock l = getLock().readLock();
-        l.lock();
-
-        try {
-            return transactionEntries.size();
-        } finally {
-            l.unlock();
-        }
+        return transactionEntries.size();
     }
 
     public void setDate(@NotNull final Date date) {
@@ -283,6 +244,7 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
 
         // ensure the date is always leveled
         this.date = DateUtils.trimDate(date);
+        sortKey = null;
     }
 
     public Date getDate() {
@@ -344,20 +306,30 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
      * @return Amount of this transaction relative to the supplied account
      */
     public BigDecimal getAmount(final Account account) {
-        BigDecimal balance = BigDecimal.ZERO;
+        final EntryCache cache = getEntryCache();
 
-        Lock l = getLock().readLock();
-        l.lock();
+        if (account == null) {
+            return cache.sumAmount(null);
+        }
 
-        try {
-            for (TransactionEntry entry : transactionEntries) {
-                balance = balance.add(entry.getAmount(account));
-            }
-        } finally {
-            l.unlock();
+        return cache.amounts.computeIfAbsent(account, cache::sumAmount);
+    }
+
+    /**
+     * Returns the date and entry date in milliseconds so ordering does not need to go through the {@code Date}
+     * objects.
+     *
+     * @return cached sort key
+     */
+    private long[] getSortKey() {
+        long[] key = sortKey;
+
+        if (key == null) {
+            key = new long[]{date.getTime(), dateEntered.getTime()};
+            sortKey = key;
         }
 
-        return balance;
+        return key;
     }
 
     /**
@@ -375,7 +347,10 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
             return 0;
         }
 
-        int result = date.compareTo(tran.date);
+        final long[] key = getSortKey();
+        final long[] otherKey = tran.getSortKey();
+
+        int result = Long.compare(key[0], otherKey[0]);
         if (result != 0) {
             return result;
         }
@@ -385,7 +360,7 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
             return result;
         }
 
-        result = dateEntered.compareTo(tran.dateEntered);
+        result = Long.compare(key[1], otherKey[1]);
         if (result != 0) {
             return result;
         }
@@ -395,7 +370,7 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
             return result;
         }
 
-        return getUuid().compareTo(tran.getUuid());
+        return getObjectId().compareTo(tran.getObjectId());
     }
 
     /**
@@ -434,16 +409,9 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
 
         List<TransactionEntry> list = null;
 
-        Lock l = getLock().readLock();
-        l.lock();
-
-        try {
-            // protect against write through by creating a new ArrayList
-            list = new ArrayList<>(transactionEntries);
-            Collections.sort(list);
-        } finally {
-            l.unlock();
-        }
+        // protect against write through by creating a new ArrayList
+        list = new ArrayList<>(transactionEntries);
+        Collections.sort(list);
 
         return list;
     }
@@ -457,15 +425,8 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
     List<TransactionEntry> getTransactionEntriesByTag(final TransactionTag tag) {
         List<TransactionEntry> list = new ArrayList<>();
 
-        Lock l = getLock().readLock();
-        l.lock();
-
-        try {
-            list.addAll(transactionEntries.stream()
-                    .filter(e -> e.getTransactionTag() == tag).collect(Collectors.toList()));
-        } finally {
-            l.unlock();
-        }
+        list.addAll(transactionEntries.stream()
+                .filter(e -> e.getTransactionTag() == tag).collect(Collectors.toList()));
 
         return list;
     }
@@ -483,7 +444,9 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
      * Clears all transaction entries
      */
     public void clearTransactionEntries() {
-        transactionEntries.clear();
+        synchronized (this) {
+            transactionEntries = new HashSet<>();
+        }
     }
 
     public Date getDateEntered() {
@@ -494,6 +457,7 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
         Objects.requireNonNull(dateEntered);
 
         this.dateEntered = (Date) dateEntered.clone();
+        sortKey = null;
     }
 
     @NotNull
@@ -536,54 +500,31 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
     }
 
     public void setReconciled(final Account account, final ReconciledState state) {
-        Lock l = getLock().writeLock();
-        l.lock();
-
-        try {
-            for (TransactionEntry e : transactionEntries) {
-                e.setReconciled(account, state);
-            }
-        } finally {
-            l.unlock();
+        for (TransactionEntry e : transactionEntries) {
+            e.setReconciled(account, state);
         }
     }
 
     public void setReconciled(final ReconciledState state) {
-        Lock l = getLock().writeLock();
-        l.lock();
-
-        try {
-            for (TransactionEntry e : transactionEntries) {
-                e.setCreditReconciled(state);
-                e.setDebitReconciled(state);
-            }
-        } finally {
-            l.unlock();
+        for (TransactionEntry e : transactionEntries) {
+            e.setCreditReconciled(state);
+            e.setDebitReconciled(state);
         }
     }
 
     public ReconciledState getReconciled(final Account account) {
         ReconciledState state = null;
 
-        Lock l = getLock().readLock();
-        l.lock();
-
-        try {
-
-            for (TransactionEntry e : transactionEntries) {
-                if (e.getCreditAccount().equals(account)) {
-                    state = e.getCreditReconciled();
-                    break;
-                }
-
-                if (e.getDebitAccount().equals(account)) {
-                    state = e.getDebitReconciled();
-                    break;
-                }
+        for (TransactionEntry e : transactionEntries) {
+            if (e.getCreditAccount().equals(account)) {
+                state = e.getCreditReconciled();
+                break;
             }
 
-        } finally {
-            l.unlock();
+            if (e.getDebitAccount().equals(account)) {
+                state = e.getDebitReconciled();
+                break;
+            }
         }
 
         return state;
@@ -609,38 +550,19 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
 
     @Override
     public Object clone() throws CloneNotSupportedException {
-        Lock l = getLock().readLock();
-        l.lock();
+        final Transaction tran = (Transaction) super.clone();
 
-        Transaction tran;
+        // deep clone
+        final Set<TransactionEntry> entries = new HashSet<>();
 
-        try {
-
-            tran = (Transaction) super.clone();
-
-            // deep clone
-            tran.transactionEntries = new HashSet<>(); // deep clone
-            tran.lock = new ReentrantReadWriteLock(true);
-
-            for (TransactionEntry entry : transactionEntries) {
-                tran.addTransactionEntry((TransactionEntry) entry.clone());
-            }
-
-        } finally {
-            l.unlock();
+        for (TransactionEntry entry : transactionEntries) {
+            entries.add((TransactionEntry) entry.clone());
         }
 
-        return tran;
-    }
+        tran.transactionEntries = entries;
+        tran.entryCache = null;
 
-    protected Object readResolve() {
-        postLoad();
-        return this;
-    }
-
-    @PostLoad
-    private void postLoad() {
-        lock = new ReentrantReadWriteLock(true);
+        return tran;
     }
 
     @Override
@@ -662,4 +584,72 @@ public class Transaction extends StoredObject implements Comparable<Transaction>
 
         return b.toString();
     }
+
+    /**
+     * Accounts, common account and amounts derived from a set of transaction entries
+     */
+    private static final class EntryCache {
+
+        /**
+         * Entries the values were derived from
+         */
+        final Set<TransactionEntry> entries;
+
+        final Set<Account> accounts;
+
+        final Account commonAccount;
+
+        /**
+         * Amounts relative to an account, filled as they are requested
+         */
+        final Map<Account, BigDecimal> amounts = new ConcurrentHashMap<>();
+
+        EntryCache(final Set<TransactionEntry> entries) {
+            this.entries = entries;
+
+            final Set<Account> set = new TreeSet<>();
+
+            for (TransactionEntry e : entries) {
+                set.add(e.getCreditAccount());
+                set.add(e.getDebitAccount());
+            }
+
+            accounts = Collections.unmodifiableSet(set);
+            commonAccount = findCommonAccount(entries, accounts);
+        }
+
+        BigDecimal sumAmount(final Account account) {
+            BigDecimal balance = BigDecimal.ZERO;
+
+            for (TransactionEntry entry : entries) {
+                balance = balance.add(entry.getAmount(account));
+            }
+
+            return balance;
+        }
+
+        private static Account findCommonAccount(final Set<TransactionEntry> entries, final Set<Account> accounts) {
+            Account account = null;
+
+            if (entries.size() >= 2) {
+                for (Account a : accounts) {
+                    boolean success = true;
+                    for (TransactionEntry e : entries) {
+                        if (!e.getCreditAccount().equals(a) && !e.getDebitAccount().equals(a)) {
+                            success = false;
+                            break;
+                        }
+                    }
+                    if (success) {
+                        account = a;
+                        break;
+                    }
+                }
+            } else if (!entries.isEmpty()) { // double entry transaction, return the credit account by default
+                account = entries.iterator().next().getCreditAccount();
+            }
+
+            return account;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Precomputed view of an account's transactions that can answer balance queries without the transactions being
+ * loaded.
+ * <p/>
+ * Supplied by data stores that read transactions on demand.  A summary is only consulted while the account's
+ * transactions have yet to be loaded, so it never needs to reflect later changes.
+ *
+ * @author Craig Cavanaugh
+ * @see Account#setTransactionSummary(TransactionSummary)
+ */
+public interface TransactionSummary {
+
+    /**
+     * Returns the number of transactions
+     *
+     * @return the number of transactions
+     */
+    int getTransactionCount();
+
+    /**
+     * Returns the balance of all transactions
+     *
+     * @return the balance
+     */
+    BigDecimal getBalance();
+
+    /**
+     * Returns the balance of the transactions inclusive of the start and end dates.
+     *
+     * @param start The inclusive start date
+     * @param end   The inclusive end date
+     * @return The ending balance
+     */
+    BigDecimal getBalance(Date start, Date end);
+
+    /**
+     * Returns the balance up to and inclusive of the supplied date
+     *
+     * @param date The inclusive ending date
+     * @return The ending balance
+     */
+    BigDecimal getBalance(Date date);
+
+    /**
+     * Returns the balance of the reconciled transactions
+     *
+     * @return the reconciled balance
+     */
+    BigDecimal getReconciledBalance();
+}
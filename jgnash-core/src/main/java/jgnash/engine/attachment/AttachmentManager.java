@@ -19,6 +19,7 @@ package jgnash.engine.attachment;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.concurrent.Future;
 
 /**
@@ -29,7 +30,26 @@ import java.util.concurrent.Future;
 public interface AttachmentManager {
     boolean addAttachment(Path path, boolean copy) throws IOException;
 
+    /**
+     * Stores a file attachment by content.  The attachment is named by the SHA-256 digest of its content so
+     * identical files attached to multiple transactions are only stored once.
+     *
+     * @param path Path to the attachment to store
+     * @param copy true if only copying the file
+     * @return the content name to reference the attachment with
+     * @throws IOException if the attachment could not be stored
+     * @see jgnash.engine.AttachmentUtils#getContentName(Path)
+     */
+    String storeAttachment(Path path, boolean copy) throws IOException;
+
     boolean removeAttachment(String attachment);
 
     Future<Path> getAttachment(String attachment);
+
+    /**
+     * Fetches attachments in the background so later calls to {@link #getAttachment(String)} are satisfied locally.
+     *
+     * @param attachments attachments to prefetch, most important first
+     */
+    void prefetchAttachments(Collection<String> attachments);
 }
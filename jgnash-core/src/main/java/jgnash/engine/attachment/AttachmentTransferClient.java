@@ -20,6 +20,7 @@ package jgnash.engine.attachment;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -34,19 +35,11 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.DelimiterBasedFrameDecoder;
-import io.netty.handler.codec.Delimiters;
-import io.netty.handler.codec.base64.Base64Decoder;
-import io.netty.handler.codec.base64.Base64Encoder;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
-import io.netty.util.CharsetUtil;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.traffic.ChannelTrafficShapingHandler;
 
 import static jgnash.engine.attachment.NettyTransferHandler.DELETE;
-import static jgnash.engine.attachment.NettyTransferHandler.EOL_DELIMITER;
 import static jgnash.engine.attachment.NettyTransferHandler.FILE_REQUEST;
-import static jgnash.engine.attachment.NettyTransferHandler.PATH_MAX;
-import static jgnash.engine.attachment.NettyTransferHandler.TRANSFER_BUFFER_SIZE;
 
 /**
  * Client for sending and receiving files
@@ -66,8 +59,17 @@ class AttachmentTransferClient {
 
     private EncryptionManager encryptionManager = null;
 
-    public AttachmentTransferClient(final Path tempPath) {
+    private final NettyTransferHandler.TransferListener transferListener;
+
+    /**
+     * Creates a client that places received files in the specified path
+     *
+     * @param tempPath         location for received files
+     * @param transferListener listener notified when a received file is complete, may be {@code null}
+     */
+    public AttachmentTransferClient(final Path tempPath, final NettyTransferHandler.TransferListener transferListener) {
         tempDirectory = tempPath;
+        this.transferListener = transferListener;
     }
 
     /**
@@ -90,6 +92,7 @@ class AttachmentTransferClient {
         eventLoopGroup = new NioEventLoopGroup();
 
         transferHandler = new NettyTransferHandler(tempDirectory, encryptionManager);
+        transferHandler.setTransferListener(transferListener);
 
         bootstrap.group(eventLoopGroup)
                 .channel(NioSocketChannel.class)
@@ -111,16 +114,9 @@ class AttachmentTransferClient {
         return result;
     }
 
-    private String encrypt(final String message) {
-        if (encryptionManager != null) {
-            return encryptionManager.encrypt(message);
-        }
-        return message;
-    }
-
     public void requestFile(final Path file) {
         try {
-            channel.writeAndFlush(encrypt(FILE_REQUEST + file) + EOL_DELIMITER).sync();
+            channel.writeAndFlush(FILE_REQUEST + file).sync();
         } catch (final InterruptedException e) {
             logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
         }
@@ -128,12 +124,26 @@ class AttachmentTransferClient {
 
     public void deleteFile(final String attachment) {
         try {
-            channel.writeAndFlush(encrypt(DELETE + Paths.get(attachment).getFileName()) + EOL_DELIMITER).sync();
+            channel.writeAndFlush(DELETE + Paths.get(attachment).getFileName()).sync();
         } catch (final InterruptedException e) {
             logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
         }
     }
 
+    /**
+     * Asks the server if it already has a valid copy of a content addressed file
+     *
+     * @param contentName content name of the file
+     * @return future completed with the answer
+     */
+    CompletableFuture<Boolean> containsFile(final String contentName) {
+        if (transferHandler != null && channel != null) {
+            return transferHandler.requestContains(channel, contentName);
+        }
+
+        return CompletableFuture.completedFuture(false);
+    }
+
     public Future<Void> sendFile(final File file) {
         if (transferHandler != null) {
             return transferHandler.sendFile(channel, file.getAbsolutePath());
@@ -142,6 +152,15 @@ class AttachmentTransferClient {
         return null;
     }
 
+    /**
+     * Returns the total number of file content bytes received from the server
+     *
+     * @return bytes received
+     */
+    long getBytesReceived() {
+        return transferHandler != null ? transferHandler.getBytesReceived() : 0;
+    }
+
     /**
      * Disconnects from the lock server
      */
@@ -166,16 +185,20 @@ class AttachmentTransferClient {
         @Override
         public void initChannel(final SocketChannel ch) throws Exception {
 
-            ch.pipeline().addLast(
-                    new DelimiterBasedFrameDecoder(((TRANSFER_BUFFER_SIZE + 2) / 3) * 4 + PATH_MAX,
-                            true, Delimiters.lineDelimiter()),
+            final long bandwidthLimit = DistributedAttachmentManager.getBandwidthLimit() * 1024L;
 
-                    new StringEncoder(CharsetUtil.UTF_8),
-                    new StringDecoder(CharsetUtil.UTF_8),
+            // cap the transfer rate, placed first so the limit applies to the bytes on the wire
+            if (bandwidthLimit > 0) {
+                ch.pipeline().addLast(new ChannelTrafficShapingHandler(bandwidthLimit, bandwidthLimit));
+            }
 
-                    new Base64Encoder(),
-                    new Base64Decoder(),
+            if (encryptionManager != null) {
+                ch.pipeline().addLast(new StreamCipherHandler(encryptionManager));
+            }
 
+            ch.pipeline().addLast(
+                    new ChunkedWriteHandler(),
+                    new TransferFrameCodec(),
                     transferHandler);
         }
     }
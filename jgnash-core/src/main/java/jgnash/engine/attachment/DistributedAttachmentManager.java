@@ -25,17 +25,33 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
+import jgnash.engine.AttachmentUtils;
 
 /**
  * Attachment handler for a remote database
@@ -48,6 +64,27 @@ public class DistributedAttachmentManager implements AttachmentManager {
 
     private static final int TRANSFER_TIMEOUT = 5000;
 
+    private static final String BANDWIDTH_LIMIT = "bandwidthLimit";
+
+    private static final String CACHE_DIRECTORY = "cacheDirectory";
+
+    private static final String CACHE_SIZE = "cacheSize";
+
+    /**
+     * Default size of the attachment cache in megabytes
+     */
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
+    /**
+     * Maximum number of attachments waiting to be prefetched
+     */
+    private static final int MAX_PREFETCH = 50;
+
+    /**
+     * Maximum number of prefetches in flight at once
+     */
+    private static final int MAX_CONCURRENT_PREFETCH = 3;
+
     private final ExecutorService executorService = Executors.newCachedThreadPool();
 
     private final String host;
@@ -59,12 +96,36 @@ public class DistributedAttachmentManager implements AttachmentManager {
      */
     private Path tempAttachmentPath;
 
+    /**
+     * Persistent client side cache of content addressed attachments for this server.  Each server has its own
+     * cache so removing an attachment from one database does not affect another.
+     */
+    private final Path cachePath;
+
     private AttachmentTransferClient fileClient;
 
+    /**
+     * Outstanding content requests by content name
+     */
+    private final Map<String, CompletableFuture<Path>> pendingTransfers = new ConcurrentHashMap<>();
+
+    /**
+     * Content names waiting to be prefetched, most important first.  Only a few prefetches are in flight at once so
+     * an attachment being opened only waits for those, not for every prefetch requested before it.
+     */
+    private final Deque<String> prefetchQueue = new ArrayDeque<>();
+
+    /**
+     * Number of prefetches in flight, guarded by {@code prefetchQueue}
+     */
+    private int prefetching;
+
     public DistributedAttachmentManager(final String host, final int port) {
         this.host = host;
         this.port = port;
 
+        cachePath = getCacheDirectory().resolve(host.replaceAll("[^\\w.-]", "_") + "-" + port);
+
         try {
             EnumSet<PosixFilePermission> permissions = EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
                     PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE);
@@ -73,7 +134,9 @@ public class DistributedAttachmentManager implements AttachmentManager {
 
             tempAttachmentPath = Files.createTempDirectory(TEMP_ATTACHMENT_PATH, attr);
 
-            fileClient = new AttachmentTransferClient(tempAttachmentPath);
+            fileClient = new AttachmentTransferClient(tempAttachmentPath, this::transferComplete);
+
+            Files.createDirectories(cachePath);
         } catch (final IOException e) {
             Logger.getLogger(DistributedAttachmentManager.class.getName()).log(Level.SEVERE, e.getLocalizedMessage(), e);
         }
@@ -121,15 +184,278 @@ public class DistributedAttachmentManager implements AttachmentManager {
         return result;
     }
 
+    @Override
+    public String storeAttachment(final Path path, final boolean copy) throws IOException {
+        final String contentName = AttachmentUtils.getContentName(path);
+        final Path contentPath = cachePath.resolve(contentName);
+
+        if (!AttachmentUtils.isContentValid(contentPath)) {
+            Files.copy(path, contentPath, StandardCopyOption.REPLACE_EXISTING);
+            evictCache(contentPath);
+        }
+
+        // the cache is only a download cache, so ask the server instead of trusting it
+        if (!serverContains(contentName)) {
+            final Future<Void> future = fileClient.sendFile(contentPath.toFile());
+
+            if (future == null) {
+                throw new IOException("Unable to transfer " + path);
+            }
+
+            try {
+                future.get();  // wait for the transfer to complete
+            } catch (final InterruptedException | ExecutionException e) {
+                throw new IOException(e);
+            }
+        }
+
+        if (!copy) {
+            Files.delete(path);
+        }
+
+        return contentName;
+    }
+
+    /**
+     * Asks the server if it already has a valid copy of a content addressed attachment
+     *
+     * @param contentName content name of the attachment
+     * @return {@code true} if the server has the attachment, {@code false} if not or if there was no timely answer
+     */
+    private boolean serverContains(final String contentName) {
+        try {
+            return fileClient.containsFile(contentName).get(TRANSFER_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException | TimeoutException e) {
+            Logger.getLogger(DistributedAttachmentManager.class.getName()).log(Level.WARNING, e.getLocalizedMessage(), e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Queues content addressed attachments to be prefetched ahead of those queued earlier.  Attachments are requested
+     * in order in the background with a few in flight at once, subject to the bandwidth limit, and the oldest are
+     * dropped once the queue is full.
+     *
+     * @param attachments attachments to prefetch, most important first
+     * @see #setBandwidthLimit(int)
+     */
+    @Override
+    public void prefetchAttachments(final Collection<String> attachments) {
+        final List<String> contentNames = attachments.stream()
+                .filter(AttachmentUtils::isContentName)
+                .map(attachment -> Paths.get(attachment).getFileName().toString())
+                .distinct()
+                .limit(MAX_PREFETCH)
+                .collect(Collectors.toList());
+
+        synchronized (prefetchQueue) {
+            for (int i = contentNames.size() - 1; i >= 0; i--) {
+                prefetchQueue.remove(contentNames.get(i));
+                prefetchQueue.addFirst(contentNames.get(i));
+            }
+
+            while (prefetchQueue.size() > MAX_PREFETCH) {
+                prefetchQueue.removeLast();
+            }
+        }
+
+        if (!executorService.isShutdown()) {
+            for (int i = 0; i < MAX_CONCURRENT_PREFETCH; i++) {
+                executorService.execute(this::prefetchNext);
+            }
+        }
+    }
+
+    /**
+     * Requests the next queued prefetch if fewer than the maximum are in flight, and waits for it before requesting
+     * another.  The queue is taken in order, so more important attachments are always requested first.
+     */
+    private void prefetchNext() {
+        String contentName;
+
+        synchronized (prefetchQueue) {
+            if (prefetching >= MAX_CONCURRENT_PREFETCH) {
+                return;
+            }
+
+            do {
+                contentName = prefetchQueue.poll();
+            } while (contentName != null && (Files.exists(cachePath.resolve(contentName))
+                    || pendingTransfers.containsKey(contentName)));
+
+            if (contentName == null) {
+                return;
+            }
+
+            prefetching++;
+        }
+
+        try {
+            awaitTransfer(contentName, requestContent(contentName));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (prefetchQueue) {
+                prefetching--;
+            }
+        }
+
+        if (!executorService.isShutdown()) {
+            executorService.execute(this::prefetchNext);
+        }
+    }
+
+    /**
+     * Sets the bandwidth limit for attachment transfers.  The limit is applied to new connections.
+     *
+     * @param kilobytesPerSecond limit in kilobytes per second, 0 for no limit
+     */
+    public synchronized static void setBandwidthLimit(final int kilobytesPerSecond) {
+        if (kilobytesPerSecond < 0) {
+            throw new IllegalArgumentException("Invalid bandwidth limit");
+        }
+
+        Preferences pref = Preferences.userNodeForPackage(DistributedAttachmentManager.class);
+        pref.putInt(BANDWIDTH_LIMIT, kilobytesPerSecond);
+    }
+
+    /**
+     * Returns the bandwidth limit for attachment transfers
+     *
+     * @return limit in kilobytes per second, 0 if there is no limit
+     */
+    public synchronized static int getBandwidthLimit() {
+        Preferences pref = Preferences.userNodeForPackage(DistributedAttachmentManager.class);
+        return pref.getInt(BANDWIDTH_LIMIT, 0);
+    }
+
+    /**
+     * Sets the directory client side attachment caches are kept in.  The directory is used by new connections.
+     *
+     * @param directory cache directory, {@code null} for the default location
+     */
+    public synchronized static void setCacheDirectory(final Path directory) {
+        Preferences pref = Preferences.userNodeForPackage(DistributedAttachmentManager.class);
+
+        if (directory != null) {
+            pref.put(CACHE_DIRECTORY, directory.toString());
+        } else {
+            pref.remove(CACHE_DIRECTORY);
+        }
+    }
+
+    /**
+     * Returns the directory client side attachment caches are kept in.  Each server is given its own cache within
+     * the directory.
+     *
+     * @return cache directory
+     */
+    public synchronized static Path getCacheDirectory() {
+        Preferences pref = Preferences.userNodeForPackage(DistributedAttachmentManager.class);
+        final String directory = pref.get(CACHE_DIRECTORY, null);
+
+        if (directory != null) {
+            return Paths.get(directory);
+        }
+
+        return Paths.get(System.getProperty("user.home"), ".jgnash", "attachment-cache");
+    }
+
+    /**
+     * Sets the maximum size of the attachment cache of a server.  The least recently used attachments are removed
+     * once the cache grows beyond the limit.
+     *
+     * @param megabytes maximum size in megabytes
+     */
+    public synchronized static void setCacheSize(final int megabytes) {
+        if (megabytes < 0) {
+            throw new IllegalArgumentException("Invalid cache size");
+        }
+
+        Preferences pref = Preferences.userNodeForPackage(DistributedAttachmentManager.class);
+        pref.putInt(CACHE_SIZE, megabytes);
+    }
+
+    /**
+     * Returns the maximum size of the attachment cache of a server
+     *
+     * @return maximum size in megabytes
+     */
+    public synchronized static int getCacheSize() {
+        Preferences pref = Preferences.userNodeForPackage(DistributedAttachmentManager.class);
+        return pref.getInt(CACHE_SIZE, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Removes the least recently used attachments until the cache is within its size limit.  The most recently
+     * added attachment is always kept.
+     *
+     * @param added attachment just added to the cache
+     */
+    private void evictCache(final Path added) {
+        final long limit = getCacheSize() * 1024L * 1024L;
+
+        try (final Stream<Path> stream = Files.list(cachePath)) {
+            final List<Path> paths = stream.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(DistributedAttachmentManager::getLastUsed))
+                    .collect(Collectors.toList());
+
+            long size = 0;
+
+            for (final Path path : paths) {
+                size += Files.size(path);
+            }
+
+            for (final Path path : paths) {
+                if (size <= limit) {
+                    break;
+                }
+
+                if (!path.equals(added)) {
+                    final long length = Files.size(path);
+
+                    if (Files.deleteIfExists(path)) {
+                        size -= length;
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            Logger.getLogger(DistributedAttachmentManager.class.getName()).log(Level.WARNING, e.getLocalizedMessage(), e);
+        }
+    }
+
+    private static FileTime getLastUsed(final Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (final IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
     @Override
     public boolean removeAttachment(final String attachment) {
         fileClient.deleteFile(attachment);
+
+        if (AttachmentUtils.isContentName(attachment)) {
+            try {
+                Files.deleteIfExists(cachePath.resolve(Paths.get(attachment).getFileName()));
+            } catch (final IOException e) {
+                Logger.getLogger(DistributedAttachmentManager.class.getName()).log(Level.WARNING, e.getLocalizedMessage(), e);
+            }
+        }
         return true;
     }
 
     @Override
     public Future<Path> getAttachment(final String attachment) {
 
+        if (AttachmentUtils.isContentName(attachment)) {
+            return executorService.submit(() -> getContentAttachment(Paths.get(attachment).getFileName().toString()));
+        }
+
         return executorService.submit(() -> {
             Path path = Paths.get(tempAttachmentPath + File.separator + Paths.get(attachment).getFileName());
 
@@ -153,6 +479,126 @@ public class DistributedAttachmentManager implements AttachmentManager {
         });
     }
 
+    /**
+     * Returns a content addressed attachment from the persistent cache, requesting it from the server only if the
+     * cached copy is missing or does not match its digest.
+     *
+     * @param contentName content name of the attachment
+     * @return path to the cached attachment, {@code null} if it could not be retrieved
+     * @throws InterruptedException if interrupted while waiting for the transfer
+     */
+    private Path getContentAttachment(final String contentName) throws InterruptedException {
+        final Path contentPath = cachePath.resolve(contentName);
+
+        if (AttachmentUtils.isContentValid(contentPath)) {
+            try {   // the modification time orders the cache by last use
+                Files.setLastModifiedTime(contentPath, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (final IOException e) {
+                Logger.getLogger(DistributedAttachmentManager.class.getName()).log(Level.WARNING, e.getLocalizedMessage(), e);
+            }
+
+            return contentPath;
+        }
+
+        return awaitTransfer(contentName, requestContent(contentName));
+    }
+
+    /**
+     * Waits for a requested attachment.  The wait continues for as long as file content is still arriving from the
+     * server, so a large file or a capped transfer rate does not cause a timeout.  The request is forgotten only if
+     * nothing has been received for the transfer timeout, allowing it to be made again.
+     *
+     * @param contentName content name of the attachment
+     * @param future      future of the request
+     * @return path to the cached attachment, {@code null} if it could not be retrieved
+     * @throws InterruptedException if interrupted while waiting for the transfer
+     */
+    private Path awaitTransfer(final String contentName, final CompletableFuture<Path> future)
+            throws InterruptedException {
+        long received = fileClient.getBytesReceived();
+
+        while (true) {
+            try {
+                return future.get(TRANSFER_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (final ExecutionException e) {
+                Logger.getLogger(DistributedAttachmentManager.class.getName()).log(Level.SEVERE, e.getLocalizedMessage(), e);
+                break;
+            } catch (final TimeoutException e) {
+                final long total = fileClient.getBytesReceived();
+
+                if (total == received) {    // the transfer has stalled
+                    Logger.getLogger(DistributedAttachmentManager.class.getName()).log(Level.WARNING,
+                            "Failed to retrieve {0}", contentName);
+                    break;
+                }
+
+                received = total;
+            }
+        }
+
+        pendingTransfers.remove(contentName, future);  // allow the request to be made again
+
+        return null;
+    }
+
+    /**
+     * Requests a content addressed attachment from the server unless a request is already outstanding.  Requests
+     * are sent immediately, so an attachment being opened is queued behind at most the prefetches in flight.
+     *
+     * @param contentName content name of the attachment
+     * @return future completed with the cached path once the transfer is complete
+     */
+    private CompletableFuture<Path> requestContent(final String contentName) {
+        final CompletableFuture<Path> future = new CompletableFuture<>();
+        final CompletableFuture<Path> pending = pendingTransfers.putIfAbsent(contentName, future);
+
+        if (pending != null) {
+            return pending;
+        }
+
+        fileClient.requestFile(Paths.get(contentName));  // Request the file and place in a a temp location
+
+        return future;
+    }
+
+    /**
+     * Moves a received content addressed attachment into the persistent cache and completes its request
+     *
+     * @param path  received file
+     * @param valid {@code true} if the transfer was verified
+     */
+    private void transferComplete(final Path path, final boolean valid) {
+        final String fileName = path.getFileName().toString();
+
+        if (!AttachmentUtils.isContentName(fileName)) {
+            return;
+        }
+
+        // called from the channel event loop, move the file off of it
+        executorService.execute(() -> {
+            final CompletableFuture<Path> future = pendingTransfers.remove(fileName);
+
+            try {
+                Path contentPath = null;
+
+                if (valid) {    // a late arrival is still cached for the next request
+                    contentPath = Files.move(path, cachePath.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+                    evictCache(contentPath);
+                }
+
+                if (future != null) {
+                    future.complete(contentPath);
+                }
+            } catch (final IOException e) {
+                Logger.getLogger(DistributedAttachmentManager.class.getName()).log(Level.SEVERE, e.getLocalizedMessage(), e);
+
+                if (future != null) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
     public boolean connectToServer(final char[] password) {
         return fileClient.connectToServer(host, port, password);
     }
@@ -160,6 +606,12 @@ public class DistributedAttachmentManager implements AttachmentManager {
     public void disconnectFromServer() {
         fileClient.disconnectFromServer();
 
+        executorService.shutdownNow();
+
+        // nothing more will arrive
+        pendingTransfers.values().forEach(future -> future.complete(null));
+        pendingTransfers.clear();
+
         // Cleanup before exit
         try (DirectoryStream<Path> ds = Files.newDirectoryStream(tempAttachmentPath)) {
             for (Path p : ds) {
@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -78,6 +80,28 @@ public class LocalAttachmentManager implements AttachmentManager {
         return result;
     }
 
+    @Override
+    public String storeAttachment(final Path path, final boolean copy) throws IOException {
+        final String contentName = AttachmentUtils.getContentName(path);
+
+        if (!AttachmentUtils.createAttachmentDirectory(Paths.get(EngineFactory.getActiveDatabase()))) {
+            throw new IOException("Unable to find or create the attachment directory");
+        }
+
+        final Path newPath = Paths.get(AttachmentUtils.getAttachmentPath() + File.separator + contentName);
+
+        // identical content may already be stored for another transaction
+        if (!AttachmentUtils.isContentValid(newPath)) {
+            Files.copy(path, newPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (!copy && !Files.isSameFile(path, newPath)) {
+            Files.delete(path);
+        }
+
+        return contentName;
+    }
+
     @Override
     public boolean removeAttachment(final String attachment) {
         boolean result = false;
@@ -94,6 +118,11 @@ public class LocalAttachmentManager implements AttachmentManager {
         return result;
     }
 
+    @Override
+    public void prefetchAttachments(final Collection<String> attachments) {
+        // attachments are already local
+    }
+
     @Override
     public Future<Path> getAttachment(final String attachment) {
         return executorService.submit(() ->
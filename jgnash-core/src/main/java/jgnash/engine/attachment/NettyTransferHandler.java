@@ -20,93 +20,211 @@ package jgnash.engine.attachment;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.crypto.Mac;
+
 import jgnash.engine.AttachmentUtils;
+import jgnash.util.DefaultDaemonThreadFactory;
 import jgnash.util.EncryptionManager;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.traffic.ChannelTrafficShapingHandler;
 
-import static javax.xml.bind.DatatypeConverter.parseBase64Binary;
-import static javax.xml.bind.DatatypeConverter.printBase64Binary;
+import static javax.xml.bind.DatatypeConverter.parseHexBinary;
+import static javax.xml.bind.DatatypeConverter.printHexBinary;
 
 /**
  * Handles the details of bi-directional transfer of files between a client and server.
+ * <p>
+ * File content is sent as raw bytes following a header frame (see {@link TransferFrameCodec}).  When the channel is
+ * not encrypted the content is sent with a {@code FileRegion} so the operating system can transfer it without
+ * copying it through user space.  An encrypted channel requires the content to pass through the cipher, so large
+ * chunks are read with a {@code ChunkedNioFile} instead.  A SHA-256 digest is sent after the content and checked
+ * by the receiver.  The stream cipher does not protect integrity, so an encrypted channel sends an HMAC of the file
+ * name and content keyed from the password instead, which can not be recomputed by someone altering the traffic.
  *
  * @author Craig Cavanaugh
  */
 @ChannelHandler.Sharable
-class NettyTransferHandler extends SimpleChannelInboundHandler<String> {
+class NettyTransferHandler extends SimpleChannelInboundHandler<Object> {
 
     public static final String FILE_REQUEST = "<FILE_REQUEST>";
 
     public static final String DELETE = "<DELETE>";
 
-    public static final String EOL_DELIMITER = "\r\n";
+    /**
+     * Asks if a content addressed file is present and valid, answered with the name followed by {@code :true} or
+     * {@code :false}
+     */
+    static final String CONTAINS = "<CONTAINS>";
 
-    private static final String FILE_STARTS = "<FILE_STARTS>";
+    static final String FILE_STARTS = "<FILE_STARTS>";
 
     private static final String FILE_ENDS = "<FILE_ENDS>";
 
-    private static final String FILE_CHUNK = "<FILE_CHUNK>";
-
     private static final String ERROR = "<ERROR>";
 
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
     private static final Logger logger = Logger.getLogger(NettyTransferHandler.class.getName());
 
-    public static final int TRANSFER_BUFFER_SIZE = 1024; // too large can break netty... bug?
+    /**
+     * Chunk size used when file content must pass through user space
+     */
+    public static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
 
     public static final int PATH_MAX = 4096;
 
     private final Map<String, Attachment> fileMap = new ConcurrentHashMap<>();
 
+    /**
+     * Outstanding {@link #CONTAINS} queries by content name
+     */
+    private final Map<String, CompletableFuture<Boolean>> containsRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Reads and digests requested files off of the event loop.  A single thread keeps files in the order requested.
+     * Shut down when the channel closes.
+     */
+    private final ExecutorService requestExecutor = Executors.newSingleThreadExecutor(new DefaultDaemonThreadFactory());
+
     private final Path attachmentPath;
 
+    /**
+     * Encryption manager for an encrypted channel, {@code null} if the channel is not encrypted
+     */
     private final EncryptionManager encryptionManager;
 
+    private volatile TransferListener transferListener;
+
+    /**
+     * Total file content received, used to tell a slow transfer from a stalled one
+     */
+    private final AtomicLong bytesReceived = new AtomicLong();
+
     /**
      * Netty Handler.  The specified path may be a temporary location for clients or a persistent location for servers.
      *
      * @param attachmentPath Path for attachments.
      */
-    public NettyTransferHandler(final Path attachmentPath, final EncryptionManager encryptionManager) {
+    public NettyTransferHandler(final Path attachmentPath) {
+        this(attachmentPath, null);
+    }
+
+    /**
+     * Netty Handler.  The specified path may be a temporary location for clients or a persistent location for servers.
+     *
+     * @param attachmentPath    Path for attachments.
+     * @param encryptionManager encryption manager if the channel is encrypted, files are then authenticated with a
+     *                          keyed HMAC.  May be {@code null}
+     */
+    NettyTransferHandler(final Path attachmentPath, final EncryptionManager encryptionManager) {
         this.attachmentPath = attachmentPath;
         this.encryptionManager = encryptionManager;
     }
 
-    @Override
-    public void channelRead0(final ChannelHandlerContext ctx, final String msg) {
+    /**
+     * Sets the listener to be notified when a received file is complete
+     *
+     * @param transferListener listener, may be {@code null}
+     */
+    void setTransferListener(final TransferListener transferListener) {
+        this.transferListener = transferListener;
+    }
 
-        final String plainMessage;
+    /**
+     * Returns the total number of file content bytes received by this handler
+     *
+     * @return bytes received
+     */
+    long getBytesReceived() {
+        return bytesReceived.get();
+    }
 
-        if (encryptionManager != null) {
-            plainMessage = encryptionManager.decrypt(msg);
-        } else {
-            plainMessage = msg;
+    @Override
+    public void channelRead0(final ChannelHandlerContext ctx, final Object msg) {
+
+        if (msg instanceof TransferFrameCodec.FileChunk) {
+            writeOutputStream((TransferFrameCodec.FileChunk) msg);
+            return;
         }
 
+        final String plainMessage = (String) msg;
+
         if (plainMessage.startsWith(FILE_REQUEST)) {
-            sendFile(ctx, attachmentPath + File.separator + plainMessage.substring(FILE_REQUEST.length()));
+            final String fileName = attachmentPath + File.separator + plainMessage.substring(FILE_REQUEST.length());
+
+            // digesting the file would block the event loop
+            requestExecutor.execute(() -> sendFile(ctx.channel(), fileName, false));
         } else if (plainMessage.startsWith(FILE_STARTS)) {
             openOutputStream(plainMessage.substring(FILE_STARTS.length()));
-        } else if (plainMessage.startsWith(FILE_CHUNK)) {
-            writeOutputStream(plainMessage.substring(FILE_CHUNK.length()));
         } else if (plainMessage.startsWith(FILE_ENDS)) {
             closeOutputStream(plainMessage.substring(FILE_ENDS.length()));
         } else if (plainMessage.startsWith(DELETE)) {
-            deleteFile(plainMessage.substring(FILE_ENDS.length()));
+            deleteFile(plainMessage.substring(DELETE.length()));
+        } else if (plainMessage.startsWith(CONTAINS)) {
+            processContains(ctx, plainMessage.substring(CONTAINS.length()));
+        } else if (plainMessage.startsWith(ERROR)) {
+            logger.warning(plainMessage.substring(ERROR.length()));
+        }
+    }
+
+    /**
+     * Asks the other end if it has a valid copy of a content addressed file
+     *
+     * @param channel     Channel to send the query through
+     * @param contentName content name of the file
+     * @return future completed with the answer, or {@code false} if the channel closes first
+     */
+    CompletableFuture<Boolean> requestContains(final Channel channel, final String contentName) {
+        final CompletableFuture<Boolean> future = containsRequests.computeIfAbsent(contentName,
+                name -> new CompletableFuture<>());
+
+        channel.writeAndFlush(CONTAINS + contentName);
+
+        return future;
+    }
+
+    private void processContains(final ChannelHandlerContext ctx, final String msg) {
+        final int index = msg.lastIndexOf(':');
+
+        if (index < 0) {    // a query, verifying the content would block the event loop
+            final Path path = Paths.get(attachmentPath + File.separator + Paths.get(msg).getFileName());
+
+            requestExecutor.execute(() -> ctx.writeAndFlush(CONTAINS + msg + ':'
+                    + AttachmentUtils.isContentValid(path)));
+        } else {            // an answer
+            final CompletableFuture<Boolean> future = containsRequests.remove(msg.substring(0, index));
+
+            if (future != null) {
+                future.complete(Boolean.parseBoolean(msg.substring(index + 1)));
+            }
         }
     }
 
@@ -124,9 +242,14 @@ class NettyTransferHandler extends SimpleChannelInboundHandler<String> {
 
     @Override
     public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+        requestExecutor.shutdownNow();
+
+        containsRequests.values().forEach(future -> future.complete(false));
+        containsRequests.clear();
+
         for (Attachment object : fileMap.values()) {
             try {
-                object.fileOutputStream.close();
+                object.fileChannel.close();
             } catch (IOException e) {
                 logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
             }
@@ -142,20 +265,27 @@ class NettyTransferHandler extends SimpleChannelInboundHandler<String> {
         ctx.close();
     }
 
-    private String encrypt(final String message) {
-        if (encryptionManager != null) {
-            return encryptionManager.encrypt(message);
-        }
-        return message;
-    }
-
     /**
-     * Sends a file across the channel. The Fu
+     * Sends a file across the channel.
+     *
      * @param channel  Channel to send file through
      * @param fileName the file name
      * @return the future of the potentially asynchronous send is returned. A null value is returned if fileName is a path.
      */
     public Future<Void> sendFile(final Channel channel, final String fileName) {
+        return sendFile(channel, fileName, true);
+    }
+
+    /**
+     * Sends a file across the channel.  Must not be called from the channel's event loop because the file is read
+     * to compute its digest.
+     *
+     * @param channel  Channel to send file through
+     * @param fileName the file name
+     * @param wait     {@code true} to wait for the file to be written
+     * @return the future of the send. A null value is returned if fileName is a path.
+     */
+    private Future<Void> sendFile(final Channel channel, final String fileName, final boolean wait) {
         Future<Void> future = null;
 
         Path path = Paths.get(fileName);
@@ -163,67 +293,138 @@ class NettyTransferHandler extends SimpleChannelInboundHandler<String> {
         if (Files.exists(path)) {
 
             if (Files.isDirectory(path)) {
-                channel.writeAndFlush(encrypt(ERROR + "Not a file: " + path) + EOL_DELIMITER);
+                channel.writeAndFlush(ERROR + "Not a file: " + path);
                 return null;
             }
 
-            try (InputStream fileInputStream = Files.newInputStream(path)) {
-                channel.writeAndFlush(encrypt(FILE_STARTS + path.getFileName() + ":" + Files.size(path)) + EOL_DELIMITER);
-
-                byte[] bytes = new byte[TRANSFER_BUFFER_SIZE];  // leave room for base 64 expansion
-
-                int bytesRead;
-
-                while ((bytesRead = fileInputStream.read(bytes)) != -1) {
-                    if (bytesRead > 0) {
-                        channel.write(encrypt(FILE_CHUNK + path.getFileName() + ':' +
-                                printBase64Binary(Arrays.copyOfRange(bytes, 0, bytesRead))) + EOL_DELIMITER);
-                    }
+            try {
+                final String digest = getDigest(path);
+
+                // the header, content and trailer must not be interleaved with another send on the channel
+                if (channel.eventLoop().inEventLoop()) {
+                    future = writeFile(channel, path, digest);
+                } else {
+                    final ChannelPromise promise = channel.newPromise();
+
+                    channel.eventLoop().execute(() -> {
+                        try {
+                            writeFile(channel, path, digest).addListener((ChannelFutureListener) f -> {
+                                if (f.isSuccess()) {
+                                    promise.setSuccess();
+                                } else {
+                                    promise.setFailure(f.cause());
+                                }
+                            });
+                        } catch (final IOException e) {
+                            promise.setFailure(e);
+                        }
+                    });
+
+                    future = wait ? promise.sync() : promise;
                 }
-                future = channel.writeAndFlush(encrypt(FILE_ENDS + path.getFileName()) + EOL_DELIMITER).sync();
-
-            } catch (IOException | InterruptedException e) {
+            } catch (final IOException | GeneralSecurityException | InterruptedException e) {
                 logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
             }
         } else {
-            try {
-                future = channel.writeAndFlush(encrypt(ERROR + "File not found: " + path) + EOL_DELIMITER).sync();
-            } catch (final InterruptedException e) {
-                logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
-            }
+            future = channel.writeAndFlush(ERROR + "File not found: " + path);
             logger.log(Level.WARNING, "File not found: {0}", path);
         }
 
         return future;
     }
 
-    private void sendFile(final ChannelHandlerContext ctx, final String msg) {
-        sendFile(ctx.channel(), msg);
+    /**
+     * Writes the header, content and digest of a file.  Must be called from the channel's event loop.
+     */
+    private static ChannelFuture writeFile(final Channel channel, final Path path, final String digest) throws IOException {
+        final String name = path.getFileName().toString();
+
+        final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        final long fileSize = fileChannel.size();
+
+        channel.write(TransferFrameCodec.encodeFileHeader(channel.alloc(), name, fileSize));
+
+        // a FileRegion bypasses both the cipher and traffic shaping
+        if (channel.pipeline().get(StreamCipherHandler.class) == null
+                && channel.pipeline().get(ChannelTrafficShapingHandler.class) == null) {
+            channel.write(new DefaultFileRegion(fileChannel, 0, fileSize));   // zero-copy
+        } else {
+            channel.write(new ChunkedNioFile(fileChannel, TRANSFER_BUFFER_SIZE));
+        }
+
+        return channel.writeAndFlush(FILE_ENDS + name + ':' + digest);
+    }
+
+    private String getDigest(final Path path) throws IOException, GeneralSecurityException {
+        final ContentDigest contentDigest = new ContentDigest(encryptionManager, path.getFileName().toString());
+
+        try (final InputStream inputStream = Files.newInputStream(path)) {
+            final byte[] bytes = new byte[TRANSFER_BUFFER_SIZE];
+
+            int bytesRead;
+
+            while ((bytesRead = inputStream.read(bytes)) != -1) {
+                contentDigest.update(bytes, bytesRead);
+            }
+        }
+
+        return printHexBinary(contentDigest.digest());
     }
 
     private void closeOutputStream(final String msg) {
-        Attachment attachment = fileMap.get(msg);
+        final int index = msg.lastIndexOf(':');
+
+        final String fileName = msg.substring(0, index);
+        final String digest = msg.substring(index + 1);
+
+        final Attachment attachment = fileMap.remove(fileName);
+
+        if (attachment == null) {
+            return;
+        }
 
         try {
-            attachment.fileOutputStream.close();
-            fileMap.remove(msg);
+            attachment.fileChannel.close();
         } catch (final IOException e) {
             logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
         }
 
+        boolean valid = false;
+
         if (attachment.path.toFile().length() != attachment.fileSize) {
             logger.severe("Invalid file length");
+        } else if (!attachment.contentDigest.matches(digest)) {
+            logger.log(Level.SEVERE, "Digest mismatch for {0}, removing the file", fileName);
+
+            try {
+                Files.deleteIfExists(attachment.path);
+            } catch (final IOException e) {
+                logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+            }
+        } else {
+            valid = true;
         }
-    }
 
-    private void writeOutputStream(final String msg) {
-        String[] msgParts = msg.split(":");
+        final TransferListener listener = transferListener;
 
-        Attachment attachment = fileMap.get(msgParts[0]);
+        if (listener != null) {
+            listener.transferComplete(attachment.path, valid);
+        }
+    }
+
+    private void writeOutputStream(final TransferFrameCodec.FileChunk chunk) {
+        Attachment attachment = fileMap.get(chunk.fileName);
 
         if (attachment != null) {
             try {
-                attachment.fileOutputStream.write(parseBase64Binary(msgParts[1]));
+                final ByteBuffer buffer = chunk.content().nioBuffer();
+
+                bytesReceived.addAndGet(buffer.remaining());
+                attachment.contentDigest.update(buffer.duplicate());
+
+                while (buffer.hasRemaining()) {
+                    attachment.fileChannel.write(buffer);
+                }
             } catch (final IOException e) {
                 logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
             }
@@ -231,10 +432,10 @@ class NettyTransferHandler extends SimpleChannelInboundHandler<String> {
     }
 
     private void openOutputStream(final String msg) {
-        String[] msgParts = msg.split(":");
+        final int index = msg.lastIndexOf(':');
 
-        final String fileName = msgParts[0];
-        final long fileLength = Long.parseLong(msgParts[1]);
+        final String fileName = msg.substring(0, index);
+        final long fileLength = Long.parseLong(msg.substring(index + 1));
 
         final Path filePath = Paths.get(attachmentPath + File.separator + fileName);
 
@@ -245,22 +446,97 @@ class NettyTransferHandler extends SimpleChannelInboundHandler<String> {
         }
 
         try {
-            fileMap.put(fileName, new Attachment(filePath, fileLength));
-        } catch (IOException e) {
+            fileMap.put(fileName, new Attachment(filePath, fileLength,
+                    new ContentDigest(encryptionManager, fileName)));
+        } catch (IOException | GeneralSecurityException e) {
             logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
         }
     }
 
+    /**
+     * Listener for received files
+     */
+    interface TransferListener {
+
+        /**
+         * Called from the channel's event loop once a received file has been closed
+         *
+         * @param path  path of the received file
+         * @param valid {@code true} if the length and digest of the file were verified
+         */
+        void transferComplete(Path path, boolean valid);
+    }
+
+    /**
+     * SHA-256 digest of a file's content, or an HMAC of the file name and content when the channel is encrypted
+     */
+    private static class ContentDigest {
+        private final MessageDigest messageDigest;
+
+        private final Mac mac;
+
+        ContentDigest(final EncryptionManager encryptionManager, final String fileName)
+                throws GeneralSecurityException {
+            if (encryptionManager != null) {
+                mac = encryptionManager.getMac();
+                mac.update(fileName.getBytes(StandardCharsets.UTF_8));
+                messageDigest = null;
+            } else {
+                mac = null;
+                messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            }
+        }
+
+        void update(final byte[] bytes, final int length) {
+            if (mac != null) {
+                mac.update(bytes, 0, length);
+            } else {
+                messageDigest.update(bytes, 0, length);
+            }
+        }
+
+        void update(final ByteBuffer buffer) {
+            if (mac != null) {
+                mac.update(buffer);
+            } else {
+                messageDigest.update(buffer);
+            }
+        }
+
+        byte[] digest() {
+            return mac != null ? mac.doFinal() : messageDigest.digest();
+        }
+
+        /**
+         * Compares the digest with the one sent by the other end in constant time
+         *
+         * @param expected hex encoded digest sent by the other end
+         * @return {@code true} if the digests match
+         */
+        boolean matches(final String expected) {
+            try {
+                return MessageDigest.isEqual(digest(), parseHexBinary(expected));
+            } catch (final IllegalArgumentException e) {
+                return false;
+            }
+        }
+    }
+
     private static class Attachment {
         final Path path;
 
-        final OutputStream fileOutputStream;
+        final FileChannel fileChannel;
+
+        final ContentDigest contentDigest;
 
         final long fileSize;
 
-        private Attachment(final Path path, long fileSize) throws IOException {
+        private Attachment(final Path path, final long fileSize, final ContentDigest contentDigest)
+                throws IOException {
             this.path = path;
-            fileOutputStream = Files.newOutputStream(path);
+            this.contentDigest = contentDigest;
+            fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
 
             this.fileSize = fileSize;
         }
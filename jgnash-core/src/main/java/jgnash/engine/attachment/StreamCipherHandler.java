@@ -0,0 +1,134 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.attachment;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+
+import jgnash.util.EncryptionManager;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.UnsupportedMessageTypeException;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Encrypts and decrypts every byte passing through a channel with a stream cipher.
+ * <p>
+ * Each direction of the channel uses its own random initialization vector which is sent in the clear as the first
+ * bytes written.  Only {@code ByteBuf} messages can be handled; a {@code FileRegion} bypasses user space and
+ * can not be encrypted, so chunked writes must be used when this handler is in the pipeline.
+ *
+ * @author Craig Cavanaugh
+ */
+class StreamCipherHandler extends ChannelDuplexHandler {
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final EncryptionManager encryptionManager;
+
+    private final byte[] remoteIv = new byte[EncryptionManager.STREAM_IV_LENGTH];
+
+    private int remoteIvLength = 0;
+
+    private Cipher encryptCipher;
+
+    private Cipher decryptCipher;
+
+    StreamCipherHandler(final EncryptionManager encryptionManager) {
+        this.encryptionManager = encryptionManager;
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        final ByteBuf in = (ByteBuf) msg;
+
+        try {
+            if (decryptCipher == null) {   // collect the remote initialization vector first
+                final int length = Math.min(remoteIv.length - remoteIvLength, in.readableBytes());
+
+                in.readBytes(remoteIv, remoteIvLength, length);
+                remoteIvLength += length;
+
+                if (remoteIvLength < remoteIv.length) {
+                    return;
+                }
+
+                decryptCipher = encryptionManager.getStreamCipher(Cipher.DECRYPT_MODE, remoteIv);
+            }
+
+            if (in.isReadable()) {
+                ctx.fireChannelRead(update(ctx, decryptCipher, in));
+            }
+        } finally {
+            in.release();
+        }
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ReferenceCountUtil.release(msg);
+            promise.setFailure(new UnsupportedMessageTypeException(msg, ByteBuf.class));
+            return;
+        }
+
+        final ByteBuf in = (ByteBuf) msg;
+
+        try {
+            if (encryptCipher == null) {
+                final byte[] iv = new byte[EncryptionManager.STREAM_IV_LENGTH];
+                random.nextBytes(iv);
+
+                encryptCipher = encryptionManager.getStreamCipher(Cipher.ENCRYPT_MODE, iv);
+                ctx.write(Unpooled.wrappedBuffer(iv));
+            }
+
+            ctx.write(update(ctx, encryptCipher, in), promise);
+        } finally {
+            in.release();
+        }
+    }
+
+    private static ByteBuf update(final ChannelHandlerContext ctx, final Cipher cipher, final ByteBuf in)
+            throws GeneralSecurityException {
+        final int length = in.readableBytes();
+        final ByteBuf out = ctx.alloc().buffer(length);
+
+        try {
+            cipher.update(in.nioBuffer(), out.nioBuffer(0, length));  // no padding, output length equals input
+            out.writerIndex(length);
+            in.skipBytes(length);
+        } catch (final GeneralSecurityException e) {
+            out.release();
+            throw e;
+        }
+
+        return out;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.attachment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageCodec;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import static jgnash.engine.attachment.NettyTransferHandler.FILE_STARTS;
+import static jgnash.engine.attachment.NettyTransferHandler.PATH_MAX;
+
+/**
+ * Binary framing for the attachment transfer protocol.
+ * <p>
+ * Control messages are encoded as a type byte, an int length and UTF-8 text.  A file is announced with a header
+ * frame holding the file size and name and is followed by the raw file content, which allows the sender to
+ * transfer the content directly from the file system.  The decoder converts a file header into a
+ * {@code FILE_STARTS} control message followed by {@link FileChunk} messages for the content.
+ * <p>
+ * The codec is stateful and must not be shared between channels.
+ *
+ * @author Craig Cavanaugh
+ */
+class TransferFrameCodec extends ByteToMessageCodec<String> {
+
+    private static final byte CONTROL_FRAME = 0;
+
+    private static final byte FILE_FRAME = 1;
+
+    private static final int MAX_CONTROL_LENGTH = PATH_MAX * 2;
+
+    /**
+     * Name of the file being received, {@code null} if not receiving raw file content
+     */
+    private String fileName;
+
+    private long fileBytesRemaining;
+
+    /**
+     * Creates the header that must precede the raw content of a file.
+     *
+     * @param allocator allocator for the header buffer
+     * @param fileName  file name
+     * @param fileSize  the exact number of content bytes that will follow the header
+     * @return encoded header
+     */
+    static ByteBuf encodeFileHeader(final ByteBufAllocator allocator, final String fileName, final long fileSize) {
+        final byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+
+        final ByteBuf header = allocator.buffer(1 + 8 + 4 + name.length);
+
+        header.writeByte(FILE_FRAME);
+        header.writeLong(fileSize);
+        header.writeInt(name.length);
+        header.writeBytes(name);
+
+        return header;
+    }
+
+    @Override
+    protected void encode(final ChannelHandlerContext ctx, final String msg, final ByteBuf out) {
+        final byte[] bytes = msg.getBytes(StandardCharsets.UTF_8);
+
+        out.writeByte(CONTROL_FRAME);
+        out.writeInt(bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    @Override
+    protected void decode(final ChannelHandlerContext ctx, final ByteBuf in, final List<Object> out) {
+        if (fileName != null) {
+            final int length = (int) Math.min(fileBytesRemaining, in.readableBytes());
+
+            out.add(new FileChunk(fileName, in.readSlice(length).retain()));
+
+            fileBytesRemaining -= length;
+
+            if (fileBytesRemaining == 0) {
+                fileName = null;
+            }
+            return;
+        }
+
+        if (in.readableBytes() < 5) {
+            return;
+        }
+
+        in.markReaderIndex();
+
+        final byte type = in.readByte();
+
+        switch (type) {
+            case CONTROL_FRAME: {
+                final int length = checkLength(in.readInt());
+
+                if (in.readableBytes() < length) {
+                    in.resetReaderIndex();
+                    return;
+                }
+
+                out.add(in.toString(in.readerIndex(), length, StandardCharsets.UTF_8));
+                in.skipBytes(length);
+                break;
+            }
+            case FILE_FRAME: {
+                if (in.readableBytes() < 12) {
+                    in.resetReaderIndex();
+                    return;
+                }
+
+                final long size = in.readLong();
+                final int length = checkLength(in.readInt());
+
+                if (size < 0) {
+                    throw new CorruptedFrameException("Invalid file size: " + size);
+                }
+
+                if (in.readableBytes() < length) {
+                    in.resetReaderIndex();
+                    return;
+                }
+
+                final String name = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+                in.skipBytes(length);
+
+                out.add(FILE_STARTS + name + ':' + size);
+
+                if (size > 0) {
+                    fileName = name;
+                    fileBytesRemaining = size;
+                }
+                break;
+            }
+            default:
+                throw new CorruptedFrameException("Unknown frame type: " + type);
+        }
+    }
+
+    private static int checkLength(final int length) {
+        if (length < 0 || length > MAX_CONTROL_LENGTH) {
+            throw new CorruptedFrameException("Invalid frame length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * A piece of raw file content
+     */
+    static final class FileChunk extends DefaultByteBufHolder {
+
+        final String fileName;
+
+        FileChunk(final String fileName, final ByteBuf content) {
+            super(content);
+            this.fileName = fileName;
+        }
+    }
+}
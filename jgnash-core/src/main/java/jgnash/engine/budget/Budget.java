@@ -31,6 +31,7 @@ import javax.persistence.OneToMany;
 import javax.persistence.PostLoad;
 
 import jgnash.engine.Account;
+import jgnash.engine.BootProfile;
 import jgnash.engine.StoredObject;
 import jgnash.util.DateUtils;
 import jgnash.util.NotNull;
@@ -153,7 +154,7 @@ public class Budget extends StoredObject implements Comparable<Budget>, Cloneabl
         }
 
         if (result == 0) {
-            return getUuid().compareTo(budget.getUuid());
+            return getObjectId().compareTo(budget.getObjectId());
         }
 
         return result;
@@ -161,12 +162,12 @@ public class Budget extends StoredObject implements Comparable<Budget>, Cloneabl
 
     @Override
     public boolean equals(final Object other) {
-        return this == other || other instanceof Budget && getUuid().equals(((Budget) other).getUuid());
+        return this == other || other instanceof Budget && getObjectId().equals(((Budget) other).getObjectId());
     }
 
     @Override
     public int hashCode() {
-        return getUuid().hashCode();
+        return getObjectId().hashCode();
     }
 
     /**
@@ -288,7 +289,7 @@ public class Budget extends StoredObject implements Comparable<Budget>, Cloneabl
     }
 
     protected Object readResolve() {
-        postLoad();
+        BootProfile.getInstance().accumulate(BootProfile.POST_LOAD, this::postLoad);
         return this;
     }
 
@@ -23,6 +23,7 @@ import jgnash.engine.ExchangeRate;
 import jgnash.engine.SecurityHistoryNode;
 import jgnash.engine.SecurityNode;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -55,6 +56,16 @@ public interface CommodityDAO {
      */
     public boolean addSecurityHistory(final SecurityNode node, final SecurityHistoryNode historyNode);
 
+    /**
+     * Call after a range of {@code SecurityHistoryNode}s has been merged.  This pushes the update
+     * to the underlying database in a single commit
+     * @param node SecurityHistory to update
+     * @param historyNodes {@code SecurityHistoryNode}s that were added
+     *
+     * @return true if successful
+     */
+    public boolean addSecurityHistory(final SecurityNode node, final Collection<SecurityHistoryNode> historyNodes);
+
     /**
      * Returns the active currencies
      *
@@ -17,8 +17,10 @@
  */
 package jgnash.engine.dao;
 
+import java.util.Collection;
 import java.util.List;
 
+import jgnash.engine.Transaction;
 import jgnash.engine.recurring.Reminder;
 
 /**
@@ -35,4 +37,13 @@ public interface RecurringDAO {
     public Reminder getReminderByUuid(final String uuid);
 
     public boolean updateReminder(Reminder reminder);
+
+    /**
+     * Stores the transactions created for reminder occurrences and the updated reminders with a single commit
+     *
+     * @param transactions new {@code Transaction}s that have been added to their accounts
+     * @param reminders updated {@code Reminder}s
+     * @return true if successful
+     */
+    public boolean addReminderTransactions(Collection<Transaction> transactions, Collection<Reminder> reminders);
 }
\ No newline at end of file
@@ -17,6 +17,7 @@
  */
 package jgnash.engine.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import jgnash.engine.Transaction;
@@ -37,6 +38,14 @@ public interface TransactionDAO {
 
     public boolean addTransaction(Transaction transaction);
 
+    /**
+     * Stores a batch of transactions with a single commit
+     *
+     * @param transactions new {@code Transaction}s that have been added to their accounts
+     * @return true if successful
+     */
+    public boolean addTransactions(Collection<Transaction> transactions);
+
     public Transaction getTransactionByUuid(final String uuid);
 
     public boolean removeTransaction(Transaction transaction);
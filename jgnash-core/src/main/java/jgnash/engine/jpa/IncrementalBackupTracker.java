@@ -0,0 +1,198 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.jpa;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import jgnash.engine.message.ChannelEvent;
+import jgnash.engine.message.LocalServerListener;
+import jgnash.engine.message.MessageChannel;
+import jgnash.engine.message.MessageProperty;
+
+/**
+ * Tracks the objects changed by remote clients so the network server can write incremental backups.
+ * <p/>
+ * Messages arrive as XML and cannot be unmarshalled on the server because they resolve their properties against the
+ * default engine.  The channel, event and the uuid of the transaction property are read from the XML with a StAX
+ * reader instead.
+ * Transaction additions and removals are tracked by uuid, any other change to the data requires a full backup.
+ *
+ * @author Craig Cavanaugh
+ */
+class IncrementalBackupTracker implements LocalServerListener {
+
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+    private Set<String> added = new LinkedHashSet<>();
+
+    private Set<String> removed = new LinkedHashSet<>();
+
+    private boolean fullBackupRequired = false;
+
+    @Override
+    public synchronized void messagePosted(final String event) {
+        final ParsedMessage message;
+
+        try {
+            message = ParsedMessage.parse(event);
+        } catch (final XMLStreamException e) {
+            Logger.getLogger(IncrementalBackupTracker.class.getName()).log(Level.WARNING, e.getLocalizedMessage(), e);
+            fullBackupRequired = true;
+            return;
+        }
+
+        if (message.channel == null || message.channel == MessageChannel.SYSTEM) {  // not a data change
+            return;
+        }
+
+        if (message.channel == MessageChannel.TRANSACTION) {
+            if (message.event == ChannelEvent.TRANSACTION_ADD || message.event == ChannelEvent.TRANSACTION_REMOVE) {
+                final String uuid = message.transactionUuid;
+
+                if (uuid != null) {
+                    if (message.event == ChannelEvent.TRANSACTION_ADD) {
+                        removed.remove(uuid);
+                        added.add(uuid);
+                    } else if (!added.remove(uuid)) {   // an add and remove between backups cancel out
+                        removed.add(uuid);
+                    }
+                } else {
+                    fullBackupRequired = true;
+                }
+            }
+        } else {
+            fullBackupRequired = true;
+        }
+    }
+
+    synchronized boolean hasChanges() {
+        return fullBackupRequired || !added.isEmpty() || !removed.isEmpty();
+    }
+
+    synchronized boolean isFullBackupRequired() {
+        return fullBackupRequired;
+    }
+
+    /**
+     * Returns the changes tracked since the last call and starts tracking a new set of changes
+     *
+     * @return tracked changes
+     */
+    synchronized Changes drainChanges() {
+        final Changes changes = new Changes(added, removed, fullBackupRequired);
+
+        added = new LinkedHashSet<>();
+        removed = new LinkedHashSet<>();
+        fullBackupRequired = false;
+
+        return changes;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(final Class<E> enumClass, final String value) {
+        try {
+            return Enum.valueOf(enumClass, value.trim());
+        } catch (final IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * The parts of a serialized {@code Message} needed to track changes.
+     * <p/>
+     * {@code Message} writes its default fields followed by a {@code MessageProperty}, class name and uuid for each
+     * property, so the uuid is the second {@code string} element that follows a {@code MessageProperty} element.
+     */
+    private static class ParsedMessage {
+        private MessageChannel channel;
+
+        private ChannelEvent event;
+
+        private String transactionUuid;
+
+        static ParsedMessage parse(final String xml) throws XMLStreamException {
+            final ParsedMessage message = new ParsedMessage();
+
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+
+            try {
+                MessageProperty property = null;
+                int strings = 0;
+
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+
+                    switch (reader.getLocalName()) {
+                        case "channel":
+                            message.channel = parseEnum(MessageChannel.class, reader.getElementText());
+                            break;
+                        case "event":
+                            message.event = parseEnum(ChannelEvent.class, reader.getElementText());
+                            break;
+                        case "MessageProperty":
+                            property = parseEnum(MessageProperty.class, reader.getElementText());
+                            strings = 0;
+                            break;
+                        case "string":
+                            if (property != null && ++strings == 2) {
+                                if (property == MessageProperty.TRANSACTION) {
+                                    message.transactionUuid = reader.getElementText().trim();
+                                }
+                                property = null;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+
+            return message;
+        }
+    }
+
+    /**
+     * Changes tracked between two backups
+     */
+    static class Changes {
+        final Set<String> added;
+
+        final Set<String> removed;
+
+        final boolean fullBackupRequired;
+
+        Changes(final Set<String> added, final Set<String> removed, final boolean fullBackupRequired) {
+            this.added = Collections.unmodifiableSet(added);
+            this.removed = Collections.unmodifiableSet(removed);
+            this.fullBackupRequired = fullBackupRequired;
+        }
+    }
+}
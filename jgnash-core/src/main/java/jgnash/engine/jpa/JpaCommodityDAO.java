@@ -18,6 +18,7 @@
 package jgnash.engine.jpa;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -112,6 +113,37 @@ class JpaCommodityDAO extends AbstractJpaDAO implements CommodityDAO {
         return result;
     }
 
+    @Override
+    public boolean addSecurityHistory(final SecurityNode node, final Collection<SecurityHistoryNode> historyNodes) {
+        boolean result = false;
+
+        emLock.lock();
+
+        try {
+            Future<Boolean> future = executorService.submit(() -> {
+
+                em.getTransaction().begin();
+
+                for (final SecurityHistoryNode historyNode : historyNodes) {
+                    em.persist(historyNode);
+                }
+
+                em.persist(node);
+                em.getTransaction().commit();
+
+                return true;
+            });
+
+            result = future.get();
+
+        } catch (final InterruptedException | ExecutionException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        } finally {
+            emLock.unlock();
+        }
+
+        return result;
+    }
 
     @Override
     public boolean removeSecurityHistory(final SecurityNode node, final SecurityHistoryNode historyNode) {
@@ -40,12 +40,14 @@ import jgnash.engine.DataStoreType;
 import jgnash.engine.Engine;
 import jgnash.engine.EngineFactory;
 import jgnash.engine.StoredObject;
+import jgnash.engine.Transaction;
 import jgnash.engine.attachment.AttachmentTransferServer;
 import jgnash.engine.attachment.DistributedAttachmentManager;
 import jgnash.engine.concurrent.DistributedLockManager;
 import jgnash.engine.concurrent.DistributedLockServer;
 import jgnash.engine.message.LocalServerListener;
 import jgnash.engine.message.MessageBusServer;
+import jgnash.engine.xstream.DeltaArchive;
 import jgnash.util.DefaultDaemonThreadFactory;
 import jgnash.util.EncryptionManager;
 import jgnash.util.FileMagic;
@@ -64,8 +66,28 @@ public class JpaNetworkServer {
 
     private static final int BACKUP_PERIOD = 2;
 
+    /**
+     * Period in minutes between incremental backups
+     */
+    private static final int INCREMENTAL_BACKUP_PERIOD = 15;
+
+    /**
+     * Maximum length of an incremental backup chain before a new full backup is forced
+     */
+    private static final int MAX_INCREMENTAL_BACKUPS = 192;
+
     private volatile boolean dirty = false;
 
+    private boolean incrementalBackups = false;
+
+    private final IncrementalBackupTracker backupTracker = new IncrementalBackupTracker();
+
+    private File lastBackupFile;
+
+    private long lastBackupTime;
+
+    private int incrementalBackupCount;
+
     private EntityManager em;
 
     private EntityManagerFactory factory;
@@ -80,6 +102,16 @@ public class JpaNetworkServer {
 
     private static final String SERVER_ENGINE = "server";
 
+    /**
+     * Enables incremental backups.  Small incremental backups of the changed transactions are written between
+     * periodic full backups instead of exporting the complete file every backup period.
+     *
+     * @param incrementalBackups {@code true} to enable incremental backups
+     */
+    public synchronized void setIncrementalBackups(final boolean incrementalBackups) {
+        this.incrementalBackups = incrementalBackups;
+    }
+
     @SuppressFBWarnings({"DM_EXIT"})
     public synchronized void startServer(final String fileName, final int port, final char[] password) {
 
@@ -136,14 +168,24 @@ public class JpaNetworkServer {
                     // Start the backup thread that ensures an XML backup is created at set intervals
                     ScheduledExecutorService backupExecutor = Executors.newSingleThreadScheduledExecutor(new DefaultDaemonThreadFactory());
 
-                    // run commit every backup period after startup
-                    backupExecutor.scheduleWithFixedDelay(() -> {
-                        if (dirty) {
-                            exportXML(engine, fileName);
-                            EngineFactory.removeOldCompressedXML(fileName);
-                            dirty = false;
-                        }
-                    }, BACKUP_PERIOD, BACKUP_PERIOD, TimeUnit.HOURS);
+                    if (incrementalBackups) {
+                        lastBackupTime = System.currentTimeMillis();
+
+                        // check for changes every incremental backup period after startup
+                        backupExecutor.scheduleWithFixedDelay(() -> incrementalBackup(engine, fileName),
+                                INCREMENTAL_BACKUP_PERIOD, INCREMENTAL_BACKUP_PERIOD, TimeUnit.MINUTES);
+
+                        messageBusServer.addLocalListener(backupTracker);
+                    } else {
+                        // run commit every backup period after startup
+                        backupExecutor.scheduleWithFixedDelay(() -> {
+                            if (dirty) {
+                                exportXML(engine, fileName);
+                                EngineFactory.removeOldCompressedXML(fileName);
+                                dirty = false;
+                            }
+                        }, BACKUP_PERIOD, BACKUP_PERIOD, TimeUnit.HOURS);
+                    }
 
                     LocalServerListener listener = event -> {
 
@@ -168,6 +210,7 @@ public class JpaNetworkServer {
                     }
 
                     messageBusServer.removeLocalListener(listener);
+                    messageBusServer.removeLocalListener(backupTracker);
 
                     backupExecutor.shutdown();
 
@@ -293,9 +336,58 @@ public class JpaNetworkServer {
         return engine;
     }
 
-    private static void exportXML(final Engine engine, final String fileName) {
+    /**
+     * Writes an incremental backup of the changed transactions.  A full backup is written instead when there is no
+     * backup to chain to, the chain is too long, or something other than transactions has changed.  Full backups
+     * are not written more often than the normal backup period.
+     *
+     * @param engine   server engine
+     * @param fileName server file name
+     */
+    private void incrementalBackup(final Engine engine, final String fileName) {
+        if (!backupTracker.hasChanges()) {
+            return;
+        }
+
+        final boolean fullBackupRequired = backupTracker.isFullBackupRequired() || lastBackupFile == null
+                || incrementalBackupCount >= MAX_INCREMENTAL_BACKUPS;
+
+        if (fullBackupRequired && System.currentTimeMillis() - lastBackupTime < TimeUnit.HOURS.toMillis(BACKUP_PERIOD)) {
+            return; // keep tracking until the next full backup is due
+        }
+
+        final IncrementalBackupTracker.Changes changes = backupTracker.drainChanges();
+
+        if (!fullBackupRequired && !changes.fullBackupRequired) {
+            final List<Transaction> added = new ArrayList<>();
+
+            for (final String uuid : changes.added) {
+                final Transaction transaction = engine.getStoredObjectByUuid(Transaction.class, uuid);
+
+                if (transaction != null) {
+                    added.add(transaction);
+                }
+            }
+
+            final File deltaFile = EngineFactory.getIncrementalBackupFile(lastBackupFile, incrementalBackupCount + 1);
+
+            if (DeltaArchive.writeDelta(deltaFile, lastBackupFile.getName(), incrementalBackupCount + 1, added,
+                    changes.removed)) {
+                incrementalBackupCount++;
+                return;
+            }
+        }
+
+        lastBackupFile = exportXML(engine, fileName);
+        lastBackupTime = System.currentTimeMillis();
+        incrementalBackupCount = 0;
+
+        EngineFactory.removeOldCompressedXML(fileName);
+    }
+
+    private static File exportXML(final Engine engine, final String fileName) {
         ArrayList<StoredObject> list = new ArrayList<>(engine.getStoredObjects());
 
-        EngineFactory.exportCompressedXML(fileName, list);
+        return EngineFactory.exportCompressedXML(fileName, list);
     }
 }
@@ -19,8 +19,11 @@ package jgnash.engine.jpa;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
@@ -32,6 +35,8 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
+import jgnash.engine.Account;
+import jgnash.engine.Transaction;
 import jgnash.engine.dao.RecurringDAO;
 import jgnash.engine.recurring.Reminder;
 
@@ -120,4 +125,39 @@ class JpaRecurringDAO extends AbstractJpaDAO implements RecurringDAO {
     public boolean updateReminder(final Reminder reminder) {
         return addReminder(reminder);   // call add, same code
     }
+
+    @Override
+    public boolean addReminderTransactions(final Collection<Transaction> transactions, final Collection<Reminder> reminders) {
+        boolean result = false;
+
+        emLock.lock();
+
+        try {
+            Future<Boolean> future = executorService.submit(() -> {
+                final Set<Account> accounts = new HashSet<>();
+
+                em.getTransaction().begin();
+
+                for (final Transaction transaction : transactions) {
+                    em.persist(transaction);
+                    accounts.addAll(transaction.getAccounts());
+                }
+
+                accounts.forEach(em::persist);
+                reminders.forEach(em::persist);
+
+                em.getTransaction().commit();
+
+                return true;
+            });
+
+            result = future.get();
+        } catch (final InterruptedException | ExecutionException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        } finally {
+            emLock.unlock();
+        }
+
+        return result;
+    }
 }
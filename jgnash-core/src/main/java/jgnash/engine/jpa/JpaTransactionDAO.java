@@ -18,8 +18,11 @@
 package jgnash.engine.jpa;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
@@ -28,6 +31,7 @@ import java.util.logging.Logger;
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 
+import jgnash.engine.Account;
 import jgnash.engine.Transaction;
 import jgnash.engine.dao.TransactionDAO;
 
@@ -102,6 +106,42 @@ class JpaTransactionDAO extends AbstractJpaDAO implements TransactionDAO {
         return result;
     }
 
+    /*
+     * @see jgnash.engine.TransactionDAO#addTransactions(java.util.Collection)
+     */
+    @Override
+    public synchronized boolean addTransactions(final Collection<Transaction> transactions) {
+        boolean result = false;
+
+        emLock.lock();
+
+        try {
+            Future<Boolean> future = executorService.submit(() -> {
+                final Set<Account> accounts = new HashSet<>();
+
+                em.getTransaction().begin();
+
+                for (final Transaction transaction : transactions) {
+                    em.persist(transaction);
+                    accounts.addAll(transaction.getAccounts());
+                }
+
+                accounts.forEach(em::persist);
+                em.getTransaction().commit();
+
+                return true;
+            });
+
+            result = future.get();
+        } catch (final InterruptedException | ExecutionException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        } finally {
+            emLock.unlock();
+        }
+
+        return result;
+    }
+
     @Override
     public Transaction getTransactionByUuid(final String uuid) {
         return getObjectByUuid(Transaction.class, uuid);
@@ -125,7 +125,7 @@ public abstract class Reminder extends StoredObject implements Comparable<Remind
             return result;
         }
 
-        return getUuid().compareTo(reminder.getUuid());
+        return getObjectId().compareTo(reminder.getObjectId());
     }
 
     /**
@@ -219,13 +219,13 @@ public abstract class Reminder extends StoredObject implements Comparable<Remind
      */
     @Override
     public final int hashCode() {
-        return getUuid().hashCode();
+        return getObjectId().hashCode();
     }
 
     @Override
     public boolean equals(final Object other) {
         return this == other ||
-                other != null && getClass() == other.getClass() && this.getUuid().equals(((Reminder) other).getUuid());
+                other != null && getClass() == other.getClass() && this.getObjectId().equals(((Reminder) other).getObjectId());
 
     }
 
@@ -23,7 +23,7 @@ import java.util.regex.Pattern;
 import jgnash.util.SearchUtils;
 
 /**
- * Transaction payee matcher
+ * Abstract regular expression based String matcher
  *
  * @author Craig Cavanaugh
  */
@@ -40,4 +40,9 @@ abstract class AbstractStringMatcher implements Matcher {
     AbstractStringMatcher(final String pattern, final boolean caseSensitive) {
         p = SearchUtils.createSearchPattern(Objects.requireNonNull(pattern), caseSensitive);
     }
+
+    @Override
+    public int getCost() {
+        return COST_REGEX;
+    }
 }
\ No newline at end of file
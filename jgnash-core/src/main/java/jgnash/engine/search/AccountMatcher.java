@@ -0,0 +1,62 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.search;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import jgnash.engine.Account;
+import jgnash.engine.Transaction;
+
+/**
+ * Transaction account membership matcher.  A Transaction matches if any of its entries
+ * reference one of the supplied accounts.
+ *
+ * @author Craig Cavanaugh
+ *
+ */
+public class AccountMatcher implements Matcher {
+
+    private final Set<Account> accounts;
+
+    /**
+     * Creates a Matcher for Transaction accounts
+     *
+     * @param accounts accounts to match against
+     */
+    public AccountMatcher(final Collection<Account> accounts) {
+        this.accounts = new HashSet<>(accounts);
+    }
+
+    @Override
+    public boolean matches(final Transaction t) {
+        for (final Account account : t.getAccounts()) {
+            if (accounts.contains(account)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int getCost() {
+        return COST_ENTRIES;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.search;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+import jgnash.engine.Account;
+import jgnash.engine.Transaction;
+
+/**
+ * Transaction amount range matcher.  The absolute value of the amount is compared so the direction of the
+ * transaction does not matter.
+ *
+ * @author Craig Cavanaugh
+ *
+ */
+public class AmountMatcher implements Matcher {
+
+    private final BigDecimal minimum;
+
+    private final BigDecimal maximum;
+
+    private final Account account;
+
+    /**
+     * Creates a Matcher for Transaction amounts relative to the common account of each Transaction.
+     * Both limits are inclusive.
+     *
+     * @param minimum minimum absolute amount
+     * @param maximum maximum absolute amount
+     */
+    public AmountMatcher(final BigDecimal minimum, final BigDecimal maximum) {
+        this(minimum, maximum, null);
+    }
+
+    /**
+     * Creates a Matcher for Transaction amounts.  Both limits are inclusive.
+     *
+     * @param minimum minimum absolute amount
+     * @param maximum maximum absolute amount
+     * @param account reference account for the amount, may be null to use the common account
+     */
+    public AmountMatcher(final BigDecimal minimum, final BigDecimal maximum, final Account account) {
+        this.minimum = Objects.requireNonNull(minimum).abs();
+        this.maximum = Objects.requireNonNull(maximum).abs();
+        this.account = account;
+    }
+
+    @Override
+    public boolean matches(final Transaction t) {
+        final BigDecimal amount = t.getAmount(account != null ? account : t.getCommonAccount()).abs();
+
+        return amount.compareTo(minimum) >= 0 && amount.compareTo(maximum) <= 0;
+    }
+
+    @Override
+    public int getCost() {
+        return COST_ENTRIES;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.search;
+
+import java.util.Date;
+import java.util.Objects;
+
+import jgnash.engine.Transaction;
+import jgnash.util.DateUtils;
+
+/**
+ * Transaction date range matcher
+ *
+ * @author Craig Cavanaugh
+ *
+ */
+public class DateMatcher implements Matcher {
+
+    private final long startTime;
+
+    private final long endTime;
+
+    /**
+     * Creates a Matcher for Transaction dates.  Both dates are inclusive.
+     *
+     * @param startDate start date of the range
+     * @param endDate   end date of the range
+     */
+    public DateMatcher(final Date startDate, final Date endDate) {
+        startTime = DateUtils.trimDate(Objects.requireNonNull(startDate)).getTime();
+        endTime = DateUtils.trimDate(Objects.requireNonNull(endDate)).getTime();
+    }
+
+    @Override
+    public boolean matches(final Transaction t) {
+        final long time = t.getDate().getTime();
+
+        return time >= startTime && time <= endTime;
+    }
+
+    @Override
+    public int getCost() {
+        return COST_FIELD;
+    }
+}
@@ -27,10 +27,35 @@ import jgnash.engine.Transaction;
 public interface Matcher {
 
     /**
-     * Regex match against a Transaction
+     * Cost of a simple field comparison
+     */
+    int COST_FIELD = 10;
+
+    /**
+     * Cost of a matcher that must walk the transaction entries
+     */
+    int COST_ENTRIES = 20;
+
+    /**
+     * Cost of a regular expression match
+     */
+    int COST_REGEX = 100;
+
+    /**
+     * Match against a Transaction
      *
      * @param t Transaction to match
      * @return true if Transaction matches
      */
     boolean matches(Transaction t);
+
+    /**
+     * Returns the relative cost of evaluating this matcher.  Cheaper matchers are evaluated first so
+     * expensive ones may be short circuited.
+     *
+     * @return relative evaluation cost
+     */
+    default int getCost() {
+        return COST_REGEX;
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.search;
+
+import java.util.Objects;
+
+import jgnash.engine.Account;
+import jgnash.engine.ReconciledState;
+import jgnash.engine.Transaction;
+
+/**
+ * Transaction reconciled state matcher
+ *
+ * @author Craig Cavanaugh
+ *
+ */
+public class ReconciledMatcher implements Matcher {
+
+    private final ReconciledState state;
+
+    private final Account account;
+
+    /**
+     * Creates a Matcher for the reconciled state of any side of a Transaction
+     *
+     * @param state reconciled state to match
+     */
+    public ReconciledMatcher(final ReconciledState state) {
+        this(state, null);
+    }
+
+    /**
+     * Creates a Matcher for the reconciled state of a Transaction
+     *
+     * @param state   reconciled state to match
+     * @param account account to check the reconciled state against, may be null to match any account
+     */
+    public ReconciledMatcher(final ReconciledState state, final Account account) {
+        this.state = Objects.requireNonNull(state);
+        this.account = account;
+    }
+
+    @Override
+    public boolean matches(final Transaction t) {
+        if (account != null) {
+            return t.getReconciled(account) == state;
+        }
+
+        for (final Account a : t.getAccounts()) {
+            if (t.getReconciled(a) == state) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int getCost() {
+        return COST_ENTRIES;
+    }
+}
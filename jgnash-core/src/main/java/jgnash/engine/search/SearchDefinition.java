@@ -17,9 +17,13 @@
  */
 package jgnash.engine.search;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import jgnash.engine.Transaction;
 
@@ -36,37 +40,53 @@ public class SearchDefinition {
     }
 
     private final Criteria criteria;
-    
-    private final Collection<Matcher> matcherCollection;
+
+    /**
+     * Matchers ordered by cost so cheap tests short circuit expensive ones
+     */
+    private final Matcher[] matchers;
 
     public SearchDefinition(final Criteria criteria, final Collection<Matcher> matcherCollection) {
         this.criteria = criteria;
-        this.matcherCollection = matcherCollection;
+
+        final List<Matcher> sorted = new ArrayList<>(matcherCollection);
+        sorted.sort(Comparator.comparingInt(Matcher::getCost));
+
+        this.matchers = sorted.toArray(new Matcher[sorted.size()]);
     }
 
     boolean matches(final Transaction t) {
-        boolean result = false;
-
         if (criteria == Criteria.ANY) {
-            for (Matcher m : matcherCollection) {
+            for (final Matcher m : matchers) {
                 if (m.matches(t)) {
-                    result = true;
-                    break;
-                }
-            }
-        } else { // must match all
-            for (Matcher m : matcherCollection) {
-                if (!m.matches(t)) {
-                    break;
+                    return true;
                 }
             }
-            result = true;  // made it past break, all matches were good
+            return false;
         }
 
-        return result;
+        // must match all
+        for (final Matcher m : matchers) {
+            if (!m.matches(t)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public Set<Transaction> matches(final Collection<Transaction> transactions) {
         return transactions.stream().filter(this::matches).collect(Collectors.toSet());
     }
+
+    /**
+     * Executes the search in parallel using the spliterator of the supplied collection.  The collection must
+     * not be modified while the search is executing.
+     *
+     * @param transactions {@code Transactions} to search
+     * @return sorted list of matching {@code Transactions}
+     */
+    public List<Transaction> matchesParallel(final Collection<Transaction> transactions) {
+        return StreamSupport.stream(transactions.spliterator(), true).filter(this::matches).sorted()
+                .collect(Collectors.toList());
+    }
 }
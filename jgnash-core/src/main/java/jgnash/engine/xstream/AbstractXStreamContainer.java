@@ -25,7 +25,9 @@ import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -41,6 +43,7 @@ import jgnash.engine.CurrencyNode;
 import jgnash.engine.ExchangeRate;
 import jgnash.engine.ExchangeRateHistoryNode;
 import jgnash.engine.InvestmentTransaction;
+import jgnash.engine.ObjectId;
 import jgnash.engine.RootAccount;
 import jgnash.engine.SecurityHistoryNode;
 import jgnash.engine.SecurityNode;
@@ -77,6 +80,12 @@ import com.thoughtworks.xstream.mapper.MapperWrapper;
  */
 abstract class AbstractXStreamContainer {
     final List<StoredObject> objects = new ArrayList<>();
+
+    /**
+     * Objects by identity, guarded by the read write lock.  Must be rebuilt if objects are added directly.
+     */
+    final Map<ObjectId, StoredObject> index = new HashMap<>();
+
     final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
     final File file;
     private FileLock fileLock = null;
@@ -202,6 +211,15 @@ abstract class AbstractXStreamContainer {
         }
     }
 
+    /**
+     * Returns the channel used to hold the file lock
+     *
+     * @return the locked channel, {@code null} if the file is not locked
+     */
+    FileChannel getLockChannel() {
+        return lockChannel;
+    }
+
     abstract void commit();
 
     boolean set(final StoredObject object) {
@@ -211,7 +229,7 @@ abstract class AbstractXStreamContainer {
         readWriteLock.writeLock().lock();
 
         try {
-            if (get(object.getUuid()) == null) { // make sure the UUID is unique before adding
+            if (index.putIfAbsent(object.getObjectId(), object) == null) { // make sure the UUID is unique before adding
                 objects.add(object);
             }
             result = true;
@@ -229,6 +247,7 @@ abstract class AbstractXStreamContainer {
 
         try {
             objects.remove(object);
+            index.remove(object.getObjectId(), object);
         } finally {
             readWriteLock.writeLock().unlock();
         }
@@ -241,11 +260,7 @@ abstract class AbstractXStreamContainer {
         l.lock();
 
         try {
-            for (StoredObject o : objects) {
-                if (o.getUuid().equals(uuid)) {
-                    result = o;
-                }
-            }
+            result = index.get(ObjectId.valueOf(uuid));
         } finally {
             l.unlock();
         }
@@ -253,6 +268,17 @@ abstract class AbstractXStreamContainer {
         return result;
     }
 
+    /**
+     * Rebuilds the identity index after objects have been read.  The caller must hold the write lock.
+     */
+    void reindex() {
+        index.clear();
+
+        for (final StoredObject o : objects) {
+            index.put(o.getObjectId(), o);
+        }
+    }
+
     <T extends StoredObject> List<T> query(final Class<T> clazz) {
         List<T> list = null;
 
@@ -19,6 +19,10 @@ package jgnash.engine.xstream;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -27,39 +31,93 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import jgnash.engine.Account;
+import jgnash.engine.BootProfile;
 import jgnash.engine.CommodityNode;
 import jgnash.engine.Config;
 import jgnash.engine.ExchangeRate;
+import jgnash.engine.ObjectId;
 import jgnash.engine.RootAccount;
 import jgnash.engine.StoredObject;
 import jgnash.engine.StoredObjectComparator;
+import jgnash.engine.Transaction;
 import jgnash.engine.budget.Budget;
 import jgnash.engine.recurring.Reminder;
+import jgnash.util.DefaultDaemonThreadFactory;
+import jgnash.util.FileMagic;
 import jgnash.util.FileUtils;
 import jgnash.util.NotNull;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.reflection.PureJavaReflectionProvider;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
 import com.thoughtworks.xstream.io.binary.BinaryStreamDriver;
 
 /**
  * Simple object container for StoredObjects that reads and writes a binary file
  * using XStream.
+ * <p>
+ * A sharded container writes the file in sections so the bulk of the objects can be decoded concurrently.
+ * Commodities are read first, then the account tree, and then transactions, budgets and reminders are decoded in
+ * parallel with accounts and commodities written as uuid references.  Transactions are linked to their accounts once
+ * all sections are read.  Either layout is read regardless of how the container was created.
  *
  * @author Craig Cavanaugh
  */
 class BinaryContainer extends AbstractXStreamContainer {
 
+    private static final byte[] SHARDED_FILE_HEADER = "jGnash-sharded-bxds".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte COMMODITY_SECTION = 0;
+
+    private static final byte ACCOUNT_SECTION = 1;
+
+    private static final byte TRANSACTION_SECTION = 2;
+
+    private static final byte BUDGET_SECTION = 3;
+
+    private static final byte REMINDER_SECTION = 4;
+
+    /**
+     * Maximum number of transactions written to a section
+     */
+    private static final int TRANSACTIONS_PER_SECTION = 2000;
+
+    /**
+     * True if the file is written in sections
+     */
+    private final boolean sharded;
+
     BinaryContainer(final File file) {
+        this(file, false);
+    }
+
+    BinaryContainer(final File file, final boolean sharded) {
         super(file);
+        this.sharded = sharded;
     }
 
     @Override
@@ -72,7 +130,12 @@ class BinaryContainer extends AbstractXStreamContainer {
 
         try {
             releaseFileLock();
-            writeBinary(objects, file);
+
+            if (sharded) {
+                writeShardedBinary(objects, file);
+            } else {
+                writeBinary(objects, file);
+            }
         } finally {
             if (!acquireFileLock()) { // lock the file on open
                 Logger.getLogger(BinaryContainer.class.getName()).severe("Could not acquire the file lock");
@@ -92,6 +155,130 @@ class BinaryContainer extends AbstractXStreamContainer {
     public static synchronized void writeBinary(@NotNull final Collection<StoredObject> objects, @NotNull final File file) {
         final Logger logger = Logger.getLogger(BinaryContainer.class.getName());
 
+        backup(file);
+
+        List<StoredObject> list = new ArrayList<>();
+
+        list.addAll(query(objects, Budget.class));
+        list.addAll(query(objects, Config.class));
+        list.addAll(query(objects, CommodityNode.class));
+        list.addAll(query(objects, ExchangeRate.class));
+        list.addAll(query(objects, RootAccount.class));
+        list.addAll(query(objects, Reminder.class));
+
+        logger.info("Writing Binary file");
+
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+
+            XStream xstream = configureXStream(new XStreamOut(new PureJavaReflectionProvider(), new BinaryStreamDriver()));
+
+            try (ObjectOutputStream out = xstream.createObjectOutputStream(os)) {
+                out.writeObject(prepare(list));
+                out.flush();
+            }
+
+            os.flush(); // forcibly flush before letting go of the resources to help older windows systems write correctly
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        }
+
+        logger.info("Writing Binary file complete");
+    }
+
+    /**
+     * Writes a sectioned binary file given a collection of StoredObjects. Objects marked for removal are not written.
+     * If the file already exists, it will be overwritten.
+     *
+     * @param objects Collection of StoredObjects to write
+     * @param file    file to write
+     */
+    public static synchronized void writeShardedBinary(@NotNull final Collection<StoredObject> objects,
+                                                       @NotNull final File file) {
+        final Logger logger = Logger.getLogger(BinaryContainer.class.getName());
+
+        backup(file);
+
+        final List<StoredObject> commodities = new ArrayList<>();
+
+        commodities.addAll(query(objects, Config.class));
+        commodities.addAll(query(objects, CommodityNode.class));
+        commodities.addAll(query(objects, ExchangeRate.class));
+
+        final List<Reminder> reminders = query(objects, Reminder.class);
+
+        // reminder transactions are written with their reminder
+        final Set<Transaction> reminderTransactions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (final Reminder reminder : reminders) {
+            if (reminder.getTransaction() != null) {
+                reminderTransactions.add(reminder.getTransaction());
+            }
+        }
+
+        final List<StoredObject> transactions = new ArrayList<>();
+
+        for (final Transaction transaction : query(objects, Transaction.class)) {
+            if (!reminderTransactions.contains(transaction)) {
+                transactions.add(transaction);
+            }
+        }
+
+        logger.info("Writing Binary file");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            final XStream xstream = configureXStream(new XStreamOut(new PureJavaReflectionProvider(),
+                    new BinaryStreamDriver()));
+
+            final XStream accountXStream = configureAccountXStream(new XStreamOut(new PureJavaReflectionProvider(),
+                    new BinaryStreamDriver()), null);
+
+            final XStream referenceXStream = configureReferenceXStream(new XStreamOut(new PureJavaReflectionProvider(),
+                    new BinaryStreamDriver()), null);
+
+            final List<Byte> types = new ArrayList<>();
+            final List<byte[]> sections = new ArrayList<>();
+
+            types.add(COMMODITY_SECTION);
+            sections.add(toBytes(xstream, prepare(commodities)));
+
+            types.add(ACCOUNT_SECTION);
+            sections.add(toBytes(accountXStream, prepare(query(objects, RootAccount.class))));
+
+            final List<StoredObject> writtenTransactions = prepare(transactions);
+
+            for (int i = 0; i < writtenTransactions.size(); i += TRANSACTIONS_PER_SECTION) {
+                types.add(TRANSACTION_SECTION);
+                sections.add(toBytes(referenceXStream, new ArrayList<>(writtenTransactions.subList(i,
+                        Math.min(i + TRANSACTIONS_PER_SECTION, writtenTransactions.size())))));
+            }
+
+            types.add(BUDGET_SECTION);
+            sections.add(toBytes(referenceXStream, prepare(query(objects, Budget.class))));
+
+            types.add(REMINDER_SECTION);
+            sections.add(toBytes(referenceXStream, prepare(reminders)));
+
+            out.write(SHARDED_FILE_HEADER);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(sections.size());
+
+            for (int i = 0; i < sections.size(); i++) {
+                out.writeByte(types.get(i));
+                out.writeInt(sections.get(i).length);
+                out.write(sections.get(i));
+            }
+
+            out.flush(); // forcibly flush before letting go of the resources to help older windows systems write correctly
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        }
+
+        logger.info("Writing Binary file complete");
+    }
+
+    private static void backup(final File file) {
+        final Logger logger = Logger.getLogger(BinaryContainer.class.getName());
+
         if (file.getParentFile().mkdirs()) {
             logger.info("Created missing directories");
         }
@@ -107,15 +294,16 @@ class BinaryContainer extends AbstractXStreamContainer {
 
             FileUtils.copyFile(file, backup);
         }
+    }
 
-        List<StoredObject> list = new ArrayList<>();
-
-        list.addAll(query(objects, Budget.class));
-        list.addAll(query(objects, Config.class));
-        list.addAll(query(objects, CommodityNode.class));
-        list.addAll(query(objects, ExchangeRate.class));
-        list.addAll(query(objects, RootAccount.class));
-        list.addAll(query(objects, Reminder.class));
+    /**
+     * Removes objects marked for removal and sorts the remainder into a stable order for writing
+     *
+     * @param objects objects to write
+     * @return list to write
+     */
+    private static List<StoredObject> prepare(final Collection<? extends StoredObject> objects) {
+        final List<StoredObject> list = new ArrayList<>(objects);
 
         // remove any objects marked for removal
         Iterator<StoredObject> i = list.iterator();
@@ -129,38 +317,31 @@ class BinaryContainer extends AbstractXStreamContainer {
         // sort the list
         Collections.sort(list, new StoredObjectComparator());
 
-        logger.info("Writing Binary file");
-
-        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
-
-            XStream xstream = configureXStream(new XStreamOut(new PureJavaReflectionProvider(), new BinaryStreamDriver()));
-
-            try (ObjectOutputStream out = xstream.createObjectOutputStream(os)) {
-                out.writeObject(list);
-                out.flush();
-            }
-
-            os.flush(); // forcibly flush before letting go of the resources to help older windows systems write correctly
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
-        }
-
-        logger.info("Writing Binary file complete");
+        return list;
     }
 
     void readBinary() {
+        final BootProfile.Span span = BootProfile.getInstance().start("BinaryContainer.readBinary");
+
+        final boolean sharded = FileMagic.isShardedBinaryXStreamFile(file);
+
         try (FileInputStream fis = new FileInputStream(file);
              BufferedInputStream inputStream = new BufferedInputStream(fis)) {
 
             readWriteLock.writeLock().lock();
 
-            XStream xstream = configureXStream(new XStream(new StoredObjectReflectionProvider(objects),
-                    new BinaryStreamDriver()));
-
-            try (ObjectInputStream in = xstream.createObjectInputStream(inputStream);
-                 FileLock readLock = fis.getChannel().tryLock(0, Long.MAX_VALUE, true)) {
+            try (FileLock readLock = fis.getChannel().tryLock(0, Long.MAX_VALUE, true)) {
                 if (readLock != null) {
-                    in.readObject();
+                    if (sharded) {
+                        readSections(new DataInputStream(inputStream));
+                    } else {
+                        XStream xstream = configureXStream(new XStream(new StoredObjectReflectionProvider(objects),
+                                new BinaryStreamDriver()));
+
+                        try (ObjectInputStream in = xstream.createObjectInputStream(inputStream)) {
+                            in.readObject();
+                        }
+                    }
                 }
             }
 
@@ -170,7 +351,166 @@ class BinaryContainer extends AbstractXStreamContainer {
             if (!acquireFileLock()) { // lock the file on open
                 Logger.getLogger(BinaryContainer.class.getName()).severe("Could not acquire the file lock");
             }
+            reindex();
+            span.setCount(objects.size());
             readWriteLock.writeLock().unlock();
+            span.close();
+        }
+    }
+
+    private void readSections(final DataInputStream in) throws IOException, ClassNotFoundException {
+        final byte[] header = new byte[SHARDED_FILE_HEADER.length];
+        in.readFully(header);
+
+        if (!Arrays.equals(header, SHARDED_FILE_HEADER) || in.readInt() > FORMAT_VERSION) {
+            throw new IOException("Unsupported file format: " + file.getAbsolutePath());
         }
+
+        final int count = in.readInt();
+
+        final List<Byte> types = new ArrayList<>(count);
+        final List<byte[]> sections = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            types.add(in.readByte());
+
+            final byte[] section = new byte[in.readInt()];
+            in.readFully(section);
+            sections.add(section);
+        }
+
+        // commodities and then the account tree must be complete before references to them can be resolved
+        for (int i = 0; i < count; i++) {
+            if (types.get(i) == COMMODITY_SECTION) {
+                objects.addAll(readSection(sections.get(i),
+                        provider -> configureXStream(new XStream(provider, new BinaryStreamDriver()))));
+            }
+        }
+
+        reindex();
+
+        final BiFunction<Class<? extends StoredObject>, String, StoredObject> resolver = (clazz, uuid) -> {
+            final StoredObject o = index.get(ObjectId.valueOf(uuid));
+            return clazz.isInstance(o) ? o : null;
+        };
+
+        for (int i = 0; i < count; i++) {
+            if (types.get(i) == ACCOUNT_SECTION) {
+                final List<StoredObject> accounts = readSection(sections.get(i),
+                        provider -> configureAccountXStream(new XStream(provider, new BinaryStreamDriver()), resolver));
+
+                for (final StoredObject o : accounts) {
+                    index.put(o.getObjectId(), o);
+                }
+
+                objects.addAll(accounts);
+            }
+        }
+
+        // everything else only refers to accounts and commodities and can be decoded concurrently
+        final List<Callable<List<StoredObject>>> tasks = new ArrayList<>();
+        final List<Byte> taskTypes = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            if (types.get(i) != COMMODITY_SECTION && types.get(i) != ACCOUNT_SECTION) {
+                final byte[] section = sections.get(i);
+
+                tasks.add(() -> readSection(section,
+                        provider -> configureReferenceXStream(new XStream(provider, new BinaryStreamDriver()), resolver)));
+                taskTypes.add(types.get(i));
+            }
+        }
+
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(),
+                Runtime.getRuntime().availableProcessors()), new DefaultDaemonThreadFactory());
+
+        final Map<Account, List<Transaction>> accountTransactions = new HashMap<>();
+
+        try {
+            final List<Future<List<StoredObject>>> results = executor.invokeAll(tasks);
+
+            for (int i = 0; i < results.size(); i++) {
+                final List<StoredObject> list = results.get(i).get();
+
+                if (taskTypes.get(i) == TRANSACTION_SECTION) {
+                    for (final Transaction transaction : query(list, Transaction.class)) {
+                        for (final Account account : transaction.getAccounts()) {
+                            accountTransactions.computeIfAbsent(account, k -> new ArrayList<>()).add(transaction);
+                        }
+                    }
+                }
+
+                objects.addAll(list);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        // link the transactions now so the accounts are complete when the engine starts
+        for (final Map.Entry<Account, List<Transaction>> entry : accountTransactions.entrySet()) {
+            entry.getKey().setLoadedTransactions(entry.getValue());
+        }
+    }
+
+    private static List<StoredObject> readSection(final byte[] section,
+                                                  final Function<ReflectionProvider, XStream> factory)
+            throws IOException, ClassNotFoundException {
+        final List<StoredObject> list = new ArrayList<>();
+
+        final XStream xstream = factory.apply(new StoredObjectReflectionProvider(list));
+
+        try (ObjectInputStream in = xstream.createObjectInputStream(new ByteArrayInputStream(section))) {
+            in.readObject();
+        }
+
+        return list;
+    }
+
+    private static byte[] toBytes(final XStream xstream, final List<?> contents) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = xstream.createObjectOutputStream(bos)) {
+            out.writeObject(contents);
+        }
+
+        return bos.toByteArray();
+    }
+
+    /**
+     * Configures XStream for the account tree.  Transactions are written in their own sections.
+     */
+    private static XStream configureAccountXStream(final XStream xstream,
+                                                   final BiFunction<Class<? extends StoredObject>, String, StoredObject> resolver) {
+        configureXStream(xstream);
+
+        xstream.omitField(Account.class, "transactions");
+        xstream.registerConverter(new StoredObjectReferenceConverter(resolver, CommodityNode.class),
+                XStream.PRIORITY_VERY_HIGH);
+
+        return xstream;
+    }
+
+    /**
+     * Configures XStream for sections that refer to, but do not contain, accounts and commodities
+     */
+    private static XStream configureReferenceXStream(final XStream xstream,
+                                                     final BiFunction<Class<? extends StoredObject>, String, StoredObject> resolver) {
+        configureXStream(xstream);
+
+        xstream.registerConverter(new StoredObjectReferenceConverter(resolver), XStream.PRIORITY_VERY_HIGH);
+
+        return xstream;
     }
 }
@@ -0,0 +1,187 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.xstream;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import jgnash.engine.Engine;
+import jgnash.engine.Transaction;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.reflection.PureJavaReflectionProvider;
+import com.thoughtworks.xstream.io.xml.KXml2Driver;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+
+/**
+ * Reads and writes incremental (delta) backup archives.
+ * <p/>
+ * A delta archive holds the transactions added and the uuids of the transactions removed since the previous archive
+ * in a chain that starts with a full compressed XML backup. Accounts and commodities are written as uuid references
+ * only and are resolved against the engine the archive is replayed into.
+ *
+ * @author Craig Cavanaugh
+ */
+public final class DeltaArchive {
+
+    /**
+     * File extension used for delta archives
+     */
+    public static final String FILE_EXT = "delta";
+
+    private static final String ENTRY_NAME = "delta.xml";
+
+    private DeltaArchive() {
+    }
+
+    /**
+     * Writes a delta archive
+     *
+     * @param file         delta archive to write
+     * @param snapshotName name of the full backup this archive is chained to
+     * @param sequence     position of this archive in the chain
+     * @param added        transactions added since the previous archive
+     * @param removed      uuids of the transactions removed since the previous archive
+     * @return {@code true} if successful
+     */
+    public static synchronized boolean writeDelta(final File file, final String snapshotName, final int sequence,
+                                                  final Collection<Transaction> added, final Collection<String> removed) {
+        final Logger logger = Logger.getLogger(DeltaArchive.class.getName());
+
+        try (ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            zipOut.putNextEntry(new ZipEntry(ENTRY_NAME));
+
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(zipOut, StandardCharsets.UTF_8));
+
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<?fileVersion " + Engine.CURRENT_VERSION + "?>\n");
+
+            final XStream xstream = configureXStream(new AbstractXStreamContainer.XStreamOut(new PureJavaReflectionProvider(), new KXml2Driver()), null);
+
+            // closing the object stream closes the writer and finishes the zip file
+            try (ObjectOutputStream out = xstream.createObjectOutputStream(new PrettyPrintWriter(writer))) {
+                out.writeObject(snapshotName);
+                out.writeInt(sequence);
+                out.writeObject(new ArrayList<>(removed));
+                out.writeObject(new ArrayList<>(added));
+            }
+
+            logger.log(Level.INFO, "Wrote delta archive {0}", file.getName());
+            return true;
+        } catch (final IOException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Replays a delta archive into an engine. Transactions that already exist in the engine are skipped, so changes
+     * captured by both a full backup and the first delta archive that follows it are only applied once.
+     *
+     * @param file         delta archive to replay
+     * @param snapshotName name of the full backup the archive is expected to be chained to
+     * @param sequence     expected position of the archive in the chain
+     * @param engine       engine to replay the changes into
+     * @return {@code true} if successful
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean replayDelta(final File file, final String snapshotName, final int sequence,
+                                      final Engine engine) {
+        final Logger logger = Logger.getLogger(DeltaArchive.class.getName());
+
+        try (ZipInputStream zipIn = new ZipInputStream(new FileInputStream(file))) {
+            if (zipIn.getNextEntry() == null) {
+                logger.log(Level.SEVERE, "Delta archive {0} is empty", file.getName());
+                return false;
+            }
+
+            final Reader reader = new BufferedReader(new InputStreamReader(zipIn, StandardCharsets.UTF_8));
+
+            final XStream xstream = configureXStream(new XStream(new PureJavaReflectionProvider(), new KXml2Driver()),
+                    engine);
+
+            try (ObjectInputStream in = xstream.createObjectInputStream(reader)) {
+                final String chainedSnapshot = (String) in.readObject();
+                final int chainedSequence = in.readInt();
+
+                if (!snapshotName.equals(chainedSnapshot) || sequence != chainedSequence) {
+                    logger.log(Level.SEVERE, "Delta archive {0} is not part of the backup chain for {1}",
+                            new Object[]{file.getName(), snapshotName});
+                    return false;
+                }
+
+                final List<String> removed = (List<String>) in.readObject();
+                final List<Transaction> added = (List<Transaction>) in.readObject();
+
+                for (final String uuid : removed) {
+                    final Transaction transaction = engine.getStoredObjectByUuid(Transaction.class, uuid);
+
+                    if (transaction != null && !transaction.isMarkedForRemoval()) {
+                        engine.removeTransaction(transaction);
+                    }
+                }
+
+                for (final Transaction transaction : added) {
+                    final Transaction existing = engine.getStoredObjectByUuid(Transaction.class, transaction.getUuid());
+
+                    if (existing == null || existing.isMarkedForRemoval()) {
+                        if (!engine.addTransaction(transaction)) {
+                            logger.log(Level.WARNING, "Unable to replay transaction {0}", transaction.getUuid());
+                        }
+                    }
+                }
+            }
+
+            return true;
+        } catch (final IOException | ClassNotFoundException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        }
+
+        return false;
+    }
+
+    private static XStream configureXStream(final XStream xstream, final Engine engine) {
+        AbstractXStreamContainer.configureXStream(xstream);
+
+        xstream.registerConverter(new StoredObjectReferenceConverter(engine == null ? null
+                : engine::getStoredObjectByUuid), XStream.PRIORITY_VERY_HIGH);
+
+        return xstream;
+    }
+}
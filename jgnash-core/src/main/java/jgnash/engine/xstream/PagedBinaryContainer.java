@@ -0,0 +1,852 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.xstream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jgnash.engine.Account;
+import jgnash.engine.BootProfile;
+import jgnash.engine.CommodityNode;
+import jgnash.engine.Config;
+import jgnash.engine.ExchangeRate;
+import jgnash.engine.ObjectId;
+import jgnash.engine.RootAccount;
+import jgnash.engine.SecurityHistoryNode;
+import jgnash.engine.SecurityNode;
+import jgnash.engine.StoredObject;
+import jgnash.engine.StoredObjectComparator;
+import jgnash.engine.Transaction;
+import jgnash.engine.TransactionSummary;
+import jgnash.engine.budget.Budget;
+import jgnash.engine.recurring.Reminder;
+import jgnash.util.FileUtils;
+import jgnash.util.NotNull;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.reflection.PureJavaReflectionProvider;
+import com.thoughtworks.xstream.io.binary.BinaryStreamDriver;
+
+/**
+ * Object container for StoredObjects that reads and writes a paged binary file using XStream.
+ * <p/>
+ * Accounts, commodities and the other top level objects are written to a single block that is read when the file
+ * is opened.  Transactions are written to pages grouped by account, and the price history of each security to its
+ * own page.  An index at the end of the file records the offset of every page, the accounts and securities that own
+ * objects within it, and the class and uuid of each transaction it holds.
+ * <p/>
+ * A page is read the first time an owning account or security is used, or when a transaction within it is requested
+ * by uuid or class.  Pages that have not been read cannot have changed and are copied as is when the file is written.
+ * <p/>
+ * The columnar variant of the format adds a page of {@link TransactionColumns} that is memory mapped when the file
+ * is opened, allowing account balances to be calculated before the account's transactions are read.
+ *
+ * @author Craig Cavanaugh
+ */
+class PagedBinaryContainer extends AbstractXStreamContainer {
+
+    /**
+     * Identifies the file format
+     */
+    static final byte[] FILE_HEADER = "jGnash-paged-bxds".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Identifies the columnar file format
+     */
+    static final byte[] COLUMNAR_FILE_HEADER = "jGnash-columnar-bxds".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Maximum number of transactions written to a page
+     */
+    private static final int PAGE_SIZE = 256;
+
+    private static final byte TRANSACTION_PAGE = 0;
+
+    private static final byte HISTORY_PAGE = 1;
+
+    private static final byte COLUMN_PAGE = 2;
+
+    /**
+     * Guards the page table.  When both are needed, this lock must be obtained before the container lock
+     */
+    private final Object pageLock = new Object();
+
+    private List<Page> pages = Collections.emptyList();
+
+    private Map<String, List<Page>> ownerPages = Collections.emptyMap();
+
+    private Map<String, Page> objectPages = Collections.emptyMap();
+
+    private XStream pageReader;
+
+    private final boolean columnar;
+
+    /**
+     * Mapped columns of the file, guarded by the page lock
+     */
+    private TransactionColumns columns;
+
+    /**
+     * Accounts with transactions that have not been read, guarded by the page lock
+     */
+    private final Set<String> pendingAccounts = new HashSet<>();
+
+    PagedBinaryContainer(final File file) {
+        this(file, false);
+    }
+
+    PagedBinaryContainer(final File file, final boolean columnar) {
+        super(file);
+        this.columnar = columnar;
+    }
+
+    @Override
+    void commit() {
+        writePaged();
+    }
+
+    private void writePaged() {
+        synchronized (pageLock) {
+            readWriteLock.readLock().lock();
+
+            try {
+                releaseFileLock();
+
+                final List<Page> table = writePaged(objects, file, columnar, pages, columns, pendingAccounts);
+
+                if (table != null) {
+                    setPages(table);
+                    mapColumns(table);
+                }
+            } finally {
+                if (!acquireFileLock()) { // lock the file on open
+                    Logger.getLogger(PagedBinaryContainer.class.getName()).severe("Could not acquire the file lock");
+                }
+                readWriteLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes a paged binary file given a collection of StoredObjects. TrashObjects and objects marked for removal
+     * are not written. If the file already exists, it will be overwritten.
+     *
+     * @param objects  Collection of StoredObjects to write
+     * @param file     file to write
+     * @param columnar {@code true} if the columnar format should be written
+     */
+    static void writePaged(@NotNull final Collection<StoredObject> objects, @NotNull final File file,
+                           final boolean columnar) {
+        writePaged(objects, file, columnar, Collections.emptyList(), null, Collections.emptySet());
+    }
+
+    /**
+     * Writes the file.  Pages within the supplied page table that have not been read are copied from the existing
+     * file, as are the columns of accounts that have not been read.
+     *
+     * @return the page table of the new file, {@code null} if the file could not be written
+     */
+    private static synchronized List<Page> writePaged(final Collection<StoredObject> objects, final File file,
+                                                      final boolean columnar, final List<Page> oldPages,
+                                                      final TransactionColumns oldColumns,
+                                                      final Set<String> pendingAccounts) {
+        final Logger logger = Logger.getLogger(PagedBinaryContainer.class.getName());
+
+        if (file.getAbsoluteFile().getParentFile().mkdirs()) {
+            logger.info("Created missing directories");
+        }
+
+        if (file.exists()) {
+            File backup = new File(file.getAbsolutePath() + ".backup");
+            if (backup.exists()) {
+                if (!backup.delete()) {
+                    logger.log(Level.WARNING, "Was not able to delete the old backup file: {0}",
+                            backup.getAbsolutePath());
+                }
+            }
+
+            FileUtils.copyFile(file, backup);
+        }
+
+        List<StoredObject> list = new ArrayList<>();
+
+        list.addAll(query(objects, Budget.class));
+        list.addAll(query(objects, Config.class));
+        list.addAll(query(objects, CommodityNode.class));
+        list.addAll(query(objects, ExchangeRate.class));
+        list.addAll(query(objects, RootAccount.class));
+        list.addAll(query(objects, Reminder.class));
+
+        // remove any objects marked for removal
+        Iterator<StoredObject> i = list.iterator();
+        while (i.hasNext()) {
+            StoredObject o = i.next();
+            if (o.isMarkedForRemoval()) {
+                i.remove();
+            }
+        }
+
+        // sort the list
+        Collections.sort(list, new StoredObjectComparator());
+
+        // reminder transactions are written with their reminder
+        final Set<Transaction> reminderTransactions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (final Reminder reminder : query(objects, Reminder.class)) {
+            if (reminder.getTransaction() != null) {
+                reminderTransactions.add(reminder.getTransaction());
+            }
+        }
+
+        // group the loaded transactions by the first account they belong to
+        final Map<String, List<Transaction>> transactionGroups = new LinkedHashMap<>();
+
+        for (final Transaction transaction : query(objects, Transaction.class)) {
+            if (!transaction.isMarkedForRemoval() && !reminderTransactions.contains(transaction)) {
+                final Set<Account> accounts = transaction.getAccounts();
+                final String home = accounts.isEmpty() ? "" : accounts.iterator().next().getUuid();
+
+                transactionGroups.computeIfAbsent(home, k -> new ArrayList<>()).add(transaction);
+            }
+        }
+
+        // history of securities with a page that has not been read is copied
+        final Set<String> copiedHistory = new LinkedHashSet<>();
+
+        for (final Page page : oldPages) {
+            if (page.type == HISTORY_PAGE && !page.isLoaded()) {
+                copiedHistory.addAll(page.owners);
+            }
+        }
+
+        logger.info("Writing Paged Binary file");
+
+        final File tempFile = new File(file.getAbsolutePath() + ".tmp");
+        final List<Page> table = new ArrayList<>();
+
+        try (RandomAccessFile source = oldPages.isEmpty() ? null : new RandomAccessFile(file, "r");
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+
+            final byte[] fileHeader = columnar ? COLUMNAR_FILE_HEADER : FILE_HEADER;
+
+            out.write(fileHeader);
+            out.writeInt(FORMAT_VERSION);
+
+            final byte[] block = toBytes(configureEagerXStream(new XStreamOut(new PureJavaReflectionProvider(),
+                    new BinaryStreamDriver())), list);
+
+            out.writeInt(block.length);
+            out.write(block);
+
+            long position = fileHeader.length + Integer.BYTES * 2 + block.length;
+
+            // pages that have not been read are unchanged
+            for (final Page page : oldPages) {
+                if (!page.isLoaded() && page.type != COLUMN_PAGE && source != null) {
+                    final byte[] bytes = new byte[page.length];
+
+                    source.seek(page.offset);
+                    source.readFully(bytes);
+                    out.write(bytes);
+
+                    table.add(new Page(position, page.length, page.type, page.owners, page.objectClasses,
+                            page.objectUuids));
+                    position += page.length;
+                }
+            }
+
+            final XStream pageWriter = configurePageXStream(new XStreamOut(new PureJavaReflectionProvider(),
+                    new BinaryStreamDriver()), null);
+
+            for (final List<Transaction> group : transactionGroups.values()) {
+                for (int j = 0; j < group.size(); j += PAGE_SIZE) {
+                    final List<Transaction> contents = new ArrayList<>(group.subList(j, Math.min(j + PAGE_SIZE,
+                            group.size())));
+
+                    final Set<String> owners = new LinkedHashSet<>();
+                    final List<String> classes = new ArrayList<>(contents.size());
+                    final List<String> uuids = new ArrayList<>(contents.size());
+
+                    for (final Transaction transaction : contents) {
+                        for (final Account account : transaction.getAccounts()) {
+                            owners.add(account.getUuid());
+                        }
+                        classes.add(transaction.getClass().getName());
+                        uuids.add(transaction.getUuid());
+                    }
+
+                    final byte[] bytes = toBytes(pageWriter, contents);
+                    out.write(bytes);
+
+                    final Page page = new Page(position, bytes.length, TRANSACTION_PAGE, new ArrayList<>(owners),
+                            classes, uuids);
+                    page.contents = contents;
+                    table.add(page);
+
+                    position += bytes.length;
+                }
+            }
+
+            for (final SecurityNode node : query(objects, SecurityNode.class)) {
+                if (!node.isMarkedForRemoval() && !copiedHistory.contains(node.getUuid())) {
+                    final List<SecurityHistoryNode> contents = new ArrayList<>(node.getHistoryNodes());
+
+                    if (!contents.isEmpty()) {
+                        final byte[] bytes = toBytes(pageWriter, contents);
+                        out.write(bytes);
+
+                        final Page page = new Page(position, bytes.length, HISTORY_PAGE,
+                                Collections.singletonList(node.getUuid()), Collections.emptyList(),
+                                Collections.emptyList());
+                        page.contents = contents;
+                        table.add(page);
+
+                        position += bytes.length;
+                    }
+                }
+            }
+
+            if (columnar) {
+                final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+                try (DataOutputStream columnOut = new DataOutputStream(bos)) {
+                    TransactionColumns.write(columnOut, query(objects, Account.class), oldColumns, pendingAccounts);
+                }
+
+                bos.writeTo(out);
+
+                table.add(new Page(position, bos.size(), COLUMN_PAGE, Collections.emptyList(),
+                        Collections.emptyList(), Collections.emptyList()));
+
+                position += bos.size();
+            }
+
+            // write the index and finish with its offset
+            out.writeInt(table.size());
+
+            for (final Page page : table) {
+                page.writeIndex(out);
+            }
+
+            out.writeLong(position);
+            out.flush();
+        } catch (final IOException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+
+            if (!tempFile.delete()) {
+                logger.log(Level.WARNING, "Was not able to delete the temporary file: {0}", tempFile.getAbsolutePath());
+            }
+            return null;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+            return null;
+        }
+
+        logger.info("Writing Paged Binary file complete");
+
+        return table;
+    }
+
+    /**
+     * Reads the top level objects and the page index.  Accounts and securities are set up to read their pages
+     * when first used.
+     */
+    void readPaged() {
+        final BootProfile.Span span = BootProfile.getInstance().start("PagedBinaryContainer.readPaged");
+
+        List<Page> table = null;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+
+            readWriteLock.writeLock().lock();
+
+            try (FileLock readLock = raf.getChannel().tryLock(0, Long.MAX_VALUE, true)) {
+                if (readLock != null) {
+                    final byte[] fileHeader = columnar ? COLUMNAR_FILE_HEADER : FILE_HEADER;
+                    final byte[] header = new byte[fileHeader.length];
+                    raf.readFully(header);
+
+                    if (!Arrays.equals(header, fileHeader)
+                            || raf.readInt() > FORMAT_VERSION) {
+                        throw new IOException("Unsupported file format: " + file.getAbsolutePath());
+                    }
+
+                    final byte[] block = new byte[raf.readInt()];
+                    raf.readFully(block);
+
+                    XStream xstream = configureEagerXStream(new XStream(new StoredObjectReflectionProvider(objects),
+                            new BinaryStreamDriver()));
+
+                    try (ObjectInputStream in = xstream.createObjectInputStream(new ByteArrayInputStream(block))) {
+                        in.readObject();
+                    }
+
+                    raf.seek(raf.length() - Long.BYTES);
+                    raf.seek(raf.readLong());
+
+                    final int count = raf.readInt();
+                    table = new ArrayList<>(count);
+
+                    for (int i = 0; i < count; i++) {
+                        table.add(Page.readIndex(raf));
+                    }
+
+                    reindex();
+                }
+            }
+        } catch (final IOException | ClassNotFoundException e) {
+            Logger.getLogger(PagedBinaryContainer.class.getName()).log(Level.SEVERE, null, e);
+        } finally {
+            if (!acquireFileLock()) { // lock the file on open
+                Logger.getLogger(PagedBinaryContainer.class.getName()).severe("Could not acquire the file lock");
+            }
+            span.setCount(objects.size());
+            readWriteLock.writeLock().unlock();
+        }
+
+        pageReader = configurePageXStream(new XStream(new PureJavaReflectionProvider(), new BinaryStreamDriver()),
+                this::resolve);
+
+        if (table != null) {
+            setPages(table);
+            mapColumns(table);
+
+            synchronized (pageLock) {
+                for (final Account account : query(Account.class)) {
+                    if (ownerPages.containsKey(account.getUuid())) {
+                        account.setTransactionLoader(() -> loadTransactions(account));
+                        pendingAccounts.add(account.getUuid());
+
+                        if (columns != null) {
+                            final TransactionSummary summary = columns.getSummary(account);
+
+                            if (summary != null) {
+                                account.setTransactionSummary(summary);
+                            }
+                        }
+                    }
+                }
+
+                for (final SecurityNode node : query(SecurityNode.class)) {
+                    if (ownerPages.containsKey(node.getUuid())) {
+                        node.setHistoryLoader(() -> loadHistory(node));
+                    }
+                }
+            }
+        }
+
+        span.close();
+    }
+
+    private void setPages(final List<Page> table) {
+        final Map<String, List<Page>> owners = new HashMap<>();
+        final Map<String, Page> uuids = new HashMap<>();
+
+        for (final Page page : table) {
+            for (final String owner : page.owners) {
+                owners.computeIfAbsent(owner, k -> new ArrayList<>()).add(page);
+            }
+
+            for (final String uuid : page.objectUuids) {
+                uuids.put(uuid, page);
+            }
+        }
+
+        synchronized (pageLock) {
+            pages = table;
+            ownerPages = owners;
+            objectPages = uuids;
+        }
+    }
+
+    /**
+     * Maps the column page of the file if present.  Summaries of accounts that have not been read are moved to the
+     * new mapping.
+     */
+    private void mapColumns(final List<Page> table) {
+        if (!columnar) {
+            return;
+        }
+
+        for (final Page page : table) {
+            if (page.type == COLUMN_PAGE) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                    final TransactionColumns mapped = TransactionColumns.map(raf, page.offset, page.length);
+
+                    synchronized (pageLock) {
+                        if (columns != null) {
+                            for (final Account account : query(Account.class)) {
+                                final TransactionSummary summary = mapped.getSummary(account);
+
+                                if (summary != null && pendingAccounts.contains(account.getUuid())) {
+                                    account.setTransactionSummary(summary);
+                                }
+                            }
+                        }
+
+                        columns = mapped;
+                    }
+                } catch (final IOException e) {
+                    Logger.getLogger(PagedBinaryContainer.class.getName()).log(Level.SEVERE, e.getLocalizedMessage(), e);
+                }
+            }
+        }
+    }
+
+    private Collection<Transaction> loadTransactions(final Account account) {
+        synchronized (pageLock) {
+            pendingAccounts.remove(account.getUuid());
+        }
+
+        final List<Transaction> transactions = new ArrayList<>();
+
+        for (final Object o : loadOwnedObjects(account.getUuid(), TRANSACTION_PAGE)) {
+            final Transaction transaction = (Transaction) o;
+
+            // pages are shared by the accounts of the transactions they hold
+            if (transaction.getAccounts().contains(account)) {
+                transactions.add(transaction);
+            }
+        }
+
+        return transactions;
+    }
+
+    private Collection<SecurityHistoryNode> loadHistory(final SecurityNode node) {
+        final List<SecurityHistoryNode> history = new ArrayList<>();
+
+        for (final Object o : loadOwnedObjects(node.getUuid(), HISTORY_PAGE)) {
+            history.add((SecurityHistoryNode) o);
+        }
+
+        return history;
+    }
+
+    private List<Object> loadOwnedObjects(final String owner, final byte type) {
+        final List<Object> list = new ArrayList<>();
+
+        synchronized (pageLock) {
+            for (final Page page : ownerPages.getOrDefault(owner, Collections.emptyList())) {
+                if (page.type == type) {
+                    list.addAll(loadPage(page));
+                }
+            }
+        }
+
+        return list;
+    }
+
+    private void loadTransactionPages() {
+        synchronized (pageLock) {
+            pages.stream().filter(page -> page.type == TRANSACTION_PAGE).forEach(this::loadPage);
+        }
+    }
+
+    /**
+     * Reads a page if it has not been read already.  The caller must hold the page lock.
+     *
+     * @param page page to read
+     * @return the page contents, empty if the page could not be read
+     */
+    private List<?> loadPage(final Page page) {
+        if (page.contents == null) {
+            try (ObjectInputStream in = pageReader.createObjectInputStream(new ByteArrayInputStream(readBytes(page)))) {
+                page.contents = (List<?>) in.readObject();
+            } catch (final IOException | ClassNotFoundException e) {
+                Logger.getLogger(PagedBinaryContainer.class.getName()).log(Level.SEVERE, e.getLocalizedMessage(), e);
+
+                // leave the page unread so it is preserved when the file is written
+                return Collections.emptyList();
+            }
+
+            if (page.type == TRANSACTION_PAGE) {
+                readWriteLock.writeLock().lock();
+
+                try {
+                    for (final Object o : page.contents) {
+                        final StoredObject object = (StoredObject) o;
+
+                        if (index.putIfAbsent(object.getObjectId(), object) == null) {
+                            objects.add(object);
+                        }
+                    }
+                } finally {
+                    readWriteLock.writeLock().unlock();
+                }
+            }
+        }
+
+        return page.contents;
+    }
+
+    private byte[] readBytes(final Page page) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(page.length);
+        final FileChannel channel = getLockChannel();
+
+        if (channel != null) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, page.offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+        } else {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                raf.seek(page.offset);
+                raf.readFully(buffer.array());
+            }
+        }
+
+        return buffer.array();
+    }
+
+    private StoredObject resolve(final Class<? extends StoredObject> clazz, final String uuid) {
+        readWriteLock.readLock().lock();
+
+        try {
+            final StoredObject object = index.get(ObjectId.valueOf(uuid));
+            return clazz.isInstance(object) ? object : null;
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    boolean set(final StoredObject object) {
+        synchronized (pageLock) {   // an unread object with the same uuid must be visible first
+            final Page page = objectPages.get(object.getUuid());
+
+            if (page != null) {
+                loadPage(page);
+            }
+        }
+
+        readWriteLock.writeLock().lock();
+
+        try {
+            if (index.putIfAbsent(object.getObjectId(), object) == null) { // make sure the UUID is unique before adding
+                objects.add(object);
+            }
+            return true;
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    void delete(final StoredObject object) {
+        readWriteLock.writeLock().lock();
+
+        try {
+            objects.remove(object);
+            index.remove(object.getObjectId(), object);
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    StoredObject get(final String uuid) {
+        StoredObject result = resolve(StoredObject.class, uuid);
+
+        if (result == null) {
+            synchronized (pageLock) {
+                final Page page = objectPages.get(uuid);
+
+                if (page != null && !page.isLoaded()) {
+                    loadPage(page);
+                    result = resolve(StoredObject.class, uuid);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    <T extends StoredObject> List<T> query(final Class<T> clazz) {
+        if (clazz.isAssignableFrom(Transaction.class) || Transaction.class.isAssignableFrom(clazz)) {
+            loadTransactionPages();
+        }
+
+        return super.query(clazz);
+    }
+
+    /**
+     * Returns of list of all {@code StoredObjects} held within this container.  All pages are read first so the
+     * returned objects are complete.
+     *
+     * @return A list of all {@code StoredObjects}
+     */
+    @Override
+    List<StoredObject> asList() {
+        loadTransactionPages();
+
+        // accounts and securities are completed by touching them
+        for (final Account account : super.query(Account.class)) {
+            account.getSortedTransactionList();
+        }
+
+        for (final SecurityNode node : super.query(SecurityNode.class)) {
+            node.getHistoryNodes();
+        }
+
+        return super.asList();
+    }
+
+    private static XStream configureEagerXStream(final XStream xstream) {
+        configureXStream(xstream);
+
+        // written to pages
+        xstream.omitField(Account.class, "transactions");
+        xstream.omitField(SecurityNode.class, "historyNodes");
+
+        return xstream;
+    }
+
+    private static XStream configurePageXStream(final XStream xstream,
+                                                final BiFunction<Class<? extends StoredObject>, String, StoredObject> resolver) {
+        configureXStream(xstream);
+
+        xstream.registerConverter(new StoredObjectReferenceConverter(resolver), XStream.PRIORITY_VERY_HIGH);
+
+        return xstream;
+    }
+
+    private static byte[] toBytes(final XStream xstream, final List<?> contents) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = xstream.createObjectOutputStream(bos)) {
+            out.writeObject(contents);
+        }
+
+        return bos.toByteArray();
+    }
+
+    /**
+     * Entry in the page table
+     */
+    private static final class Page {
+        final long offset;
+
+        final int length;
+
+        final byte type;
+
+        final List<String> owners;
+
+        final List<String> objectClasses;
+
+        final List<String> objectUuids;
+
+        /**
+         * Page contents once read, guarded by the page lock
+         */
+        List<?> contents;
+
+        Page(final long offset, final int length, final byte type, final List<String> owners,
+             final List<String> objectClasses, final List<String> objectUuids) {
+            this.offset = offset;
+            this.length = length;
+            this.type = type;
+            this.owners = owners;
+            this.objectClasses = objectClasses;
+            this.objectUuids = objectUuids;
+        }
+
+        boolean isLoaded() {
+            return contents != null;
+        }
+
+        void writeIndex(final DataOutput out) throws IOException {
+            out.writeLong(offset);
+            out.writeInt(length);
+            out.writeByte(type);
+
+            out.writeInt(owners.size());
+            for (final String owner : owners) {
+                out.writeUTF(owner);
+            }
+
+            out.writeInt(objectUuids.size());
+            for (int i = 0; i < objectUuids.size(); i++) {
+                out.writeUTF(objectClasses.get(i));
+                out.writeUTF(objectUuids.get(i));
+            }
+        }
+
+        static Page readIndex(final DataInput in) throws IOException {
+            final long offset = in.readLong();
+            final int length = in.readInt();
+            final byte type = in.readByte();
+
+            final int ownerCount = in.readInt();
+            final List<String> owners = new ArrayList<>(ownerCount);
+            for (int i = 0; i < ownerCount; i++) {
+                owners.add(in.readUTF());
+            }
+
+            final int objectCount = in.readInt();
+            final List<String> classes = new ArrayList<>(objectCount);
+            final List<String> uuids = new ArrayList<>(objectCount);
+            for (int i = 0; i < objectCount; i++) {
+                classes.add(in.readUTF());
+                uuids.add(in.readUTF());
+            }
+
+            return new Page(offset, length, type, owners, classes, uuids);
+        }
+    }
+}
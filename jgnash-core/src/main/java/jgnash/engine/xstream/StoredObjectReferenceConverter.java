@@ -0,0 +1,98 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.xstream;
+
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jgnash.engine.Account;
+import jgnash.engine.CommodityNode;
+import jgnash.engine.StoredObject;
+
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
+/**
+ * Writes accounts and commodities as uuid references so a partial object graph can be written without pulling in
+ * the whole graph.  References are resolved against objects that have already been loaded when read.
+ *
+ * @author Craig Cavanaugh
+ */
+class StoredObjectReferenceConverter implements Converter {
+
+    private static final String UUID_ATTRIBUTE = "uuid";
+
+    private final BiFunction<Class<? extends StoredObject>, String, StoredObject> resolver;
+
+    private final Class<?>[] referenceTypes;
+
+    /**
+     * Creates a new converter for accounts and commodities
+     *
+     * @param resolver returns the loaded object for a class and uuid, may be {@code null} if only marshalling
+     */
+    StoredObjectReferenceConverter(final BiFunction<Class<? extends StoredObject>, String, StoredObject> resolver) {
+        this(resolver, Account.class, CommodityNode.class);
+    }
+
+    /**
+     * Creates a new converter
+     *
+     * @param resolver       returns the loaded object for a class and uuid, may be {@code null} if only marshalling
+     * @param referenceTypes types, including subclasses, to write as references
+     */
+    StoredObjectReferenceConverter(final BiFunction<Class<? extends StoredObject>, String, StoredObject> resolver,
+                                   final Class<?>... referenceTypes) {
+        this.resolver = resolver;
+        this.referenceTypes = referenceTypes;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean canConvert(final Class type) {
+        for (final Class<?> referenceType : referenceTypes) {
+            if (referenceType.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void marshal(final Object source, final HierarchicalStreamWriter writer, final MarshallingContext context) {
+        writer.addAttribute(UUID_ATTRIBUTE, ((StoredObject) source).getUuid());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object unmarshal(final HierarchicalStreamReader reader, final UnmarshallingContext context) {
+        final String uuid = reader.getAttribute(UUID_ATTRIBUTE);
+        final StoredObject object = resolver.apply(context.getRequiredType(), uuid);
+
+        if (object == null) {
+            Logger.getLogger(StoredObjectReferenceConverter.class.getName()).log(Level.SEVERE, "Unable to resolve {0}", uuid);
+        }
+
+        return object;
+    }
+}
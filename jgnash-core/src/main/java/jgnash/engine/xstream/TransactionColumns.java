@@ -0,0 +1,387 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.xstream;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jgnash.engine.Account;
+import jgnash.engine.AccountGroup;
+import jgnash.engine.ObjectId;
+import jgnash.engine.ReconciledState;
+import jgnash.engine.Transaction;
+import jgnash.engine.TransactionSummary;
+import jgnash.util.DateUtils;
+
+/**
+ * Memory mapped columnar copy of the account side of every transaction.
+ * <p/>
+ * Each row holds the account index, the date as an epoch day, the amount as a long scaled to the account's
+ * commodity and the reconciled state.  Rows are grouped by account and sorted by date so that an account's
+ * balance over a date range can be found with a binary search and a sum over a single column, without reading
+ * the transactions.
+ * <p/>
+ * Accounts whose transactions cannot be represented exactly, such as investment accounts or amounts with a greater
+ * scale than the account's commodity, are recorded without rows and have no summary.
+ *
+ * @author Craig Cavanaugh
+ */
+final class TransactionColumns {
+
+    private static final int UNSUPPORTED = -1;
+
+    private final ByteBuffer buffer;
+
+    private final int rowCount;
+
+    private final int dayColumn;
+
+    private final int amountColumn;
+
+    private final int reconciledColumn;
+
+    private final Map<ObjectId, AccountColumns> accounts;
+
+    private TransactionColumns(final ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        final int accountCount = buffer.getInt(0);
+        rowCount = buffer.getInt(Integer.BYTES);
+
+        final Map<ObjectId, AccountColumns> map = new HashMap<>(accountCount);
+
+        int position = Integer.BYTES * 2;
+
+        for (int i = 0; i < accountCount; i++) {
+            final byte[] uuid = new byte[buffer.getShort(position)];
+            position += Short.BYTES;
+
+            for (int j = 0; j < uuid.length; j++) {
+                uuid[j] = buffer.get(position++);
+            }
+
+            final int scale = buffer.getInt(position);
+            final int first = buffer.getInt(position + Integer.BYTES);
+            final int count = buffer.getInt(position + Integer.BYTES * 2);
+            position += Integer.BYTES * 3;
+
+            map.put(ObjectId.valueOf(new String(uuid, StandardCharsets.US_ASCII)), new AccountColumns(scale, first, count));
+        }
+
+        accounts = map;
+
+        // the account index column is not needed to answer queries
+        dayColumn = position + rowCount * Integer.BYTES;
+        amountColumn = dayColumn + rowCount * Integer.BYTES;
+        reconciledColumn = amountColumn + rowCount * Long.BYTES;
+    }
+
+    /**
+     * Maps a column section of a file
+     *
+     * @param raf    file to map
+     * @param offset start of the column section
+     * @param length length of the column section
+     * @return the mapped columns
+     * @throws IOException if the file could not be mapped
+     */
+    static TransactionColumns map(final RandomAccessFile raf, final long offset, final int length) throws IOException {
+        return new TransactionColumns(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * Returns the summary for an account
+     *
+     * @param account account
+     * @return the summary, {@code null} if the account has no usable columns
+     */
+    TransactionSummary getSummary(final Account account) {
+        final AccountColumns columns = accounts.get(account.getObjectId());
+
+        return columns != null && columns.scale != UNSUPPORTED ? columns : null;
+    }
+
+    /**
+     * Writes a column section.  The rows of accounts whose transactions were never loaded are copied from the
+     * previous columns, all others are generated from the accounts' transactions.
+     *
+     * @param out      output
+     * @param accounts accounts to write
+     * @param previous columns of the file being replaced, may be {@code null}
+     * @param pending  uuids of accounts whose transactions have not been loaded
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(final DataOutput out, final Collection<Account> accounts, final TransactionColumns previous,
+                      final Set<String> pending) throws IOException {
+
+        final List<Account> written = new ArrayList<>(accounts.size());
+        final List<int[]> days = new ArrayList<>(accounts.size());
+        final List<long[]> amounts = new ArrayList<>(accounts.size());
+        final List<byte[]> reconciled = new ArrayList<>(accounts.size());
+        final List<Integer> scales = new ArrayList<>(accounts.size());
+
+        int rows = 0;
+
+        for (final Account account : accounts) {
+            final AccountColumns old = previous != null ? previous.accounts.get(account.getObjectId()) : null;
+
+            if (pending.contains(account.getUuid())) {
+                if (old == null) {
+                    continue;   // nothing known about the account
+                }
+
+                final int[] day = new int[old.count];
+                final long[] amount = new long[old.count];
+                final byte[] state = new byte[old.count];
+
+                for (int i = 0; i < old.count; i++) {
+                    day[i] = previous.getDay(old.first + i);
+                    amount[i] = previous.getAmount(old.first + i);
+                    state[i] = previous.getReconciled(old.first + i);
+                }
+
+                scales.add(old.scale);
+                days.add(day);
+                amounts.add(amount);
+                reconciled.add(state);
+            } else {
+                final List<Transaction> transactions = account.getSortedTransactionList();
+
+                final int[] day = new int[transactions.size()];
+                final long[] amount = new long[transactions.size()];
+                final byte[] state = new byte[transactions.size()];
+
+                int scale = account.getAccountType().getAccountGroup() == AccountGroup.INVEST ? UNSUPPORTED
+                        : account.getCurrencyNode().getScale();
+
+                for (int i = 0; i < transactions.size() && scale != UNSUPPORTED; i++) {
+                    final Transaction transaction = transactions.get(i);
+                    final Date date = transaction.getDate();
+
+                    try {
+                        if (DateUtils.trimDate(date).getTime() != date.getTime()) {
+                            throw new ArithmeticException("Date is not trimmed");
+                        }
+
+                        day[i] = Math.toIntExact(toEpochDay(date));
+                        amount[i] = transaction.getAmount(account).setScale(scale).unscaledValue().longValueExact();
+                        state[i] = (byte) (transaction.getReconciled(account) == ReconciledState.RECONCILED ? 1 : 0);
+                    } catch (final ArithmeticException e) {
+                        scale = UNSUPPORTED;
+                    }
+                }
+
+                scales.add(scale);
+
+                if (scale == UNSUPPORTED) {
+                    days.add(new int[0]);
+                    amounts.add(new long[0]);
+                    reconciled.add(new byte[0]);
+                } else {
+                    days.add(day);
+                    amounts.add(amount);
+                    reconciled.add(state);
+                }
+            }
+
+            written.add(account);
+            rows += days.get(days.size() - 1).length;
+        }
+
+        out.writeInt(written.size());
+        out.writeInt(rows);
+
+        int first = 0;
+
+        for (int i = 0; i < written.size(); i++) {
+            final byte[] uuid = written.get(i).getUuid().getBytes(StandardCharsets.US_ASCII);
+
+            out.writeShort(uuid.length);
+            out.write(uuid);
+            out.writeInt(scales.get(i));
+            out.writeInt(first);
+            out.writeInt(days.get(i).length);
+
+            first += days.get(i).length;
+        }
+
+        for (int i = 0; i < written.size(); i++) {
+            for (int j = 0; j < days.get(i).length; j++) {
+                out.writeInt(i);
+            }
+        }
+
+        for (final int[] day : days) {
+            for (final int value : day) {
+                out.writeInt(value);
+            }
+        }
+
+        for (final long[] amount : amounts) {
+            for (final long value : amount) {
+                out.writeLong(value);
+            }
+        }
+
+        for (final byte[] state : reconciled) {
+            out.write(state);
+        }
+    }
+
+    private int getDay(final int row) {
+        return buffer.getInt(dayColumn + row * Integer.BYTES);
+    }
+
+    private long getAmount(final int row) {
+        return buffer.getLong(amountColumn + row * Long.BYTES);
+    }
+
+    private byte getReconciled(final int row) {
+        return buffer.get(reconciledColumn + row);
+    }
+
+    private static long toEpochDay(final Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Returns the epoch day of the first transaction date that is on or after the given date.  Transaction dates
+     * are always at the start of the day.
+     */
+    private static long toFirstEpochDay(final Date date) {
+        final long day = toEpochDay(date);
+
+        return DateUtils.trimDate(date).getTime() == date.getTime() ? day : day + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionColumns: " + accounts.size() + " accounts, " + rowCount + " rows";
+    }
+
+    /**
+     * Rows of a single account
+     */
+    private final class AccountColumns implements TransactionSummary {
+
+        final int scale;
+
+        final int first;
+
+        final int count;
+
+        AccountColumns(final int scale, final int first, final int count) {
+            this.scale = scale;
+            this.first = first;
+            this.count = count;
+        }
+
+        @Override
+        public int getTransactionCount() {
+            return count;
+        }
+
+        @Override
+        public BigDecimal getBalance() {
+            return sum(first, first + count, false);
+        }
+
+        @Override
+        public BigDecimal getBalance(final Date start, final Date end) {
+            final long startDay = toFirstEpochDay(start);
+            final long endDay = toEpochDay(end);
+
+            if (startDay > endDay) {
+                return BigDecimal.ZERO;
+            }
+
+            return sum(lowerBound(startDay), lowerBound(endDay + 1), false);
+        }
+
+        @Override
+        public BigDecimal getBalance(final Date date) {
+            return sum(first, lowerBound(toEpochDay(date) + 1), false);
+        }
+
+        @Override
+        public BigDecimal getReconciledBalance() {
+            return sum(first, first + count, true);
+        }
+
+        /**
+         * Returns the first row with a date on or after the given epoch day
+         */
+        private int lowerBound(final long day) {
+            int low = first;
+            int high = first + count;
+
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+
+                if (getDay(mid) < day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        private BigDecimal sum(final int from, final int to, final boolean reconciledOnly) {
+            long total = 0;
+
+            for (int row = from; row < to; row++) {
+                if (!reconciledOnly || getReconciled(row) != 0) {
+                    try {
+                        total = Math.addExact(total, getAmount(row));
+                    } catch (final ArithmeticException e) {
+                        return sumExact(from, to, reconciledOnly);
+                    }
+                }
+            }
+
+            return BigDecimal.valueOf(total, scale);
+        }
+
+        private BigDecimal sumExact(final int from, final int to, final boolean reconciledOnly) {
+            BigDecimal total = BigDecimal.ZERO.setScale(scale);
+
+            for (int row = from; row < to; row++) {
+                if (!reconciledOnly || getReconciled(row) != 0) {
+                    total = total.add(BigDecimal.valueOf(getAmount(row), scale));
+                }
+            }
+
+            return total;
+        }
+    }
+}
@@ -17,11 +17,13 @@
  */
 package jgnash.engine.xstream;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
@@ -38,7 +40,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import jgnash.engine.BootProfile;
 import jgnash.engine.CommodityNode;
 import jgnash.engine.Config;
 import jgnash.engine.Engine;
@@ -109,6 +114,67 @@ class XMLContainer extends AbstractXStreamContainer {
             FileUtils.copyFile(file, backup);
         }
 
+        logger.info("Writing XML file");
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writeXML(objects, writer);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        }
+
+        logger.info("Writing XML file complete");
+    }
+
+    /**
+     * Writes a compressed XML file given a collection of StoredObjects. The XML is streamed directly into a single
+     * zip entry so an intermediate XML file is never written to disk. If the file already exists, it will be
+     * overwritten.
+     *
+     * @param objects   Collection of StoredObjects to write
+     * @param zipFile   zip file to write
+     * @param entryName name of the XML entry within the zip file
+     * @param level     compression level passed to the {@code ZipOutputStream}
+     * @see java.util.zip.Deflater
+     */
+    public static synchronized void writeCompressedXML(final Collection<StoredObject> objects, final File zipFile,
+                                                       final String entryName, final int level) {
+        Logger logger = Logger.getLogger(XMLContainer.class.getName());
+
+        if (zipFile.getAbsoluteFile().getParentFile().mkdirs()) {
+            logger.info("Created directories");
+        }
+
+        logger.info("Writing compressed XML file");
+
+        try (FileOutputStream fos = new FileOutputStream(zipFile);
+             ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(fos))) {
+
+            try (FileLock fosLock = fos.getChannel().tryLock()) {
+                if (fosLock != null) {
+                    zipOut.setLevel(level);
+                    zipOut.putNextEntry(new ZipEntry(entryName));
+
+                    // XStream closes the writer when the object stream is closed, keep the zip stream open
+                    try (Writer writer = new NonClosingWriter(new BufferedWriter(new OutputStreamWriter(zipOut,
+                            StandardCharsets.UTF_8)))) {
+                        writeXML(objects, writer);
+                    }
+
+                    // finish the zip entry, but let the try-with-resources handle the close
+                    zipOut.closeEntry();
+                    zipOut.finish();
+                } else {
+                    logger.log(Level.SEVERE, "Could not acquire the file lock for: {0}", zipFile.getAbsolutePath());
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        }
+
+        logger.info("Writing compressed XML file complete");
+    }
+
+    private static void writeXML(final Collection<StoredObject> objects, final Writer writer) throws IOException {
         List<StoredObject> list = new ArrayList<>();
 
         list.addAll(query(objects, Budget.class));
@@ -130,26 +196,20 @@ class XMLContainer extends AbstractXStreamContainer {
         // sort the list
         Collections.sort(list, new StoredObjectComparator());
 
-        logger.info("Writing XML file");
-
-        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
-            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-            writer.write("<?fileVersion " + Engine.CURRENT_VERSION + "?>\n");
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<?fileVersion " + Engine.CURRENT_VERSION + "?>\n");
 
-            XStream xstream = configureXStream(new XStreamOut(new PureJavaReflectionProvider(), new KXml2Driver()));
+        XStream xstream = configureXStream(new XStreamOut(new PureJavaReflectionProvider(), new KXml2Driver()));
 
-            try (ObjectOutputStream out = xstream.createObjectOutputStream(new PrettyPrintWriter(writer))) {
-                out.writeObject(list);
-                out.flush();     // forcibly flush before letting go of the resources to help older windows systems write correctly
-            }
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, e.getLocalizedMessage(), e);
+        try (ObjectOutputStream out = xstream.createObjectOutputStream(new PrettyPrintWriter(writer))) {
+            out.writeObject(list);
+            out.flush();     // forcibly flush before letting go of the resources to help older windows systems write correctly
         }
-
-        logger.info("Writing XML file complete");
     }
 
     void readXML() {
+        final BootProfile.Span span = BootProfile.getInstance().start("XMLContainer.readXML");
+
         String encoding = System.getProperty("file.encoding"); // system default encoding
 
         String version = FileMagic.getXMLVersion(file); // version of the jGnash XML file
@@ -179,7 +239,25 @@ class XMLContainer extends AbstractXStreamContainer {
             if (!acquireFileLock()) { // lock the file on open
                 Logger.getLogger(XMLContainer.class.getName()).severe("Could not acquire the file lock");
             }
+            reindex();
+            span.setCount(objects.size());
             readWriteLock.writeLock().unlock();
+            span.close();
+        }
+    }
+
+    /**
+     * Flushes instead of closing so the underlying stream may continue to be used
+     */
+    private static class NonClosingWriter extends FilterWriter {
+
+        NonClosingWriter(final Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
         }
     }
 }
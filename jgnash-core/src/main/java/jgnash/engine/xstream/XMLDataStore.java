@@ -149,6 +149,20 @@ public class XMLDataStore implements DataStore {
         XMLContainer.writeXML(objects, file);
     }
 
+    /**
+     * Saves the objects as a single compressed XML entry without writing an intermediate XML file.
+     *
+     * @param zipFile   zip file to write
+     * @param entryName name of the XML entry within the zip file
+     * @param objects   objects to save
+     * @param level     compression level
+     * @see java.util.zip.Deflater
+     */
+    public void saveAsCompressed(final File zipFile, final String entryName, final Collection<StoredObject> objects,
+                                 final int level) {
+        XMLContainer.writeCompressedXML(objects, zipFile, entryName, level);
+    }
+
     /**
      * Opens the file in readonly mode and reads the version of the file format.
      *
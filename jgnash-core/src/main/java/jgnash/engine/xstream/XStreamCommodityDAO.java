@@ -17,6 +17,7 @@
  */
 package jgnash.engine.xstream;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -60,6 +61,12 @@ public class XStreamCommodityDAO extends AbstractXStreamDAO implements Commodity
         return true;
     }
 
+    @Override
+    public boolean addSecurityHistory(final SecurityNode node, final Collection<SecurityHistoryNode> historyNodes) {
+        commit();
+        return true;
+    }
+
     @Override
     public Set<CurrencyNode> getActiveCurrencies() {
         Set<CurrencyNode> set = stripMarkedForRemoval(container.query(Account.class))
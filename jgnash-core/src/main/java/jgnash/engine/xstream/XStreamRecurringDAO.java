@@ -17,9 +17,11 @@
  */
 package jgnash.engine.xstream;
 
+import jgnash.engine.Transaction;
 import jgnash.engine.dao.RecurringDAO;
 import jgnash.engine.recurring.Reminder;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -55,4 +57,11 @@ public class XStreamRecurringDAO extends AbstractXStreamDAO implements Recurring
         commit();
         return true;
     }
+
+    @Override
+    public boolean addReminderTransactions(final Collection<Transaction> transactions, final Collection<Reminder> reminders) {
+        transactions.forEach(container::set);
+        commit();
+        return true;
+    }
 }
@@ -17,6 +17,7 @@
  */
 package jgnash.engine.xstream;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -50,6 +51,14 @@ public class XStreamTransactionDAO extends AbstractXStreamDAO implements Transac
         return true;
     }
 
+    @Override
+    public boolean addTransactions(final Collection<Transaction> transactions) {
+        transactions.forEach(container::set);
+        commit();
+
+        return true;
+    }
+
     @Override
     public Transaction getTransactionByUuid(final String uuid) {
         return getObjectByUuid(Transaction.class, uuid);
@@ -18,6 +18,7 @@
 package jgnash.net;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
@@ -42,6 +43,8 @@ public class ConnectionFactory {
 
     private static final int MIN_TIMEOUT = 1;
 
+    private static final int TOO_MANY_REQUESTS = 429;
+
     private ConnectionFactory() {
     }
 
@@ -89,6 +92,23 @@ public class ConnectionFactory {
         return connection;
     }
 
+    /**
+     * Checks the response of an HTTP connection for a server error or a rate limit response.  Either may succeed if
+     * the request is sent again later.
+     *
+     * @param connection connection to check
+     * @throws IOException if the server could not respond or the request should be retried
+     */
+    public static void checkResponse(final URLConnection connection) throws IOException {
+        if (connection instanceof HttpURLConnection) {
+            final int code = ((HttpURLConnection) connection).getResponseCode();
+
+            if (code == TOO_MANY_REQUESTS || code >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                throw new IOException("HTTP " + code + " returned by " + connection.getURL().getHost());
+            }
+        }
+    }
+
     @Nullable
     private synchronized static URLConnection getConnection(final URL url) {
         URLConnection connection = null;
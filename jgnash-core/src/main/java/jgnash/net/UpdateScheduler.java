@@ -0,0 +1,170 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.net;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jgnash.util.DefaultDaemonThreadFactory;
+import jgnash.util.NotNull;
+
+/**
+ * Runs network requests for online updates with a bounded number of concurrent requests.  Requests to the same host
+ * are spaced apart to respect rate limits and requests that fail with an {@code IOException} are retried with an
+ * exponential backoff.
+ *
+ * @author Craig Cavanaugh
+ */
+public class UpdateScheduler {
+
+    private static final Logger logger = Logger.getLogger(UpdateScheduler.class.getName());
+
+    private static final int DEFAULT_CONCURRENCY = 8;
+
+    private static final long DEFAULT_HOST_INTERVAL = 250;
+
+    private static final int DEFAULT_ATTEMPTS = 3;
+
+    private static final long DEFAULT_BACKOFF = 1000;
+
+    private final ExecutorService executor;
+
+    private final long hostInterval;
+
+    private final int maxAttempts;
+
+    private final long backoff;
+
+    /**
+     * Earliest time in nanoseconds the next request may be sent to a host, guarded by itself
+     */
+    private final Map<String, Long> nextRequestTimes = new HashMap<>();
+
+    public UpdateScheduler() {
+        this(DEFAULT_CONCURRENCY, DEFAULT_HOST_INTERVAL, DEFAULT_ATTEMPTS, DEFAULT_BACKOFF);
+    }
+
+    /**
+     * Creates a new scheduler
+     *
+     * @param maxConcurrent maximum number of requests that may run at once
+     * @param hostInterval  minimum time in milliseconds between the start of requests to the same host
+     * @param maxAttempts   maximum number of times a request is attempted
+     * @param backoff       delay in milliseconds before the first retry, doubled for each retry after
+     */
+    public UpdateScheduler(final int maxConcurrent, final long hostInterval, final int maxAttempts, final long backoff) {
+        if (maxConcurrent < 1 || maxAttempts < 1 || hostInterval < 0 || backoff < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.hostInterval = hostInterval;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+
+        executor = Executors.newFixedThreadPool(maxConcurrent, new DefaultDaemonThreadFactory());
+    }
+
+    /**
+     * Submits a request
+     *
+     * @param host    host the request is sent to, used for rate limiting
+     * @param request request to run, an {@code IOException} indicates the request may be retried
+     * @param <T>     the request result type
+     * @return {@code Future} for the request result
+     */
+    public <T> Future<T> submit(@NotNull final String host, @NotNull final Callable<T> request) {
+        return executor.submit(() -> call(host, request));
+    }
+
+    private <T> T call(final String host, final Callable<T> request) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            awaitHost(host);
+
+            try {
+                return request.call();
+            } catch (final IOException e) {
+                if (attempt >= maxAttempts || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+
+                logger.log(Level.INFO, "Retrying request to {0}: {1}", new Object[]{host, e.getLocalizedMessage()});
+
+                TimeUnit.MILLISECONDS.sleep(backoff << (attempt - 1));
+            }
+        }
+    }
+
+    /**
+     * Reserves the next request slot for a host and waits for it
+     *
+     * @param host request host
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitHost(final String host) throws InterruptedException {
+        final long wait;
+
+        synchronized (nextRequestTimes) {
+            final long now = System.nanoTime();
+            final Long next = nextRequestTimes.get(host);
+            final long start = next != null && next - now > 0 ? next : now;
+
+            nextRequestTimes.put(host, start + TimeUnit.MILLISECONDS.toNanos(hostInterval));
+            wait = start - now;
+        }
+
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Stops all requests.  Requests that have not started are canceled.
+     */
+    public void shutdownNow() {
+        for (final Runnable runnable : executor.shutdownNow()) {
+            if (runnable instanceof Future) {
+                ((Future<?>) runnable).cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Returns the host of a URL for rate limiting
+     *
+     * @param url URL to parse
+     * @return the host, or the URL if it could not be parsed
+     */
+    @NotNull
+    public static String getHost(@NotNull final String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (final MalformedURLException e) {
+            return url;
+        }
+    }
+}
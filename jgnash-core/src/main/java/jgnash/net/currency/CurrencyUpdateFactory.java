@@ -18,12 +18,23 @@
 package jgnash.net.currency;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import jgnash.engine.CurrencyNode;
 import jgnash.engine.Engine;
 import jgnash.engine.EngineFactory;
+import jgnash.net.UpdateScheduler;
+import jgnash.util.NotNull;
 
 /**
  * Fetches latest exchange rates in the background
@@ -34,6 +45,8 @@ public class CurrencyUpdateFactory {
 
     private static final String UPDATE_ON_STARTUP = "updateCurrenciesOnStartup";
 
+    private static final int TIMEOUT = 1;   // default timeout in minutes
+
     private CurrencyUpdateFactory() {
     }
 
@@ -59,6 +72,12 @@ public class CurrencyUpdateFactory {
 
     public static class UpdateExchangeRatesCallable implements Callable<Void> {
 
+        private final UpdateScheduler scheduler;
+
+        public UpdateExchangeRatesCallable(@NotNull final UpdateScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
         @Override
         public Void call() throws Exception {
             final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
@@ -66,27 +85,53 @@ public class CurrencyUpdateFactory {
             if (engine != null) {
                 final List<CurrencyNode> list = engine.getCurrencies();
 
+                // currency pairs keyed by the request label
+                final Map<String, CurrencyNode[]> pairs = new HashMap<>();
+
                 for (final CurrencyNode sourceCurrency : list) {
                     final String source = sourceCurrency.getSymbol();
                     for (final CurrencyNode targetCurrency : list) {
                         final String target = targetCurrency.getSymbol();
 
-                        if (Thread.currentThread().isInterrupted()) {
-                            return null;
+                        if (!source.equals(target) && source.compareToIgnoreCase(target) > 0) {
+                            pairs.put((source + target).toUpperCase(), new CurrencyNode[]{sourceCurrency, targetCurrency});
                         }
+                    }
+                }
 
-                        if (!source.equals(target) && source.compareToIgnoreCase(target) > 0) {
-                            CurrencyParser parser = new YahooParser();
+                final YahooParser parser = new YahooParser();
+                final String host = UpdateScheduler.getHost(parser.getBaseURL());
+                final List<String> labels = new ArrayList<>(pairs.keySet());
+                final List<Future<Map<String, BigDecimal>>> futures = new ArrayList<>();
+
+                for (int i = 0; i < labels.size(); i += YahooParser.MAX_BATCH_SIZE) {
+                    final List<String> batch = labels.subList(i, Math.min(i + YahooParser.MAX_BATCH_SIZE, labels.size()));
 
-                            if (parser.parse(source, target)) {
-                                BigDecimal exchangeRate = parser.getConversion();
+                    futures.add(scheduler.submit(host, () -> parser.parse(batch)));
+                }
+
+                try {
+                    for (final Future<Map<String, BigDecimal>> future : futures) {
+                        try {
+                            for (final Map.Entry<String, BigDecimal> entry : future.get(TIMEOUT, TimeUnit.MINUTES).entrySet()) {
+                                final CurrencyNode[] pair = pairs.get(entry.getKey());
+                                final BigDecimal exchangeRate = entry.getValue();
 
-                                if (exchangeRate != null && exchangeRate.compareTo(BigDecimal.ZERO) != 0) {
-                                    engine.setExchangeRate(sourceCurrency, targetCurrency, exchangeRate);
+                                if (pair != null && exchangeRate.compareTo(BigDecimal.ZERO) != 0) {
+                                    engine.setExchangeRate(pair[0], pair[1], exchangeRate);
                                 }
                             }
+                        } catch (final ExecutionException | TimeoutException e) {
+                            Logger.getLogger(CurrencyUpdateFactory.class.getName()).log(Level.WARNING,
+                                    e.getLocalizedMessage(), e);
                         }
                     }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    for (final Future<Map<String, BigDecimal>> future : futures) {
+                        future.cancel(true);
+                    }
                 }
             }
 
@@ -21,10 +21,17 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URLConnection;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -40,8 +47,85 @@ public class YahooParser implements CurrencyParser {
 
     private static final Pattern COMMA_DELIMITER_PATTERN = Pattern.compile(",");
 
+    private static final String BASE_URL = "http://finance.yahoo.com/d/quotes.csv?s=";
+
+    /**
+     * Maximum number of currency pairs requested at once
+     */
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private final String baseURL;
+
     private BigDecimal result = null;
 
+    public YahooParser() {
+        this(BASE_URL);
+    }
+
+    YahooParser(final String baseURL) {
+        this.baseURL = baseURL;
+    }
+
+    /**
+     * Returns the base URL of requests
+     *
+     * @return base URL
+     */
+    public String getBaseURL() {
+        return baseURL;
+    }
+
+    /**
+     * Requests the exchange rates of several currency pairs with a single request
+     *
+     * @param labels currency pairs as the source symbol followed by the target symbol, i.e. "USDAUD"
+     * @return exchange rates by upper case pair. Pairs without a rate are not included
+     * @throws IOException if the request failed and may be retried
+     */
+    public Map<String, BigDecimal> parse(final Collection<String> labels) throws IOException {
+        final List<String> symbols = new ArrayList<>(labels.size());
+
+        for (final String label : labels) {
+            symbols.add(label + "=X");
+        }
+
+        final Map<String, BigDecimal> rates = new HashMap<>();
+
+        final URLConnection connection = ConnectionFactory.getConnection(baseURL + String.join("+", symbols)
+                + "&f=sl1d1t1ba&e=.csv");
+
+        if (connection != null) {
+            try {
+                ConnectionFactory.checkResponse(connection);
+
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                        StandardCharsets.UTF_8))) {
+
+                    /* Result: "USDAUD=X",1.4455,"9/8/2004","5:39am",1.4455,1.4468 */
+
+                    for (String line = in.readLine(); line != null; line = in.readLine()) {
+                        final String[] fields = COMMA_DELIMITER_PATTERN.split(line.trim());
+
+                        if (fields.length >= 3 && !"\"N/A\"".equals(fields[2])) {
+                            try {
+                                rates.put(fields[0].replace("\"", "").replace("=X", "").toUpperCase(Locale.ROOT),
+                                        new BigDecimal(fields[1]));
+                            } catch (final NumberFormatException e) {
+                                Logger.getLogger(YahooParser.class.getName()).log(Level.SEVERE, line, e);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                if (connection instanceof HttpURLConnection) {
+                    ((HttpURLConnection) connection).disconnect();
+                }
+            }
+        }
+
+        return rates;
+    }
+
     @Override
     public synchronized boolean parse(String source, String target) {
 
@@ -49,7 +133,7 @@ public class YahooParser implements CurrencyParser {
 
         /* Build the URL:  http://finance.yahoo.com/d/quotes.csv?s=USDAUD=X&f=sl1d1t1ba&e=.csv */
 
-        StringBuilder url = new StringBuilder("http://finance.yahoo.com/d/quotes.csv?s=");
+        StringBuilder url = new StringBuilder(baseURL);
         url.append(label);
         url.append("=X&f=sl1d1t1ba&e=.csv");
 
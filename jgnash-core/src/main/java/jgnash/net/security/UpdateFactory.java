@@ -26,9 +26,15 @@ import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -47,6 +53,7 @@ import jgnash.engine.QuoteSource;
 import jgnash.engine.SecurityHistoryNode;
 import jgnash.engine.SecurityNode;
 import jgnash.net.ConnectionFactory;
+import jgnash.net.UpdateScheduler;
 import jgnash.util.DateUtils;
 import jgnash.util.NotNull;
 import jgnash.util.Resource;
@@ -115,6 +122,49 @@ public class UpdateFactory {
         return result;
     }
 
+    /**
+     * Submits price updates for a collection of securities.  Securities with a Yahoo quote source are requested in
+     * batches of up to {@link YahooParser#MAX_BATCH_SIZE} symbols per request.
+     *
+     * @param scheduler {@code UpdateScheduler} to submit the requests to
+     * @param securities securities to update
+     * @return {@code Future}s for the submitted requests.  A {@code false} result indicates a failed update
+     */
+    public static List<Future<Boolean>> updateSecurities(@NotNull final UpdateScheduler scheduler,
+                                                         @NotNull final Collection<SecurityNode> securities) {
+        final Map<QuoteSource, List<SecurityNode>> sources = new EnumMap<>(QuoteSource.class);
+
+        for (final SecurityNode securityNode : securities) {
+            if (securityNode.getQuoteSource() != QuoteSource.NONE) {
+                sources.computeIfAbsent(securityNode.getQuoteSource(), source -> new ArrayList<>()).add(securityNode);
+            }
+        }
+
+        final List<Future<Boolean>> futures = new ArrayList<>();
+
+        for (final Map.Entry<QuoteSource, List<SecurityNode>> entry : sources.entrySet()) {
+            final SecurityParser parser = entry.getKey().getParser();
+
+            if (parser instanceof YahooParser) {
+                final YahooParser yahooParser = (YahooParser) parser;
+                final String host = UpdateScheduler.getHost(yahooParser.getBaseURL());
+                final List<SecurityNode> nodes = entry.getValue();
+
+                for (int i = 0; i < nodes.size(); i += YahooParser.MAX_BATCH_SIZE) {
+                    final List<SecurityNode> batch = nodes.subList(i, Math.min(i + YahooParser.MAX_BATCH_SIZE, nodes.size()));
+
+                    futures.add(scheduler.submit(host, new UpdateSecurityNodesCallable(yahooParser, batch)));
+                }
+            } else {
+                for (final SecurityNode securityNode : entry.getValue()) {
+                    futures.add(scheduler.submit(entry.getKey().name(), new UpdateSecurityNodeCallable(securityNode)));
+                }
+            }
+        }
+
+        return futures;
+    }
+
     public static boolean importHistory(final SecurityNode securityNode, final Date startDate, final Date endDate) {
         boolean result = false;
 
@@ -202,6 +252,8 @@ public class UpdateFactory {
 
                         final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
 
+                        final List<SecurityHistoryNode> history = new ArrayList<>();
+
                         //Date,Open,High,Low,Close,Volume,Adj Close
                         //2007-02-13,14.75,14.86,14.47,14.60,17824500,14.60
 
@@ -222,15 +274,16 @@ public class UpdateFactory {
                                 final BigDecimal close = new BigDecimal(fields[4]);
                                 final long volume = Long.parseLong(fields[5]);
 
-                                final SecurityHistoryNode node = new SecurityHistoryNode(date, close, volume, high, low);
-
-                                if (engine != null && !Thread.currentThread().isInterrupted()) {
-                                    engine.addSecurityHistory(securityNode, node);
-                                }
+                                history.add(new SecurityHistoryNode(date, close, volume, high, low));
                             }
 
                             l = in.readLine();
                         }
+
+                        // merge the whole range at once
+                        if (engine != null && !Thread.currentThread().isInterrupted()) {
+                            result = engine.addSecurityHistory(securityNode, history) && result;
+                        }
                     }
 
                     String message = rb.getString("Message.UpdatedPrice", securityNode.getSymbol());
@@ -288,6 +341,56 @@ public class UpdateFactory {
         }
     }
 
+    /**
+     * Updates a batch of securities that share a Yahoo quote source with a single request
+     */
+    private static class UpdateSecurityNodesCallable implements Callable<Boolean> {
+
+        private final YahooParser parser;
+
+        private final Map<String, List<SecurityNode>> securityNodes = new LinkedHashMap<>();
+
+        UpdateSecurityNodesCallable(final YahooParser parser, final List<SecurityNode> securityNodes) {
+            this.parser = parser;
+
+            for (final SecurityNode securityNode : securityNodes) {
+                this.securityNodes.computeIfAbsent(parser.getRequestSymbol(securityNode).toUpperCase(Locale.ROOT),
+                        symbol -> new ArrayList<>()).add(securityNode);
+            }
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+            final Engine e = EngineFactory.getEngine(EngineFactory.DEFAULT);
+
+            if (e == null || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+
+            final Map<String, SecurityHistoryNode> quotes = parser.parse(securityNodes.keySet());
+
+            for (final Map.Entry<String, SecurityHistoryNode> quote : quotes.entrySet()) {
+                if (Thread.currentThread().isInterrupted()) {  // check for thread interruption
+                    return false;
+                }
+
+                for (final SecurityNode securityNode : securityNodes.getOrDefault(quote.getKey(), new ArrayList<>())) {
+                    final SecurityHistoryNode value = quote.getValue();
+
+                    // each security receives its own history node
+                    final SecurityHistoryNode node = new SecurityHistoryNode(value.getDate(), value.getPrice(),
+                            value.getVolume(), value.getHigh(), value.getLow());
+
+                    if (e.addSecurityHistory(securityNode, node)) {
+                        logger.info(Resource.get().getString("Message.UpdatedPrice", securityNode.getSymbol()));
+                    }
+                }
+            }
+
+            return !quotes.isEmpty();
+        }
+    }
+
     private UpdateFactory() {
         // Utility class
     }
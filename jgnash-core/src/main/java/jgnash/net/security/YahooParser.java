@@ -17,21 +17,31 @@
  */
 package jgnash.net.security;
 
+import jgnash.engine.SecurityHistoryNode;
 import jgnash.engine.SecurityNode;
 import jgnash.net.ConnectionFactory;
 import jgnash.util.DateUtils;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URLConnection;
+import java.net.URLEncoder;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -48,6 +58,13 @@ public abstract class YahooParser implements SecurityParser {
 
     private static final Pattern COMMA_DELIMITER_PATTERN = Pattern.compile(",");
 
+    /**
+     * Maximum number of symbols requested at once
+     */
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private static final String QUOTE_FORMAT = "&f=sl1d1t1c1ohgv&e=.csv";
+
     private long volume;
 
     private BigDecimal price;
@@ -127,6 +144,101 @@ public abstract class YahooParser implements SecurityParser {
         return false;
     }
 
+    /**
+     * Returns the symbol used to request a quote for a security
+     *
+     * @param node security
+     * @return the symbol or ISIN depending on the source
+     */
+    public String getRequestSymbol(final SecurityNode node) {
+        return useISIN() ? node.getISIN() : node.getSymbol();
+    }
+
+    /**
+     * Requests quotes for several securities with a single request
+     *
+     * @param symbols symbols to request, no more than {@link #MAX_BATCH_SIZE}
+     * @return quotes by upper case symbol. Symbols without a valid quote are not included
+     * @throws IOException if the request failed and may be retried
+     */
+    public Map<String, SecurityHistoryNode> parse(final Collection<String> symbols) throws IOException {
+        final List<String> encoded = new ArrayList<>(symbols.size());
+
+        for (final String symbol : symbols) {
+            encoded.add(URLEncoder.encode(symbol, StandardCharsets.UTF_8.name()));
+        }
+
+        final Map<String, SecurityHistoryNode> quotes = new HashMap<>();
+
+        final URLConnection connection = ConnectionFactory.getConnection(getBaseURL() + String.join("+", encoded)
+                + QUOTE_FORMAT);
+
+        if (connection != null) {
+            try {
+                ConnectionFactory.checkResponse(connection);
+
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                        StandardCharsets.UTF_8))) {
+
+                    for (String line = in.readLine(); line != null; line = in.readLine()) {
+                        final String[] fields = COMMA_DELIMITER_PATTERN.split(line.trim());
+
+                        try {
+                            final SecurityHistoryNode quote = parseFields(fields);
+
+                            if (quote != null) {
+                                quotes.put(fields[0].replace("\"", "").toUpperCase(Locale.ROOT), quote);
+                            }
+                        } catch (final NumberFormatException e) {
+                            logger.log(Level.SEVERE, line, e);
+                        }
+                    }
+                }
+            } finally {
+                if (connection instanceof HttpURLConnection) {
+                    ((HttpURLConnection) connection).disconnect();
+                }
+            }
+        }
+
+        return quotes;
+    }
+
+    /**
+     * Parses the fields of a quote line
+     *
+     * @param fields symbol, price, date, time, change, open, high, low and volume
+     * @return the quote or {@code null} if a price was not returned
+     * @throws NumberFormatException if a value could not be parsed
+     */
+    private static SecurityHistoryNode parseFields(final String[] fields) {
+        // may be returned as a yield percentage... ignore for now.  Unknown symbols are returned as N/A
+        if (fields.length < 9 || fields[1].contains("%") || fields[1].equals("N/A")) {
+            return null;
+        }
+
+        final BigDecimal price = new BigDecimal(fields[1]);
+
+        // try to parse the date "10/12/2012"
+        // the date from Yahoo is the last close date.  It may not reflect the date the parse is performed
+        Date date = DateUtils.today();
+
+        if (!fields[2].isEmpty()) {
+            try {
+                DateFormat df = new SimpleDateFormat("\"MM/dd/yyyy\"");
+                date = df.parse(fields[2]);
+            } catch (ParseException e) {
+                logger.log(Level.SEVERE, null, e);
+            }
+        }
+
+        final BigDecimal high = fields[6].equals("N/A") ? BigDecimal.ZERO : new BigDecimal(fields[6]);
+        final BigDecimal low = fields[7].equals("N/A") ? BigDecimal.ZERO : new BigDecimal(fields[7]);
+        final long volume = fields[8].equals("N/A") ? 0 : Long.parseLong(fields[8]);
+
+        return new SecurityHistoryNode(date, price, volume, high, low);
+    }
+
     @Override
     public synchronized boolean parse(final SecurityNode node) {
 
@@ -134,18 +246,12 @@ public abstract class YahooParser implements SecurityParser {
 
         String base = getBaseURL();
 
-        String symbol;
-
-        if (useISIN()) {
-            symbol = node.getISIN();
-        } else {
-            symbol = node.getSymbol();
-        }
+        String symbol = getRequestSymbol(node);
 
         // http://finance.yahoo.com/d/quotes.csv?s=SUNW&f=sl1d1t1c1ohgv&e=.csv
         // String u = "http://finance.yahoo.com/d/quotes.csv?s=" + symbol +
 
-        String u = base + symbol + "&f=sl1d1t1c1ohgv&e=.csv";
+        String u = base + symbol + QUOTE_FORMAT;
 
         String line = null;
 
@@ -163,42 +269,14 @@ public abstract class YahooParser implements SecurityParser {
                     String[] fields = COMMA_DELIMITER_PATTERN.split(line);
                     in.close();
 
-                    if (fields.length >= 7) {
+                    final SecurityHistoryNode quote = parseFields(fields);
 
-                        // may be returned as a yield percentage... ignore for now
-                        if (!fields[1].contains("%")) {
-                            setPrice(new BigDecimal(fields[1]));
-                        }
-
-                        // try to parse the date "10/12/2012"
-                        // the date from Yahoo is the last close date.  It may not reflect the date the parse is performed
-                        if (!fields[2].isEmpty()) {
-                            try {
-                                DateFormat df = new SimpleDateFormat("\"MM/dd/yyyy\"");
-                                Date date = df.parse(fields[2]);
-                                setDate(date);
-                            } catch (ParseException e) {
-                                logger.log(Level.SEVERE, null, e);
-                            }
-                        }
-
-                        if (fields[6].equals("N/A")) {
-                            setHigh(BigDecimal.ZERO);
-                        } else {
-                            setHigh(new BigDecimal(fields[6]));
-                        }
-
-                        if (fields[7].equals("N/A")) {
-                            setLow(BigDecimal.ZERO);
-                        } else {
-                            setLow(new BigDecimal(fields[7]));
-                        }
-
-                        if (fields[8].equals("N/A")) {
-                            setVolume(0);
-                        } else {
-                            setVolume(Long.parseLong(fields[8]));
-                        }
+                    if (quote != null) {
+                        setPrice(quote.getPrice());
+                        setDate(quote.getDate());
+                        setHigh(quote.getHigh());
+                        setLow(quote.getLow());
+                        setVolume(quote.getVolume());
 
                         result = true;
                     }
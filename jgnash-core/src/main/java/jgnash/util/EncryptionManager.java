@@ -19,6 +19,7 @@
 package jgnash.util;
 
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.MessageDigest;
@@ -29,7 +30,9 @@ import java.util.logging.Logger;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Mac;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import static javax.xml.bind.DatatypeConverter.parseBase64Binary;
@@ -44,10 +47,26 @@ public class EncryptionManager {
 
     private final Key key;
 
+    /**
+     * Key for message authentication, derived from the encryption key so the two are never the same
+     */
+    private final Key macKey;
+
     public static final String ENCRYPTION_FLAG = "encrypt";
 
     private static final String ENCRYPTION_ALGORITHM = "AES";
 
+    private static final String STREAM_CIPHER_TRANSFORMATION = "AES/CTR/NoPadding";
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final String MAC_KEY_LABEL = "jgnash-mac";
+
+    /**
+     * Length of the initialization vector required by {@link #getStreamCipher(int, byte[])}
+     */
+    public static final int STREAM_IV_LENGTH = 16;
+
     public static final String DECRYPTION_ERROR_TAG = "<DecryptError>";
 
     private static final Logger logger = Logger.getLogger(EncryptionManager.class.getName());
@@ -69,6 +88,19 @@ public class EncryptionManager {
         }
 
         key = new SecretKeySpec(encryptionKey, ENCRYPTION_ALGORITHM);
+
+        byte[] authenticationKey = encryptionKey;
+
+        try {
+            final MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+            md.update(MAC_KEY_LABEL.getBytes(StandardCharsets.UTF_8));
+            authenticationKey = md.digest(encryptionKey);
+        } catch (final NoSuchAlgorithmException e) {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+        }
+
+        macKey = new SecretKeySpec(authenticationKey, MAC_ALGORITHM);
     }
 
     /**
@@ -113,4 +145,40 @@ public class EncryptionManager {
             return DECRYPTION_ERROR_TAG;
         }
     }
+
+    /**
+     * Creates a stream cipher for encrypting or decrypting a continuous byte stream such as a network channel.
+     * <p>
+     * The cipher does not pad, so the output of {@code update} is always the same length as the input and
+     * data may be processed in arbitrary sized pieces.  The initialization vector must be unique for each
+     * stream and the receiving end must use the same vector.
+     *
+     * @param mode {@code Cipher.ENCRYPT_MODE} or {@code Cipher.DECRYPT_MODE}
+     * @param iv   initialization vector of {@code STREAM_IV_LENGTH} bytes
+     * @return an initialized stream cipher
+     * @throws GeneralSecurityException if the cipher could not be created
+     * @see #STREAM_IV_LENGTH
+     */
+    public Cipher getStreamCipher(final int mode, final byte[] iv) throws GeneralSecurityException {
+        final Cipher cipher = Cipher.getInstance(STREAM_CIPHER_TRANSFORMATION);
+
+        cipher.init(mode, key, new IvParameterSpec(iv));
+
+        return cipher;
+    }
+
+    /**
+     * Creates a message authentication code keyed from the password.  A stream cipher does not protect the
+     * integrity of the data, so content sent through one should be authenticated with this.
+     *
+     * @return an initialized message authentication code
+     * @throws GeneralSecurityException if the message authentication code could not be created
+     */
+    public Mac getMac() throws GeneralSecurityException {
+        final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+
+        mac.init(macKey);
+
+        return mac;
+    }
 }
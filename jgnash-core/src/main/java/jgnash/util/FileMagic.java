@@ -48,6 +48,12 @@ public class FileMagic {
     private static final byte[] BINARY_XSTREAM_HEADER = new byte[]{10, -127, 0, 13, 111, 98, 106, 101, 99, 116, 45,
             115, 116, 114, 101, 97, 109, 11, -127, 10};
 
+    private static final byte[] SHARDED_BINARY_XSTREAM_HEADER = "jGnash-sharded-bxds".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] PAGED_BINARY_XSTREAM_HEADER = "jGnash-paged-bxds".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] COLUMNAR_BINARY_XSTREAM_HEADER = "jGnash-columnar-bxds".getBytes(StandardCharsets.US_ASCII);
+
     private static final byte[] H2_HEADER = new byte[]{0x2D, 0x2D, 0x20, 0x48, 0x32, 0x20, 0x30, 0x2E, 0x35, 0x2F, 0x42, 0x20, 0x2D, 0x2D};
 
     private static final byte[] HSQL_HEADER = "SET DATABASE UNIQUE NAME HSQLDB".getBytes(StandardCharsets.UTF_8);
@@ -59,7 +65,7 @@ public class FileMagic {
     private static final String WINDOWS_1252 = "windows-1252";
 
     public static enum FileType {
-        db4o, BinaryXStream, OfxV1, OfxV2, jGnash1XML, jGnash2XML, h2, hsql, unknown
+        db4o, BinaryXStream, ShardedBinaryXStream, PagedBinaryXStream, ColumnarBinaryXStream, OfxV1, OfxV2, jGnash1XML, jGnash2XML, h2, hsql, unknown
     }
 
     /**
@@ -74,6 +80,12 @@ public class FileMagic {
             return FileType.jGnash2XML;
         } else if (isBinaryXStreamFile(file)) {
             return FileType.BinaryXStream;
+        } else if (isShardedBinaryXStreamFile(file)) {
+            return FileType.ShardedBinaryXStream;
+        } else if (isPagedBinaryXStreamFile(file)) {
+            return FileType.PagedBinaryXStream;
+        } else if (isColumnarBinaryXStreamFile(file)) {
+            return FileType.ColumnarBinaryXStream;
         } else if (isH2File(file)) {
             return FileType.h2;
         } else if (isHsqlFile(file)) {
@@ -219,6 +231,24 @@ public class FileMagic {
         return isFile(file, BINARY_XSTREAM_HEADER);
     }
 
+    /**
+     * Determines if a binary file was written in sections that may be read concurrently
+     *
+     * @param file file to check
+     * @return {@code true} if the file is a sectioned binary file
+     */
+    public static boolean isShardedBinaryXStreamFile(final File file) {
+        return isFile(file, SHARDED_BINARY_XSTREAM_HEADER);
+    }
+
+    public static boolean isPagedBinaryXStreamFile(final File file) {
+        return isFile(file, PAGED_BINARY_XSTREAM_HEADER);
+    }
+
+    public static boolean isColumnarBinaryXStreamFile(final File file) {
+        return isFile(file, COLUMNAR_BINARY_XSTREAM_HEADER);
+    }
+
     private static boolean isH2File(final File file) {
         return isFile(file, H2_HEADER);
     }
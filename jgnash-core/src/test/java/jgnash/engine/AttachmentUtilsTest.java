@@ -0,0 +1,92 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Content addressed attachment naming tests
+ *
+ * @author Craig Cavanaugh
+ */
+public class AttachmentUtilsTest {
+
+    @Test
+    public void testContentName() throws IOException {
+        final Path first = Files.createTempFile("receipt-", ".PDF");
+        final Path second = Files.createTempFile("other-", ".pdf");
+        final Path third = Files.createTempFile("different-", ".pdf");
+
+        try {
+            Files.write(first, "same content".getBytes(StandardCharsets.UTF_8));
+            Files.write(second, "same content".getBytes(StandardCharsets.UTF_8));
+            Files.write(third, "different content".getBytes(StandardCharsets.UTF_8));
+
+            final String name = AttachmentUtils.getContentName(first);
+
+            // identical content shares a name regardless of the original file name
+            assertEquals(name, AttachmentUtils.getContentName(second));
+            assertNotEquals(name, AttachmentUtils.getContentName(third));
+
+            assertTrue(name.endsWith(".pdf"));
+            assertTrue(AttachmentUtils.isContentName(name));
+            assertFalse(AttachmentUtils.isContentName(first.getFileName().toString()));
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+            Files.deleteIfExists(third);
+        }
+    }
+
+    @Test
+    public void testContentValid() throws IOException {
+        final Path source = Files.createTempFile("receipt-", ".png");
+
+        Path stored = null;
+
+        try {
+            Files.write(source, "image content".getBytes(StandardCharsets.UTF_8));
+
+            stored = source.resolveSibling(AttachmentUtils.getContentName(source));
+            Files.copy(source, stored);
+
+            assertTrue(AttachmentUtils.isContentValid(stored));
+            assertFalse(AttachmentUtils.isContentValid(source));
+
+            // altered content no longer matches the name
+            Files.write(stored, "corrupt".getBytes(StandardCharsets.UTF_8));
+            assertFalse(AttachmentUtils.isContentValid(stored));
+        } finally {
+            Files.deleteIfExists(source);
+
+            if (stored != null) {
+                Files.deleteIfExists(stored);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jgnash.engine.recurring.DailyReminder;
+import jgnash.engine.recurring.Reminder;
+import jgnash.engine.recurring.WeeklyReminder;
+import jgnash.util.DateUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests catching up overdue reminders that create their transactions automatically
+ *
+ * @author Craig Cavanaugh
+ */
+public class AutoCreateReminderTest extends AbstractEngineTest {
+
+    @Override
+    protected Engine createEngine() throws Exception {
+        database = EngineFactory.getDefaultDatabase() + "-auto-create-test.xml";
+        EngineFactory.deleteDatabase(database);
+
+        return EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+    }
+
+    private Reminder createReminder(final Reminder reminder, final String payee, final Date startDate,
+                                    final boolean autoCreate) {
+        final Transaction transaction = TransactionFactory.generateDoubleEntryTransaction(usdBankAccount,
+                expenseAccount, new BigDecimal("10.00"), startDate, "memo", payee, "");
+
+        reminder.setDescription(payee);
+        reminder.setIncrement(1);
+        reminder.setStartDate(startDate);
+        reminder.setAutoCreate(autoCreate);
+        reminder.setTransaction(transaction);
+
+        return reminder;
+    }
+
+    @Test
+    public void testCommitOverdueOccurrences() throws Exception {
+        final Date today = DateUtils.today();
+
+        final Reminder daily = createReminder(new DailyReminder(), "daily", DateUtils.addDays(today, -4), true);
+        final Reminder weekly = createReminder(new WeeklyReminder(), "weekly", DateUtils.addDays(today, -14), true);
+        final Reminder manual = createReminder(new DailyReminder(), "manual", DateUtils.addDays(today, -4), false);
+
+        assertTrue(e.addReminder(daily));
+        assertTrue(e.addReminder(weekly));
+        assertTrue(e.addReminder(manual));
+
+        // five daily and three weekly occurrences are overdue or due today
+        assertEquals(8, e.commitAutoCreateReminders());
+
+        final List<Transaction> transactions = usdBankAccount.getSortedTransactionList();
+
+        assertEquals(8, transactions.size());
+        assertEquals(8, expenseAccount.getTransactionCount());
+
+        // each occurrence is a distinct transaction
+        final Set<String> uuids = new HashSet<>();
+
+        for (final Transaction transaction : transactions) {
+            assertTrue(uuids.add(transaction.getUuid()));
+        }
+
+        // transactions are dated by their occurrence
+        final Set<Date> dailyDates = new HashSet<>();
+        final Set<Date> weeklyDates = new HashSet<>();
+
+        for (final Transaction transaction : transactions) {
+            if (transaction.getPayee().equals("daily")) {
+                assertTrue(dailyDates.add(transaction.getDate()));
+            } else {
+                assertEquals("weekly", transaction.getPayee());
+                assertTrue(weeklyDates.add(transaction.getDate()));
+            }
+        }
+
+        assertEquals(5, dailyDates.size());
+        assertEquals(3, weeklyDates.size());
+
+        for (int i = -4; i <= 0; i++) {
+            assertTrue(dailyDates.contains(DateUtils.addDays(today, i)));
+        }
+
+        for (int i = -14; i <= 0; i += 7) {
+            assertTrue(weeklyDates.contains(DateUtils.addDays(today, i)));
+        }
+
+        // the last fired date has advanced to today
+        assertEquals(today, DateUtils.trimDate(daily.getLastDate()));
+        assertEquals(today, DateUtils.trimDate(weekly.getLastDate()));
+
+        // only the occurrences of the manual reminder remain pending
+        assertEquals(5, e.getPendingReminders().size());
+        assertEquals(0, e.commitAutoCreateReminders());
+
+        // the committed state is persisted
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+        e = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD);
+
+        assertEquals(8, e.getAccountByUuid(usdBankAccount.getUuid()).getTransactionCount());
+        assertEquals(today, DateUtils.trimDate(e.getReminderByUuid(daily.getUuid()).getLastDate()));
+        assertEquals(today, DateUtils.trimDate(e.getReminderByUuid(weekly.getUuid()).getLastDate()));
+        assertEquals(5, e.getPendingReminders().size());
+    }
+
+    @Test
+    public void testCommitOnOpen() throws Exception {
+        final Date today = DateUtils.today();
+
+        final Reminder daily = createReminder(new DailyReminder(), "daily", DateUtils.addDays(today, -2), true);
+        assertTrue(e.addReminder(daily));
+
+        // opening the file commits the overdue occurrences whichever user interface is used
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+        e = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD);
+
+        assertEquals(3, e.getAccountByUuid(usdBankAccount.getUuid()).getTransactionCount());
+        assertTrue(e.getPendingReminders().isEmpty());
+        assertEquals(0, e.commitAutoCreateReminders());
+    }
+}
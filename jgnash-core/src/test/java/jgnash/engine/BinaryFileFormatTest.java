@@ -0,0 +1,101 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Date;
+
+import jgnash.util.FileMagic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the single stream binary layout is kept for existing files and that the sharded layout reads and writes
+ * the same objects.
+ *
+ * @author Craig Cavanaugh
+ */
+public class BinaryFileFormatTest extends AbstractEngineTest {
+
+    @Override
+    protected Engine createEngine() throws Exception {
+        database = EngineFactory.getDefaultDatabase() + "-jgnash-format-test.bxds";
+        EngineFactory.deleteDatabase(database);
+
+        return EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.BINARY_XSTREAM);
+    }
+
+    @Test
+    public void testLegacyRoundTrip() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(e.addTransaction(TransactionFactory.generateDoubleEntryTransaction(usdBankAccount, incomeAccount,
+                    new BigDecimal(i + 1), new Date(), "memo " + i, "payee", "")));
+        }
+
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+
+        final File legacyFile = new File(database);
+
+        // existing files keep the single stream layout older releases are able to open
+        assertEquals(FileMagic.FileType.BinaryXStream, FileMagic.magic(legacyFile));
+        assertEquals(DataStoreType.BINARY_XSTREAM, EngineFactory.getDataStoreByType(database));
+
+        e = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD);
+        assertNotNull(e);
+        assertEquals(10, e.getTransactions().size());
+        assertEquals(10, e.getAccountByUuid(usdBankAccount.getUuid()).getTransactionCount());
+
+        final File shardedFile = new File(EngineFactory.getDefaultDatabase() + "-jgnash-format-test."
+                + DataStoreType.SHARDED_BINARY_XSTREAM.getDataStore().getFileExt());
+
+        try {
+            DataStoreType.SHARDED_BINARY_XSTREAM.getDataStore().saveAs(shardedFile, e.getStoredObjects());
+            EngineFactory.closeEngine(EngineFactory.DEFAULT);
+
+            assertEquals(FileMagic.FileType.ShardedBinaryXStream, FileMagic.magic(shardedFile));
+            assertEquals(DataStoreType.SHARDED_BINARY_XSTREAM,
+                    EngineFactory.getDataStoreByType(shardedFile.getAbsolutePath()));
+
+            e = EngineFactory.bootLocalEngine(shardedFile.getAbsolutePath(), EngineFactory.DEFAULT, PASSWORD);
+            assertNotNull(e);
+            assertEquals(10, e.getTransactions().size());
+            assertEquals(10, e.getAccountByUuid(usdBankAccount.getUuid()).getTransactionCount());
+            assertEquals(10, e.getAccountByUuid(incomeAccount.getUuid()).getTransactionCount());
+
+            EngineFactory.closeEngine(EngineFactory.DEFAULT);
+
+            // the legacy file is untouched and still opens
+            assertEquals(FileMagic.FileType.BinaryXStream, FileMagic.magic(legacyFile));
+
+            e = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD);
+            assertEquals(10, e.getTransactions().size());
+        } finally {
+            Files.deleteIfExists(shardedFile.toPath());
+            Files.deleteIfExists(Paths.get(shardedFile.getAbsolutePath() + ".backup"));
+            Files.deleteIfExists(Paths.get(database + ".backup"));
+        }
+    }
+}
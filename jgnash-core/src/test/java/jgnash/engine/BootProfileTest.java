@@ -0,0 +1,69 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Craig Cavanaugh
+ */
+public class BootProfileTest {
+
+    @Test
+    public void testProfile() {
+        final BootProfile profile = BootProfile.getInstance();
+
+        assertTrue(profile.begin());
+        assertFalse(profile.begin());   // already in progress
+        assertTrue(profile.isBooting());
+
+        try (BootProfile.Span outer = profile.start("outer")) {
+            try (BootProfile.Span inner = profile.start("inner")) {
+                inner.setCount(42);
+            }
+            outer.setCount(1);
+        }
+
+        profile.accumulate(BootProfile.POST_LOAD, () -> { });
+        profile.accumulate(BootProfile.POST_LOAD, () -> { });
+
+        profile.end();
+
+        assertFalse(profile.isBooting());
+
+        final String[] phases = profile.getPhases();
+
+        assertEquals(3, phases.length);
+        assertTrue(phases[0].startsWith("outer: "));
+        assertTrue(phases[0].endsWith(", 1 objects"));
+        assertTrue(phases[1].startsWith("  inner: "));
+        assertTrue(phases[1].endsWith(", 42 objects"));
+        assertTrue(phases[2].startsWith(BootProfile.POST_LOAD + ": "));
+        assertTrue(phases[2].endsWith(", 2 calls"));
+
+        // spans outside of a boot are not recorded
+        try (BootProfile.Span ignored = profile.start("late")) {
+            assertEquals(3, profile.getPhases().length);
+        }
+        assertEquals(3, profile.getPhases().length);
+    }
+}
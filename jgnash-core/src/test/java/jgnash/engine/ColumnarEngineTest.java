@@ -0,0 +1,119 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jgnash.util.DateUtils;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Craig Cavanaugh
+ */
+public class ColumnarEngineTest extends EngineTest {
+
+    private static String tempFile;
+    private static boolean export;
+
+    @Override
+    public Engine createEngine() throws Exception {
+        export = EngineFactory.exportXMLOnClose();
+
+        EngineFactory.setExportXMLOnClose(false);
+
+        try {
+            testFile = Files.createTempFile("jgnash-", "." + DataStoreType.COLUMNAR_BINARY_XSTREAM.getDataStore().getFileExt()).toFile().getAbsolutePath();
+            tempFile = testFile;
+
+            new File(testFile + ".backup").deleteOnExit();
+        } catch (IOException e1) {
+            Logger.getLogger(ColumnarEngineTest.class.getName()).log(Level.SEVERE, e1.getLocalizedMessage(), e1);
+        }
+
+        EngineFactory.deleteDatabase(testFile);
+
+        return EngineFactory.bootLocalEngine(testFile, EngineFactory.DEFAULT, PASSWORD, DataStoreType.COLUMNAR_BINARY_XSTREAM);
+    }
+
+    @Test
+    public void testColumnarBalances() throws Exception {
+        Account checking = new Account(AccountType.BANK, e.getDefaultCurrency());
+        checking.setName("Checking");
+        e.addAccount(e.getRootAccount(), checking);
+
+        Account expense = new Account(AccountType.EXPENSE, e.getDefaultCurrency());
+        expense.setName("Expense");
+        e.addAccount(e.getRootAccount(), expense);
+
+        final Date start = DateUtils.trimDate(DateUtils.getFirstDayOfTheMonth(new Date()));
+
+        for (int i = 0; i < 10; i++) {
+            Transaction transaction = TransactionFactory.generateDoubleEntryTransaction(checking, expense,
+                    new BigDecimal("10.25"), DateUtils.addDays(start, i), "memo", "payee", "");
+
+            if (i < 4) {
+                transaction.setReconciled(ReconciledState.RECONCILED);
+            }
+            assertTrue(e.addTransaction(transaction));
+        }
+
+        // close and reopen so balances are answered by the columns
+        closeEngine();
+        e = EngineFactory.bootLocalEngine(testFile, EngineFactory.DEFAULT, PASSWORD);
+        assertNotNull(e);
+
+        checking = e.getAccountByName("Checking");
+
+        assertTrue(checking.isTransactionLoadPending());
+        assertEquals(10, checking.getTransactionCount());
+        assertEquals(0, new BigDecimal("102.50").compareTo(checking.getBalance()));
+        assertEquals(0, new BigDecimal("41.00").compareTo(checking.getReconciledBalance()));
+        assertEquals(0, new BigDecimal("30.75").compareTo(checking.getBalance(DateUtils.addDays(start, 2),
+                DateUtils.addDays(start, 4))));
+        assertEquals(0, new BigDecimal("51.25").compareTo(checking.getBalance(DateUtils.addDays(start, 4))));
+        assertEquals(0, new BigDecimal("102.50").compareTo(checking.getTreeBalance()));
+        e.getRootAccount().getTreeBalance();
+        assertTrue(checking.isTransactionLoadPending());
+
+        // the same answers once the transactions are read
+        assertEquals(10, checking.getSortedTransactionList().size());
+        assertEquals(0, new BigDecimal("30.75").compareTo(checking.getBalance(DateUtils.addDays(start, 2),
+                DateUtils.addDays(start, 4))));
+        assertEquals(0, new BigDecimal("51.25").compareTo(checking.getBalance(DateUtils.addDays(start, 4))));
+    }
+
+    @AfterClass
+    public static void cleanup() throws IOException {
+        Files.deleteIfExists(Paths.get(tempFile));
+
+        EngineFactory.setExportXMLOnClose(export);
+    }
+}
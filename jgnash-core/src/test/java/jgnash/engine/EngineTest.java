@@ -20,9 +20,11 @@ package jgnash.engine;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -661,6 +663,37 @@ public abstract class EngineTest {
         assertTrue(e.isStored(a));
     }
 
+    @Test
+    public void testAddTransactions() throws Exception {
+        final CurrencyNode node = e.getDefaultCurrency();
+
+        final Account a = new Account(AccountType.BANK, node);
+        a.setName("testAddTransactions");
+        e.addAccount(e.getRootAccount(), a);
+
+        final List<Transaction> transactions = new ArrayList<>();
+
+        for (int i = 1; i <= 10; i++) {
+            transactions.add(TransactionFactory.generateSingleEntryTransaction(a, new BigDecimal(i), new Date(),
+                    "memo", "payee", Integer.toString(i)));
+        }
+
+        assertTrue(e.addTransactions(transactions));
+
+        assertEquals(10, a.getTransactionCount());
+        assertEquals(0, new BigDecimal(55).compareTo(a.getBalance()));
+
+        // close and reopen to force check for persistence
+        closeEngine();
+
+        e = EngineFactory.bootLocalEngine(testFile, EngineFactory.DEFAULT, PASSWORD);
+
+        final Account b = e.getAccountByUuid(a.getUuid());
+
+        assertEquals(10, b.getTransactionCount());
+        assertEquals(0, new BigDecimal(55).compareTo(b.getBalance()));
+    }
+
     @Test
     public void testGetRootAccount() {
         RootAccount root = e.getRootAccount();
@@ -844,6 +877,42 @@ public abstract class EngineTest {
         assertEquals(1, e.getTransactionsWithAttachments().size());
     }
 
+    @Test
+    public void testSharedContentAttachment() throws Exception {
+        Account a = new Account(AccountType.BANK, e.getDefaultCurrency());
+        a.setName("testAccount");
+
+        e.addAccount(e.getRootAccount(), a);
+
+        final Path file = Files.createTempFile("jgnash-attachment", ".txt");
+        Files.write(file, "receipt".getBytes(StandardCharsets.UTF_8));
+
+        final String attachment = e.storeAttachment(file, false);
+        assertNotNull(attachment);
+
+        final Path stored = Paths.get(AttachmentUtils.getAttachmentPath() + File.separator + attachment);
+        assertTrue(Files.exists(stored));
+
+        final List<Transaction> transactions = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            Transaction transaction = TransactionFactory.generateSingleEntryTransaction(a, BigDecimal.TEN, new Date(), "memo", "payee", "1");
+            transaction.setAttachment(attachment);
+
+            assertTrue(e.addTransaction(transaction));
+            transactions.add(transaction);
+        }
+
+        // still referenced by the second transaction
+        assertTrue(e.removeTransaction(transactions.get(0)));
+        assertTrue(e.removeAttachment(attachment));
+        assertTrue(Files.exists(stored));
+
+        assertTrue(e.removeTransaction(transactions.get(1)));
+        assertTrue(e.removeAttachment(attachment));
+        assertFalse(Files.exists(stored));
+    }
+
     @Test
     public void testGetUuid() {
         assertTrue(e.getUuid() != null);
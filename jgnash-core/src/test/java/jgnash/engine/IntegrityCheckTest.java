@@ -0,0 +1,88 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests skipping the startup integrity checks after a clean shutdown and applying their corrections
+ *
+ * @author Craig Cavanaugh
+ */
+public class IntegrityCheckTest extends AbstractEngineTest {
+
+    private static final String CLEAN_SHUTDOWN = "cleanShutdown";
+
+    @Override
+    protected Engine createEngine() throws Exception {
+        database = EngineFactory.getDefaultDatabase() + "-integrity-check-test.xml";
+        EngineFactory.deleteDatabase(database);
+
+        return EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+    }
+
+    private void reopen() {
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+
+        e = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+        assertNotNull(e);
+    }
+
+    private Config getConfig() {
+        return e.getStoredObjects().stream().filter(o -> o instanceof Config).map(o -> (Config) o).findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    @Test
+    public void testChecksSkippedAfterCleanShutdown() {
+        // a problem the checks would correct
+        getConfig().setDefaultCurrency(null);
+
+        reopen();
+
+        assertNull(e.getDefaultCurrency());
+
+        // the marker is cleared so a crash forces the checks to run next time
+        assertNull(e.getPreference(CLEAN_SHUTDOWN));
+    }
+
+    @Test
+    public void testCorrectionsApplied() {
+        final CurrencyNode rootCurrency = e.getRootAccount().getCurrencyNode();
+
+        getConfig().setDefaultCurrency(null);
+
+        // an older file is always checked, even after a clean shutdown
+        getConfig().setFileVersion(2.14f);
+
+        reopen();
+
+        assertEquals(rootCurrency, e.getDefaultCurrency());
+        assertEquals(Engine.CURRENT_VERSION, getConfig().getFileVersion(), 0f);
+        assertNull(e.getPreference(CLEAN_SHUTDOWN));
+
+        // the corrections survive the next clean shutdown
+        reopen();
+
+        assertEquals(rootCurrency, e.getDefaultCurrency());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Craig Cavanaugh
+ */
+public class ObjectIdTest {
+
+    @Test
+    public void testRoundTrip() {
+        for (int i = 0; i < 100; i++) {
+            final String uuid = UUID.randomUUID().toString();
+
+            assertEquals(uuid, ObjectId.valueOf(uuid).toString());
+            assertEquals(ObjectId.valueOf(uuid), ObjectId.valueOf(uuid));
+            assertEquals(ObjectId.valueOf(uuid).hashCode(), ObjectId.valueOf(uuid).hashCode());
+        }
+
+        // identifiers that are not canonical uuids are preserved
+        assertEquals("legacy-id", ObjectId.valueOf("legacy-id").toString());
+
+        final String upper = UUID.randomUUID().toString().toUpperCase();
+        assertEquals(upper, ObjectId.valueOf(upper).toString());
+        assertNotEquals(ObjectId.valueOf(upper), ObjectId.valueOf(upper.toLowerCase()));
+    }
+
+    @Test
+    public void testOrdering() {
+        for (int i = 0; i < 1000; i++) {
+            final String a = UUID.randomUUID().toString();
+            final String b = i % 2 == 0 ? UUID.randomUUID().toString() : "legacy-" + i;
+
+            final int expected = Integer.signum(a.compareTo(b));
+
+            assertEquals(expected, Integer.signum(ObjectId.valueOf(a).compareTo(ObjectId.valueOf(b))));
+            assertEquals(-expected, Integer.signum(ObjectId.valueOf(b).compareTo(ObjectId.valueOf(a))));
+        }
+
+        assertTrue(ObjectId.valueOf("00000000-0000-0000-0000-000000000000")
+                .compareTo(ObjectId.valueOf("ffffffff-ffff-ffff-ffff-ffffffffffff")) < 0);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import jgnash.engine.recurring.DailyReminder;
+import jgnash.engine.recurring.MonthlyReminder;
+import jgnash.engine.recurring.OneTimeReminder;
+import jgnash.engine.recurring.PendingReminder;
+import jgnash.engine.recurring.RecurringIterator;
+import jgnash.engine.recurring.Reminder;
+import jgnash.engine.recurring.WeeklyReminder;
+import jgnash.util.DateUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the pending reminder lookups of the reminder index
+ *
+ * @author Craig Cavanaugh
+ */
+public class ReminderIndexTest extends AbstractEngineTest {
+
+    @Override
+    protected Engine createEngine() throws Exception {
+        database = EngineFactory.getDefaultDatabase() + "-reminder-index-test.xml";
+        EngineFactory.deleteDatabase(database);
+
+        return EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+    }
+
+    private static Date daysFromToday(final int days) {
+        return DateUtils.addDays(DateUtils.today(), days);
+    }
+
+    private static Reminder createReminder(final Reminder reminder, final Date startDate) {
+        reminder.setDescription("Reminder " + startDate);
+        reminder.setIncrement(1);
+        reminder.setStartDate(startDate);
+
+        return reminder;
+    }
+
+    /**
+     * Scan of all reminders used before the index was introduced
+     */
+    private static List<PendingReminder> scanPendingReminders(final Collection<Reminder> reminders, final Date now) {
+        final List<PendingReminder> pendingList = new ArrayList<>();
+        final Calendar c = Calendar.getInstance();
+
+        for (final Reminder r : reminders) {
+            if (r.isEnabled()) {
+                final RecurringIterator ri = r.getIterator();
+                Date next = ri.next();
+
+                while (next != null) {
+                    c.setTime(next);
+                    c.add(Calendar.DATE, r.getDaysAdvance() * -1); // handle days in advance
+
+                    if (DateUtils.before(c.getTime(), now)) { // need to fire this reminder
+                        pendingList.add(new PendingReminder(r, DateUtils.trimDate(next)));
+                        next = ri.next();
+                    } else {
+                        next = null;
+                    }
+                }
+            }
+        }
+
+        return pendingList;
+    }
+
+    private static List<String> describe(final Collection<PendingReminder> pendingReminders) {
+        final List<String> list = new ArrayList<>();
+
+        for (final PendingReminder pending : pendingReminders) {
+            list.add(pending.getReminder().getUuid() + " " + pending.getCommitDate().getTime());
+        }
+
+        Collections.sort(list);
+
+        return list;
+    }
+
+    private void assertParity() {
+        final Date now = new Date();
+
+        assertEquals(describe(scanPendingReminders(e.getReminders(), now)), describe(e.getPendingReminders()));
+    }
+
+    @Test
+    public void testEnabledAndDisabled() {
+        final Reminder enabled = createReminder(new DailyReminder(), daysFromToday(-2));
+        final Reminder disabled = createReminder(new DailyReminder(), daysFromToday(-2));
+        disabled.setEnabled(false);
+
+        assertTrue(e.addReminder(enabled));
+        assertTrue(e.addReminder(disabled));
+
+        List<PendingReminder> pending = e.getPendingReminders();
+
+        assertEquals(3, pending.size());
+
+        for (final PendingReminder pendingReminder : pending) {
+            assertEquals(enabled, pendingReminder.getReminder());
+        }
+
+        enabled.setEnabled(false);
+        assertTrue(e.updateReminder(enabled));
+
+        assertTrue(e.getPendingReminders().isEmpty());
+
+        disabled.setEnabled(true);
+        assertTrue(e.updateReminder(disabled));
+
+        pending = e.getPendingReminders();
+
+        assertEquals(3, pending.size());
+
+        for (final PendingReminder pendingReminder : pending) {
+            assertEquals(disabled, pendingReminder.getReminder());
+        }
+
+        assertParity();
+    }
+
+    @Test
+    public void testDaysAdvance() {
+        final Reminder reminder = createReminder(new OneTimeReminder(), daysFromToday(3));
+
+        assertTrue(e.addReminder(reminder));
+        assertTrue(e.getPendingReminders().isEmpty());
+
+        reminder.setDaysAdvance(2);
+        assertTrue(e.updateReminder(reminder));
+        assertTrue(e.getPendingReminders().isEmpty());
+
+        reminder.setDaysAdvance(3);
+        assertTrue(e.updateReminder(reminder));
+
+        final List<PendingReminder> pending = e.getPendingReminders();
+
+        assertEquals(1, pending.size());
+        assertEquals(daysFromToday(3), pending.get(0).getCommitDate());
+
+        assertParity();
+    }
+
+    @Test
+    public void testUpdateAdvancesLastDate() {
+        final Reminder reminder = createReminder(new DailyReminder(), daysFromToday(-2));
+
+        assertTrue(e.addReminder(reminder));
+        assertEquals(3, e.getPendingReminders().size());
+
+        for (int i = 2; i > 0; i--) {
+            reminder.setLastDate();
+            assertTrue(e.updateReminder(reminder));
+
+            final List<PendingReminder> pending = e.getPendingReminders();
+
+            assertEquals(i, pending.size());
+            assertEquals(daysFromToday(1 - i), pending.get(0).getCommitDate());
+
+            assertParity();
+        }
+
+        reminder.setLastDate();
+        assertTrue(e.updateReminder(reminder));
+
+        assertTrue(e.getPendingReminders().isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        final Reminder reminder = createReminder(new DailyReminder(), daysFromToday(-1));
+
+        assertTrue(e.addReminder(reminder));
+        assertEquals(2, e.getPendingReminders().size());
+
+        assertTrue(e.removeReminder(reminder));
+        assertTrue(e.getPendingReminders().isEmpty());
+
+        assertParity();
+    }
+
+    @Test
+    public void testParity() {
+        final List<Reminder> reminders = new ArrayList<>();
+
+        for (int i = -40; i <= 40; i += 5) {
+            reminders.add(createReminder(new DailyReminder(), daysFromToday(i)));
+            reminders.add(createReminder(new WeeklyReminder(), daysFromToday(i)));
+            reminders.add(createReminder(new MonthlyReminder(), daysFromToday(i)));
+            reminders.add(createReminder(new OneTimeReminder(), daysFromToday(i)));
+        }
+
+        for (int i = 0; i < reminders.size(); i++) {
+            final Reminder reminder = reminders.get(i);
+
+            reminder.setDaysAdvance(i % 7);
+            reminder.setEnabled(i % 5 != 0);
+
+            if (i % 3 == 0) {
+                reminder.setEndDate(DateUtils.addDays(reminder.getStartDate(), 10));
+            }
+
+            assertTrue(e.addReminder(reminder));
+        }
+
+        assertParity();
+
+        // advance some of the reminders and check again
+        for (int i = 0; i < reminders.size(); i += 2) {
+            final Reminder reminder = reminders.get(i);
+
+            reminder.setLastDate();
+            assertTrue(e.updateReminder(reminder));
+        }
+
+        assertParity();
+
+        // reopen the file so the index is rebuilt from the stored reminders
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+        e = EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD);
+
+        assertParity();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+
+import jgnash.util.DateUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests which security price changes clear cached investment account balances and the upkeep of the security to
+ * account map
+ *
+ * @author Craig Cavanaugh
+ */
+public class SecurityBalanceInvalidationTest extends AbstractEngineTest {
+
+    @Override
+    protected Engine createEngine() throws Exception {
+        database = EngineFactory.getDefaultDatabase() + "-security-balance-test.xml";
+        EngineFactory.deleteDatabase(database);
+
+        return EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+    }
+
+    private void addPrice(final Date date, final String price) {
+        assertTrue(e.addSecurityHistory(securityNode1, new SecurityHistoryNode(date, new BigDecimal(price), 0, null,
+                null)));
+    }
+
+    @Test
+    public void testBackDatedPrice() {
+        final Date today = DateUtils.today();
+
+        addPrice(today, "10.00");
+
+        investAccount.getBalance();
+        assertTrue(investAccount.isBalanceCached());
+
+        // a newer price is present, so the cached balance is still valued with it
+        addPrice(DateUtils.addDays(today, -5), "5.00");
+        assertTrue(investAccount.isBalanceCached());
+
+        // the same is true of a range
+        assertTrue(e.addSecurityHistory(securityNode1, Collections.singletonList(
+                new SecurityHistoryNode(DateUtils.addDays(today, -6), new BigDecimal("6.00"), 0, null, null))));
+        assertTrue(investAccount.isBalanceCached());
+    }
+
+    @Test
+    public void testNewestPrice() {
+        final Date today = DateUtils.today();
+
+        addPrice(DateUtils.addDays(today, -5), "5.00");
+
+        investAccount.getBalance();
+        assertTrue(investAccount.isBalanceCached());
+
+        addPrice(today, "10.00");
+        assertFalse(investAccount.isBalanceCached());
+
+        // replacing the newest price also invalidates
+        investAccount.getBalance();
+        addPrice(today, "11.00");
+        assertFalse(investAccount.isBalanceCached());
+    }
+
+    @Test
+    public void testAccountRestructure() {
+        assertEquals(Collections.singleton(investAccount), e.getInvestmentAccountList(securityNode1));
+
+        final Account newInvestAccount = new Account(AccountType.INVEST, e.getDefaultCurrency());
+        newInvestAccount.setName("New Invest Account");
+        assertTrue(e.addAccount(e.getRootAccount(), newInvestAccount));
+
+        assertFalse(e.getInvestmentAccountList(securityNode1).contains(newInvestAccount));
+
+        assertTrue(e.updateAccountSecurities(newInvestAccount, Collections.singleton(securityNode1)));
+        assertTrue(e.getInvestmentAccountList(securityNode1).contains(newInvestAccount));
+
+        // the rebuilt map is used to clear balances
+        newInvestAccount.getBalance();
+        addPrice(DateUtils.today(), "10.00");
+        assertFalse(newInvestAccount.isBalanceCached());
+
+        assertTrue(e.updateAccountSecurities(investAccount, Collections.emptySet()));
+        assertEquals(Collections.singleton(newInvestAccount), e.getInvestmentAccountList(securityNode1));
+
+        assertTrue(e.removeAccount(newInvestAccount));
+        assertTrue(e.getInvestmentAccountList(securityNode1).isEmpty());
+    }
+}
@@ -20,7 +20,9 @@ package jgnash.engine;
 import java.math.BigDecimal;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -82,4 +84,34 @@ public class SecurityNodeTest extends AbstractEngineTest {
         assertTrue(e.addSecurityHistory(securityNode1, history));  // should be okay
         assertEquals(2, securityNode1.getHistoryNodes().size());
     }
+
+    @Test
+    public void TestBulkHistory() {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+
+        SecurityHistoryNode history = new SecurityHistoryNode();
+        history.setDate(format.parse("2009-12-26", new ParsePosition(0)));
+        history.setPrice(new BigDecimal("2.00"));
+
+        assertTrue(e.addSecurityHistory(securityNode1, history));
+
+        final List<SecurityHistoryNode> range = new ArrayList<>();
+
+        for (int i = 20; i <= 29; i++) {
+            history = new SecurityHistoryNode();
+            history.setDate(format.parse("2009-12-" + i, new ParsePosition(0)));
+            history.setPrice(new BigDecimal("3." + i));
+            range.add(history);
+        }
+
+        assertTrue(e.addSecurityHistory(securityNode1, range));  // should replace the 26th
+        assertEquals(10, securityNode1.getHistoryNodes().size());
+
+        assertEquals(new BigDecimal("3.26"),
+                securityNode1.getHistoryNode(format.parse("2009-12-26", new ParsePosition(0))).get().getPrice());
+
+        // history remains sorted
+        assertEquals(new BigDecimal("3.20"), securityNode1.getHistoryNodes().get(0).getPrice());
+        assertEquals(new BigDecimal("3.29"), securityNode1.getHistoryNodes().get(9).getPrice());
+    }
 }
@@ -0,0 +1,395 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.attachment;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.crypto.Mac;
+
+import jgnash.engine.AttachmentUtils;
+import jgnash.util.EncryptionManager;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.Test;
+
+import static javax.xml.bind.DatatypeConverter.printHexBinary;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the attachment transfer framing and stream encryption
+ *
+ * @author Craig Cavanaugh
+ */
+public class TransferFrameCodecTest {
+
+    private static final String FILE_NAME = "test.txt";
+
+    private static final byte[] CONTENT = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testControlFrame() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new TransferFrameCodec());
+
+        assertTrue(channel.writeOutbound(NettyTransferHandler.DELETE + FILE_NAME));
+
+        final ByteBuf encoded = readOutbound(channel);
+
+        // deliver the frame a few bytes at a time
+        while (encoded.isReadable()) {
+            channel.writeInbound(encoded.readBytes(Math.min(3, encoded.readableBytes())));
+        }
+
+        encoded.release();
+
+        assertEquals(NettyTransferHandler.DELETE + FILE_NAME, channel.readInbound());
+        assertEquals(null, channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFileSplitAcrossReads() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new TransferFrameCodec());
+
+        final ByteBuf stream = fileStream(CONTENT, "<FILE_ENDS>" + FILE_NAME + ":0");
+
+        // split within the header, within the content, and across the end of the content and the trailer
+        final int header = stream.readableBytes() - CONTENT.length - trailerLength("<FILE_ENDS>" + FILE_NAME + ":0");
+        final int[] splits = new int[]{5, header + 3, header + CONTENT.length + 2, stream.readableBytes()};
+
+        int position = 0;
+
+        for (final int split : splits) {
+            channel.writeInbound(stream.readBytes(split - position));
+            position = split;
+        }
+
+        stream.release();
+
+        final List<Object> messages = readInbound(channel);
+
+        assertEquals(NettyTransferHandler.FILE_STARTS + FILE_NAME + ':' + CONTENT.length, messages.get(0));
+        assertArrayEquals(CONTENT, (byte[]) messages.get(1));
+        assertEquals("<FILE_ENDS>" + FILE_NAME + ":0", messages.get(2));
+        assertEquals(3, messages.size());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testZeroLengthFile() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new TransferFrameCodec());
+
+        channel.writeInbound(fileStream(new byte[0], NettyTransferHandler.DELETE + FILE_NAME));
+
+        final List<Object> messages = readInbound(channel);
+
+        assertEquals(NettyTransferHandler.FILE_STARTS + FILE_NAME + ":0", messages.get(0));
+        assertEquals(NettyTransferHandler.DELETE + FILE_NAME, messages.get(1));   // not consumed as file content
+        assertEquals(2, messages.size());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testReceivedFile() throws Exception {
+        final Path directory = Files.createTempDirectory("jgnash-transfer");
+
+        try {
+            final AtomicReference<Boolean> valid = new AtomicReference<>();
+
+            final NettyTransferHandler handler = new NettyTransferHandler(directory);
+            handler.setTransferListener((path, v) -> valid.set(v));
+
+            final EmbeddedChannel channel = new EmbeddedChannel(new TransferFrameCodec(), handler);
+
+            channel.writeInbound(fileStream(CONTENT, "<FILE_ENDS>" + FILE_NAME + ':' + digest(CONTENT)));
+
+            assertTrue(valid.get());
+            assertArrayEquals(CONTENT, Files.readAllBytes(directory.resolve(FILE_NAME)));
+            assertEquals(CONTENT.length, handler.getBytesReceived());
+
+            channel.finish();
+        } finally {
+            Files.deleteIfExists(directory.resolve(FILE_NAME));
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testDigestMismatch() throws Exception {
+        final Path directory = Files.createTempDirectory("jgnash-transfer");
+
+        try {
+            final AtomicReference<Boolean> valid = new AtomicReference<>();
+
+            final NettyTransferHandler handler = new NettyTransferHandler(directory);
+            handler.setTransferListener((path, v) -> valid.set(v));
+
+            final EmbeddedChannel channel = new EmbeddedChannel(new TransferFrameCodec(), handler);
+
+            channel.writeInbound(fileStream(CONTENT, "<FILE_ENDS>" + FILE_NAME + ':' + digest(new byte[]{1, 2, 3})));
+
+            assertNotNull(valid.get());
+            assertFalse(valid.get());
+            assertFalse(Files.exists(directory.resolve(FILE_NAME)));
+
+            channel.finish();
+        } finally {
+            Files.deleteIfExists(directory.resolve(FILE_NAME));
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testAuthenticatedFile() throws Exception {
+        final EncryptionManager encryptionManager = new EncryptionManager("password".toCharArray());
+
+        assertTrue(receive(encryptionManager, CONTENT, mac(encryptionManager, FILE_NAME, CONTENT)));
+    }
+
+    @Test
+    public void testTamperedAuthenticatedFile() throws Exception {
+        final EncryptionManager encryptionManager = new EncryptionManager("password".toCharArray());
+
+        final byte[] tampered = CONTENT.clone();
+        tampered[4] ^= 0x01;    // a bit flipped in transit through the stream cipher
+
+        // a plain digest can be recomputed by whoever altered the content
+        assertFalse(receive(encryptionManager, tampered, digest(tampered)));
+
+        // an HMAC computed with another password
+        assertFalse(receive(encryptionManager, tampered,
+                mac(new EncryptionManager("other".toCharArray()), FILE_NAME, tampered)));
+
+        // an HMAC for another file name
+        assertFalse(receive(encryptionManager, CONTENT, mac(encryptionManager, "other.txt", CONTENT)));
+    }
+
+    @Test
+    public void testContainsQuery() throws Exception {
+        final Path directory = Files.createTempDirectory("jgnash-transfer");
+        final Path file = directory.resolve(FILE_NAME);
+
+        Files.write(file, CONTENT);
+
+        final String contentName = AttachmentUtils.getContentName(file);
+        final String missingName = contentName.replace(contentName.charAt(0), contentName.charAt(0) == 'a' ? 'b' : 'a');
+
+        try {
+            Files.move(file, directory.resolve(contentName));
+
+            final NettyTransferHandler clientHandler = new NettyTransferHandler(directory);
+            final EmbeddedChannel client = new EmbeddedChannel(new TransferFrameCodec(), clientHandler);
+            final EmbeddedChannel server = new EmbeddedChannel(new TransferFrameCodec(),
+                    new NettyTransferHandler(directory));
+
+            final CompletableFuture<Boolean> present = clientHandler.requestContains(client, contentName);
+            final CompletableFuture<Boolean> missing = clientHandler.requestContains(client, missingName);
+
+            server.writeInbound(readOutbound(client));
+
+            // the server answers from another thread once the content has been verified
+            final ByteBuf answers = Unpooled.buffer();
+            final long start = System.currentTimeMillis();
+
+            final int answerLength = trailerLength(NettyTransferHandler.CONTAINS + contentName + ":true")
+                    + trailerLength(NettyTransferHandler.CONTAINS + missingName + ":false");
+
+            while (answers.readableBytes() < answerLength && System.currentTimeMillis() - start < 5000) {
+                server.runPendingTasks();
+                answers.writeBytes(readOutbound(server));
+                Thread.sleep(10);
+            }
+
+            client.writeInbound(answers);
+
+            assertTrue(present.get(0, TimeUnit.MILLISECONDS));
+            assertFalse(missing.get(0, TimeUnit.MILLISECONDS));
+
+            client.finish();
+            server.finish();
+        } finally {
+            Files.deleteIfExists(directory.resolve(contentName));
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Delivers a file to a handler for an encrypted channel
+     *
+     * @return {@code true} if the handler accepted the file
+     */
+    private static boolean receive(final EncryptionManager encryptionManager, final byte[] content,
+                                   final String digest) throws Exception {
+        final Path directory = Files.createTempDirectory("jgnash-transfer");
+
+        try {
+            final AtomicReference<Boolean> valid = new AtomicReference<>();
+
+            final NettyTransferHandler handler = new NettyTransferHandler(directory, encryptionManager);
+            handler.setTransferListener((path, v) -> valid.set(v));
+
+            final EmbeddedChannel channel = new EmbeddedChannel(new TransferFrameCodec(), handler);
+
+            channel.writeInbound(fileStream(content, "<FILE_ENDS>" + FILE_NAME + ':' + digest));
+            channel.finish();
+
+            assertNotNull(valid.get());
+            assertEquals(valid.get(), Files.exists(directory.resolve(FILE_NAME)));
+
+            return valid.get();
+        } finally {
+            Files.deleteIfExists(directory.resolve(FILE_NAME));
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testEncryptedFile() {
+        final EncryptionManager encryptionManager = new EncryptionManager("password".toCharArray());
+
+        final EmbeddedChannel sender = new EmbeddedChannel(new StreamCipherHandler(encryptionManager),
+                new TransferFrameCodec());
+
+        final EmbeddedChannel receiver = new EmbeddedChannel(new StreamCipherHandler(encryptionManager),
+                new TransferFrameCodec());
+
+        assertTrue(sender.writeOutbound(TransferFrameCodec.encodeFileHeader(UnpooledByteBufAllocator.DEFAULT,
+                FILE_NAME, CONTENT.length)));
+        assertTrue(sender.writeOutbound(Unpooled.wrappedBuffer(CONTENT)));
+        assertTrue(sender.writeOutbound(NettyTransferHandler.DELETE + FILE_NAME));
+
+        final ByteBuf encrypted = readOutbound(sender);
+
+        // the content is not sent in the clear
+        final byte[] bytes = new byte[encrypted.readableBytes()];
+        encrypted.getBytes(encrypted.readerIndex(), bytes);
+        assertFalse(new String(bytes, StandardCharsets.ISO_8859_1).contains(new String(CONTENT, StandardCharsets.ISO_8859_1)));
+
+        // split within the initialization vector and then at arbitrary points
+        while (encrypted.isReadable()) {
+            receiver.writeInbound(encrypted.readBytes(Math.min(7, encrypted.readableBytes())));
+        }
+
+        encrypted.release();
+
+        final List<Object> messages = readInbound(receiver);
+
+        assertEquals(NettyTransferHandler.FILE_STARTS + FILE_NAME + ':' + CONTENT.length, messages.get(0));
+        assertArrayEquals(CONTENT, (byte[]) messages.get(1));
+        assertEquals(NettyTransferHandler.DELETE + FILE_NAME, messages.get(2));
+        assertEquals(3, messages.size());
+
+        assertFalse(sender.finish());
+        assertFalse(receiver.finish());
+    }
+
+    /**
+     * Builds a file header, the content and a trailing control frame
+     */
+    private static ByteBuf fileStream(final byte[] content, final String trailer) {
+        final EmbeddedChannel encoder = new EmbeddedChannel(new TransferFrameCodec());
+        encoder.writeOutbound(trailer);
+
+        final ByteBuf stream = TransferFrameCodec.encodeFileHeader(UnpooledByteBufAllocator.DEFAULT, FILE_NAME,
+                content.length);
+
+        stream.writeBytes(content);
+
+        final ByteBuf encodedTrailer = readOutbound(encoder);
+        stream.writeBytes(encodedTrailer);
+        encodedTrailer.release();
+
+        return stream;
+    }
+
+    private static int trailerLength(final String trailer) {
+        return 1 + Integer.BYTES + trailer.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static ByteBuf readOutbound(final EmbeddedChannel channel) {
+        final ByteBuf all = Unpooled.buffer();
+
+        Object msg;
+
+        while ((msg = channel.readOutbound()) != null) {
+            final ByteBuf buf = (ByteBuf) msg;
+            all.writeBytes(buf);
+            buf.release();
+        }
+
+        return all;
+    }
+
+    /**
+     * Reads the decoded messages, joining consecutive file chunks into a single byte array
+     */
+    private static List<Object> readInbound(final EmbeddedChannel channel) {
+        final List<Object> messages = new ArrayList<>();
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        Object msg;
+
+        while ((msg = channel.readInbound()) != null) {
+            if (msg instanceof TransferFrameCodec.FileChunk) {
+                final TransferFrameCodec.FileChunk chunk = (TransferFrameCodec.FileChunk) msg;
+                final byte[] bytes = new byte[chunk.content().readableBytes()];
+
+                chunk.content().readBytes(bytes);
+                chunk.release();
+
+                content.write(bytes, 0, bytes.length);
+            } else {
+                if (content.size() > 0) {
+                    messages.add(content.toByteArray());
+                    content.reset();
+                }
+                messages.add(msg);
+            }
+        }
+
+        return messages;
+    }
+
+    private static String mac(final EncryptionManager encryptionManager, final String fileName,
+                              final byte[] bytes) throws Exception {
+        final Mac mac = encryptionManager.getMac();
+        mac.update(fileName.getBytes(StandardCharsets.UTF_8));
+
+        return printHexBinary(mac.doFinal(bytes));
+    }
+
+    private static String digest(final byte[] bytes) throws Exception {
+        return printHexBinary(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.jpa;
+
+import java.io.CharArrayWriter;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jgnash.engine.AbstractEngineTest;
+import jgnash.engine.DataStoreType;
+import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
+import jgnash.engine.StoredObject;
+import jgnash.engine.Transaction;
+import jgnash.engine.TransactionFactory;
+import jgnash.engine.message.ChannelEvent;
+import jgnash.engine.message.Message;
+import jgnash.engine.message.MessageChannel;
+import jgnash.engine.message.MessageProperty;
+import jgnash.engine.xstream.DeltaArchive;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.CompactWriter;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests tracking remote changes and restoring a full backup followed by its incremental backups
+ *
+ * @author Craig Cavanaugh
+ */
+public class IncrementalBackupTest extends AbstractEngineTest {
+
+    private static final String RESTORED_ENGINE = "restored";
+
+    private Path directory;
+
+    @Override
+    protected Engine createEngine() throws Exception {
+        directory = Files.createTempDirectory("jgnash-incremental-backup");
+        database = directory.resolve("incremental-backup-test.xml").toString();
+
+        return EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.XML);
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        EngineFactory.closeEngine(RESTORED_ENGINE);
+
+        super.tearDown();
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Serializes a message the same way a remote client does before sending it to the server
+     */
+    private String toXML(final MessageChannel channel, final ChannelEvent event, final Transaction transaction) {
+        final XStream xstream = new XStream(new StaxDriver());
+        xstream.alias("Message", Message.class);
+        xstream.alias("MessageProperty", MessageProperty.class);
+
+        final Message message = new Message(channel, event, e);
+
+        if (transaction != null) {
+            message.setObject(MessageProperty.TRANSACTION, transaction);
+        }
+
+        final CharArrayWriter writer = new CharArrayWriter();
+        xstream.marshal(message, new CompactWriter(writer));
+
+        return writer.toString();
+    }
+
+    private Transaction addTransaction(final IncrementalBackupTracker tracker, final String payee) {
+        final Transaction transaction = TransactionFactory.generateDoubleEntryTransaction(usdBankAccount,
+                expenseAccount, new BigDecimal("10.00"), new Date(), "memo", payee, "");
+
+        assertTrue(e.addTransaction(transaction));
+
+        if (tracker != null) {
+            tracker.messagePosted(toXML(MessageChannel.TRANSACTION, ChannelEvent.TRANSACTION_ADD, transaction));
+        }
+
+        return transaction;
+    }
+
+    private void removeTransaction(final IncrementalBackupTracker tracker, final Transaction transaction) {
+        assertTrue(e.removeTransaction(transaction));
+
+        tracker.messagePosted(toXML(MessageChannel.TRANSACTION, ChannelEvent.TRANSACTION_REMOVE, transaction));
+    }
+
+    private static boolean writeDelta(final File backupFile, final int sequence,
+                                      final IncrementalBackupTracker.Changes changes, final Engine engine) {
+        final List<Transaction> added = new ArrayList<>();
+
+        for (final String uuid : changes.added) {
+            added.add(engine.getStoredObjectByUuid(Transaction.class, uuid));
+        }
+
+        return DeltaArchive.writeDelta(EngineFactory.getIncrementalBackupFile(backupFile, sequence),
+                backupFile.getName(), sequence, added, changes.removed);
+    }
+
+    @Test
+    public void testTrackChanges() {
+        final IncrementalBackupTracker tracker = new IncrementalBackupTracker();
+
+        tracker.messagePosted(toXML(MessageChannel.SYSTEM, ChannelEvent.FILE_LOAD_SUCCESS, null));
+        assertFalse(tracker.hasChanges());
+
+        final Transaction first = addTransaction(tracker, "first");
+        final Transaction second = addTransaction(tracker, "second");
+
+        // an add and remove between backups cancel out
+        removeTransaction(tracker, second);
+
+        assertTrue(tracker.hasChanges());
+        assertFalse(tracker.isFullBackupRequired());
+
+        IncrementalBackupTracker.Changes changes = tracker.drainChanges();
+
+        assertEquals(new HashSet<>(Arrays.asList(first.getUuid())), changes.added);
+        assertTrue(changes.removed.isEmpty());
+        assertFalse(tracker.hasChanges());
+
+        removeTransaction(tracker, first);
+
+        changes = tracker.drainChanges();
+
+        assertTrue(changes.added.isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList(first.getUuid())), changes.removed);
+
+        // changes to anything other than transactions require a full backup
+        tracker.messagePosted(toXML(MessageChannel.ACCOUNT, ChannelEvent.ACCOUNT_MODIFY, null));
+
+        assertTrue(tracker.isFullBackupRequired());
+        assertTrue(tracker.drainChanges().fullBackupRequired);
+
+        // unreadable messages are not silently ignored
+        tracker.messagePosted("<Message");
+        assertTrue(tracker.isFullBackupRequired());
+    }
+
+    @Test
+    public void testRestoreIncrementalBackups() throws Exception {
+        final Transaction removedBeforeDelta = addTransaction(null, "removed");
+        final Transaction kept = addTransaction(null, "kept");
+
+        final List<StoredObject> objects = new ArrayList<>(e.getStoredObjects());
+        final File backupFile = EngineFactory.exportCompressedXML(database, objects);
+
+        assertTrue(backupFile.exists());
+
+        final IncrementalBackupTracker tracker = new IncrementalBackupTracker();
+
+        // first delta adds two transactions and removes one captured by the full backup
+        final Transaction firstDelta = addTransaction(tracker, "first delta");
+        final Transaction removedInSecondDelta = addTransaction(tracker, "removed in second delta");
+        removeTransaction(tracker, removedBeforeDelta);
+
+        assertTrue(writeDelta(backupFile, 1, tracker.drainChanges(), e));
+
+        // second delta adds a transaction and removes one added by the first delta
+        final Transaction secondDelta = addTransaction(tracker, "second delta");
+        removeTransaction(tracker, removedInSecondDelta);
+
+        assertTrue(writeDelta(backupFile, 2, tracker.drainChanges(), e));
+
+        assertEquals(2, EngineFactory.getIncrementalBackupFiles(backupFile).size());
+
+        final Set<String> expected = e.getTransactions().stream().map(Transaction::getUuid)
+                .collect(Collectors.toSet());
+
+        assertEquals(new HashSet<>(Arrays.asList(kept.getUuid(), firstDelta.getUuid(), secondDelta.getUuid())),
+                expected);
+
+        // restore the chain and compare the result against the live engine
+        final File restoredFile = directory.resolve("restored.xml").toFile();
+
+        assertTrue(EngineFactory.restoreCompressedXML(backupFile, restoredFile));
+
+        final Engine restored = EngineFactory.bootLocalEngine(restoredFile.getAbsolutePath(), RESTORED_ENGINE,
+                PASSWORD, DataStoreType.XML);
+
+        assertNotNull(restored);
+
+        assertEquals(expected, restored.getTransactions().stream().map(Transaction::getUuid)
+                .collect(Collectors.toSet()));
+
+        final Transaction restoredTransaction = restored.getStoredObjectByUuid(Transaction.class,
+                secondDelta.getUuid());
+
+        assertEquals("second delta", restoredTransaction.getPayee());
+        assertEquals(secondDelta.getAmount(usdBankAccount),
+                restoredTransaction.getAmount(restored.getStoredObjectByUuid(usdBankAccount.getClass(),
+                        usdBankAccount.getUuid())));
+
+        assertEquals(usdBankAccount.getBalance(), restored.getStoredObjectByUuid(usdBankAccount.getClass(),
+                usdBankAccount.getUuid()).getBalance());
+    }
+}
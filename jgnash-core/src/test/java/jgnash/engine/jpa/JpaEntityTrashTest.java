@@ -0,0 +1,108 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.jpa;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import jgnash.engine.AbstractEngineTest;
+import jgnash.engine.DataStoreType;
+import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
+import jgnash.engine.SecurityHistoryNode;
+import jgnash.util.DateUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that replaced {@code SecurityHistoryNode}s end up in the JPA entity trash
+ *
+ * @author Craig Cavanaugh
+ */
+public class JpaEntityTrashTest extends AbstractEngineTest {
+
+    @Override
+    protected Engine createEngine() throws Exception {
+        database = Files.createTempFile("jpa-trash-test", "." + JpaH2DataStore.FILE_EXT).toString();
+
+        EngineFactory.deleteDatabase(database);
+
+        return EngineFactory.bootLocalEngine(database, EngineFactory.DEFAULT, PASSWORD, DataStoreType.H2_DATABASE);
+    }
+
+    @Test
+    public void testBulkHistoryReplace() throws Exception {
+        final Date today = DateUtils.today();
+
+        assertTrue(e.addSecurityHistory(securityNode1, buildHistory(today, 3, "1.0")));
+        assertEquals(3, securityNode1.getHistoryNodes().size());
+
+        // replaces two of the three existing nodes
+        assertTrue(e.addSecurityHistory(securityNode1, buildHistory(today, 2, "2.0")));
+        assertEquals(3, securityNode1.getHistoryNodes().size());
+
+        EngineFactory.closeEngine(EngineFactory.DEFAULT);
+
+        assertEquals(2, getEntityTrashCount());
+    }
+
+    private static List<SecurityHistoryNode> buildHistory(final Date date, final int count, final String pricePrefix) {
+        final List<SecurityHistoryNode> history = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            history.add(new SecurityHistoryNode(DateUtils.addDays(date, -i), new BigDecimal(pricePrefix + i), 0,
+                    null, null));
+        }
+
+        return history;
+    }
+
+    private int getEntityTrashCount() throws SQLException {
+        final String url = JpaConfiguration.getLocalProperties(DataStoreType.H2_DATABASE, database, PASSWORD, false)
+                .getProperty(JpaConfiguration.JAVAX_PERSISTENCE_JDBC_URL);
+
+        final int count;
+
+        try (final Connection connection = DriverManager.getConnection(url)) {
+            try (final Statement statement = connection.createStatement();
+                 final ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM JPATRASHENTITY")) {
+                resultSet.next();
+                count = resultSet.getInt(1);
+            }
+
+            // must issue a shutdown for correct file closure
+            try (final PreparedStatement statement = connection.prepareStatement("SHUTDOWN")) {
+                statement.execute();
+            }
+        }
+
+        return count;
+    }
+}
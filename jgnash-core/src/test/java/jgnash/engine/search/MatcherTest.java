@@ -0,0 +1,136 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.search;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import jgnash.engine.Account;
+import jgnash.engine.AccountType;
+import jgnash.engine.CurrencyNode;
+import jgnash.engine.DefaultCurrencies;
+import jgnash.engine.ReconciledState;
+import jgnash.engine.Transaction;
+import jgnash.engine.TransactionFactory;
+import jgnash.util.DateUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the typed search matchers
+ *
+ * @author Craig Cavanaugh
+ */
+public class MatcherTest {
+
+    private Account bankAccount;
+
+    private Account expenseAccount;
+
+    private Account otherAccount;
+
+    private Date date;
+
+    private Transaction transaction;
+
+    @Before
+    public void setUp() {
+        final CurrencyNode node = DefaultCurrencies.buildCustomNode("USD");
+
+        bankAccount = new Account(AccountType.BANK, node);
+        expenseAccount = new Account(AccountType.EXPENSE, node);
+        otherAccount = new Account(AccountType.BANK, node);
+
+        date = DateUtils.today();
+
+        transaction = TransactionFactory.generateDoubleEntryTransaction(expenseAccount, bankAccount,
+                new BigDecimal("25.00"), date, "memo", "payee", "1");
+    }
+
+    @Test
+    public void testAccountMatcher() {
+        assertTrue(new AccountMatcher(Collections.singletonList(bankAccount)).matches(transaction));
+        assertTrue(new AccountMatcher(Arrays.asList(otherAccount, expenseAccount)).matches(transaction));
+        assertFalse(new AccountMatcher(Collections.singletonList(otherAccount)).matches(transaction));
+        assertFalse(new AccountMatcher(Collections.<Account>emptyList()).matches(transaction));
+    }
+
+    @Test
+    public void testAmountMatcher() {
+
+        // inclusive limits
+        assertTrue(new AmountMatcher(new BigDecimal("25.00"), new BigDecimal("25.00"), bankAccount)
+                .matches(transaction));
+        assertTrue(new AmountMatcher(new BigDecimal("10"), new BigDecimal("25"), bankAccount).matches(transaction));
+        assertTrue(new AmountMatcher(new BigDecimal("25"), new BigDecimal("30"), expenseAccount).matches(transaction));
+
+        // the direction of the transaction and the sign of the limits do not matter
+        assertTrue(new AmountMatcher(new BigDecimal("-20"), new BigDecimal("-30"), bankAccount).matches(transaction));
+
+        assertFalse(new AmountMatcher(new BigDecimal("25.01"), new BigDecimal("30"), bankAccount)
+                .matches(transaction));
+        assertFalse(new AmountMatcher(new BigDecimal("10"), new BigDecimal("24.99"), bankAccount)
+                .matches(transaction));
+
+        // the common account is used when an account is not supplied
+        final Transaction single = TransactionFactory.generateSingleEntryTransaction(bankAccount,
+                new BigDecimal("-5.00"), date, "memo", "payee", "2");
+
+        assertTrue(new AmountMatcher(new BigDecimal("5"), new BigDecimal("5")).matches(single));
+        assertFalse(new AmountMatcher(new BigDecimal("6"), new BigDecimal("10")).matches(single));
+    }
+
+    @Test
+    public void testDateMatcher() {
+        final Date yesterday = DateUtils.addDays(date, -1);
+        final Date tomorrow = DateUtils.addDays(date, 1);
+
+        // inclusive limits
+        assertTrue(new DateMatcher(date, date).matches(transaction));
+        assertTrue(new DateMatcher(yesterday, date).matches(transaction));
+        assertTrue(new DateMatcher(date, tomorrow).matches(transaction));
+
+        // times of day are ignored
+        assertTrue(new DateMatcher(new Date(date.getTime() + 3600000), new Date(date.getTime() + 7200000))
+                .matches(transaction));
+
+        assertFalse(new DateMatcher(DateUtils.addDays(date, -2), yesterday).matches(transaction));
+        assertFalse(new DateMatcher(tomorrow, DateUtils.addDays(date, 2)).matches(transaction));
+    }
+
+    @Test
+    public void testReconciledMatcher() {
+        transaction.setReconciled(bankAccount, ReconciledState.RECONCILED);
+        transaction.setReconciled(expenseAccount, ReconciledState.NOT_RECONCILED);
+
+        assertTrue(new ReconciledMatcher(ReconciledState.RECONCILED, bankAccount).matches(transaction));
+        assertFalse(new ReconciledMatcher(ReconciledState.RECONCILED, expenseAccount).matches(transaction));
+        assertTrue(new ReconciledMatcher(ReconciledState.NOT_RECONCILED, expenseAccount).matches(transaction));
+
+        // any side of the transaction
+        assertTrue(new ReconciledMatcher(ReconciledState.RECONCILED).matches(transaction));
+        assertTrue(new ReconciledMatcher(ReconciledState.NOT_RECONCILED).matches(transaction));
+        assertFalse(new ReconciledMatcher(ReconciledState.CLEARED).matches(transaction));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.engine.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jgnash.engine.Account;
+import jgnash.engine.AccountType;
+import jgnash.engine.CurrencyNode;
+import jgnash.engine.DefaultCurrencies;
+import jgnash.engine.Transaction;
+import jgnash.engine.TransactionFactory;
+import jgnash.util.DateUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the ALL and ANY criteria of a search
+ *
+ * @author Craig Cavanaugh
+ */
+public class SearchDefinitionTest {
+
+    private Account bankAccount;
+
+    private Date date;
+
+    private Transaction transaction;
+
+    private final Matcher alwaysMatches = new Matcher() {
+        @Override
+        public boolean matches(final Transaction t) {
+            return true;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        final CurrencyNode node = DefaultCurrencies.buildCustomNode("USD");
+
+        bankAccount = new Account(AccountType.BANK, node);
+        date = DateUtils.today();
+
+        transaction = TransactionFactory.generateSingleEntryTransaction(bankAccount, new BigDecimal("10.00"), date,
+                "memo", "payee", "1");
+    }
+
+    private Matcher dateMatcher(final boolean match) {
+        return match ? new DateMatcher(date, date)
+                : new DateMatcher(DateUtils.addDays(date, 1), DateUtils.addDays(date, 2));
+    }
+
+    private Matcher payeeMatcher(final boolean match) {
+        return new PayeeMatcher(match ? "pay*" : "other", false);
+    }
+
+    @Test
+    public void testAll() {
+        assertTrue(new SearchDefinition(SearchDefinition.Criteria.ALL,
+                Arrays.asList(payeeMatcher(true), dateMatcher(true))).matches(transaction));
+
+        // a single failing matcher must fail the search wherever it is in the list
+        assertFalse(new SearchDefinition(SearchDefinition.Criteria.ALL,
+                Arrays.asList(payeeMatcher(false), dateMatcher(true))).matches(transaction));
+        assertFalse(new SearchDefinition(SearchDefinition.Criteria.ALL,
+                Arrays.asList(payeeMatcher(true), dateMatcher(false))).matches(transaction));
+        assertFalse(new SearchDefinition(SearchDefinition.Criteria.ALL,
+                Arrays.asList(payeeMatcher(false), dateMatcher(false))).matches(transaction));
+    }
+
+    @Test
+    public void testAny() {
+        assertTrue(new SearchDefinition(SearchDefinition.Criteria.ANY,
+                Arrays.asList(payeeMatcher(true), dateMatcher(true))).matches(transaction));
+        assertTrue(new SearchDefinition(SearchDefinition.Criteria.ANY,
+                Arrays.asList(payeeMatcher(false), dateMatcher(true))).matches(transaction));
+        assertTrue(new SearchDefinition(SearchDefinition.Criteria.ANY,
+                Arrays.asList(payeeMatcher(true), dateMatcher(false))).matches(transaction));
+        assertFalse(new SearchDefinition(SearchDefinition.Criteria.ANY,
+                Arrays.asList(payeeMatcher(false), dateMatcher(false))).matches(transaction));
+    }
+
+    @Test
+    public void testCostOrdering() {
+        final AtomicInteger evaluations = new AtomicInteger();
+
+        final Matcher expensive = new Matcher() {
+            @Override
+            public boolean matches(final Transaction t) {
+                evaluations.incrementAndGet();
+                return true;
+            }
+
+            @Override
+            public int getCost() {
+                return COST_REGEX * 10;
+            }
+        };
+
+        // the cheap date matcher is evaluated first and short circuits the expensive matcher
+        assertFalse(new SearchDefinition(SearchDefinition.Criteria.ALL,
+                Arrays.asList(expensive, dateMatcher(false))).matches(transaction));
+        assertEquals(0, evaluations.get());
+
+        assertTrue(new SearchDefinition(SearchDefinition.Criteria.ANY,
+                Arrays.asList(expensive, dateMatcher(true))).matches(transaction));
+        assertEquals(0, evaluations.get());
+
+        assertTrue(new SearchDefinition(SearchDefinition.Criteria.ALL,
+                Arrays.asList(expensive, dateMatcher(true))).matches(transaction));
+        assertEquals(1, evaluations.get());
+    }
+
+    @Test
+    public void testMatchesParallel() {
+        final List<Transaction> transactions = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            transactions.add(TransactionFactory.generateSingleEntryTransaction(bankAccount, new BigDecimal(i),
+                    DateUtils.addDays(date, -(i % 100)), "memo", i % 2 == 0 ? "even" : "odd", Integer.toString(i)));
+        }
+
+        Collections.shuffle(transactions);
+
+        final SearchDefinition search = new SearchDefinition(SearchDefinition.Criteria.ALL,
+                Arrays.asList(new PayeeMatcher("even", false), new AmountMatcher(new BigDecimal(100),
+                        new BigDecimal(599)), alwaysMatches));
+
+        final List<Transaction> results = search.matchesParallel(transactions);
+
+        assertEquals(250, results.size());
+        assertEquals(search.matches(transactions), new HashSet<>(results));
+
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).compareTo(results.get(i)) <= 0);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * jGnash, a personal finance application
+ * Copyright (C) 2001-2015 Craig Cavanaugh
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jgnash.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import jgnash.engine.SecurityHistoryNode;
+import jgnash.net.security.YahooParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for the update scheduler and batched quote requests
+ *
+ * @author Craig Cavanaugh
+ */
+public class UpdateSchedulerTest {
+
+    private HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile String query;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+        // fails the first request with a service unavailable response
+        server.createContext("/quotes.csv", exchange -> {
+            query = exchange.getRequestURI().getQuery();
+
+            final byte[] response = ("\"AMD\",2.50,\"10/12/2012\",\"4:00pm\",-0.05,2.55,2.60,2.45,1000\n"
+                    + "\"INTC\",21.00,\"10/12/2012\",\"4:00pm\",0.10,20.90,21.10,20.80,N/A\n"
+                    + "\"NONE\",N/A,\"N/A\",\"N/A\",N/A,N/A,N/A,N/A,N/A\n").getBytes(StandardCharsets.UTF_8);
+
+            if (requests.incrementAndGet() == 1) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                exchange.sendResponseHeaders(200, response.length);
+
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+            }
+            exchange.close();
+        });
+
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testBatchRequestWithRetry() throws Exception {
+        final YahooParser parser = new YahooParser() {
+            @Override
+            protected String getBaseURL() {
+                return "http://localhost:" + server.getAddress().getPort() + "/quotes.csv?s=";
+            }
+        };
+
+        final UpdateScheduler scheduler = new UpdateScheduler(2, 10, 3, 10);
+
+        try {
+            final Future<Map<String, SecurityHistoryNode>> future = scheduler.submit("localhost",
+                    () -> parser.parse(Arrays.asList("AMD", "INTC", "NONE")));
+
+            final Map<String, SecurityHistoryNode> quotes = future.get(1, TimeUnit.MINUTES);
+
+            assertEquals(2, requests.get());
+            assertTrue(query.startsWith("s=AMD+INTC+NONE"));
+
+            assertEquals(2, quotes.size());
+            assertEquals(0, new BigDecimal("2.50").compareTo(quotes.get("AMD").getPrice()));
+            assertEquals(1000, quotes.get("AMD").getVolume());
+            assertEquals(0, new BigDecimal("21.00").compareTo(quotes.get("INTC").getPrice()));
+            assertEquals(0, quotes.get("INTC").getVolume());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHostInterval() throws Exception {
+        final UpdateScheduler scheduler = new UpdateScheduler(4, 100, 1, 0);
+
+        try {
+            final long start = System.nanoTime();
+
+            final Future<?>[] futures = new Future<?>[3];
+
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = scheduler.submit("localhost", () -> null);
+            }
+
+            for (final Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+
+            // the third request may not start until two intervals have passed
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+}
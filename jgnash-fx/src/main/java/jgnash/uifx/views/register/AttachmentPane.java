@@ -128,8 +128,10 @@ public class AttachmentPane extends GridPane {
     Transaction buildTransaction(final Transaction transaction) {
         if (attachmentProperty.get() != null) {
             if (moveAttachment) {
-                if (moveAttachment()) {
-                    transaction.setAttachment(attachmentProperty.get().getFileName().toString());
+                final String attachmentName = moveAttachment();
+
+                if (attachmentName != null) {
+                    transaction.setAttachment(attachmentName);
                 } else {
                     transaction.setAttachment(null);
 
@@ -146,11 +148,11 @@ public class AttachmentPane extends GridPane {
         return transaction;
     }
 
-    private boolean moveAttachment() {
+    private String moveAttachment() {
         final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
         Objects.requireNonNull(engine);
 
-        return engine.addAttachment(attachmentProperty.get(), false);
+        return engine.storeAttachment(attachmentProperty.get(), false);
     }
 
     void showImageAction() {
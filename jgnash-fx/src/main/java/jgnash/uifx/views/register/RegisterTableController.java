@@ -17,9 +17,13 @@
  */
 package jgnash.uifx.views.register;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
@@ -40,8 +44,11 @@ import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.TableRow;
 import javafx.scene.control.TableView;
 import javafx.util.Callback;
+import javafx.util.Duration;
 
 import jgnash.engine.Account;
+import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
 import jgnash.engine.ReconciledState;
 import jgnash.engine.Transaction;
 import jgnash.engine.message.Message;
@@ -60,6 +67,11 @@ public abstract class RegisterTableController {
 
     private final static String PREF_NODE_USER_ROOT = "/jgnash/uifx/views/register";
 
+    /**
+     * Delay after rows stop changing before attachments are prefetched
+     */
+    private static final Duration PREFETCH_DELAY = Duration.millis(250);
+
     @FXML
     protected TableView<Transaction> tableView;
 
@@ -89,6 +101,13 @@ public abstract class RegisterTableController {
 
     final private AccountPropertyWrapper accountPropertyWrapper = new AccountPropertyWrapper();
 
+    /**
+     * Displayed transactions with attachments that have not been prefetched yet
+     */
+    private final Set<Transaction> prefetchTransactions = new LinkedHashSet<>();
+
+    private final PauseTransition prefetchPause = new PauseTransition(PREFETCH_DELAY);
+
     @FXML
     void initialize() {
         // Bind the account property
@@ -114,6 +133,8 @@ public abstract class RegisterTableController {
 
         selectedTransactionProperty.bind(tableView.getSelectionModel().selectedItemProperty());
 
+        prefetchPause.setOnFinished(event -> prefetchAttachments());
+
         // Listen for engine events
         MessageBus.getInstance().registerListener(messageBusHandler, MessageChannel.TRANSACTION);
     }
@@ -131,6 +152,19 @@ public abstract class RegisterTableController {
 
     abstract Callback<Integer, Double> getColumnWeightFactory();
 
+    /**
+     * Prefetches the attachments of the rows shown once scrolling has settled
+     */
+    private void prefetchAttachments() {
+        final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
+
+        if (engine != null && !prefetchTransactions.isEmpty()) {
+            engine.prefetchAttachments(new ArrayList<>(prefetchTransactions));
+        }
+
+        prefetchTransactions.clear();
+    }
+
     ObjectProperty<Account> getAccountProperty() {
         return accountProperty;
     }
@@ -213,6 +247,16 @@ public abstract class RegisterTableController {
 
             rowMenu.getItems().addAll(markedAs, new SeparatorMenuItem(), duplicateItem, jumpItem, new SeparatorMenuItem(), deleteItem);
 
+            // rows are only created for the visible part of the table, prefetch remote attachments once scrolling settles
+            row.itemProperty().addListener((observable, oldValue, newValue) -> {
+                prefetchTransactions.remove(oldValue);  // the row was recycled, the old item scrolled out of view
+
+                if (newValue != null && newValue.getAttachment() != null) {
+                    prefetchTransactions.add(newValue);
+                    prefetchPause.playFromStart();
+                }
+            });
+
             // only display context menu for non-null items:
             row.contextMenuProperty().bind(
                     Bindings.when(Bindings.isNotNull(row.itemProperty()))
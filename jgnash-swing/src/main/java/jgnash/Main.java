@@ -31,7 +31,9 @@ import java.util.prefs.Preferences;
 
 import javax.swing.JOptionPane;
 
+import jgnash.engine.BootProfile;
 import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
 import jgnash.engine.jpa.JpaNetworkServer;
 import jgnash.engine.message.MessageBus;
 import jgnash.net.NetworkAuthenticator;
@@ -93,6 +95,12 @@ public final class Main {
     @Option(name = "-server", usage = "Act as a server using the specified file")
     private File serverFile;
 
+    @Option(name = "-incrementalBackup", usage = "Server writes incremental backups between full backups")
+    private boolean incrementalBackup;
+
+    @Option(name = "-restoreBackup", usage = "Restore a compressed backup and its incremental backups into the file given by -file")
+    private File restoreFile;
+
     @Option(name = "-password", usage = "Client or Server password")
     private String password;
 
@@ -108,6 +116,9 @@ public final class Main {
     @Option(name = "-enableHangDetect", usage = "Enable hang detection on the EDT")
     private static boolean hangDetect;
 
+    @Option(name = "-bootProfile", usage = "Print the time spent in each phase of opening a file")
+    private boolean bootProfile;
+
     public static boolean checkEDT() {
         return enableEDT;
     }
@@ -231,6 +242,8 @@ public final class Main {
                 }
             }
 
+            BootProfile.setPrintReport(bootProfile);
+
             // Set encrypt as a system property
             System.getProperties().put(EncryptionManager.ENCRYPTION_FLAG, Boolean.toString(encrypt));
             System.getProperties().put("ssl", Boolean.toString(encrypt));
@@ -254,10 +267,19 @@ public final class Main {
                 MessageBus.getInstance().shutDownRemoteServer(serverName, port + 1, password.toCharArray());
             } else if (uninstall) { /* Dump the registry settings if requested */
                 deleteUserPreferences();
+            } else if (restoreFile != null) {
+                if (file != null) {
+                    if (!EngineFactory.restoreCompressedXML(restoreFile, file)) {
+                        System.err.println("Restore of " + restoreFile.getAbsolutePath() + " failed");
+                    }
+                } else {
+                    System.err.println("The file to restore into must be specified with -file");
+                }
             } else if (serverFile != null) {
                 try {
                     if (!FileUtils.isFileLocked(serverFile.getAbsolutePath())) {
                         JpaNetworkServer networkServer = new JpaNetworkServer();
+                        networkServer.setIncrementalBackups(incrementalBackup);
                         networkServer.startServer(serverFile.getAbsolutePath(), port, password.toCharArray());
                     } else {
                         System.err.println(Resource.get().getString("Message.FileIsLocked"));
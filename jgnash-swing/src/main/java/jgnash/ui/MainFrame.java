@@ -58,6 +58,7 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.text.DefaultEditorKit;
 
 import jgnash.Main;
+import jgnash.engine.BootProfile;
 import jgnash.engine.Engine;
 import jgnash.engine.EngineFactory;
 import jgnash.engine.message.Message;
@@ -595,7 +596,9 @@ public class MainFrame extends JFrame implements MessageListener, ActionListener
                 case FILE_LOAD_SUCCESS:
                 case FILE_NEW_SUCCESS:
                     setOpenState(true);
-                    addViews();
+                    try (BootProfile.Span ignored = BootProfile.getInstance().start("MainFrame.addViews")) {
+                        addViews();
+                    }
                     updateTitle();
                     break;
                 case BACKGROUND_PROCESS_STARTED:
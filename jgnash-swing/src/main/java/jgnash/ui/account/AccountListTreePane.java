@@ -35,6 +35,7 @@ import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
 import jgnash.engine.Account;
+import jgnash.engine.BootProfile;
 import jgnash.engine.Engine;
 import jgnash.engine.EngineFactory;
 import jgnash.engine.RootAccount;
@@ -314,8 +315,10 @@ public class AccountListTreePane extends JScrollPane implements TreeSelectionLis
                     break;
                 case FILE_LOAD_SUCCESS:
                 case FILE_NEW_SUCCESS:
-                    refresh();
-                    expand();
+                    try (BootProfile.Span ignored = BootProfile.getInstance().start("AccountListTreePane.refresh")) {
+                        refresh();
+                        expand();
+                    }
                     break;
                 default: // ignore any other messages that don't belong to us
                     break;
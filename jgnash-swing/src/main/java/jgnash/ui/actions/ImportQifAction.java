@@ -19,6 +19,8 @@ package jgnash.ui.actions;
 
 import java.awt.event.ActionEvent;
 import java.io.IOException;
+import java.text.NumberFormat;
+import java.util.List;
 import java.util.Objects;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
@@ -107,7 +109,9 @@ public class ImportQifAction extends AbstractEnabledAction {
                     return;
                 }
 
-                class ImportFile extends SwingWorker<Void, Void> {
+                class ImportFile extends SwingWorker<Void, Double> {
+
+                    private final NumberFormat percentFormat = NumberFormat.getPercentInstance();
 
                     @Override
                     protected Void doInBackground() throws Exception {
@@ -115,12 +119,11 @@ public class ImportQifAction extends AbstractEnabledAction {
                         QifImport imp = new QifImport();
 
                         try {
-                            imp.doFullParse(chooser.getSelectedFile(), dateFormat);
-                        } catch (NoAccountException e) {                           
+                            imp.doStreamingImport(chooser.getSelectedFile(), dateFormat, this::publish);
+                        } catch (NoAccountException e) {
                             logger.log(Level.SEVERE, "Mistook partial qif file as a full qif file", e);
                         }
                         imp.dumpStats();
-                        imp.doFullImport();
                         if (imp.getDuplicateCount() > 0) {
                             String message = imp.getDuplicateCount() + " duplicate transactions were found";
                             logger.info(message);
@@ -128,6 +131,14 @@ public class ImportQifAction extends AbstractEnabledAction {
                         return null;
                     }
 
+                    @Override
+                    protected void process(final List<Double> chunks) {
+                        final double progress = chunks.get(chunks.size() - 1);
+
+                        UIApplication.getFrame().displayWaitMessage(rb.getString("Message.ImportWait") + " "
+                                + percentFormat.format(progress));
+                    }
+
                     @Override
                     protected void done() {
                         UIApplication.getFrame().stopWaitMessage();
@@ -32,6 +32,7 @@ import java.util.logging.Logger;
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
 
+import jgnash.engine.BootProfile;
 import jgnash.engine.Engine;
 import jgnash.engine.EngineFactory;
 import jgnash.ui.StaticUIMethods;
@@ -64,12 +65,26 @@ public class OpenAction {
     private OpenAction() {
     }
 
+    /**
+     * Ends a boot profile after the user interface has handled the newly loaded file.  The UI work is already
+     * queued on the EDT when a boot worker is done, so the profile ends after it.
+     *
+     * @param profiling {@code true} if the boot worker started the profile
+     */
+    private static void endBootProfile(final boolean profiling) {
+        if (profiling) {
+            EventQueue.invokeLater(() -> BootProfile.getInstance().end());
+        }
+    }
+
     public static void openAction() {
 
         final class BootEngine extends SwingWorker<Void, Void> {
 
             final private OpenDatabaseDialog dialog;
 
+            private boolean profiling;
+
             BootEngine(final OpenDatabaseDialog dialog) {
                 this.dialog = dialog;
             }
@@ -82,6 +97,8 @@ public class OpenAction {
 
                 EngineFactory.closeEngine(EngineFactory.DEFAULT);
 
+                profiling = BootProfile.getInstance().begin();
+
                 Engine engine = null;
 
                 final char[] password = dialog.getPassword();
@@ -119,6 +136,8 @@ public class OpenAction {
                 logger.info("openAction() done");
                 UIApplication.getFrame().stopWaitMessage();
 
+                endBootProfile(profiling);
+
                 if (remoteConnectionFailed) {
                     StaticUIMethods.displayError(Resource.get().getString("Message.Error.ServerConnection"));
                 }
@@ -149,6 +168,8 @@ public class OpenAction {
 
         final class BootEngine extends SwingWorker<Void, Void> {
 
+            private boolean profiling;
+
             @Override
             protected Void doInBackground() throws Exception {
                 final Resource rb = Resource.get();
@@ -158,6 +179,8 @@ public class OpenAction {
                 // Disk IO is heavy so delay and allow the UI to react before starting the boot operation
                 Thread.sleep(750);
 
+                profiling = BootProfile.getInstance().begin();
+
                 if (checkAndBackupOldVersion(file.getAbsolutePath(), password)) {
                     final Engine e = EngineFactory.bootLocalEngine(file.getAbsolutePath(), EngineFactory.DEFAULT, password);
                     if (e != null) {
@@ -174,6 +197,8 @@ public class OpenAction {
             protected void done() {
                 logger.info("openAction(final File file) done");
                 UIApplication.getFrame().stopWaitMessage();
+
+                endBootProfile(profiling);
             }
         }
 
@@ -198,11 +223,15 @@ public class OpenAction {
 
         final class BootEngine extends SwingWorker<Long, Void> {
 
+            private boolean profiling;
+
             @Override
             protected Long doInBackground() throws Exception {
 
                 final long startTime = System.currentTimeMillis();
 
+                profiling = BootProfile.getInstance().begin();
+
                 final Resource rb = Resource.get();
 
                 UIApplication.getFrame().displayWaitMessage(rb.getString("Message.PleaseWait"));
@@ -248,6 +277,8 @@ public class OpenAction {
                     logger.log(Level.SEVERE, e.toString(), e);
                 } finally {
                     UIApplication.getFrame().stopWaitMessage();
+
+                    endBootProfile(profiling);
                 }
             }
         }
@@ -280,6 +311,8 @@ public class OpenAction {
 
         final class BootEngine extends  SwingWorker<Void, Void> {
 
+            private boolean profiling;
+
             @Override
             protected Void doInBackground() throws Exception {
                 final Resource rb = Resource.get();
@@ -288,6 +321,8 @@ public class OpenAction {
 
                 Thread.sleep(750);
 
+                profiling = BootProfile.getInstance().begin();
+
                 EngineFactory.bootClientEngine(host, port, password, EngineFactory.DEFAULT);
 
                 logger.fine("Engine boot complete");
@@ -297,6 +332,8 @@ public class OpenAction {
             @Override
             protected void done() {
                 UIApplication.getFrame().stopWaitMessage();
+
+                endBootProfile(profiling);
             }
         }
 
@@ -23,6 +23,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.swing.JButton;
 import javax.swing.JDialog;
@@ -37,9 +38,7 @@ import javax.swing.event.ListSelectionListener;
 
 import jgnash.engine.Engine;
 import jgnash.engine.EngineFactory;
-import jgnash.engine.Transaction;
 import jgnash.engine.recurring.PendingReminder;
-import jgnash.engine.recurring.Reminder;
 import jgnash.ui.StaticUIMethods;
 import jgnash.ui.UIApplication;
 import jgnash.ui.components.FormattedJTable;
@@ -162,21 +161,13 @@ class NotificationDialog extends JDialog implements ActionListener, ListSelectio
             dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
         } else if (e.getSource() == okButton) {
 
-            reminders.stream().filter(PendingReminder::isSelected).forEach(pending -> {
-                Reminder reminder = pending.getReminder();
-                if (reminder.getTransaction() != null) { // add the transaction
-                    Transaction t = reminder.getTransaction();
+            // add the transactions and mark the reminders complete as a batch
+            final List<PendingReminder> selected = reminders.stream().filter(PendingReminder::isSelected)
+                    .collect(Collectors.toList());
 
-                    // Update to the commit date (commit date can be modified)
-                    t.setDate(pending.getCommitDate());
-                    engine.addTransaction(t);
-                }
-                // update the last fired date... date returned from the iterator
-                reminder.setLastDate(); // mark as complete
-                if (!engine.updateReminder(reminder)) {
-                    EventQueue.invokeLater(() -> StaticUIMethods.displayError(rb.getString("Message.Error.ReminderUpdate")));
-                }
-            });
+            if (!selected.isEmpty() && !engine.commitPendingReminders(selected)) {
+                EventQueue.invokeLater(() -> StaticUIMethods.displayError(rb.getString("Message.Error.ReminderUpdate")));
+            }
 
             // close the dialog
             dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
@@ -339,6 +339,9 @@ public class RecurringPanel extends JPanel implements ActionListener, MessageLis
                 final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
                 Objects.requireNonNull(engine);
 
+                // catch up reminders that do not need confirmation first
+                engine.commitAutoCreateReminders();
+
                 return engine.getPendingReminders();
             }
 
@@ -132,8 +132,10 @@ class AttachmentPanel extends JPanel implements ActionListener {
     Transaction buildTransaction(final Transaction transaction) {
         if (attachment != null) {
             if (moveAttachment) {   // move the attachment first
-                if (moveAttachment()) {
-                    transaction.setAttachment(attachment.getFileName().toString());
+                final String attachmentName = moveAttachment();
+
+                if (attachmentName != null) {
+                    transaction.setAttachment(attachmentName);
                 } else {
                     transaction.setAttachment(null);
 
@@ -152,11 +154,11 @@ class AttachmentPanel extends JPanel implements ActionListener {
         return transaction;
     }
 
-    private boolean moveAttachment() {
+    private String moveAttachment() {
         final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
         Objects.requireNonNull(engine);
 
-        return engine.addAttachment(attachment, false);
+        return engine.storeAttachment(attachment, false);
     }
 
     void attachmentAction() {
@@ -39,6 +39,7 @@ import javax.swing.event.TreeSelectionEvent;
 import javax.swing.tree.DefaultMutableTreeNode;
 
 import jgnash.engine.Account;
+import jgnash.engine.BootProfile;
 import jgnash.engine.Engine;
 import jgnash.engine.EngineFactory;
 import jgnash.engine.message.Message;
@@ -391,7 +392,9 @@ public class MainRegisterPanel extends JPanel implements ActionListener, Message
                     destroy();
                     break;
                 case FILE_LOAD_SUCCESS:
-                    showLast();
+                    try (BootProfile.Span ignored = BootProfile.getInstance().start("MainRegisterPanel.showLast")) {
+                        showLast();
+                    }
                     enableButtons(true);
                     break;
                 case FILE_NEW_SUCCESS:
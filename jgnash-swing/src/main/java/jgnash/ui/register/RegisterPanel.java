@@ -18,9 +18,13 @@
 package jgnash.ui.register;
 
 import java.awt.EventQueue;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.prefs.Preferences;
 
 import javax.swing.JButton;
@@ -28,10 +32,13 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
+import javax.swing.Timer;
 
 import jgnash.engine.Account;
 import jgnash.engine.AccountGroup;
 import jgnash.engine.AccountType;
+import jgnash.engine.Engine;
+import jgnash.engine.EngineFactory;
 import jgnash.engine.InvestmentTransaction;
 import jgnash.engine.Transaction;
 import jgnash.engine.TransactionType;
@@ -60,6 +67,11 @@ public class RegisterPanel extends AbstractRegisterPanel implements ActionListen
 
     private static final String NODE_REG_TAB = "/jgnash/ui/register/tab";
 
+    /**
+     * Delay in milliseconds after scrolling stops before attachments are prefetched
+     */
+    private static final int PREFETCH_DELAY = 250;
+
     private final NumberFormat format;
 
     final Account account;
@@ -176,6 +188,12 @@ public class RegisterPanel extends AbstractRegisterPanel implements ActionListen
         JScrollPane s = new JScrollPane(table);
         s.setBorder(new ShadowBorder());
 
+        // prefetch remote attachments of the visible rows once scrolling settles
+        final Timer prefetchTimer = new Timer(PREFETCH_DELAY, e -> prefetchVisibleAttachments());
+        prefetchTimer.setRepeats(false);
+
+        s.getViewport().addChangeListener(e -> prefetchTimer.restart());
+
         builder.append(s);
 
         buttonPanel = createButtonPanel();
@@ -184,6 +202,33 @@ public class RegisterPanel extends AbstractRegisterPanel implements ActionListen
         builder.append(tabbedPane);
     }
 
+    /**
+     * Prefetches the attachments of the visible transactions so remote attachments will be local when opened
+     */
+    private void prefetchVisibleAttachments() {
+        final Engine engine = EngineFactory.getEngine(EngineFactory.DEFAULT);
+        final Rectangle visible = table.getVisibleRect();
+
+        final int first = table.rowAtPoint(visible.getLocation());
+        int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+
+        if (engine == null || first < 0) {
+            return;
+        }
+
+        if (last < 0) {
+            last = table.getRowCount() - 1;
+        }
+
+        final List<Transaction> transactions = new ArrayList<>();
+
+        for (int i = last; i >= first; i--) {   // newest first
+            transactions.add(model.getTransactionAt(i));
+        }
+
+        engine.prefetchAttachments(transactions);
+    }
+
     private void saveLastTabUsed(final int index) {
         Preferences tabPreferences = Preferences.userRoot().node(NODE_REG_TAB);
         String id = getAccount().getUuid();